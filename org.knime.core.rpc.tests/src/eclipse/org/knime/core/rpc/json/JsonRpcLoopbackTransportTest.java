@@ -0,0 +1,300 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.rpc.json;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.knime.core.rpc.RpcClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tests the {@link JsonRpcLoopbackTransport}, i.e. concurrent calls, batches and binary results.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class JsonRpcLoopbackTransportTest {
+
+    private static RpcClient createClient(final Service service) {
+        JsonRpcServer server = new JsonRpcServer();
+        server.addService("Service", service);
+        return JsonRpcTestUtil.createRpcClientInstanceForTesting(null, new JsonRpcLoopbackTransport(server));
+    }
+
+    /**
+     * Tests that several calls are in flight at the same time, i.e. a call doesn't block the others.
+     *
+     * @throws Exception
+     */
+    @Test(timeout = 10000)
+    public void testConcurrentCalls() throws Exception {
+        int numCalls = 4;
+        ServiceImpl impl = new ServiceImpl(new CountDownLatch(numCalls));
+        RpcClient client = createClient(impl);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < numCalls; i++) {
+            String arg = "call" + i;
+            // each call waits until all calls arrived at the server, hence would dead-lock if processed sequentially
+            results.add(client.callServiceWithRes(Service.class, "Service", s -> s.awaitAll(arg)));
+        }
+        for (int i = 0; i < numCalls; i++) {
+            assertEquals("call" + i, results.get(i).get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Tests binary results being delivered as raw bytes.
+     */
+    @Test
+    public void testBinaryResult() {
+        Service service = createClient(new ServiceImpl(null)).getService(Service.class, "Service");
+        assertArrayEquals("abc".getBytes(StandardCharsets.UTF_8), service.bytes("abc"));
+        ByteBuffer buffer = service.buffer(3);
+        assertEquals(3, buffer.remaining());
+        assertEquals(2, buffer.get(2));
+    }
+
+    /**
+     * Tests that an exception thrown by a method with binary result is re-thrown on the client side.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testBinaryResultException() {
+        createClient(new ServiceImpl(null)).getService(Service.class, "Service").buffer(-1);
+    }
+
+    /**
+     * Tests binary results of a non-public handler class whose interface overloads the binary method with a
+     * non-binary one of the same arity, registered for its service interface and as single service.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBinaryResultOfOverloadedMethodInNonPublicHandler() throws Exception {
+        ObjectMapper mapper = ObjectMapperUtil.getInstance().getObjectMapper();
+        String request = JsonRpcClient.convertCall("OverloadedService",
+            OverloadedService.class.getMethod("data", String.class), new Object[]{"abc"}, mapper, 1);
+        String unscopedRequest = JsonRpcClient.convertCall(null,
+            OverloadedService.class.getMethod("data", String.class), new Object[]{"abc"}, mapper, 2);
+
+        JsonRpcServer server = new JsonRpcServer();
+        server.addService(OverloadedService.class, new OverloadedServiceImpl());
+        assertEquals(ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8)), server.handleBinaryRequest(request));
+
+        // anonymous handler, service interface not known
+        JsonRpcSingleServer<OverloadedService> singleServer = new JsonRpcSingleServer<>(new OverloadedService() {
+            @Override
+            public String data(final int length) {
+                return Integer.toString(length);
+            }
+
+            @Override
+            public byte[] data(final String s) {
+                return s.getBytes(StandardCharsets.UTF_8);
+            }
+        });
+        assertEquals(ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8)),
+            singleServer.handleBinaryRequest(unscopedRequest));
+    }
+
+    /**
+     * Tests that a method without binary overload is rejected.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonBinaryMethodRejected() throws Exception {
+        JsonRpcServer server = new JsonRpcServer();
+        server.addService(Service.class, new ServiceImpl(null));
+        server.handleBinaryRequest(JsonRpcClient.convertCall("Service", Service.class.getMethod("echo", String.class),
+            new Object[]{"abc"}, ObjectMapperUtil.getInstance().getObjectMapper(), 1));
+    }
+
+    /**
+     * Tests that batched requests are answered in request order.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBatch() throws Exception {
+        JsonRpcServer server = new JsonRpcServer();
+        server.addService("Service", new ServiceImpl(null));
+        JsonRpcLoopbackTransport transport = new JsonRpcLoopbackTransport(server);
+        ObjectMapper mapper = ObjectMapperUtil.getInstance().getObjectMapper();
+        List<String> requests = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            requests.add(JsonRpcClient.convertCall("Service", Service.class.getMethod("echo", String.class),
+                new Object[]{"m" + i}, mapper, i));
+        }
+        List<String> responses = transport.sendBatchAsync(requests).get(5, TimeUnit.SECONDS);
+        assertEquals(requests.size(), responses.size());
+        for (int i = 0; i < responses.size(); i++) {
+            JsonNode response = mapper.readTree(responses.get(i));
+            assertEquals(i, response.get("id").asInt());
+            assertEquals("m" + i, response.get("result").asText());
+        }
+    }
+
+    /**
+     * Service used for testing.
+     */
+    public interface Service {
+
+        /**
+         * @param s
+         * @return s
+         */
+        String echo(String s);
+
+        /**
+         * @param s
+         * @return s, after all expected calls arrived
+         */
+        String awaitAll(String s);
+
+        /**
+         * @param s
+         * @return the UTF-8 bytes of s
+         */
+        byte[] bytes(String s);
+
+        /**
+         * @param length
+         * @return a buffer with the values 0 ... length-1
+         */
+        ByteBuffer buffer(int length);
+    }
+
+    /**
+     * Service with an overloaded binary method used for testing.
+     */
+    public interface OverloadedService {
+
+        /**
+         * @param length
+         * @return the length as string
+         */
+        String data(int length);
+
+        /**
+         * @param s
+         * @return the UTF-8 bytes of s
+         */
+        byte[] data(String s);
+    }
+
+    private static final class OverloadedServiceImpl implements OverloadedService {
+
+        @Override
+        public String data(final int length) {
+            return Integer.toString(length);
+        }
+
+        @Override
+        public byte[] data(final String s) {
+            return s.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Service implementation used for testing.
+     */
+    public static final class ServiceImpl implements Service {
+
+        private final CountDownLatch m_latch;
+
+        ServiceImpl(final CountDownLatch latch) {
+            m_latch = latch;
+        }
+
+        @Override
+        public String echo(final String s) {
+            return s;
+        }
+
+        @Override
+        public String awaitAll(final String s) {
+            m_latch.countDown();
+            try {
+                if (!m_latch.await(5, TimeUnit.SECONDS)) {
+                    throw new IllegalStateException("Calls not processed concurrently");
+                }
+            } catch (InterruptedException ex) { // NOSONAR
+                throw new IllegalStateException(ex);
+            }
+            return s;
+        }
+
+        @Override
+        public byte[] bytes(final String s) {
+            return s.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public ByteBuffer buffer(final int length) {
+            if (length < 0) {
+                throw new IllegalStateException("Negative length");
+            }
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            for (int i = 0; i < length; i++) {
+                buffer.put((byte)i);
+            }
+            buffer.flip();
+            return buffer;
+        }
+    }
+
+}
@@ -51,11 +51,15 @@
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -65,6 +69,7 @@
 import org.knime.core.node.workflow.NodeContainer;
 import org.knime.core.node.workflow.NodeContext;
 import org.knime.core.rpc.json.JsonRpcClient;
+import org.knime.core.util.ThreadUtils;
 
 /**
  * Base class for node data service client implementations, such as {@link JsonRpcClient}.
@@ -80,6 +85,19 @@
  */
 public abstract class AbstractRpcClient implements RpcClient {
 
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    /**
+     * Evaluates remote service calls if the transport is an {@link AsyncRpcTransport}, such that several calls can be
+     * in flight at the same time.
+     */
+    private static final ExecutorService ASYNC_CALL_EXECUTOR =
+        ThreadUtils.executorServiceWithContext(Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "KNIME-RPC-Client-" + THREAD_COUNTER.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }));
+
     /**
      * Used to transport the serialized remote procedure call to a remote node model.
      */
@@ -205,6 +223,10 @@ public <S, R> Future<R> callServiceWithRes(final Class<S> serviceInterface, fina
         final Function<S, R> serviceEvaluator) {
         S service = getService(serviceInterface);
 
+        if (m_rpcTransport instanceof AsyncRpcTransport && isConnectedRemotely()) {
+            // don't block the caller while the remote call is in flight
+            return CompletableFuture.supplyAsync(() -> serviceEvaluator.apply(service), ASYNC_CALL_EXECUTOR);
+        }
         CompletableFuture<R> result = new CompletableFuture<>();
         result.complete(serviceEvaluator.apply(service));
         return result;
@@ -227,12 +249,30 @@ private <S> S createRemoteProxyHandler(final Class<S> serviceInterface, final St
         return (S)Proxy.newProxyInstance(serviceInterface.getClassLoader(), new Class[]{serviceInterface},
             (proxy, method, params) -> {
                 String request = convertCall(serviceName, method, params);
+                Class<?> returnType = method.getReturnType();
+                if (m_rpcTransport instanceof AsyncRpcTransport
+                    && (returnType == byte[].class || returnType == ByteBuffer.class)) {
+                    // binary results are transported as raw frames instead of JSON strings
+                    ByteBuffer result =
+                        AsyncRpcTransport.await(((AsyncRpcTransport)m_rpcTransport).sendBinaryAsync(request));
+                    return returnType == ByteBuffer.class ? result : toByteArray(result);
+                }
                 String response = m_rpcTransport.sendAndReceive(request);
                 // TODO save some memory via streaming? e.g., new PipedOutputStream() //NOSONAR
                 return convertResult(response, method.getGenericReturnType());
             });
     }
 
+    private static byte[] toByteArray(final ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() == 0 && buffer.position() == 0
+            && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
     /**
      * {@inheritDoc}
      */
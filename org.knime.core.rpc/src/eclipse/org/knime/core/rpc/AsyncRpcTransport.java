@@ -0,0 +1,151 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.rpc;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * An {@link RpcTransport} that delivers remote procedure calls asynchronously. Implementations are expected to
+ * multiplex calls, i.e. several requests may be in flight at the same time and their responses are correlated with the
+ * requests by the transport (e.g. via the JSON-RPC id) rather than by strict request/response alternation.
+ *
+ * <p>
+ * Besides the textual responses, a transport can deliver binary responses (e.g. table slices or images) as raw frames
+ * via {@link #sendBinaryAsync(String)}, which avoids encoding large payloads as JSON strings. The synchronous
+ * {@link #sendAndReceive(String)} is implemented by waiting for {@link #sendAsync(String)}, so existing callers keep
+ * working unchanged.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ *
+ * @noreference This class is not intended to be referenced by clients.
+ * @noextend This class is not intended to be subclassed by clients.
+ *
+ * @since 4.5
+ */
+public interface AsyncRpcTransport extends RpcTransport {
+
+    /**
+     * Sends a remote procedure call without waiting for its response.
+     *
+     * @param rpc a remote procedure call, e.g., in JSON-RPC format
+     * @return a future completed with the serialized response (e.g. a JSON-RPC formatted result or error), or
+     *         completed exceptionally if the call could not be delivered
+     */
+    CompletableFuture<String> sendAsync(String rpc);
+
+    /**
+     * Sends a remote procedure call whose result is a binary payload. The response is delivered as raw frame, i.e.
+     * without any JSON-RPC envelope.
+     *
+     * @param rpc a remote procedure call, e.g., in JSON-RPC format, to a method returning <code>byte[]</code> or
+     *            {@link ByteBuffer}
+     * @return a future completed with the binary result (positioned at the beginning of the payload), or completed
+     *         exceptionally with the exception thrown by the remote method or the transport
+     */
+    CompletableFuture<ByteBuffer> sendBinaryAsync(String rpc);
+
+    /**
+     * Sends several remote procedure calls at once. The default implementation sends each call individually via
+     * {@link #sendAsync(String)}; transports supporting request batching (e.g. JSON-RPC batch arrays) should override
+     * this method to deliver all calls in a single round trip.
+     *
+     * @param rpcs the remote procedure calls
+     * @return a future completed with the responses, in the same order as the requests
+     */
+    default CompletableFuture<List<String>> sendBatchAsync(final List<String> rpcs) {
+        List<CompletableFuture<String>> futures = new ArrayList<>(rpcs.size());
+        for (String rpc : rpcs) {
+            futures.add(sendAsync(rpc));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(v -> {
+            List<String> responses = new ArrayList<>(futures.size());
+            for (CompletableFuture<String> f : futures) {
+                responses.add(f.join());
+            }
+            return responses;
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Waits for the response of {@link #sendAsync(String)}.
+     */
+    @Override
+    default String sendAndReceive(final String rpc) {
+        return await(sendAsync(rpc));
+    }
+
+    /**
+     * Waits for the given future and unwraps a {@link CompletionException} into its cause if that is a runtime
+     * exception.
+     *
+     * @param <T> the result type
+     * @param future the future to wait for
+     * @return the result of the future
+     * @throws IllegalStateException if the future completed with a checked exception
+     * @throws CancellationException if the future was cancelled
+     */
+    static <T> T await(final CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) { // NOSONAR
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw new IllegalStateException("Remote procedure call failed: " + cause.getMessage(), cause);
+        }
+    }
+
+}
@@ -51,6 +51,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 /**
  * An {@link RpcServer} implementation is used to serve remote requests to one or more node data services.
@@ -96,4 +97,19 @@ default <S> S getHandler(final Class<S> serviceInterface) {
      */
     void handleRequest(InputStream in, OutputStream out) throws IOException;
 
+    /**
+     * Handles a single request to a service method with a binary result, i.e. one returning <code>byte[]</code> or
+     * {@link ByteBuffer}. The result is returned as is, without being wrapped into a serialized response, such that
+     * transports can deliver it as raw frame (see {@link AsyncRpcTransport#sendBinaryAsync(String)}).
+     *
+     * @param request the serialized request
+     * @return the binary result of the invoked method
+     * @throws UnsupportedOperationException if the server doesn't support binary results (default)
+     * @throws Exception the exception thrown by the invoked service method
+     * @since 4.5
+     */
+    default ByteBuffer handleBinaryRequest(final String request) throws Exception { // NOSONAR
+        throw new UnsupportedOperationException("Binary requests not supported by " + getClass().getSimpleName());
+    }
+
 }
@@ -0,0 +1,179 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.rpc.json;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Invokes service methods with a binary result (<code>byte[]</code> or {@link ByteBuffer}) from a JSON-RPC request
+ * and returns the raw result instead of a JSON-RPC response. Used by {@link JsonRpcServer#handleBinaryRequest(String)}
+ * and {@link JsonRpcSingleServer#handleBinaryRequest(String)}.
+ *
+ * <p>
+ * The method is looked up in the service interface the handler is registered for or, if that isn't known, in the
+ * public interfaces and classes of the handler, such that handlers can be non-public or anonymous classes. Among
+ * overloads with the requested name and number of parameters the one with a binary result is used.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class JsonRpcBinaryInvoker {
+
+    private JsonRpcBinaryInvoker() {
+        // utility class
+    }
+
+    /**
+     * @param request the JSON-RPC request
+     * @param mapper used to deserialize the parameters
+     * @param handlerLookup returns the handler for a service name (<code>null</code> if the method isn't scoped)
+     * @param serviceInterfaceLookup returns the interface the handler is registered for, <code>null</code> if unknown
+     * @return the binary result
+     * @throws Exception the exception thrown by the invoked method
+     */
+    static ByteBuffer invoke(final String request, final ObjectMapper mapper,
+        final Function<String, Object> handlerLookup, final Function<String, Class<?>> serviceInterfaceLookup)
+        throws Exception { // NOSONAR
+        JsonNode requestNode = mapper.readTree(request);
+        JsonNode methodNode = requestNode.get("method");
+        if (methodNode == null || !methodNode.isTextual()) {
+            throw new IllegalArgumentException("Invalid JSON-RPC request, no method given: " + request);
+        }
+        String qualifiedName = methodNode.asText();
+        int dot = qualifiedName.lastIndexOf('.');
+        String serviceName = dot < 0 ? null : qualifiedName.substring(0, dot);
+        String methodName = qualifiedName.substring(dot + 1);
+        Object handler = handlerLookup.apply(serviceName);
+        if (handler == null) {
+            throw new IllegalArgumentException("No service registered for name '" + serviceName + "'");
+        }
+
+        JsonNode params = requestNode.get("params");
+        int paramCount = params == null ? 0 : params.size();
+        Method method = findMethod(getServiceTypes(handler, serviceInterfaceLookup.apply(serviceName)), methodName,
+            paramCount);
+        Object[] args = new Object[paramCount];
+        Type[] paramTypes = method.getGenericParameterTypes();
+        for (int i = 0; i < paramCount; i++) {
+            args[i] = mapper.convertValue(params.get(i), mapper.getTypeFactory().constructType(paramTypes[i]));
+        }
+
+        Object result;
+        try {
+            result = method.invoke(handler, args);
+        } catch (InvocationTargetException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            }
+            throw ex;
+        }
+        if (result == null) {
+            return ByteBuffer.allocate(0);
+        } else if (result instanceof byte[]) {
+            return ByteBuffer.wrap((byte[])result);
+        } else {
+            return ((ByteBuffer)result).slice();
+        }
+    }
+
+    /**
+     * @return the types declaring the methods that can be invoked on the handler: the service interface if known,
+     *         otherwise the public interfaces and classes of the handler (reflective calls of the methods of a
+     *         non-public class fail even if they implement a public interface)
+     */
+    private static List<Class<?>> getServiceTypes(final Object handler, final Class<?> serviceInterface) {
+        if (serviceInterface != null) {
+            return Collections.singletonList(serviceInterface);
+        }
+        Set<Class<?>> types = new LinkedHashSet<>();
+        for (Class<?> c = handler.getClass(); c != null; c = c.getSuperclass()) {
+            if (Modifier.isPublic(c.getModifiers())) {
+                types.add(c);
+            }
+            for (Class<?> i : c.getInterfaces()) {
+                if (Modifier.isPublic(i.getModifiers())) {
+                    types.add(i);
+                }
+            }
+        }
+        return new ArrayList<>(types);
+    }
+
+    private static Method findMethod(final List<Class<?>> types, final String methodName, final int paramCount) {
+        boolean nameFound = false;
+        for (Class<?> type : types) {
+            for (Method m : type.getMethods()) {
+                if (m.getName().equals(methodName) && m.getParameterCount() == paramCount) {
+                    Class<?> returnType = m.getReturnType();
+                    if (returnType == byte[].class || returnType == ByteBuffer.class) {
+                        return m;
+                    }
+                    nameFound = true; // a non-binary overload, keep looking
+                }
+            }
+        }
+        if (nameFound) {
+            throw new IllegalArgumentException(
+                "Method '" + methodName + "' doesn't return a binary result (byte[] or ByteBuffer)");
+        }
+        throw new IllegalArgumentException("No method '" + methodName + "' with " + paramCount
+            + " parameter(s) found in " + types);
+    }
+
+}
@@ -0,0 +1,185 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.rpc.json;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.core.node.util.CheckUtils;
+import org.knime.core.rpc.AsyncRpcTransport;
+import org.knime.core.rpc.RpcServer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * An in-process {@link AsyncRpcTransport} that hands the requests to an {@link RpcServer} in the same JVM. Requests
+ * are processed concurrently on an executor, i.e. several calls can be in flight at the same time, and batches are sent
+ * to the server as a single JSON-RPC batch array. Mainly intended for testing clients and services against the
+ * asynchronous transport contract without a real connection.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ *
+ * @noreference This class is not intended to be referenced by clients.
+ * @noextend This class is not intended to be subclassed by clients.
+ *
+ * @since 4.5
+ */
+public class JsonRpcLoopbackTransport implements AsyncRpcTransport {
+
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+
+    private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "KNIME-RPC-Loopback-" + THREAD_COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final RpcServer m_server;
+
+    private final Executor m_executor;
+
+    private final ObjectMapper m_mapper;
+
+    /**
+     * Creates a loopback transport processing requests on a shared daemon thread pool.
+     *
+     * @param server the server handling the requests
+     */
+    public JsonRpcLoopbackTransport(final RpcServer server) {
+        this(server, DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * @param server the server handling the requests
+     * @param executor the executor the requests are processed on
+     */
+    public JsonRpcLoopbackTransport(final RpcServer server, final Executor executor) {
+        m_server = CheckUtils.checkArgumentNotNull(server, "Server must not be null");
+        m_executor = CheckUtils.checkArgumentNotNull(executor, "Executor must not be null");
+        m_mapper = ObjectMapperUtil.getInstance().getObjectMapper();
+    }
+
+    @Override
+    public CompletableFuture<String> sendAsync(final String rpc) {
+        return CompletableFuture.supplyAsync(() -> handle(rpc), m_executor);
+    }
+
+    @Override
+    public CompletableFuture<ByteBuffer> sendBinaryAsync(final String rpc) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return m_server.handleBinaryRequest(rpc);
+            } catch (RuntimeException ex) { // NOSONAR
+                throw ex;
+            } catch (Exception ex) { // NOSONAR
+                throw new CompletionException(ex);
+            }
+        }, m_executor);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * All requests are delivered to the server as one JSON-RPC batch array; the responses are correlated with the
+     * requests via their ids.
+     */
+    @Override
+    public CompletableFuture<List<String>> sendBatchAsync(final List<String> rpcs) {
+        if (rpcs.size() <= 1) {
+            return AsyncRpcTransport.super.sendBatchAsync(rpcs);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            String response = handle("[" + String.join(",", rpcs) + "]");
+            try {
+                JsonNode responseNode = m_mapper.readTree(response);
+                Map<String, String> responsesById = new HashMap<>();
+                for (JsonNode r : responseNode) {
+                    responsesById.put(idOf(r), m_mapper.writeValueAsString(r));
+                }
+                List<String> result = new ArrayList<>(rpcs.size());
+                for (String rpc : rpcs) {
+                    String id = idOf(m_mapper.readTree(rpc));
+                    result.add(CheckUtils.checkNotNull(responsesById.get(id), "No response for request with id %s",
+                        id));
+                }
+                return result;
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Invalid JSON-RPC batch response", ex);
+            }
+        }, m_executor);
+    }
+
+    private static String idOf(final JsonNode node) {
+        JsonNode id = node.get("id");
+        return id == null ? null : id.asText();
+    }
+
+    private String handle(final String rpc) {
+        try (ByteArrayInputStream request = new ByteArrayInputStream(rpc.getBytes(StandardCharsets.UTF_8));
+                ByteArrayOutputStream response = new ByteArrayOutputStream()) {
+            m_server.handleRequest(request, response);
+            return new String(response.toByteArray(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("I/O exception during node data service rpc request handling", ex);
+        }
+    }
+
+}
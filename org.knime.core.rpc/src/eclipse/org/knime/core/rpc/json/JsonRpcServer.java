@@ -51,6 +51,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -85,8 +86,13 @@ public class JsonRpcServer implements RpcServer {
      */
     private final Map<String, Object> m_handlers = new HashMap<>();
 
+    /** The service interfaces of the handlers added with {@link #addService(Class, Object)}, by service name. */
+    private final Map<String, Class<?>> m_serviceInterfaces = new HashMap<>();
+
     private final JsonRpcMultiServer m_jsonRpcServer;
 
+    private final ObjectMapper m_mapper;
+
     /**
      * JSON-RPC server with default object mapper.
      */
@@ -100,6 +106,7 @@ public JsonRpcServer() {
     public JsonRpcServer(final ObjectMapper mapper) {
         CheckUtils.checkNotNull(mapper, "Object mapper passed to JSON-RPC server must not be null.");
         m_jsonRpcServer = new JsonRpcMultiServer(mapper);
+        m_mapper = mapper;
     }
 
     /**
@@ -113,6 +120,7 @@ public JsonRpcServer(final ObjectMapper mapper) {
      */
     public <S> void addService(final Class<S> serviceInterface, final S handler) {
         addService(serviceInterface.getSimpleName(), handler);
+        m_serviceInterfaces.put(serviceInterface.getSimpleName(), serviceInterface);
     }
 
     /**
@@ -127,6 +135,7 @@ public <S> void addService(final String serviceName, final S handler) {
         CheckUtils.checkNotNull(handler, "Service implementation passed to JSON-RPC server must not be null.");
         m_jsonRpcServer.addService(serviceName, handler);
         m_handlers.put(serviceName, handler);
+        m_serviceInterfaces.remove(serviceName);
     }
 
     /**
@@ -139,6 +148,18 @@ public void handleRequest(final InputStream in, final OutputStream out) throws I
         m_jsonRpcServer.handleRequest(in, out);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * The method to call needs to include the name of the service, see {@link #addService(String, Object)}.
+     *
+     * @since 4.5
+     */
+    @Override
+    public ByteBuffer handleBinaryRequest(final String request) throws Exception { // NOSONAR
+        return JsonRpcBinaryInvoker.invoke(request, m_mapper, m_handlers::get, m_serviceInterfaces::get);
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public <S> S getHandler(final String serviceName) {
@@ -50,6 +50,7 @@
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import org.knime.core.node.util.CheckUtils;
@@ -86,9 +87,10 @@
     private final ObjectMapper m_mapper;
 
     /**
-     * Used in the JSON-RPC call as id to correlate the request with the response.
+     * Used in the JSON-RPC call as id to correlate the request with the response. Atomic since calls can be issued
+     * concurrently via an {@link org.knime.core.rpc.AsyncRpcTransport}.
      */
-    long m_callId = 0;
+    final AtomicLong m_callId = new AtomicLong();
 
     /**
      * @param serviceInterface the data retrieval interface offered to the node dialog/view by the node model. This
@@ -118,8 +120,7 @@ public JsonRpcSingleClient(final Class<S> serviceInterface, final ObjectMapper m
 
     @Override
     protected String convertCall(final Method method, final Object[] args) {
-        String res = JsonRpcClient.convertCall(null, method, args, m_mapper, m_callId);
-        m_callId++;
+        String res = JsonRpcClient.convertCall(null, method, args, m_mapper, m_callId.getAndIncrement());
         return res;
     }
 
@@ -51,6 +51,7 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.rpc.RpcSingleServer;
@@ -84,6 +85,8 @@
 
     private com.googlecode.jsonrpc4j.JsonRpcServer m_jsonRpcServer;
 
+    private final ObjectMapper m_mapper;
+
     /**
      * @param handler implementation of the node data service interface
      */
@@ -99,6 +102,7 @@ public JsonRpcSingleServer(final S handler, final ObjectMapper mapper) {
         CheckUtils.checkNotNull(mapper, "Object mapper passed to JSON-RPC server must not be null.");
         m_handler = CheckUtils.checkNotNull(handler, "The node data service implementation must not be null.");
         m_jsonRpcServer = new com.googlecode.jsonrpc4j.JsonRpcServer(mapper, handler);
+        m_mapper = mapper;
     }
 
     @Override
@@ -106,6 +110,16 @@ public void handleRequest(final InputStream in, final OutputStream out) throws I
         m_jsonRpcServer.handleRequest(in, out);
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * @since 4.5
+     */
+    @Override
+    public ByteBuffer handleBinaryRequest(final String request) throws Exception { // NOSONAR
+        return JsonRpcBinaryInvoker.invoke(request, m_mapper, serviceName -> m_handler, serviceName -> null);
+    }
+
     @Override
     public S getHandler() {
         return m_handler;
@@ -52,6 +52,7 @@
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -60,6 +61,7 @@
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Random;
 import java.util.Set;
 
 import org.apache.commons.lang3.ArrayUtils;
@@ -69,7 +71,19 @@
 import org.knime.core.data.def.DoubleCell;
 import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
 import org.knime.core.data.meta.TestDataColumnMetaData;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
 
 /**
  * Testcases for {@link DataTableDomainCreator}.
@@ -631,4 +645,95 @@ public void testInitMetaData() {
         assertThat(getMetaData(domainCreator), is(new TestDataColumnMetaData(concat)));
     }
 
-}
\ No newline at end of file
+
+    /**
+     * Creates a table with enough rows to be scanned in parallel batches (of 10,000 rows). The int and double columns
+     * test the bounds. The values of the first string column first occur in different batches, the second string
+     * column has 50 distinct values per batch but more than 60 in total.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static BufferedDataTable createLargeTable(final DataTableSpec spec) {
+        final ExecutionContext exec = new ExecutionContext(new DefaultNodeProgressMonitor(),
+            new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+            SingleNodeContainer.MemoryPolicy.CacheSmallInMemory, NotInWorkflowDataRepository.newInstance());
+        final Random rand = new Random(42);
+        final BufferedDataContainer cont = exec.createDataContainer(spec);
+        for (int row = 0; row < 55000; row++) {
+            final DataCell doubleCell = row % 997 == 0 ? DataType.getMissingCell()
+                : row % 991 == 0 ? new DoubleCell(Double.NaN) : new DoubleCell(rand.nextGaussian() * 100);
+            cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long)row),
+                new IntCell(rand.nextInt(1000000) - 500000), doubleCell,
+                new StringCell("v" + rand.nextInt(Math.min(55, row / 1000 + 1))),
+                new StringCell("m" + ((row / 10000) * 50 + rand.nextInt(50)))));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    private static DataTableSpec createLargeTableSpec() {
+        return new DataTableSpec(new DataColumnSpecCreator("Int col", IntCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Double col", DoubleCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("String col", StringCell.TYPE).createSpec(),
+            new DataColumnSpecCreator("Many values col", StringCell.TYPE).createSpec());
+    }
+
+    /**
+     * Checks that the domain of a buffered table, which is computed in parallel batches if more than one processor is
+     * available, equals the domain of a sequential scan, including the order of the possible values.
+     *
+     * @throws Exception if the scan fails
+     */
+    @Test
+    public void testParallelUpdateEqualsSequential() throws Exception {
+        final DataTableSpec spec = createLargeTableSpec();
+        final BufferedDataTable table = createLargeTable(spec);
+
+        final DataTableDomainCreator sequential = new DataTableDomainCreator(spec, false);
+        sequential.setMaxPossibleValues(60);
+        sequential.updateDomain((DataTable)table, null, table.size());
+        final DataTableDomainCreator parallel = new DataTableDomainCreator(spec, false);
+        parallel.setMaxPossibleValues(60);
+        parallel.updateDomain(table, new ExecutionMonitor());
+
+        final DataTableSpec sequentialSpec = sequential.createSpec();
+        final DataTableSpec parallelSpec = parallel.createSpec();
+        for (int i = 0; i < spec.getNumColumns(); i++) {
+            final DataColumnDomain expected = sequentialSpec.getColumnSpec(i).getDomain();
+            final DataColumnDomain actual = parallelSpec.getColumnSpec(i).getDomain();
+            assertThat("Unexpected lower bound in column " + i, actual.getLowerBound(), is(expected.getLowerBound()));
+            assertThat("Unexpected upper bound in column " + i, actual.getUpperBound(), is(expected.getUpperBound()));
+            assertThat("Unexpected possible values in column " + i,
+                actual.hasValues() ? new ArrayList<>(actual.getValues()) : null,
+                is(expected.hasValues() ? new ArrayList<>(expected.getValues()) : null));
+        }
+        assertThat("Unexpected number of possible values", sequentialSpec.getColumnSpec(2).getDomain().getValues()
+            .size(), is(55));
+        assertThat("Possible values exceed the limit", sequentialSpec.getColumnSpec(3).getDomain().hasValues(),
+            is(false));
+    }
+
+    /**
+     * Checks that a canceled parallel scan leaves the domain creator unchanged.
+     */
+    @Test
+    public void testParallelUpdateCanceled() {
+        final DataTableSpec spec = createLargeTableSpec();
+        final BufferedDataTable table = createLargeTable(spec);
+        final DataTableDomainCreator domainCreator = new DataTableDomainCreator(spec, false);
+        final DefaultNodeProgressMonitor progress = new DefaultNodeProgressMonitor();
+        progress.setExecuteCanceled();
+        try {
+            domainCreator.updateDomain(table, new ExecutionMonitor(progress));
+            fail("Expected CanceledExecutionException");
+        } catch (CanceledExecutionException e) { // NOSONAR expected
+        }
+        final DataTableSpec domainSpec = domainCreator.createSpec();
+        for (int i = 0; i < spec.getNumColumns(); i++) {
+            final DataColumnDomain domain = domainSpec.getColumnSpec(i).getDomain();
+            assertThat("Unexpected lower bound in column " + i, domain.getLowerBound(), is(nullValue()));
+            assertThat("Unexpected upper bound in column " + i, domain.getUpperBound(), is(nullValue()));
+        }
+        assertThat("Unexpected possible values", domainSpec.getColumnSpec(2).getDomain().getValues(),
+            is(Collections.<DataCell> emptySet()));
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.date.DateAndTimeCell;
+import org.knime.core.data.date.DateAndTimeCellSerializer;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.BooleanCell.BooleanSerializer;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.DoubleCell.DoubleSerializer;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.IntCell.IntCellSerializer;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.LongCell.LongSerializer;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.def.TimestampCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Checks that {@link FixedWidthDataCellSerializer} implementations write the same bytes as their stream based
+ * {@link DataCellSerializer} counterparts and that such cells survive a round trip through a table on disc.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+@SuppressWarnings("deprecation")
+public class FixedWidthDataCellSerializerTest {
+
+    /** Int, long, double, boolean cells. */
+    @Test
+    public void testPrimitiveCells() throws IOException {
+        assertSameBytes(new IntCellSerializer(), new IntCell(-42));
+        assertSameBytes(new IntCellSerializer(), new IntCell(Integer.MAX_VALUE));
+        assertSameBytes(new LongSerializer(), new LongCell(Long.MIN_VALUE + 17));
+        assertSameBytes(new DoubleSerializer(), new DoubleCell(Math.PI));
+        assertSameBytes(new DoubleSerializer(), new DoubleCell(Double.NaN));
+        assertSameBytes(new BooleanSerializer(), BooleanCell.TRUE);
+        assertSameBytes(new BooleanSerializer(), BooleanCell.FALSE);
+    }
+
+    /** Legacy date and time cell. */
+    @Test
+    public void testDateAndTimeCell() throws IOException {
+        assertSameBytes(new DateAndTimeCellSerializer(), new DateAndTimeCell(2021, 5, 17));
+        assertSameBytes(new DateAndTimeCellSerializer(), new DateAndTimeCell(13, 7, 1, 500));
+    }
+
+    /**
+     * Writes cells with fixed width serializers to a table on disc and reads them back. The values include the escape
+     * and terminate bytes of the table format and are mixed with missing and variable width cells.
+     */
+    @Test
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void testTableRoundTrip() {
+        final ExecutionContext exec = new ExecutionContext(new DefaultNodeProgressMonitor(),
+            new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, NotInWorkflowDataRepository.newInstance());
+        final DataTableSpec spec = new DataTableSpec(new String[]{"int", "long", "double", "boolean", "string",
+            "date and time", "timestamp"}, new DataType[]{IntCell.TYPE, LongCell.TYPE, DoubleCell.TYPE,
+                BooleanCell.TYPE, StringCell.TYPE, DateAndTimeCell.TYPE, TimestampCell.TYPE});
+        final Random rand = new Random(42);
+        final List<DataRow> rows = new ArrayList<>();
+        rows.add(new DefaultRow("escape bytes", new IntCell(0x61626162), new LongCell(0x6161616262626262L),
+            new DoubleCell(Double.longBitsToDouble(0x6261626161626162L)), BooleanCell.TRUE, new StringCell("ab"),
+            new DateAndTimeCell(0x61626162L, true, true, true), new TimestampCell(new Date(0x6162L))));
+        rows.add(new DefaultRow("extremes", new IntCell(Integer.MIN_VALUE), new LongCell(Long.MAX_VALUE),
+            new DoubleCell(Double.NaN), BooleanCell.FALSE, new StringCell(""), new DateAndTimeCell(2021, 5, 17),
+            new TimestampCell(new Date(0))));
+        for (int i = 0; i < 5000; i++) {
+            final DataCell[] cells = new DataCell[]{new IntCell(rand.nextInt()), new LongCell(rand.nextLong()),
+                new DoubleCell(rand.nextGaussian()), BooleanCell.get(rand.nextBoolean()),
+                new StringCell(Integer.toString(i)), new DateAndTimeCell(rand.nextInt(Integer.MAX_VALUE), true, true,
+                    rand.nextBoolean()), new TimestampCell(new Date(rand.nextInt(Integer.MAX_VALUE)))};
+            cells[i % cells.length] = DataType.getMissingCell();
+            rows.add(new DefaultRow(RowKey.createRowKey((long)i), cells));
+        }
+
+        final BufferedDataContainer cont = exec.createDataContainer(spec, true, 0);
+        rows.forEach(cont::addRowToTable);
+        cont.close();
+        final BufferedDataTable table = cont.getTable();
+
+        assertEquals("Row count", rows.size(), table.size());
+        int i = 0;
+        try (CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext()) {
+                final DataRow row = it.next();
+                final DataRow expected = rows.get(i++);
+                assertEquals("Row key", expected.getKey(), row.getKey());
+                for (int c = 0; c < spec.getNumColumns(); c++) {
+                    assertEquals("Cell " + c + " in row " + expected.getKey(), expected.getCell(c), row.getCell(c));
+                }
+            }
+        }
+        assertEquals("Rows read", rows.size(), i);
+    }
+
+    private static <T extends DataCell, S extends DataCellSerializer<T> & FixedWidthDataCellSerializer<T>> void
+        assertSameBytes(final S serializer, final T cell) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataCellDataOutputStream out = new DataCellDataOutputStream(bytes)) {
+            serializer.serialize(cell, out);
+        }
+        final ByteBuffer buffer = ByteBuffer.allocate(serializer.getFixedWidth());
+        serializer.serialize(cell, buffer);
+        assertEquals("Fixed width", bytes.size(), buffer.position());
+        assertArrayEquals("Serialized bytes", bytes.toByteArray(), buffer.array());
+        buffer.flip();
+        assertEquals("Deserialized cell", cell, serializer.deserialize(buffer));
+        assertEquals("Remaining bytes", 0, buffer.remaining());
+    }
+
+    private static final class DataCellDataOutputStream extends DataOutputStream implements DataCellDataOutput {
+
+        DataCellDataOutputStream(final ByteArrayOutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void writeDataCell(final DataCell cell) throws IOException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests reading escaped blocks via {@link BlockableInputStream}, with and without internal buffer.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BlockableInputStreamTest implements KNIMEStreamConstants {
+
+    /** Blocks consisting of escape and terminate bytes only, mixed with other bytes and larger than the buffer. */
+    private static byte[][] createBlocks() {
+        final byte[] random = new byte[20000];
+        new Random(42).nextBytes(random);
+        // make escape and terminate bytes frequent and adjacent
+        for (int i = 0; i < random.length; i += 97) {
+            random[i] = i % 2 == 0 ? TC_ESCAPE : TC_TERMINATE;
+        }
+        return new byte[][]{
+            {TC_TERMINATE},
+            {TC_ESCAPE, TC_ESCAPE, TC_TERMINATE, TC_ESCAPE},
+            {},
+            {0, -1, TC_ESCAPE, 17, TC_TERMINATE, BYTE_ROW_SEPARATOR, 42},
+            random,
+            {TC_TERMINATE, 1, 2, 3, TC_ESCAPE}};
+    }
+
+    private static byte[] write(final byte[][] blocks) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (BlockableOutputStream out = new BlockableOutputStream(bytes)) {
+            for (byte[] block : blocks) {
+                out.write(block);
+                out.endBlock();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /** Reads the bytes of the current block in chunks of the given size until the end of the block. */
+    private static byte[] readBlock(final BlockableInputStream in, final int chunkSize) throws IOException {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream();
+        final byte[] chunk = new byte[chunkSize + 3];
+        int count;
+        while ((count = in.read(chunk, 3, chunkSize)) >= 0) {
+            result.write(chunk, 3, count);
+        }
+        assertEquals("End of block", -1, in.read());
+        in.endBlock();
+        return result.toByteArray();
+    }
+
+    private static void assertReadBlocks(final InputStream raw, final boolean buffered, final int chunkSize)
+        throws IOException {
+        final byte[][] blocks = createBlocks();
+        try (BlockableInputStream in = new BlockableInputStream(raw, buffered)) {
+            for (int i = 0; i < blocks.length; i++) {
+                assertArrayEquals("Block " + i + " (chunk size " + chunkSize + ", buffered " + buffered + ")",
+                    blocks[i], readBlock(in, chunkSize));
+            }
+            assertEquals("End of stream", -1, in.read());
+        }
+    }
+
+    /**
+     * Tests {@link BlockableInputStream#read(byte[], int, int)} with escaped bytes, different chunk sizes and escape
+     * bytes at the boundaries of the reads from the wrapped stream.
+     *
+     * @throws IOException not expected
+     */
+    @Test
+    public void testReadEscapedBytes() throws IOException {
+        final byte[] bytes = write(createBlocks());
+        for (boolean buffered : new boolean[]{false, true}) {
+            for (int chunkSize : new int[]{1, 2, 7, 8192, 30000}) {
+                assertReadBlocks(new ByteArrayInputStream(bytes), buffered, chunkSize);
+                assertReadBlocks(new TrickleInputStream(bytes), buffered, chunkSize);
+            }
+        }
+    }
+
+    /**
+     * Tests single byte and bulk reads mixed, and ending a block before all its bytes are read.
+     *
+     * @throws IOException not expected
+     */
+    @Test
+    public void testMixedReadsAndEndBlock() throws IOException {
+        final byte[][] blocks = createBlocks();
+        final byte[] bytes = write(blocks);
+        for (boolean buffered : new boolean[]{false, true}) {
+            try (BlockableInputStream in = new BlockableInputStream(new TrickleInputStream(bytes), buffered)) {
+                // block 3: single byte, bulk, single byte, then skip the rest
+                final byte[] block = blocks[3];
+                in.endBlock();
+                in.endBlock();
+                in.endBlock();
+                assertEquals(block[0] & 0xFF, in.read());
+                final byte[] chunk = new byte[3];
+                assertEquals(3, in.read(chunk, 0, 3));
+                assertArrayEquals(Arrays.copyOfRange(block, 1, 4), chunk);
+                assertEquals(block[4] & 0xFF, in.read());
+                in.endBlock();
+                // block 4 read completely after skipping its first bytes
+                assertEquals(blocks[4][0] & 0xFF, in.read());
+                final byte[] rest = readBlock(in, 1000);
+                assertArrayEquals(Arrays.copyOfRange(blocks[4], 1, blocks[4].length), rest);
+                assertArrayEquals(blocks[5], readBlock(in, 4));
+            }
+        }
+    }
+
+    /**
+     * Tests that the unbuffered stream doesn't read beyond the end of a block, as the wrapped stream may also be read
+     * directly.
+     *
+     * @throws IOException not expected
+     */
+    @Test
+    public void testUnbufferedStopsAtBlockEnd() throws IOException {
+        final byte[][] blocks = createBlocks();
+        final ByteArrayInputStream raw = new ByteArrayInputStream(write(blocks));
+        try (BlockableInputStream in = new BlockableInputStream(raw)) {
+            assertArrayEquals(blocks[0], readBlock(in, 100));
+            // block 1 starts with an escaped escape byte
+            assertEquals(TC_ESCAPE, raw.read());
+            assertEquals(TC_ESCAPE, raw.read());
+        }
+    }
+
+    /** Returns at most three bytes per read. */
+    private static final class TrickleInputStream extends ByteArrayInputStream {
+
+        TrickleInputStream(final byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public synchronized int read(final byte[] b, final int off, final int len) {
+            return super.read(b, off, Math.min(len, 3));
+        }
+    }
+}
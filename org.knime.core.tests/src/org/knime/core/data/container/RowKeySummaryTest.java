@@ -0,0 +1,142 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link RowKeySummary}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class RowKeySummaryTest {
+
+    private static RowKeySummary summarize(final String... keys) {
+        return collect(keys).build();
+    }
+
+    private static RowKeySummary.Builder collect(final String... keys) {
+        final RowKeySummary.Builder builder = new RowKeySummary.Builder();
+        for (String key : keys) {
+            builder.add(key);
+        }
+        return builder;
+    }
+
+    /** Summarizes the keys in two builders, as done for keys added concurrently. */
+    private static RowKeySummary summarizeMerged(final String[] keys, final String... otherKeys) {
+        final RowKeySummary.Builder builder = collect(keys);
+        builder.merge(collect(otherKeys));
+        return builder.build();
+    }
+
+    /** Keys as generated by a data container and by loop end nodes. */
+    @Test
+    public void testGeneratedKeys() {
+        final RowKeySummary rows0to2 = summarize("Row0", "Row1", "Row2");
+        final RowKeySummary rows3to5 = summarize("Row5", "Row3", "Row4");
+        final RowKeySummary rows2to3 = summarize("Row2", "Row3");
+        assertTrue(rows0to2.isDisjoint(rows3to5));
+        assertTrue(rows3to5.isDisjoint(rows0to2));
+        assertFalse(rows0to2.isDisjoint(rows2to3));
+        assertFalse(rows3to5.isDisjoint(rows2to3));
+
+        final RowKeySummary iteration0 = summarize("Row0#0", "Row1#0");
+        final RowKeySummary iteration1 = summarize("Row0#1", "Row1#1");
+        assertTrue(iteration0.isDisjoint(iteration1));
+        assertFalse(iteration0.isDisjoint(summarize("Row1#0")));
+        assertTrue(iteration0.isDisjoint(rows0to2));
+    }
+
+    /** The last run of digits is used if the first one doesn't have a common prefix and suffix. */
+    @Test
+    public void testLastDigitRun() {
+        final RowKeySummary a = summarize("Table1_Row5", "Table1_Row6");
+        final RowKeySummary b = summarize("Table1_Row7", "Table1_Row8");
+        assertTrue(a.isDisjoint(b));
+        // decomposed differently, can't be proven disjoint
+        assertFalse(a.isDisjoint(summarize("Row9")));
+    }
+
+    /** Keys without a common pattern, or with non-canonical numbers, have no summary. */
+    @Test
+    public void testNoSummary() {
+        assertNull(summarize("foo", "bar"));
+        assertNull(summarize("Row07", "Row8"));
+        assertNull(summarize("a1b", "c2d"));
+        assertNull(summarize("Row12345678901234567890"));
+    }
+
+    /** Merged builders yield the same summary as a single builder of all keys. */
+    @Test
+    public void testMerge() {
+        assertEquals(summarize("Row0", "Row5", "Row3", "Row4"),
+            summarizeMerged(new String[]{"Row0", "Row5"}, "Row3", "Row4"));
+        assertEquals(summarize("Table1_Row5", "Table1_Row6"),
+            summarizeMerged(new String[]{"Table1_Row5"}, "Table1_Row6"));
+        assertEquals(summarize("Row0"), summarizeMerged(new String[]{"Row0"}));
+        assertEquals(summarize("Row0"), summarizeMerged(new String[0], "Row0"));
+        assertEquals(RowKeySummary.EMPTY, summarizeMerged(new String[0]));
+        assertNull(summarizeMerged(new String[]{"Row0", "Row1"}, "Row2#1"));
+        assertNull(summarizeMerged(new String[]{"Row0", "foo"}, "Row1"));
+        assertNull(summarizeMerged(new String[]{"Row0"}, "bar"));
+    }
+
+    /** Empty tables are disjoint to all others. */
+    @Test
+    public void testEmpty() {
+        final RowKeySummary empty = summarize();
+        assertEquals(RowKeySummary.EMPTY, empty);
+        assertTrue(empty.isDisjoint(summarize("Row0")));
+        assertTrue(summarize("Row0").isDisjoint(empty));
+    }
+
+}
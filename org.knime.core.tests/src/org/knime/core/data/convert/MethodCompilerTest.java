@@ -0,0 +1,115 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.convert;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.IntValue;
+import org.knime.core.data.convert.datacell.IntToDataCellConverter;
+import org.knime.core.data.convert.java.DataCellToDoubleConverter;
+import org.knime.core.data.convert.util.MethodCompiler;
+import org.knime.core.data.convert.util.MethodCompiler.Invoker0;
+import org.knime.core.data.convert.util.MethodCompiler.Invoker1;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+
+/**
+ * Tests for {@link MethodCompiler} and the batch conversion methods of the primitive converters.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class MethodCompilerTest {
+
+    /** Value access method on an interface with a primitive return type. */
+    @Test
+    public void testCompileAccessMethod() throws Exception {
+        final Invoker0 invoker = MethodCompiler.compile0(DoubleValue.class.getMethod("getDoubleValue"));
+        assertEquals(4.5, invoker.invoke(new DoubleCell(4.5)));
+    }
+
+    /** Method with a primitive argument, exceptions must be thrown unwrapped. */
+    @Test
+    public void testCompileMethodWithArgument() throws Exception {
+        final Invoker1 invoker = MethodCompiler.compile1(String.class.getMethod("charAt", int.class));
+        assertEquals('b', invoker.invoke("abc", 1));
+        try {
+            invoker.invoke("abc", 5);
+        } catch (IndexOutOfBoundsException e) { // NOSONAR expected
+            return;
+        }
+        throw new AssertionError("Exception expected");
+    }
+
+    /** Batch conversion from cells into a primitive array. */
+    @Test
+    public void testBatchToPrimitive() throws Exception {
+        final DataCellToDoubleConverter<DoubleValue> conv = DoubleValue::getDoubleValue;
+        final DataCell[] cells = {new DoubleCell(1), DataType.getMissingCell(), new DoubleCell(3), new DoubleCell(4)};
+        final double[] dest = new double[3];
+        final boolean[] missing = new boolean[3];
+        conv.convertIntoDoubles(cells, 1, 4, dest, missing);
+        assertTrue(missing[0]);
+        assertFalse(missing[1]);
+        assertArrayEquals(new double[]{0, 3, 4}, dest, 0.0);
+    }
+
+    /** Batch conversion from a primitive array into cells. */
+    @Test
+    public void testBatchFromPrimitive() throws Exception {
+        final IntToDataCellConverter conv = IntCell::new;
+        final DataCell[] dest = new DataCell[2];
+        conv.convertInts(new int[]{1, 2, 3}, 1, 3, dest);
+        assertEquals(2, ((IntValue)dest[0]).getIntValue());
+        assertEquals(3, ((IntValue)dest[1]).getIntValue());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.filestore.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests packing file stores into and restoring them from {@link FileStoreSegments}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FileStoreSegmentsTest {
+
+    private File m_baseDir;
+
+    /** Creates a temporary file store directory. */
+    @Before
+    public void setUp() throws IOException {
+        m_baseDir = FileUtil.createTempDir("fs-segments-test");
+    }
+
+    /** Deletes the file store directory. */
+    @After
+    public void tearDown() {
+        FileUtil.deleteRecursively(m_baseDir);
+    }
+
+    private File file(final int index) {
+        return new File(m_baseDir, "file" + index + ".bin");
+    }
+
+    private byte[] content(final int index) {
+        final byte[] bytes = new byte[index * 10];
+        Arrays.fill(bytes, (byte)index);
+        return bytes;
+    }
+
+    /** Packs files, restores one and restores another one after reloading the segments. */
+    @Test
+    public void testPackAndUnpack() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            Files.write(file(i).toPath(), content(i));
+        }
+        final FileStoreSegments segments = FileStoreSegments.create(m_baseDir);
+        assertEquals(5, segments.pack(Arrays.asList(0, 1, 2, 3, 4), this::file));
+        for (int i = 0; i < 5; i++) {
+            assertFalse("File not deleted after packing", file(i).exists());
+        }
+
+        segments.unpack(3, file(3));
+        assertArrayEquals(content(3), Files.readAllBytes(file(3).toPath()));
+        assertTrue(segments.remove(4));
+        assertFalse(segments.remove(3));
+
+        final FileStoreSegments loaded = FileStoreSegments.load(m_baseDir);
+        loaded.unpack(2, file(2));
+        assertArrayEquals(content(2), Files.readAllBytes(file(2).toPath()));
+        loaded.unpack(0, file(0));
+        assertTrue("Empty file not restored", file(0).isFile());
+    }
+
+    /** Large files and missing files are not packed. */
+    @Test
+    public void testSkipLargeAndMissingFiles() throws IOException {
+        Files.write(file(1).toPath(), content(1));
+        Files.write(file(2).toPath(), content(2));
+        Files.write(file(3).toPath(), new byte[(int)FileStoreSegments.MAX_PACKED_FILE_SIZE + 1]);
+        final FileStoreSegments segments = FileStoreSegments.create(m_baseDir);
+        assertEquals(2, segments.pack(Arrays.asList(1, 2, 3, 4), this::file));
+        assertTrue(file(3).isFile());
+        assertNull(FileStoreSegments.load(new File(m_baseDir, "no-such-dir")));
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.filestore.internal;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Test;
+import org.knime.core.data.filestore.FileStore;
+import org.knime.core.data.filestore.FileStoreKey;
+import org.knime.core.data.filestore.FileStoreUtil;
+import org.knime.core.node.workflow.WorkflowDataRepository;
+
+/**
+ * Tests creating file stores concurrently in a {@link WriteFileStoreHandler} and restoring them after load.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class WriteFileStoreHandlerTest {
+
+    private static final int NR_THREADS = 8;
+
+    /** Enough file stores to cross several leaf folders. */
+    private static final int NR_STORES_PER_THREAD = 500;
+
+    private final List<WriteFileStoreHandler> m_handlers = new ArrayList<>();
+
+    /** Deletes the file store directories. */
+    @After
+    public void tearDown() {
+        m_handlers.forEach(WriteFileStoreHandler::clearAndDispose);
+    }
+
+    private static byte[] content(final FileStoreKey key) {
+        return key.getNameOnDisc().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /** Runs the task in several threads and returns their results. */
+    private static <T> List<T> runConcurrently(final Callable<T> task) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(NR_THREADS);
+        try {
+            final List<Future<T>> futures = executor.invokeAll(
+                IntStream.range(0, NR_THREADS).mapToObj(i -> task).collect(Collectors.toList()));
+            final List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates file stores in several threads, checks that their indices are unique and that all file stores can be
+     * read from a handler restored from the directory, also when it is restored by concurrent readers.
+     *
+     * @throws Exception not expected
+     */
+    @Test
+    public void testConcurrentCreateAndRestore() throws Exception {
+        final UUID uuid = UUID.randomUUID();
+        final WriteFileStoreHandler handler = new WriteFileStoreHandler("Test 0:1", uuid);
+        m_handlers.add(handler);
+        handler.open();
+
+        final List<List<FileStoreKey>> keysPerThread = runConcurrently(() -> {
+            final List<FileStoreKey> keys = new ArrayList<>();
+            for (int i = 0; i < NR_STORES_PER_THREAD; i++) {
+                final FileStore fs = handler.createFileStore(UUID.randomUUID().toString());
+                final FileStoreKey key = FileStoreUtil.getFileStoreKey(fs);
+                Files.write(fs.getFile().toPath(), content(key));
+                keys.add(key);
+            }
+            return keys;
+        });
+        handler.close();
+
+        final int nrStores = NR_THREADS * NR_STORES_PER_THREAD;
+        final Set<Integer> indices = keysPerThread.stream().flatMap(List::stream).map(FileStoreKey::getIndex)
+            .collect(Collectors.toCollection(TreeSet::new));
+        assertEquals("Indices not unique", nrStores, indices.size());
+        assertEquals("Unexpected indices", IntStream.range(0, nrStores).boxed().collect(Collectors.toSet()), indices);
+        assertEquals("Next index", nrStores, handler.getNextIndex());
+        for (int index = 0; index <= nrStores; index += WriteFileStoreHandler.FILES_PER_FOLDER) {
+            assertTrue("Folder for index " + index + " not created", handler.getParentDir(index, false).isDirectory());
+        }
+
+        final WriteFileStoreHandler restored = (WriteFileStoreHandler)WriteFileStoreHandler.restore("Test 0:1", uuid,
+            mock(WorkflowDataRepository.class), handler.getBaseDir());
+        m_handlers.add(restored);
+        final List<Integer> restoredPerThread = runConcurrently(() -> {
+            int count = 0;
+            for (List<FileStoreKey> keys : keysPerThread) {
+                for (FileStoreKey key : keys) {
+                    final File file = restored.getFileStore(key).getFile();
+                    assertArrayEquals("Content of " + key, content(key), Files.readAllBytes(file.toPath()));
+                    count++;
+                }
+            }
+            return count;
+        });
+        restoredPerThread.forEach(count -> assertEquals("Restored file stores", nrStores, count.intValue()));
+        assertNotEquals("Not restored into a new directory", handler.getBaseDir(), restored.getBaseDir());
+    }
+
+    /**
+     * Creates file stores across several leaf folders in a single thread, the following folder is created ahead
+     * at each boundary.
+     *
+     * @throws IOException not expected
+     */
+    @Test
+    public void testFoldersCreatedAhead() throws IOException {
+        final WriteFileStoreHandler handler = new WriteFileStoreHandler("Test 0:2", UUID.randomUUID());
+        m_handlers.add(handler);
+        handler.open();
+        final int folders = 3;
+        for (int i = 0; i <= folders * WriteFileStoreHandler.FILES_PER_FOLDER; i++) {
+            handler.createFileStore("file" + i);
+            final int nextFolder = (i / WriteFileStoreHandler.FILES_PER_FOLDER + 1)
+                * WriteFileStoreHandler.FILES_PER_FOLDER;
+            assertTrue("Folder for index " + nextFolder + " not created ahead",
+                handler.getParentDir(nextFolder, false).isDirectory());
+        }
+        handler.close();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.image.png;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+/**
+ * Tests for {@link PNGImageCache} and its use in {@link PNGImageContent}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PNGImageCacheTest {
+
+    /** Tests the choice of thumbnail buckets. */
+    @Test
+    public void testThumbnailSize() {
+        assertEquals("no thumbnail for small images", 0, PNGImageCache.thumbnailSize(20, 10, 5, 5));
+        assertEquals("no thumbnail if not shrunk", 0, PNGImageCache.thumbnailSize(100, 50, 200, 200));
+        assertEquals(32, PNGImageCache.thumbnailSize(1000, 500, 20, 20));
+        assertEquals(64, PNGImageCache.thumbnailSize(1000, 500, 40, 40));
+        assertEquals(256, PNGImageCache.thumbnailSize(1000, 500, 200, 100));
+        assertEquals("bucket exceeds image", 0, PNGImageCache.thumbnailSize(300, 100, 280, 100));
+    }
+
+    /** Tests that images are shared by content and evicted when exceeding the budget. */
+    @Test
+    public void testBudget() {
+        // 10 x 10 ARGB images occupy 400 bytes each
+        final PNGImageCache cache = new PNGImageCache(1000);
+        final AtomicInteger decodes = new AtomicInteger();
+        final byte[] bytes1 = {1, 2, 3};
+        final PNGImageCache.Key key1 = new PNGImageCache.Key(bytes1, Arrays.hashCode(bytes1));
+        final BufferedImage image1 = cache.getImage(key1, () -> newImage(decodes));
+        final byte[] copy = bytes1.clone();
+        assertSame("equal content must share image", image1,
+            cache.getImage(new PNGImageCache.Key(copy, Arrays.hashCode(copy)), () -> newImage(decodes)));
+        assertEquals(1, decodes.get());
+
+        for (int i = 0; i < 5; i++) {
+            final byte[] b = {(byte)i};
+            cache.getImage(new PNGImageCache.Key(b, Arrays.hashCode(b)), () -> newImage(decodes));
+            assertTrue("budget exceeded", cache.getUsedBytes() <= 1000);
+        }
+        cache.getImage(key1, () -> newImage(decodes));
+        assertEquals("evicted image must be decoded again", 7, decodes.get());
+        cache.clear();
+        assertEquals(0, cache.getUsedBytes());
+    }
+
+    /** Tests size and painting of PNG content. */
+    @Test
+    public void testContent() throws Exception {
+        final BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_ARGB);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        final PNGImageContent content = new PNGImageContent(out.toByteArray());
+        assertEquals(new Dimension(400, 200), content.getPreferredSize());
+
+        final BufferedImage target = new BufferedImage(50, 50, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D g = target.createGraphics();
+        content.paint(g, 50, 50);
+        g.dispose();
+        final BufferedImage thumbnail = PNGImageCache.getInstance()
+            .getThumbnail(new PNGImageCache.Key(out.toByteArray(), content.hashCode()), 64, () -> {
+                throw new AssertionError("Thumbnail must be cached");
+            });
+        assertEquals(64, thumbnail.getWidth());
+        assertEquals(32, thumbnail.getHeight());
+    }
+
+    /** Tests that the PNG bytes referenced by the keys count towards the budget. */
+    @Test
+    public void testBudgetIncludesKeys() {
+        final PNGImageCache cache = new PNGImageCache(1000);
+        final AtomicInteger decodes = new AtomicInteger();
+        final byte[] bytes = new byte[300];
+        final PNGImageCache.Key key = new PNGImageCache.Key(bytes, Arrays.hashCode(bytes));
+        cache.getImage(key, () -> newImage(decodes));
+        assertEquals("image and key bytes", 700, cache.getUsedBytes());
+        cache.getThumbnail(key, 5, () -> newImage(decodes));
+        assertTrue("budget exceeded", cache.getUsedBytes() <= 1000);
+
+        final byte[] largeBytes = new byte[700];
+        cache.getImage(new PNGImageCache.Key(largeBytes, Arrays.hashCode(largeBytes)), () -> newImage(decodes));
+        assertTrue("budget exceeded", cache.getUsedBytes() <= 1000);
+        cache.clear();
+    }
+
+    /** Tests that {@link PNGImageContent#getImage()} returns a copy of the shared cached image. */
+    @Test
+    public void testGetImageReturnsCopy() throws Exception {
+        final BufferedImage image = new BufferedImage(20, 10, BufferedImage.TYPE_INT_ARGB);
+        image.setRGB(3, 4, 0xFF00FF00);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        final PNGImageContent content = new PNGImageContent(out.toByteArray());
+        final PNGImageContent other = new PNGImageContent(out.toByteArray());
+
+        final BufferedImage copy = (BufferedImage)content.getImage();
+        assertEquals(20, copy.getWidth());
+        assertEquals(10, copy.getHeight());
+        assertEquals(0xFF00FF00, copy.getRGB(3, 4));
+        copy.setRGB(3, 4, 0xFFFF0000);
+
+        final BufferedImage otherCopy = (BufferedImage)other.getImage();
+        assertNotSame(copy, otherCopy);
+        assertEquals("modified copy must not affect cached image", 0xFF00FF00, otherCopy.getRGB(3, 4));
+        assertEquals(0xFF00FF00, ((BufferedImage)content.getImage()).getRGB(3, 4));
+    }
+
+    private static BufferedImage newImage(final AtomicInteger decodes) {
+        decodes.incrementAndGet();
+        return new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.sort;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link BucketShuffler}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BucketShufflerTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new String[]{"int", "string"}, new DataType[]{IntCell.TYPE, StringCell.TYPE});
+
+    private DefaultNodeProgressMonitor m_progress;
+
+    private ExecutionContext m_exec;
+
+    /** Creates the execution context. */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() {
+        final NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_progress = new DefaultNodeProgressMonitor();
+        m_exec = new ExecutionContext(m_progress, new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, new HashMap<Integer, ContainerTable>());
+    }
+
+    private BufferedDataTable createTable(final int rowCount) {
+        final BufferedDataContainer container = m_exec.createDataContainer(SPEC);
+        for (int i = 0; i < rowCount; i++) {
+            container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i), new StringCell("s" + i)));
+        }
+        container.close();
+        return container.getTable();
+    }
+
+    private static List<String> getRowKeys(final BufferedDataTable table) {
+        final List<String> keys = new ArrayList<>();
+        for (DataRow row : table) {
+            assertEquals("Cells don't belong to the row", row.getKey().getString(),
+                "Row" + ((IntCell)row.getCell(0)).getIntValue());
+            keys.add(row.getKey().getString());
+        }
+        return keys;
+    }
+
+    /** Checks that the argument is a permutation of the rows created by {@link #createTable(int)}. */
+    private static void assertPermutation(final int rowCount, final List<String> keys) {
+        assertEquals("Wrong number of rows", rowCount, keys.size());
+        final Set<String> unique = new HashSet<>(keys);
+        assertEquals("Duplicate rows", rowCount, unique.size());
+        for (int i = 0; i < rowCount; i++) {
+            assertTrue("Missing row " + i, unique.contains("Row" + i));
+        }
+    }
+
+    private void testShuffle(final int rowCount, final int rowsPerBucket) throws Exception {
+        final BufferedDataTable table = createTable(rowCount);
+        final List<String> first =
+            getRowKeys(new BucketShuffler(m_exec, 42, rowsPerBucket, Integer.MAX_VALUE).shuffle(table));
+        assertPermutation(rowCount, first);
+        assertEquals("Same seed, different permutation", first,
+            getRowKeys(new BucketShuffler(m_exec, 42, rowsPerBucket, Integer.MAX_VALUE).shuffle(table)));
+        final List<String> other =
+            getRowKeys(new BucketShuffler(m_exec, 43, rowsPerBucket, Integer.MAX_VALUE).shuffle(table));
+        assertPermutation(rowCount, other);
+        assertNotEquals("Different seeds, same permutation", first, other);
+        assertNotEquals("Table not shuffled", getRowKeys(table), first);
+    }
+
+    /**
+     * Tests a table shuffled in memory.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testShuffleInMemory() throws Exception {
+        testShuffle(5000, 10000);
+    }
+
+    /**
+     * Tests a table scattered into buckets, some of which are scattered again.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testShuffleInBuckets() throws Exception {
+        testShuffle(20000, 150);
+    }
+
+    /**
+     * Tests that the permutation doesn't depend on the number of rows held in memory, i.e. that buckets collected in
+     * several windows (as when memory is low) yield the same permutation as buckets collected in one pass.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testSamePermutationWithLessMemory() throws Exception {
+        final BufferedDataTable table = createTable(5000);
+        final List<String> expected =
+            getRowKeys(new BucketShuffler(m_exec, 42, 1000, Integer.MAX_VALUE).shuffle(table));
+        for (int maxRowsInMemory : new int[]{999, 333, 1}) {
+            assertEquals("Permutation depends on memory (" + maxRowsInMemory + " rows)", expected,
+                getRowKeys(new BucketShuffler(m_exec, 42, 1000, maxRowsInMemory).shuffle(table)));
+        }
+        assertEquals("Permutation depends on memory (in memory table)",
+            getRowKeys(new BucketShuffler(m_exec, 7, 5000, Integer.MAX_VALUE).shuffle(table)),
+            getRowKeys(new BucketShuffler(m_exec, 7, 5000, 64).shuffle(table)));
+    }
+
+    /**
+     * Tests a table using the default bucket size and the empty table.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testDefaultBucketSize() throws Exception {
+        final BufferedDataTable table = createTable(3000);
+        assertPermutation(3000, getRowKeys(new BucketShuffler(m_exec, 1).shuffle(table)));
+        assertEquals(0, new BucketShuffler(m_exec, 1).shuffle(createTable(0)).size());
+    }
+
+    /**
+     * Tests that canceling stops the shuffling.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(expected = CanceledExecutionException.class)
+    public void testCancel() throws Exception {
+        final BufferedDataTable table = createTable(20000);
+        m_progress.setExecuteCanceled();
+        new BucketShuffler(m_exec, 42, 150, Integer.MAX_VALUE).shuffle(table);
+    }
+
+}
@@ -0,0 +1,197 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.xml.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLStreamConstants;
+
+import org.junit.Test;
+import org.knime.core.data.xml.XMLCellFactory;
+import org.knime.core.data.xml.XMLValue;
+import org.knime.core.data.xml.util.DefaultNamespaceContext;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Tests for {@link XMLTokenStream}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class XMLTokenStreamTest {
+
+    private static final String XML = "<?xml version=\"1.0\"?><r xmlns=\"urn:d\" xmlns:p=\"urn:p\">"
+        + "<p:a x=\"1\">t&amp;u<b/><!--c--></p:a><p:a><?pi data?>v</p:a><c/></r>";
+
+    private static final NamespaceContext NS =
+        new DefaultNamespaceContext(new String[]{"d", "p"}, new String[]{"urn:d", "urn:p"});
+
+    /**
+     * Tests that the cursor reproduces the tokens of the document.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testCursor() throws Exception {
+        final XMLTokenStream.Cursor cursor = XMLTokenStream.encode(XML).cursor();
+        assertEquals(XMLStreamConstants.START_ELEMENT, cursor.next());
+        assertEquals("r", cursor.getName().getLocalPart());
+        assertEquals(2, cursor.getNamespaceCount());
+        assertEquals(XMLStreamConstants.START_ELEMENT, cursor.next());
+        assertEquals("urn:p", cursor.getName().getNamespaceURI());
+        assertEquals("1", cursor.getAttributeValue(0));
+        assertEquals(XMLStreamConstants.CHARACTERS, cursor.next());
+        assertEquals("t&u", cursor.getText());
+        assertEquals(XMLStreamConstants.START_ELEMENT, cursor.next());
+        assertEquals(XMLStreamConstants.END_ELEMENT, cursor.next());
+        assertEquals(XMLStreamConstants.COMMENT, cursor.next());
+        assertEquals("c", cursor.getText());
+    }
+
+    /**
+     * Tests the streaming XPath evaluation on string and DOM encoded documents.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSelect() throws Exception {
+        final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        final Document doc = factory.newDocumentBuilder()
+            .parse(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8)));
+
+        final List<String> expected = Arrays.asList(
+            "<p:a xmlns=\"urn:d\" xmlns:p=\"urn:p\" x=\"1\">t&amp;u<b></b><!--c--></p:a>",
+            "<p:a xmlns=\"urn:d\" xmlns:p=\"urn:p\"><?pi data?>v</p:a>");
+        assertEquals(expected, XMLTokenStream.encode(XML).select("/d:r/p:a", NS));
+        assertEquals(expected, XMLTokenStream.encode(doc).select("/d:r/p:a", NS));
+
+        assertEquals(3, XMLTokenStream.encode(XML).count("/d:r/p:a | /d:r/d:c", NS));
+        // wrong namespace
+        assertEquals(0, XMLTokenStream.encode(XML).count("/r", NS));
+        assertEquals(1, XMLTokenStream.encode(XML).count("/", NS));
+    }
+
+    /**
+     * Tests that nested matches are returned in document order, i.e. ordered by their start tags.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testSelectDocumentOrder() throws Exception {
+        final List<String> expected = Arrays.asList(
+            "<p:a xmlns=\"urn:d\" xmlns:p=\"urn:p\" x=\"1\">t&amp;u<b></b><!--c--></p:a>",
+            "<b xmlns=\"urn:d\" xmlns:p=\"urn:p\"></b>",
+            "<p:a xmlns=\"urn:d\" xmlns:p=\"urn:p\"><?pi data?>v</p:a>");
+        assertEquals(expected, XMLTokenStream.encode(XML).select("/d:r/p:a | /d:r/p:a/d:b", NS));
+    }
+
+    /**
+     * Tests reading the matches of a cell with {@link XMLCellReaderFactory#createXPathXMLCellReader(XMLValue,
+     * LimitedXPathMatcher)}, which selects them on the token stream.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testReadFromTokenStream() throws Exception {
+        final XMLValue<Document> cell = toCell("<r xmlns=\"urn:d\" xmlns:p=\"urn:p\">\n  <p:a>t</p:a>\n  <p:a>\n"
+            + "    <b>u</b>\n  </p:a>\n</r>");
+        assertFalse(XMLTokenStream.encode(cell.toString()).hasXMLAttributes());
+        final List<Document> docs = readAll(cell, "/d:r/p:a");
+        assertEquals(2, docs.size());
+        assertEquals("t", docs.get(0).getDocumentElement().getTextContent());
+        final Element second = docs.get(1).getDocumentElement();
+        assertEquals("urn:p", second.getNamespaceURI());
+        // whitespace only text is not retained
+        assertEquals(1, second.getChildNodes().getLength());
+        assertEquals("urn:d", second.getFirstChild().getNamespaceURI());
+    }
+
+    /**
+     * Tests that documents with xml:lang and the like are parsed by the streaming reader, which retains them.
+     *
+     * @throws Exception if an error occurs
+     */
+    @Test
+    public void testReadWithXMLAttributes() throws Exception {
+        final XMLValue<Document> cell = toCell("<r xmlns=\"urn:d\" xml:lang=\"de\"><a>t</a><a>u</a></r>");
+        assertTrue(XMLTokenStream.encode(cell.toString()).hasXMLAttributes());
+        final List<Document> docs = readAll(cell, "/d:r/d:a");
+        assertEquals(2, docs.size());
+        assertEquals("de", docs.get(0).getDocumentElement().getAttributeNS(XMLConstants.XML_NS_URI, "lang"));
+        assertEquals("u", docs.get(1).getDocumentElement().getTextContent());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static XMLValue<Document> toCell(final String xml) throws Exception {
+        return (XMLValue<Document>)XMLCellFactory.create(xml);
+    }
+
+    private static List<Document> readAll(final XMLValue<Document> cell, final String xpath) throws Exception {
+        final List<Document> docs = new ArrayList<>();
+        final XMLCellReader reader =
+            XMLCellReaderFactory.createXPathXMLCellReader(cell, new LimitedXPathMatcher(xpath, NS));
+        try {
+            for (XMLValue<Document> value = reader.readXML(); value != null; value = reader.readXML()) {
+                docs.add(value.getDocument());
+            }
+        } finally {
+            reader.close();
+        }
+        return docs;
+    }
+}
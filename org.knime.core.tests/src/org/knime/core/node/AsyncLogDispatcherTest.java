@@ -0,0 +1,260 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.AppenderSkeleton;
+import org.apache.log4j.Level;
+import org.apache.log4j.Logger;
+import org.apache.log4j.spi.LoggingEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.AsyncLogDispatcher.OverflowPolicy;
+
+/**
+ * Tests {@link AsyncLogDispatcher}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class AsyncLogDispatcherTest {
+
+    private static final String LOGGER_NAME = AsyncLogDispatcherTest.class.getName() + ".messages";
+
+    private NodeLogger m_logger;
+
+    private RecordingAppender m_appender;
+
+    private RecordingAppender m_dispatcherAppender;
+
+    /** Records the messages of the test logger and of the dispatcher (reporting dropped messages). */
+    @Before
+    public void setUp() {
+        m_logger = NodeLogger.getLogger(LOGGER_NAME);
+        m_appender = new RecordingAppender();
+        Logger.getLogger(LOGGER_NAME).addAppender(m_appender);
+        Logger.getLogger(LOGGER_NAME).setAdditivity(false);
+        m_dispatcherAppender = new RecordingAppender();
+        Logger.getLogger(AsyncLogDispatcher.class).addAppender(m_dispatcherAppender);
+    }
+
+    /** Removes the appenders. */
+    @After
+    public void tearDown() {
+        m_appender.unblock();
+        m_dispatcherAppender.unblock();
+        Logger.getLogger(LOGGER_NAME).removeAppender(m_appender);
+        Logger.getLogger(AsyncLogDispatcher.class).removeAppender(m_dispatcherAppender);
+    }
+
+    private static List<String> createMessages(final String prefix, final int count) {
+        final List<String> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(prefix + i);
+        }
+        return messages;
+    }
+
+    private void dispatch(final AsyncLogDispatcher dispatcher, final List<String> messages) {
+        for (String message : messages) {
+            dispatcher.dispatch(m_logger, Level.INFO, message, null);
+        }
+    }
+
+    /** Blocks the logging thread in the appender with a first message. */
+    private void blockConsumer(final AsyncLogDispatcher dispatcher) throws InterruptedException {
+        m_appender.block();
+        dispatcher.dispatch(m_logger, Level.INFO, "first", null);
+        assertTrue("Logging thread did not pass the message", m_appender.awaitBlocked());
+    }
+
+    /** Tests that the messages of each logging thread are passed on in order and flush waits for all of them. */
+    @Test
+    public void testOrderAndFlush() throws InterruptedException {
+        final AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(16, OverflowPolicy.BLOCK);
+        final List<List<String>> messages = new ArrayList<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final List<String> threadMessages = createMessages("thread" + t + "-", 2000);
+            messages.add(threadMessages);
+            threads.add(new Thread(() -> dispatch(dispatcher, threadMessages)));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue("Flush timed out", dispatcher.flush(10000));
+
+        final List<String> logged = m_appender.getMessages();
+        assertEquals("Wrong number of messages", 4 * 2000, logged.size());
+        for (int t = 0; t < 4; t++) {
+            final String prefix = "thread" + t + "-";
+            final List<String> threadLogged = new ArrayList<>();
+            for (String message : logged) {
+                if (message.startsWith(prefix)) {
+                    threadLogged.add(message);
+                }
+            }
+            assertEquals("Messages of thread " + t + " out of order", messages.get(t), threadLogged);
+        }
+        assertTrue("Messages dropped", m_dispatcherAppender.getMessages().isEmpty());
+    }
+
+    /** Tests that flush returns false if the messages are not passed on in time. */
+    @Test
+    public void testFlushTimeout() throws InterruptedException {
+        final AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(16, OverflowPolicy.BLOCK);
+        blockConsumer(dispatcher);
+        dispatch(dispatcher, createMessages("m", 5));
+        assertFalse("Flush returned although logging thread is blocked", dispatcher.flush(100));
+        m_appender.unblock();
+        assertTrue("Flush timed out", dispatcher.flush(10000));
+        assertEquals("Wrong number of messages", 6, m_appender.getMessages().size());
+    }
+
+    /** Tests that messages are dropped and reported if the buffer is full with {@link OverflowPolicy#DROP}. */
+    @Test
+    public void testDropPolicy() throws InterruptedException {
+        final AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(4, OverflowPolicy.DROP);
+        blockConsumer(dispatcher);
+        final List<String> messages = createMessages("m", 10);
+        // doesn't block: 4 messages fit into the buffer, the others are dropped
+        dispatch(dispatcher, messages);
+        m_appender.unblock();
+        assertTrue("Flush timed out", dispatcher.flush(10000));
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("first");
+        expected.addAll(messages.subList(0, 4));
+        assertEquals("Wrong messages passed on", expected, m_appender.getMessages());
+        await().atMost(10, TimeUnit.SECONDS).until(() -> !m_dispatcherAppender.getMessages().isEmpty());
+        assertEquals("Dropped messages not reported",
+            Collections.singletonList("6 log message(s) dropped as the logging buffer was full"),
+            m_dispatcherAppender.getMessages());
+    }
+
+    /** Tests that the logging thread waits if the buffer is full with {@link OverflowPolicy#BLOCK}. */
+    @Test
+    public void testBlockPolicy() throws InterruptedException {
+        final AsyncLogDispatcher dispatcher = new AsyncLogDispatcher(4, OverflowPolicy.BLOCK);
+        blockConsumer(dispatcher);
+        final List<String> messages = createMessages("m", 10);
+        final Thread producer = new Thread(() -> dispatch(dispatcher, messages));
+        producer.start();
+        producer.join(500);
+        assertTrue("Logging thread not waiting for a full buffer", producer.isAlive());
+        m_appender.unblock();
+        producer.join(10000);
+        assertFalse("Logging thread still waiting", producer.isAlive());
+        assertTrue("Flush timed out", dispatcher.flush(10000));
+
+        final List<String> expected = new ArrayList<>();
+        expected.add("first");
+        expected.addAll(messages);
+        assertEquals("Wrong messages passed on", expected, m_appender.getMessages());
+        assertTrue("Messages dropped", m_dispatcherAppender.getMessages().isEmpty());
+    }
+
+    /** Records the messages, optionally blocking the logging thread in the first call. */
+    private static final class RecordingAppender extends AppenderSkeleton {
+
+        private final List<String> m_messages = Collections.synchronizedList(new ArrayList<>());
+
+        private volatile CountDownLatch m_blocked = new CountDownLatch(0);
+
+        private volatile CountDownLatch m_unblock = new CountDownLatch(0);
+
+        void block() {
+            m_blocked = new CountDownLatch(1);
+            m_unblock = new CountDownLatch(1);
+        }
+
+        boolean awaitBlocked() throws InterruptedException {
+            return m_blocked.await(10, TimeUnit.SECONDS);
+        }
+
+        void unblock() {
+            m_unblock.countDown();
+        }
+
+        List<String> getMessages() {
+            synchronized (m_messages) {
+                return new ArrayList<>(m_messages);
+            }
+        }
+
+        @Override
+        protected void append(final LoggingEvent event) {
+            m_messages.add(String.valueOf(event.getMessage()));
+            m_blocked.countDown();
+            try {
+                m_unblock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+
+        @Override
+        public boolean requiresLayout() {
+            return false;
+        }
+    }
+}
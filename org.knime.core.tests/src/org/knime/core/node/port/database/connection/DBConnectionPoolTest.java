@@ -0,0 +1,168 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import java.sql.Connection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import org.knime.core.node.port.database.connection.DBConnectionPool.Lease;
+
+/**
+ * Tests for {@link DBConnectionPool}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBConnectionPoolTest {
+
+    private static final String KEY = "key";
+
+    /** Tests that returned connections are reused. */
+    @Test
+    public void testReuse() throws Exception {
+        final DBConnectionPool pool = new DBConnectionPool(2, 60000);
+        final Connection first;
+        try (Lease lease = pool.lease(KEY, () -> mock(Connection.class), c -> true)) {
+            first = lease.getConnection();
+        }
+        assertEquals("Returned connection should be idle", 1, pool.getIdleCount(KEY));
+        try (Lease lease = pool.lease(KEY, () -> mock(Connection.class), c -> true)) {
+            assertSame("Idle connection should be reused", first, lease.getConnection());
+        }
+    }
+
+    /** Tests that invalid idle connections are closed and replaced. */
+    @Test
+    public void testInvalidConnectionReplaced() throws Exception {
+        final DBConnectionPool pool = new DBConnectionPool(1, 60000);
+        final Connection first;
+        try (Lease lease = pool.lease(KEY, () -> mock(Connection.class), c -> true)) {
+            first = lease.getConnection();
+        }
+        try (Lease lease = pool.lease(KEY, () -> mock(Connection.class), c -> false)) {
+            assertNotSame("Invalid connection should not be reused", first, lease.getConnection());
+        }
+        verify(first).close();
+    }
+
+    /** Tests that the number of leased connections per key is bounded. */
+    @Test
+    public void testBounded() throws Exception {
+        final DBConnectionPool pool = new DBConnectionPool(1, 60000);
+        final Lease lease = pool.lease(KEY, () -> mock(Connection.class), c -> true);
+        final CountDownLatch leased = new CountDownLatch(1);
+        final AtomicBoolean reused = new AtomicBoolean();
+        final Thread waiting = new Thread(() -> {
+            try (Lease second = pool.lease(KEY, () -> mock(Connection.class), c -> true)) {
+                reused.set(second.getConnection() == lease.getConnection());
+                leased.countDown();
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        waiting.start();
+        assertFalse("Second lease should block while the pool is exhausted", leased.await(200, TimeUnit.MILLISECONDS));
+        lease.close();
+        assertTrue("Second lease should succeed once the connection is returned", leased.await(5, TimeUnit.SECONDS));
+        waiting.join();
+        assertTrue("Returned connection should be handed out again", reused.get());
+    }
+
+    /** Tests that idle connections are closed after the idle timeout. */
+    @Test
+    public void testIdleEviction() throws Exception {
+        final DBConnectionPool pool = new DBConnectionPool(1, 1);
+        final Connection conn;
+        try (Lease lease = pool.lease(KEY, () -> mock(Connection.class), c -> true)) {
+            conn = lease.getConnection();
+        }
+        Thread.sleep(10);
+        pool.evictIdleConnections();
+        assertEquals("Idle connection should be evicted", 0, pool.getIdleCount(KEY));
+        verify(conn).close();
+    }
+
+    /** Tests that a thread holding a lease gets the same connection again instead of blocking. */
+    @Test(timeout = 5000)
+    public void testReentrantLease() throws Exception {
+        final DBConnectionPool pool = new DBConnectionPool(1, 60000);
+        try (Lease outer = pool.lease(KEY, () -> mock(Connection.class), c -> true)) {
+            try (Lease inner = pool.lease(KEY, () -> mock(Connection.class), c -> true)) {
+                assertSame("Nested lease should reuse the connection", outer.getConnection(), inner.getConnection());
+            }
+            assertEquals("Connection should stay leased while the outer lease is open", 0, pool.getIdleCount(KEY));
+        }
+        assertEquals("Connection should be returned once all leases are closed", 1, pool.getIdleCount(KEY));
+    }
+
+    /** Tests that a lease can be closed by another thread and that closing it twice doesn't release it twice. */
+    @Test(timeout = 5000)
+    public void testCloseFromOtherThread() throws Exception {
+        final DBConnectionPool pool = new DBConnectionPool(1, 60000);
+        final Lease lease = pool.lease(KEY, () -> mock(Connection.class), c -> true);
+        final Thread closer = new Thread(() -> {
+            lease.close();
+            lease.close();
+        });
+        closer.start();
+        closer.join();
+        assertEquals(1, pool.getIdleCount(KEY));
+        try (Lease first = pool.lease(KEY, () -> mock(Connection.class), c -> true)) {
+            assertSame(lease.getConnection(), first.getConnection());
+            assertEquals(0, pool.getIdleCount(KEY));
+        }
+    }
+}
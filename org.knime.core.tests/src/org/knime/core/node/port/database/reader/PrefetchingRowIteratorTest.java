@@ -0,0 +1,137 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DefaultRowIterator;
+
+/**
+ * Tests for {@link PrefetchingRowIterator}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PrefetchingRowIteratorTest {
+
+    private static RowIterator createRows(final int count) {
+        final List<DataRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new DefaultRow("Row" + i, i));
+        }
+        return new DefaultRowIterator(rows);
+    }
+
+    /** Tests that all rows are returned in the original order. */
+    @Test
+    public void testRowOrder() {
+        try (PrefetchingRowIterator it = new PrefetchingRowIterator(createRows(1000), 7, 2)) {
+            int i = 0;
+            while (it.hasNext()) {
+                assertEquals("Unexpected row", "Row" + i, it.next().getKey().getString());
+                i++;
+            }
+            assertEquals("Unexpected number of rows", 1000, i);
+            assertFalse("No more rows expected", it.hasNext());
+        }
+    }
+
+    /** Tests an empty input. */
+    @Test(expected = NoSuchElementException.class)
+    public void testEmptyInput() {
+        try (PrefetchingRowIterator it = new PrefetchingRowIterator(createRows(0), 10, 1)) {
+            assertFalse("No rows expected", it.hasNext());
+            it.next();
+        }
+    }
+
+    /** Tests that closing the iterator before reaching the end stops the background thread. */
+    @Test
+    public void testCloseEarly() {
+        final PrefetchingRowIterator it = new PrefetchingRowIterator(createRows(10000), 10, 1);
+        assertTrue("Rows expected", it.hasNext());
+        it.next();
+        it.close();
+        assertFalse("No rows expected after close", it.hasNext());
+    }
+
+    /** Tests that exceptions of the source iterator are rethrown in the consumer thread. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testFailingSource() {
+        final RowIterator failing = new RowIterator() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public DataRow next() {
+                throw new IllegalArgumentException("Expected test failure");
+            }
+        };
+        try (PrefetchingRowIterator it = new PrefetchingRowIterator(failing, 10, 1)) {
+            it.hasNext();
+        }
+    }
+
+    /** Tests that the fetch size adapts to the row width within the allowed bounds. */
+    @Test
+    public void testComputeFetchSize() {
+        assertEquals(PrefetchingRowIterator.MAX_FETCH_SIZE, PrefetchingRowIterator.computeFetchSize(8));
+        assertEquals(PrefetchingRowIterator.MIN_FETCH_SIZE,
+            PrefetchingRowIterator.computeFetchSize(100L * 1024 * 1024));
+        assertEquals(4096, PrefetchingRowIterator.computeFetchSize(1024));
+    }
+}
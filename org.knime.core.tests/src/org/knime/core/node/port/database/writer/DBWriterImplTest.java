@@ -0,0 +1,230 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.writer;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DefaultTable;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.port.database.DatabaseUtility;
+import org.knime.core.node.port.database.ExecuteStatement;
+import org.knime.core.node.port.database.connection.DBConnectionFactory;
+import org.knime.core.node.streamable.DataTableRowInput;
+
+/**
+ * Tests the parallel mode of {@link DBWriterImpl#writeData(String, org.knime.core.node.streamable.RowInput, long,
+ * boolean, ExecutionMonitor, Map, org.knime.core.node.workflow.CredentialsProvider, int, boolean, boolean, int)}.
+ * Neither an H2 nor an SQLite driver is available to this bundle, hence the connections are mocked and keep the
+ * inserted rows per transaction.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class DBWriterImplTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(new String[]{"value"}, new DataType[]{IntCell.TYPE});
+
+    private static final Map<String, String> SQL_TYPES = Collections.singletonMap("value", "integer");
+
+    private static final int ROW_COUNT = 10000;
+
+    private static final int PARALLELISM = 4;
+
+    /** the committed rows of the written table. */
+    private List<Integer> m_table;
+
+    /** value that makes the batch containing it fail, -1 for none. */
+    private volatile int m_failingValue;
+
+    /** index of the connection whose commit fails, -1 for none. */
+    private volatile int m_failingCommit;
+
+    private DBWriterImpl m_writer;
+
+    /** Creates the writer with mocked connections. */
+    @Before
+    public void setUp() throws Exception {
+        m_table = Collections.synchronizedList(new ArrayList<>());
+        m_failingValue = -1;
+        m_failingCommit = -1;
+        final DatabaseConnectionSettings settings = mock(DatabaseConnectionSettings.class);
+        final DatabaseUtility utility = spy(new DatabaseUtility());
+        final DBConnectionFactory factory = mock(DBConnectionFactory.class);
+        final int[] connectionIndex = new int[1];
+        when(factory.createUncachedConnection(any(), any())).thenAnswer(inv -> createConnection(connectionIndex[0]++));
+        doReturn(factory).when(utility).getConnectionFactory();
+        when(settings.getUtility()).thenReturn(utility);
+        when(settings.getTimeZone()).thenReturn(TimeZone.getDefault());
+        final Connection setupConnection = createConnection(-1);
+        when(settings.execute(any(), any())).thenAnswer(inv -> inv.<ExecuteStatement<?>> getArgument(1)
+            .apply(setupConnection));
+        m_writer = new DBWriterImpl(settings);
+    }
+
+    /**
+     * Creates a connection that buffers the rows of a batch, moves them into its transaction when executing the
+     * batch and into {@link #m_table} when committing.
+     */
+    private Connection createConnection(final int index) throws SQLException {
+        final Connection conn = mock(Connection.class);
+        final List<Integer> transaction = new ArrayList<>();
+        final List<Integer> batch = new ArrayList<>();
+        final int[] value = new int[1];
+        final PreparedStatement stmt = mock(PreparedStatement.class);
+        doAnswer(inv -> value[0] = inv.getArgument(1)).when(stmt).setInt(anyInt(), anyInt());
+        doAnswer(inv -> batch.add(value[0])).when(stmt).addBatch();
+        doAnswer(inv -> batch.clear()).when(stmt).clearBatch();
+        when(stmt.executeBatch()).thenAnswer(inv -> {
+            if (batch.contains(m_failingValue)) {
+                throw new SQLException("Failing value " + m_failingValue);
+            }
+            transaction.addAll(batch);
+            return new int[batch.size()];
+        });
+        when(conn.prepareStatement(anyString())).thenReturn(stmt);
+        when(conn.createStatement()).thenAnswer(inv -> mock(Statement.class));
+        doAnswer(inv -> {
+            if (index == m_failingCommit) {
+                throw new SQLException("Failing commit");
+            }
+            m_table.addAll(transaction);
+            transaction.clear();
+            return null;
+        }).when(conn).commit();
+        doAnswer(inv -> {
+            transaction.clear();
+            return null;
+        }).when(conn).rollback();
+        return conn;
+    }
+
+    private String write(final boolean failOnError) throws Exception {
+        final DataRow[] rows = new DataRow[ROW_COUNT];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            rows[i] = new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i));
+        }
+        return m_writer.writeData("test", new DataTableRowInput(new DefaultTable(rows, SPEC)), ROW_COUNT, false,
+            new ExecutionMonitor(), SQL_TYPES, null, 100, false, failOnError, PARALLELISM);
+    }
+
+    /** Tests that all rows are written exactly once. */
+    @Test
+    public void testWriteParallel() throws Exception {
+        assertNull("Unexpected errors", write(true));
+        assertEquals("Wrong number of rows", ROW_COUNT, m_table.size());
+        assertEquals("Duplicate rows", ROW_COUNT, new HashSet<>(m_table).size());
+    }
+
+    /** Tests that a failing partition rolls back all partitions with failOnError. */
+    @Test
+    public void testFailingPartition() throws Exception {
+        m_failingValue = ROW_COUNT / 2;
+        try {
+            write(true);
+            fail("Failing partition not reported");
+        } catch (Exception e) {
+            assertThat("Unexpected error", e.getMessage(), containsString("Failing value"));
+        }
+        assertEquals("Rows of failed write committed", 0, m_table.size());
+    }
+
+    /** Tests that a failing partition is reported in the error message without failOnError. */
+    @Test
+    public void testFailingPartitionWithoutFailOnError() throws Exception {
+        m_failingValue = ROW_COUNT / 2;
+        final String errors = write(false);
+        assertThat("Failing partition not reported", errors, containsString("Errors \"1\" writing " + ROW_COUNT));
+        assertEquals("Wrong number of rows", ROW_COUNT - 100, m_table.size());
+        assertFalse("Rows of failing batch written", m_table.contains(m_failingValue));
+    }
+
+    /** Tests that a failing commit reports the already committed partitions and their rows. */
+    @Test
+    public void testFailingCommit() throws Exception {
+        m_failingCommit = PARALLELISM - 1;
+        try {
+            write(true);
+            fail("Failing commit not reported");
+        } catch (SQLException e) {
+            // the distribution of the rows among the partitions is not deterministic
+            assertThat("Partial commit not reported", e.getMessage(), containsString(m_table.size() + " rows"));
+            assertThat("Partial commit not reported", e.getMessage(), containsString("partition(s) 1, 2, 3"));
+        }
+        assertEquals("Duplicate rows", m_table.size(), new HashSet<>(m_table).size());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.pmml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dmg.pmml.PMMLDocument;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Tests for {@link PMMLDocumentCache}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class PMMLDocumentCacheTest {
+
+    /** Clears the shared cache. */
+    @After
+    public void clearCache() {
+        PMMLDocumentCache.getInstance().clear();
+    }
+
+    /**
+     * Tests that documents with the same content are parsed only once.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParsedOnce() throws Exception {
+        AtomicInteger parseCount = new AtomicInteger();
+        PMMLDocumentCache.Parser parser = c -> {
+            parseCount.incrementAndGet();
+            return mock(PMMLDocument.class);
+        };
+        PMMLDocumentCache cache = PMMLDocumentCache.getInstance();
+        PMMLDocument doc1 = cache.getOrParse("<PMML/>".getBytes(StandardCharsets.UTF_8), parser);
+        PMMLDocument doc2 = cache.getOrParse("<PMML/>".getBytes(StandardCharsets.UTF_8), parser);
+        assertSame(doc1, doc2);
+        assertEquals(1, parseCount.get());
+
+        cache.getOrParse("<PMML version=\"4.2\"/>".getBytes(StandardCharsets.UTF_8), parser);
+        assertEquals(2, parseCount.get());
+        assertEquals(2, cache.size());
+    }
+
+    /**
+     * Tests that the number of cached documents is bounded.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBounded() throws Exception {
+        PMMLDocumentCache cache = PMMLDocumentCache.getInstance();
+        for (int i = 0; i < 100; i++) {
+            cache.getOrParse(new byte[]{(byte)i}, c -> mock(PMMLDocument.class));
+        }
+        assertEquals(16, cache.size());
+    }
+
+    /**
+     * Tests the content hash.
+     */
+    @Test
+    public void testHash() {
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855",
+            PMMLDocumentCache.hash(new byte[0]));
+        assertNotEquals(PMMLDocumentCache.hash(new byte[]{1}), PMMLDocumentCache.hash(new byte[]{2}));
+    }
+
+}
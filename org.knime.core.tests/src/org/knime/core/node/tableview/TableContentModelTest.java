@@ -55,9 +55,11 @@
 import static org.mockito.Mockito.verify;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
@@ -69,6 +71,7 @@
 import javax.swing.event.TableModelEvent;
 import javax.swing.event.TableModelListener;
 
+import org.knime.core.data.DataColumnSpecCreator;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTable;
 import org.knime.core.data.DataTableSpec;
@@ -80,12 +83,23 @@
 import org.knime.core.data.def.DefaultRowIterator;
 import org.knime.core.data.def.DefaultTable;
 import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
 import org.knime.core.data.def.StringCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.PortType;
 import org.knime.core.node.property.hilite.HiLiteHandler;
 import org.knime.core.node.property.hilite.KeyEvent;
 import org.knime.core.node.tableview.TableContentModel.TableContentFilter;
 import org.knime.core.node.util.ViewUtils;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
 import org.mockito.ArgumentMatcher;
 
 import junit.framework.TestCase;
@@ -809,6 +823,181 @@ public final void testShowOnlyHiLited() {
 
     }
 
+    /**
+     * Creates a buffered table with the given number of rows, whose keys and
+     * single int cell correspond to the row index. The rows are written to disc.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static BufferedDataTable createBufferedTable(final int rowCount) {
+        final ExecutionContext exec = new ExecutionContext(new DefaultNodeProgressMonitor(),
+            new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, NotInWorkflowDataRepository.newInstance());
+        final DataTableSpec spec = new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec());
+        final BufferedDataContainer cont = exec.createDataContainer(spec, true, 0);
+        for (int i = 0; i < rowCount; i++) {
+            cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+    /** Asserts that the model returns the row with the given index. */
+    private static void assertRow(final TableContentModel model, final int row) {
+        final DataRow r = model.getRow(row);
+        assertEquals("Row key", RowKey.createRowKey((long)row), r.getKey());
+        assertEquals("Cell", row, ((IntCell)r.getCell(0)).getIntValue());
+    }
+
+    /**
+     * Jumps forward and back across the cache window of a buffered table and
+     * checks that the iterator is positioned close to the requested row
+     * (rows before the new window are not cached).
+     */
+    public final void testSeekAcrossCacheWindow() {
+        final TableContentModel model = new TableContentModel();
+        model.setCacheSize(200);
+        model.setDataTable(createBufferedTable(2000));
+        final int chunk = model.getChunkSize();
+        assertEquals("Cache Size", 200, model.getCacheSize());
+        assertEquals("Row Count", 2000, model.getRowCount());
+
+        // far ahead: seek to one chunk before the requested row
+        assertRow(model, 1500);
+        assertTrue(model.isCached(1500 - chunk));
+        assertFalse(model.isCached(1500 - chunk - 1));
+        assertTrue(model.isCached(1500 + chunk));
+        assertFalse(model.isCached(1500 + chunk + 1));
+
+        // back to the start: scrolling up places the window above the row
+        assertRow(model, 100);
+        assertTrue(model.isCached(0));
+        assertTrue(model.isCached(100 + chunk));
+        assertFalse(model.isCached(1500));
+
+        // forward again, then scroll up just above the window
+        assertRow(model, 1000);
+        assertFalse(model.isCached(0));
+        assertRow(model, 1000 - chunk - 1);
+        final int seekStart = 1000 - chunk - 1 - (model.getCacheSize() - 2 * chunk);
+        assertTrue(model.isCached(seekStart));
+        assertFalse(model.isCached(seekStart - 1));
+
+        // last row, then all rows in reverse order
+        assertRow(model, 1999);
+        assertTrue(model.isCached(1999));
+        for (int row = 1999; row >= 0; row--) {
+            assertRow(model, row);
+        }
+        assertTrue(model.isRowCountFinal());
+        assertEquals("Row Count", 2000, model.getRowCount());
+    }
+
+    /**
+     * Tests the bounds of the cache window while scrolling down, before and
+     * after the ring buffer wraps around and after seeking.
+     */
+    public final void testIsCachedAtWindowEdges() {
+        final TableContentModel model = new TableContentModel();
+        model.setCacheSize(200);
+        model.setDataTable(createBufferedTable(1000));
+        final int chunk = model.getChunkSize();
+        final int cacheSize = model.getCacheSize();
+
+        assertRow(model, 1);
+        assertTrue(model.isCached(0));
+        assertTrue(model.isCached(1 + chunk));
+        assertFalse(model.isCached(2 + chunk));
+
+        // within reach of the iterator, ring buffer wraps around
+        final int row = cacheSize;
+        assertRow(model, row);
+        final int last = row + chunk;
+        assertTrue(model.isCached(last));
+        assertFalse(model.isCached(last + 1));
+        assertTrue(model.isCached(last - cacheSize + 1));
+        assertFalse(model.isCached(last - cacheSize));
+        assertFalse(model.isCached(0));
+
+        // after seeking the rows before the start of the iterator are not cached
+        assertRow(model, 800);
+        assertTrue(model.isCached(800 - chunk));
+        assertFalse(model.isCached(800 - chunk - 1));
+        assertTrue(model.isCached(800 + chunk));
+
+        // the last row of the table
+        assertRow(model, 999);
+        assertTrue(model.isCached(999));
+        assertFalse(model.isCached(1000));
+    }
+
+    /**
+     * Tests that rows are read ahead when scrolling down in a buffered table
+     * and that the rows read ahead are handed out in the right order.
+     */
+    public final void testPrefetch() throws Exception {
+        final TableContentModel model = new TableContentModel();
+        model.setCacheSize(200);
+        model.setDataTable(createBufferedTable(1000));
+        final int chunk = model.getChunkSize();
+
+        // the first row is cached when the data is set, the rows after it are read ahead
+        assertRow(model, 0);
+        final Future<List<DataRow>> prefetch = model.getPendingPrefetch();
+        assertNotNull("No rows read ahead", prefetch);
+        final List<DataRow> rows = prefetch.get(10, TimeUnit.SECONDS);
+        assertEquals("Rows read ahead", 2 * chunk, rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(RowKey.createRowKey((long)i + 1), rows.get(i).getKey());
+        }
+        assertFalse("Rows read ahead are not cached", model.isCached(1));
+
+        // scroll down, reading ahead in between
+        for (int row = 1; row < 1000; row++) {
+            assertRow(model, row);
+        }
+        assertTrue(model.isRowCountFinal());
+        assertEquals("Row Count", 1000, model.getRowCount());
+
+        // no read ahead for tables whose iterators may not be thread-safe
+        final TableContentModel model2 = new TableContentModel(DATA);
+        model2.getRow(0);
+        assertNull(model2.getPendingPrefetch());
+    }
+
+    /** Tests that the cache size is derived from the number of columns unless set explicitly. */
+    public final void testAdaptiveCacheSize() {
+        final TableContentModel model = new TableContentModel();
+        model.setDataTable(new DefaultTable(new DataRow[0], createSpec(1)));
+        assertEquals("Cache Size (narrow)", 5000, model.getCacheSize());
+        model.setDataTable(new DefaultTable(new DataRow[0], createSpec(50)));
+        assertEquals("Cache Size (50 columns)", 2000, model.getCacheSize());
+        model.setDataTable(new DefaultTable(new DataRow[0], createSpec(1000)));
+        assertEquals("Cache Size (wide)", TableContentModel.CACHE_SIZE, model.getCacheSize());
+
+        // rows are still served correctly with the derived cache size
+        model.setDataTable(createBufferedTable(6000));
+        assertEquals("Cache Size (narrow)", 5000, model.getCacheSize());
+        assertRow(model, 5999);
+        assertRow(model, 0);
+
+        final TableContentModel fixed = new TableContentModel();
+        fixed.setCacheSize(300);
+        fixed.setDataTable(new DefaultTable(new DataRow[0], createSpec(1)));
+        assertEquals("Cache Size (fixed)", 300, fixed.getCacheSize());
+        fixed.setDataTable(new DefaultTable(new DataRow[0], createSpec(1000)));
+        assertEquals("Cache Size (fixed)", 300, fixed.getCacheSize());
+    }
+
+    private static DataTableSpec createSpec(final int nrCols) {
+        final String[] names = new String[nrCols];
+        final DataType[] types = new DataType[nrCols];
+        for (int i = 0; i < nrCols; i++) {
+            names[i] = "Column " + i;
+            types[i] = IntCell.TYPE;
+        }
+        return new DataTableSpec(names, types);
+    }
+
     /** Runs an empty runnable in the EDT thread to make sure there are no
      * further hilite events queued. */
     private void flushEDTQueue() {
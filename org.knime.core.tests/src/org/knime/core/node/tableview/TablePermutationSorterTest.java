@@ -0,0 +1,254 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.tableview;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DefaultTable;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.data.sort.RowComparator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.virtual.parchunk.VirtualParallelizedChunkPortObjectInNodeFactory;
+
+/**
+ * Tests {@link TablePermutationSorter}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public final class TablePermutationSorterTest {
+
+    private static final DataTableSpec SPEC = new DataTableSpec(
+        new DataColumnSpecCreator("double", DoubleCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("int", IntCell.TYPE).createSpec(),
+        new DataColumnSpecCreator("string", StringCell.TYPE).createSpec());
+
+    private static DataRow[] createRows(final int count) {
+        final Random rand = new Random(7);
+        final DataRow[] rows = new DataRow[count];
+        for (int i = 0; i < count; i++) {
+            final DataCell d = rand.nextInt(20) == 0 ? DataType.getMissingCell() : new DoubleCell(rand.nextInt(50));
+            final DataCell n = rand.nextInt(20) == 0 ? DataType.getMissingCell() : new IntCell(rand.nextInt(10) - 5);
+            final DataCell s = new StringCell("s" + rand.nextInt(100));
+            rows[i] = new DefaultRow(RowKey.createRowKey((long)rand.nextInt(count)), d, n, s);
+        }
+        return rows;
+    }
+
+    /** Sorts the row indices using the comparator of the regular table sorter. */
+    private static int[] expectedPermutation(final DataRow[] rows, final int[] columns, final boolean[] ascending) {
+        final Comparator<DataRow> comp = new RowComparator(columns, ascending, false, SPEC);
+        final List<Integer> indices = new ArrayList<>();
+        for (int i = 0; i < rows.length; i++) {
+            indices.add(i);
+        }
+        indices.sort((a, b) -> comp.compare(rows[a], rows[b])); // stable
+        return indices.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Sorts on different (combinations of) columns, including the row key, and
+     * compares the result to a (stable) sort using the {@link RowComparator}.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testSortMatchesRowComparator() throws Exception {
+        final DataRow[] rows = createRows(50000);
+        final TablePermutationSorter sorter = new TablePermutationSorter(new DefaultTable(rows, SPEC), rows.length);
+        final int[][] columns = {{0}, {1}, {2}, {-1}, {1, 0}, {2, 1}, {0, -1}};
+        for (final int[] cols : columns) {
+            for (final boolean asc : new boolean[]{true, false}) {
+                final boolean[] ascending = new boolean[cols.length];
+                Arrays.fill(ascending, asc);
+                ascending[ascending.length - 1] = true;
+                assertArrayEquals("Sort on " + Arrays.toString(cols) + ", ascending " + Arrays.toString(ascending),
+                    expectedPermutation(rows, cols, ascending),
+                    sorter.sort(cols, ascending, new ExecutionMonitor()));
+            }
+        }
+    }
+
+    /**
+     * Tests that an empty and a single row table can be sorted.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testSortSmallTables() throws Exception {
+        assertEquals(0, new TablePermutationSorter(new DefaultTable(new DataRow[0], SPEC), 0)
+            .sort(new int[]{0}, new boolean[]{true}, new ExecutionMonitor()).length);
+        final DataRow[] rows = createRows(1);
+        assertArrayEquals(new int[]{0}, new TablePermutationSorter(new DefaultTable(rows, SPEC), 1)
+            .sort(new int[]{2}, new boolean[]{false}, new ExecutionMonitor()));
+    }
+
+    /**
+     * Tests that a canceled sort throws an exception and doesn't leave incomplete keys behind.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testCancel() throws Exception {
+        final DataRow[] rows = createRows(5000);
+        final TablePermutationSorter sorter = new TablePermutationSorter(new DefaultTable(rows, SPEC), rows.length);
+        final DefaultNodeProgressMonitor progress = new DefaultNodeProgressMonitor();
+        progress.setExecuteCanceled();
+        final ExecutionMonitor canceled = new ExecutionMonitor(progress);
+        boolean wasCanceled = false;
+        try {
+            sorter.sort(new int[]{0}, new boolean[]{true}, canceled);
+        } catch (CanceledExecutionException e) {
+            wasCanceled = true;
+        }
+        assertTrue("Sort not canceled", wasCanceled);
+        assertArrayEquals(expectedPermutation(rows, new int[]{0}, new boolean[]{true}),
+            sorter.sort(new int[]{0}, new boolean[]{true}, new ExecutionMonitor()));
+    }
+
+    /**
+     * Tests that sorting still works after the key cache was cleared and that
+     * small tables are sorted in memory.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testClearCache() throws Exception {
+        final DataRow[] rows = createRows(5000);
+        final TablePermutationSorter sorter = new TablePermutationSorter(new DefaultTable(rows, SPEC), rows.length);
+        assertTrue("Small table doesn't fit into memory", sorter.fitsInMemory(new int[]{0, 2, -1}));
+        final int[] expected = expectedPermutation(rows, new int[]{1, 2}, new boolean[]{true, false});
+        assertArrayEquals(expected, sorter.sort(new int[]{1, 2}, new boolean[]{true, false}, new ExecutionMonitor()));
+        sorter.clearCache();
+        assertArrayEquals(expected, sorter.sort(new int[]{1, 2}, new boolean[]{true, false}, new ExecutionMonitor()));
+        sorter.clearCache();
+    }
+
+    /**
+     * Tests that a view with a scattered permutation returns the rows in
+     * permutation order, starting at any row and across windows.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testPermutedTable() throws Exception {
+        final int count = 1000;
+        final BufferedDataTable table = createBufferedTable(count);
+        final int[] shuffled = new int[count];
+        for (int i = 0; i < count; i++) {
+            shuffled[i] = i;
+        }
+        final Random rand = new Random(3);
+        for (int i = count - 1; i > 0; i--) {
+            final int j = rand.nextInt(i + 1);
+            final int tmp = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = tmp;
+        }
+        final PermutedTable view = new PermutedTable(table, shuffled, 64);
+        assertEquals(count, view.size());
+        try (final CloseableRowIterator it = view.iterator()) {
+            for (int i = 0; i < count; i++) {
+                assertEquals("Row " + i, shuffled[i], ((IntCell)it.next().getCell(0)).getIntValue());
+            }
+            assertFalse(it.hasNext());
+        }
+        for (final int start : new int[]{999, 640, 63, 64, 0, 500}) {
+            try (final CloseableRowIterator it = view.iterator(start)) {
+                for (int i = start; i < Math.min(count, start + 100); i++) {
+                    assertEquals("Row " + i, RowKey.createRowKey((long)shuffled[i]), it.next().getKey());
+                }
+            }
+        }
+        assertTrue("Default window too small",
+            new PermutedTable(table, shuffled).getWindowSize() >= PermutedTable.MIN_WINDOW_SIZE);
+        assertFalse(new PermutedTable(table, new int[0]).iterator(0).hasNext());
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static BufferedDataTable createBufferedTable(final int rowCount) {
+        final ExecutionContext exec = new ExecutionContext(new DefaultNodeProgressMonitor(),
+            new Node((NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0])),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, NotInWorkflowDataRepository.newInstance());
+        final DataTableSpec spec = new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec());
+        final BufferedDataContainer cont = exec.createDataContainer(spec, true, 0);
+        for (int i = 0; i < rowCount; i++) {
+            cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+        }
+        cont.close();
+        return cont.getTable();
+    }
+
+}
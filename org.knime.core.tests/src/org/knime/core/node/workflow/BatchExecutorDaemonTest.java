@@ -0,0 +1,277 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.node.workflow.BatchExecutor.IllegalOptionException;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests the job handling of the {@link BatchExecutorDaemon} (using a dummy job runner).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BatchExecutorDaemonTest {
+
+    private Path m_spoolDir;
+
+    private final List<List<String>> m_jobs = new CopyOnWriteArrayList<>();
+
+    private final List<List<String>> m_globalOptions = new CopyOnWriteArrayList<>();
+
+    private BatchExecutorDaemon m_daemon;
+
+    /**
+     * Creates the spool directory and starts the daemon.
+     *
+     * @throws Exception if that fails
+     */
+    @Before
+    public void startDaemon() throws Exception {
+        m_spoolDir = FileUtil.createTempDir("BatchExecutorDaemonTest").toPath();
+        m_daemon = new BatchExecutorDaemon(new String[]{BatchExecutorDaemon.OPTION_SPOOL_DIR + "=" + m_spoolDir,
+            BatchExecutorDaemon.OPTION_PORT + "=0", BatchExecutorDaemon.OPTION_THREADS + "=2",
+            BatchExecutorDaemon.OPTION_TOKEN_FILE + "=" + m_spoolDir.resolve("daemon.token"), "-reset",
+            "-masterkey=secret"}, args -> {
+                m_globalOptions.add(Arrays.asList(args));
+                return BatchExecutor.EXIT_SUCCESS;
+            }, args -> {
+                m_jobs.add(Arrays.asList(args));
+                return "-fail".equals(args[args.length - 1]) ? BatchExecutor.EXIT_ERR_EXECUTION
+                    : BatchExecutor.EXIT_SUCCESS;
+            });
+        m_daemon.start();
+    }
+
+    /**
+     * Shuts down the daemon.
+     *
+     * @throws Exception if that fails
+     */
+    @After
+    public void stopDaemon() throws Exception {
+        m_daemon.shutdown();
+        m_daemon.awaitShutdown();
+        FileUtil.deleteRecursively(m_spoolDir.toFile());
+    }
+
+    /**
+     * Tests jobs submitted via the spool directory.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 10000L)
+    public void testSpoolDirectory() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            Files.write(m_spoolDir.resolve("job" + i + BatchExecutorDaemon.JOB_SUFFIX),
+                Arrays.asList("# comment", "-workflowDir=/wf" + i, i == 2 ? "-fail" : "-nosave", ""));
+        }
+        for (int i = 0; i < 4; i++) {
+            final Path result = m_spoolDir.resolve("job" + i + BatchExecutorDaemon.RESULT_SUFFIX);
+            while (!Files.exists(result)) {
+                Thread.sleep(20);
+            }
+            assertEquals("Wrong exit code of job " + i,
+                Arrays.asList(Integer.toString(i == 2 ? BatchExecutor.EXIT_ERR_EXECUTION : BatchExecutor.EXIT_SUCCESS)),
+                Files.readAllLines(result));
+        }
+        while (!Files.exists(m_spoolDir.resolve("job3" + BatchExecutorDaemon.DONE_SUFFIX))) {
+            Thread.sleep(20);
+        }
+        assertEquals("Wrong number of jobs", 4, m_jobs.size());
+        assertTrue("Default arguments not passed to job",
+            m_jobs.contains(Arrays.asList("-reset", "-workflowDir=/wf0", "-nosave")));
+
+        Files.createFile(m_spoolDir.resolve(BatchExecutorDaemon.STOP_FILE));
+        m_daemon.awaitShutdown();
+    }
+
+    /**
+     * Tests jobs submitted via the socket.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 10000L)
+    public void testSocket() throws Exception {
+        assertEquals("Wrong exit code", Integer.toString(BatchExecutor.EXIT_SUCCESS),
+            sendRequest("-workflowDir=/wf\n-nosave\n\n"));
+        assertEquals("Wrong exit code", Integer.toString(BatchExecutor.EXIT_ERR_EXECUTION),
+            sendRequest("-workflowDir=/wf\n-fail\n\n"));
+        assertEquals("Wrong job arguments", Arrays.asList("-reset", "-workflowDir=/wf", "-nosave"), m_jobs.get(0));
+        assertEquals("Global options not applied exactly once", Arrays.asList(Arrays.asList("-masterkey=secret")),
+            m_globalOptions);
+
+        assertEquals("Wrong exit code", Integer.toString(BatchExecutor.EXIT_SUCCESS),
+            sendRequest(BatchExecutorDaemon.SHUTDOWN_REQUEST + "\n\n"));
+        m_daemon.awaitShutdown();
+        assertFalse("Token file not deleted", Files.exists(m_spoolDir.resolve("daemon.token")));
+    }
+
+    /**
+     * Tests that socket requests without the correct token are rejected and that the token file is private.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 10000L)
+    public void testSocketToken() throws Exception {
+        final Path tokenFile = m_daemon.getTokenFile();
+        assertEquals(m_spoolDir.resolve("daemon.token"), tokenFile);
+        if (tokenFile.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            final Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(tokenFile);
+            assertEquals("Token file readable by others", PosixFilePermissions.fromString("rw-------"), permissions);
+        }
+        assertNull("Request without token answered", sendRawRequest("-workflowDir=/wf\n-nosave\n\n"));
+        assertNull("Request with wrong token answered", sendRawRequest("0123\n-workflowDir=/wf\n-nosave\n\n"));
+        assertNull("Shutdown without token answered", sendRawRequest(BatchExecutorDaemon.SHUTDOWN_REQUEST + "\n\n"));
+        assertTrue("Job without token executed", m_jobs.isEmpty());
+    }
+
+    /**
+     * Tests that jobs must not change global state of the application.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 10000L)
+    public void testGlobalOptionsRejected() throws Exception {
+        assertEquals("Wrong exit code", Integer.toString(BatchExecutor.EXIT_ERR_PRESTART),
+            sendRequest("-workflowDir=/wf\n-masterkey\n\n"));
+        assertEquals("Wrong exit code", Integer.toString(BatchExecutor.EXIT_ERR_PRESTART),
+            sendRequest("-workflowDir=/wf\n-preferences=/tmp/prefs.epf\n\n"));
+        assertTrue("Job with global options executed", m_jobs.isEmpty());
+    }
+
+    /**
+     * Tests that idle connections don't occupy the job threads.
+     *
+     * @throws Exception if that fails
+     */
+    @Test(timeout = 10000L)
+    public void testIdleConnections() throws Exception {
+        // more idle connections than job threads, each one waiting for its request to be sent
+        final List<Socket> idle = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                idle.add(new Socket(InetAddress.getLoopbackAddress(), m_daemon.getLocalPort()));
+            }
+            final Path result = m_spoolDir.resolve("job" + BatchExecutorDaemon.RESULT_SUFFIX);
+            Files.write(m_spoolDir.resolve("job" + BatchExecutorDaemon.JOB_SUFFIX), Arrays.asList("-workflowDir=/wf"));
+            while (!Files.exists(result)) {
+                Thread.sleep(20);
+            }
+            assertEquals(Arrays.asList(Integer.toString(BatchExecutor.EXIT_SUCCESS)), Files.readAllLines(result));
+        } finally {
+            for (Socket socket : idle) {
+                socket.close();
+            }
+        }
+    }
+
+    private String sendRequest(final String request) throws Exception {
+        final String token = Files.readAllLines(m_daemon.getTokenFile(), StandardCharsets.US_ASCII).get(0);
+        return sendRawRequest(token + "\n" + request);
+    }
+
+    private String sendRawRequest(final String request) throws Exception {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), m_daemon.getLocalPort())) {
+            final Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            writer.write(request);
+            writer.flush();
+            return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))
+                .readLine();
+        } catch (SocketException ex) { // NOSONAR connection reset by the daemon, i.e. rejected
+            return null;
+        }
+    }
+
+    /**
+     * Tests the daemon options.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testArguments() throws Exception {
+        assertTrue(BatchExecutorDaemon.isDaemonInvocation(new String[]{"-reset", "-daemonPort=1234"}));
+        assertFalse(BatchExecutorDaemon.isDaemonInvocation(new String[]{"-reset", "-workflowDir=/wf"}));
+        assertEquals("Wrong exit code for missing spool directory", BatchExecutor.EXIT_ERR_PRESTART,
+            BatchExecutorDaemon.run(new String[]{"-daemonSpoolDir=/does/not/exist"}, args -> 0, args -> 0));
+        assertEquals("Wrong exit code for invalid thread count", BatchExecutor.EXIT_ERR_PRESTART,
+            BatchExecutorDaemon.run(new String[]{"-daemonPort=0", "-daemonThreads=0"}, args -> 0, args -> 0));
+        assertEquals("Wrong exit code for invalid global options", BatchExecutor.EXIT_ERR_PRESTART,
+            BatchExecutorDaemon.run(new String[]{"-daemonPort=0", "-preferences=/does/not/exist"},
+                args -> BatchExecutor.EXIT_ERR_PRESTART, args -> 0));
+        try {
+            new BatchExecutorDaemon(new String[]{"-daemonThreads=2"}, args -> 0, args -> 0);
+            throw new AssertionError("Daemon without spool directory and port created");
+        } catch (IllegalOptionException ex) { // NOSONAR expected
+        }
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.knime.core.node.workflow.VariableType.IntType;
+import org.knime.core.node.workflow.VariableType.StringType;
+
+/**
+ * Tests the variable lookup of {@link FlowObjectStack}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class FlowObjectStackTest {
+
+    private static final NodeID ID = new NodeID(0).createChild(1);
+
+    /** Variables pushed later shadow the ones with same name and type below. */
+    @Test
+    public void testShadowing() {
+        FlowObjectStack stack = FlowObjectStack.createFromFlowVariableList(
+            Arrays.asList(new FlowVariable("a", 1), new FlowVariable("b", "foo")), ID);
+        assertEquals(1, stack.peekFlowVariable("a", IntType.INSTANCE).get().getIntValue());
+        stack.push(new FlowVariable("a", 2));
+        assertEquals(2, stack.peekFlowVariable("a", IntType.INSTANCE).get().getIntValue());
+        stack.push(new FlowVariable("a", "bar"));
+        assertEquals(2, stack.peekFlowVariable("a", IntType.INSTANCE).get().getIntValue());
+        assertEquals("bar", stack.peekFlowVariable("a", StringType.INSTANCE).get().getStringValue());
+        assertEquals("foo", stack.peekFlowVariable("b", StringType.INSTANCE).get().getStringValue());
+        assertFalse(stack.peekFlowVariable("b", IntType.INSTANCE).isPresent());
+        assertFalse(stack.peekFlowVariable("c", IntType.INSTANCE).isPresent());
+    }
+
+    /** Popping a scope makes the variables shadowed by the scope's variables visible again. */
+    @Test
+    public void testPopScope() {
+        FlowObjectStack stack =
+            FlowObjectStack.createFromFlowVariableList(Arrays.asList(new FlowVariable("a", 1)), ID);
+        stack.push(new FlowLoopContext());
+        stack.push(new FlowVariable("a", 2));
+        stack.push(new FlowVariable("c", 3));
+        assertEquals(2, stack.peekFlowVariable("a", IntType.INSTANCE).get().getIntValue());
+        assertTrue(stack.peekFlowVariable("c", IntType.INSTANCE).isPresent());
+        stack.pop(FlowLoopContext.class);
+        assertEquals(1, stack.peekFlowVariable("a", IntType.INSTANCE).get().getIntValue());
+        assertFalse(stack.peekFlowVariable("c", IntType.INSTANCE).isPresent());
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NoDescriptionProxy;
+import org.knime.core.node.NodeDescription;
+import org.knime.core.node.NodeDialogPane;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NodeView;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests the {@link NodeExecutionProfiler}: recording the executions of a node and exporting the
+ * {@link NodeExecutionProfile}s.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class NodeExecutionProfilerTest {
+
+    private static final int ROW_COUNT = 1000;
+
+    private static final long LOCK_HOLD_MILLIS = 100;
+
+    private WorkflowManager m_wfm;
+
+    /** Removes the workflow and restores the default. */
+    @After
+    public void tearDown() {
+        NodeExecutionProfiler.setEnabled(Boolean.getBoolean(KNIMEConstants.PROPERTY_NODE_PROFILING));
+        if (m_wfm != null) {
+            WorkflowManager.ROOT.removeProject(m_wfm.getID());
+        }
+    }
+
+    private static List<NodeExecutionProfile> createProfiles() {
+        final NodeID wfID = new NodeID(new NodeID(0), 1);
+        final NodeExecutionProfile reader = new NodeExecutionProfile(new NodeID(wfID, 1), "CSV Reader 0:1:1",
+            Arrays.asList("Workflow 0:1"), "KNIME-Worker-1", 1000L, 5000000L, 4000000L, 1024L, 0L,
+            new long[]{-1}, new long[]{-1, 100}, 2048L, 4096L, 0L, true);
+        final NodeExecutionProfile filter = new NodeExecutionProfile(new NodeID(new NodeID(wfID, 2), 3),
+            "Row Filter 0:1:2:3", Arrays.asList("Workflow 0:1", "Metanode; with semicolon 0:1:2"), "KNIME-Worker-2",
+            1010L, 2000000L, -1L, -1L, 3L, new long[]{-1, 100}, new long[]{-1, 50}, 4096L, 1024L, 500000L, false);
+        return Arrays.asList(reader, filter);
+    }
+
+    /**
+     * Tests the folded stacks (flame graph) format.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testFoldedStacks() throws Exception {
+        final StringWriter writer = new StringWriter();
+        NodeExecutionProfiler.writeFoldedStacks(createProfiles(), NodeExecutionProfile::getWallTimeNanos, writer);
+        assertEquals("Workflow 0:1;CSV Reader 0:1:1 5000000\n"
+            + "Workflow 0:1;Metanode, with semicolon 0:1:2;Row Filter 0:1:2:3 2000000\n", writer.toString());
+
+        final StringWriter cpuWriter = new StringWriter();
+        NodeExecutionProfiler.writeFoldedStacks(createProfiles(), NodeExecutionProfile::getCPUTimeNanos, cpuWriter);
+        assertEquals("Executions without CPU time not skipped", "Workflow 0:1;CSV Reader 0:1:1 4000000\n",
+            cpuWriter.toString());
+    }
+
+    /**
+     * Tests the trace event (JSON) format.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testTraceJSON() throws Exception {
+        final StringWriter writer = new StringWriter();
+        NodeExecutionProfiler.writeTraceJSON(createProfiles(), writer);
+        final String json = writer.toString().replaceAll("\\s", "");
+        assertTrue(json, json.startsWith("{\"traceEvents\":[{\"name\":\"CSVReader0:1:1\""));
+        assertTrue(json, json.contains("\"ph\":\"X\",\"ts\":1000000,\"dur\":5000,\"pid\":1,\"tid\":1"));
+        assertTrue(json, json.contains("\"rowsOut\":[-1,100]"));
+        assertTrue(json, json.contains("\"lockWaitMicros\":500"));
+        assertTrue(json, json.contains("\"success\":false"));
+        assertTrue(json, json.contains("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":2,"
+            + "\"args\":{\"name\":\"KNIME-Worker-2\"}}"));
+
+        final StringWriter emptyWriter = new StringWriter();
+        NodeExecutionProfiler.writeTraceJSON(Collections.emptyList(), emptyWriter);
+        assertEquals("{\"traceEvents\":[]}", emptyWriter.toString().replaceAll("\\s", ""));
+    }
+
+    /**
+     * Tests that the profile's arrays can't be modified from outside.
+     */
+    @Test
+    public void testProfileIsImmutable() {
+        final NodeExecutionProfile profile = createProfiles().get(0);
+        profile.getRowsOut()[1] = 0;
+        assertEquals(100, profile.getRowsOut()[1]);
+    }
+
+    /**
+     * Executes a node that waits for the workflow lock, writes a table to disk and reads it again, and checks its
+     * profile, which must be available as soon as the node is executed.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testRecordExecution() throws Exception {
+        NodeExecutionProfiler.setEnabled(true);
+        m_wfm = createEmptyWorkflow();
+        final CountDownLatch executing = new CountDownLatch(1);
+        final CountDownLatch proceed = new CountDownLatch(1);
+        final NodeID id = m_wfm.createAndAddNode(new TableNodeFactory(executing, proceed));
+        final NativeNodeContainer nc = (NativeNodeContainer)m_wfm.getNodeContainer(id);
+        final AtomicReference<NodeExecutionProfile> profileWhenExecuted = new AtomicReference<>();
+        nc.addNodeStateChangeListener(e -> {
+            if (nc.getNodeContainerState().isExecuted()) {
+                profileWhenExecuted.set(nc.getExecutionProfiler().getLastProfile().orElse(null));
+            }
+        });
+
+        m_wfm.executeUpToHere(nc.getID());
+        assertTrue("Node not executing", executing.await(10, TimeUnit.SECONDS));
+        try (WorkflowLock lock = m_wfm.lock()) {
+            proceed.countDown();
+            Thread.sleep(LOCK_HOLD_MILLIS);
+        }
+        assertTrue("Execution not finished", m_wfm.waitWhileInExecution(10, TimeUnit.SECONDS));
+        assertTrue("Node not executed", nc.getNodeContainerState().isExecuted());
+
+        final NodeExecutionProfile profile = nc.getExecutionProfiler().getLastProfile().orElse(null);
+        assertNotNull("No profile recorded", profile);
+        assertSame("Profile not recorded before node is executed", profile, profileWhenExecuted.get());
+        assertEquals(nc.getID(), profile.getNodeID());
+        assertTrue(profile.isSuccess());
+        assertArrayEquals("Rows out (flow variable port and table)", new long[]{-1, ROW_COUNT},
+            profile.getRowsOut());
+        assertTrue("Lock wait not recorded: " + profile.getLockWaitNanos(),
+            profile.getLockWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(LOCK_HOLD_MILLIS / 2));
+        assertTrue("Lock wait exceeds wall time", profile.getLockWaitNanos() <= profile.getWallTimeNanos());
+        assertTrue("Bytes written not counted", profile.getBytesWritten() > 0);
+        assertTrue("Bytes read not counted", profile.getBytesRead() > 0);
+        assertEquals(Collections.singletonList(profile), NodeExecutionProfiler.collectProfiles(m_wfm));
+    }
+
+    /**
+     * Tests that nothing is recorded if profiling is disabled.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testDisabled() throws Exception {
+        NodeExecutionProfiler.setEnabled(false);
+        m_wfm = createEmptyWorkflow();
+        final NodeID id = m_wfm.createAndAddNode(new TableNodeFactory(new CountDownLatch(1), new CountDownLatch(0)));
+        m_wfm.executeUpToHere(id);
+        assertTrue("Execution not finished", m_wfm.waitWhileInExecution(10, TimeUnit.SECONDS));
+        assertTrue("Node not executed", m_wfm.getNodeContainer(id).getNodeContainerState().isExecuted());
+        assertTrue(m_wfm.getNodeContainer(id).getExecutionProfiler().getProfiles().isEmpty());
+    }
+
+    private static WorkflowManager createEmptyWorkflow() throws IOException {
+        final File dir = FileUtil.createTempDir("profiled_workflow");
+        final WorkflowCreationHelper creationHelper = new WorkflowCreationHelper();
+        creationHelper.setWorkflowContext(new WorkflowContext.Factory(dir).createContext());
+        return WorkflowManager.ROOT.createAndAddProject("profiled workflow", creationHelper);
+    }
+
+    /** Source node writing a table of {@link #ROW_COUNT} rows to disk, see {@link TableNodeModel}. */
+    private static final class TableNodeFactory extends NodeFactory<TableNodeModel> {
+
+        private final CountDownLatch m_executing;
+
+        private final CountDownLatch m_proceed;
+
+        TableNodeFactory(final CountDownLatch executing, final CountDownLatch proceed) {
+            m_executing = executing;
+            m_proceed = proceed;
+        }
+
+        @Override
+        protected NodeDescription createNodeDescription() {
+            return new NoDescriptionProxy(getClass());
+        }
+
+        @Override
+        public TableNodeModel createNodeModel() {
+            return new TableNodeModel(m_executing, m_proceed);
+        }
+
+        @Override
+        protected int getNrNodeViews() {
+            return 0;
+        }
+
+        @Override
+        public NodeView<TableNodeModel> createNodeView(final int viewIndex, final TableNodeModel nodeModel) {
+            throw new IllegalStateException("No view");
+        }
+
+        @Override
+        protected boolean hasDialog() {
+            return false;
+        }
+
+        @Override
+        protected NodeDialogPane createNodeDialogPane() {
+            throw new IllegalStateException("No dialog");
+        }
+    }
+
+    /**
+     * Signals that it's executing, waits until it may proceed, then acquires the workflow lock, writes its output
+     * table to disk and reads it again.
+     */
+    private static final class TableNodeModel extends NodeModel {
+
+        private static final DataTableSpec SPEC =
+            new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec());
+
+        private final CountDownLatch m_executing;
+
+        private final CountDownLatch m_proceed;
+
+        TableNodeModel(final CountDownLatch executing, final CountDownLatch proceed) {
+            super(0, 1);
+            m_executing = executing;
+            m_proceed = proceed;
+        }
+
+        @Override
+        protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws InvalidSettingsException {
+            return new DataTableSpec[]{SPEC};
+        }
+
+        @Override
+        protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
+            throws Exception {
+            m_executing.countDown();
+            m_proceed.await();
+            try (WorkflowLock lock = NodeContext.getContext().getNodeContainer().getParent().lock()) {
+                // only waiting for the lock
+            }
+            final BufferedDataContainer container = exec.createDataContainer(SPEC, true, 0);
+            for (int i = 0; i < ROW_COUNT; i++) {
+                container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+            }
+            container.close();
+            final BufferedDataTable table = container.getTable();
+            long sum = 0;
+            for (DataRow row : table) {
+                sum += ((IntCell)row.getCell(0)).getIntValue();
+            }
+            if (sum != (long)ROW_COUNT * (ROW_COUNT - 1) / 2) {
+                throw new IllegalStateException("Table not read correctly");
+            }
+            return new BufferedDataTable[]{table};
+        }
+
+        @Override
+        protected void reset() {
+        }
+
+        @Override
+        protected void saveSettingsTo(final NodeSettingsWO settings) {
+        }
+
+        @Override
+        protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        }
+
+        @Override
+        protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        }
+
+        @Override
+        protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec) {
+        }
+
+        @Override
+        protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec) {
+        }
+    }
+
+}
@@ -0,0 +1,422 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Test;
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnDomainCreator;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataColumnSpecCreator;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CostHint;
+import org.knime.core.node.CostHintProvider;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.InvalidSettingsException;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NoDescriptionProxy;
+import org.knime.core.node.NodeDescription;
+import org.knime.core.node.NodeDialogPane;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.NodeSettingsRO;
+import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.NodeView;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests the size heuristics of the {@link WorkflowCostEstimator} and the {@link CostHint} it consumes, and the
+ * estimation of a workflow with a source node, a node without and a node with a cost hint.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class WorkflowCostEstimatorTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new DataColumnSpecCreator("int", IntCell.TYPE).createSpec());
+
+    private static final int ROW_COUNT = 1000;
+
+    /** The hinted node outputs a tenth of its input rows. */
+    private static final int HINT_ROW_RATIO = 10;
+
+    private static final long HINT_MEMORY_BYTES = 1024;
+
+    private static final long HINT_RUNTIME_NANOS = 5000000;
+
+    private WorkflowManager m_wfm;
+
+    private NodeID m_sourceID;
+
+    private NodeID m_unhintedID;
+
+    private NodeID m_hintedID;
+
+    /** The arguments of the last call of the cost hint. */
+    private final AtomicReference<PortObjectSpec[]> m_hintInSpecs = new AtomicReference<>();
+
+    private final AtomicReference<long[]> m_hintInRows = new AtomicReference<>();
+
+    private final AtomicBoolean m_isHintCalledWithLock = new AtomicBoolean();
+
+    /** Removes the workflow and restores the default. */
+    @After
+    public void tearDown() {
+        NodeExecutionProfiler.setEnabled(Boolean.getBoolean(KNIMEConstants.PROPERTY_NODE_PROFILING));
+        if (m_wfm != null) {
+            WorkflowManager.ROOT.removeProject(m_wfm.getID());
+        }
+    }
+
+    /** Row sizes follow the column types. */
+    @Test
+    public void testRowBytes() {
+        final DataTableSpec spec = new DataTableSpec(new String[]{"d", "i", "b"},
+            new DataType[]{DoubleCell.TYPE, IntCell.TYPE, BooleanCell.TYPE});
+        assertEquals(WorkflowCostEstimator.ROW_OVERHEAD_BYTES + 3 * 8 + 24 + 16,
+            WorkflowCostEstimator.estimateInMemoryRowBytes(spec));
+        assertEquals(WorkflowCostEstimator.SERIALIZED_ROW_OVERHEAD_BYTES + 8 + 4 + 1,
+            WorkflowCostEstimator.estimateSerializedRowBytes(spec));
+        assertEquals(WorkflowCostEstimator.ROW_OVERHEAD_BYTES,
+            WorkflowCostEstimator.estimateInMemoryRowBytes(new DataTableSpec()));
+    }
+
+    /** String widths are taken from the domain if possible. */
+    @Test
+    public void testStringLength() {
+        final DataColumnSpec noDomain = new DataColumnSpecCreator("s", StringCell.TYPE).createSpec();
+        assertEquals(WorkflowCostEstimator.DEFAULT_STRING_LENGTH,
+            WorkflowCostEstimator.estimateStringLength(noDomain));
+
+        final DataColumnSpecCreator creator = new DataColumnSpecCreator("s", StringCell.TYPE);
+        creator.setDomain(
+            new DataColumnDomainCreator(new DataCell[]{new StringCell("ab"), new StringCell("abcdef")}).createDomain());
+        final DataColumnSpec withDomain = creator.createSpec();
+        assertEquals(4, WorkflowCostEstimator.estimateStringLength(withDomain));
+        assertEquals(WorkflowCostEstimator.SERIALIZED_ROW_OVERHEAD_BYTES + 2 + 4,
+            WorkflowCostEstimator.estimateSerializedRowBytes(new DataTableSpec(withDomain)));
+    }
+
+    /** The builder only sets what's declared. */
+    @Test
+    public void testCostHint() {
+        final CostHint hint = new CostHint.Builder().withOutputRowCount(1, 42).withMemoryBytes(1024).build();
+        assertFalse(hint.getOutputRowCount(0).isPresent());
+        assertEquals(42, hint.getOutputRowCount(1).getAsLong());
+        assertFalse(hint.getOutputRowCount(5).isPresent());
+        assertEquals(1024, hint.getMemoryBytes().getAsLong());
+        assertFalse(hint.getTemporaryDiskBytes().isPresent());
+        assertFalse(hint.getRuntimeNanos().isPresent());
+    }
+
+    /** Negative values are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeHint() {
+        new CostHint.Builder().withRuntimeNanos(-5);
+    }
+
+    /** Negative budgets are rejected. */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeBudget() {
+        new WorkflowCostEstimator(-1);
+    }
+
+    /**
+     * Tests the estimate of the workflow if the unhinted node has been profiled: rows are propagated from the
+     * executed source, the larger table is spilled to disk, and the runtime is taken from the profile or the hint.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testEstimateWorkflow() throws Exception {
+        NodeExecutionProfiler.setEnabled(true);
+        createWorkflow();
+        final NodeExecutionProfile profile =
+            m_wfm.getNodeContainer(m_unhintedID).getExecutionProfiler().getLastProfile().orElse(null);
+        assertNotNull("Execution not profiled", profile);
+
+        final long rowBytes = WorkflowCostEstimator.estimateInMemoryRowBytes(SPEC);
+        // the output of the unhinted node doesn't fit, the one of the hinted node does
+        final WorkflowCostEstimator estimator = new WorkflowCostEstimator(ROW_COUNT * rowBytes - 1);
+        final WorkflowCostEstimate estimate = estimator.estimate(m_wfm);
+        assertEquals(3, estimate.getNodeEstimates().size());
+
+        final NodeCostEstimate source = estimate.getNodeEstimate(m_sourceID).get();
+        assertTrue(source.isExecuted());
+        assertArrayEquals(new long[]{-1, ROW_COUNT}, source.getOutputRowCounts());
+
+        final NodeCostEstimate unhinted = estimate.getNodeEstimate(m_unhintedID).get();
+        assertFalse(unhinted.isExecuted());
+        assertFalse(unhinted.isHinted());
+        assertArrayEquals("Rows not propagated", new long[]{-1, ROW_COUNT}, unhinted.getOutputRowCounts());
+        assertEquals("Output not spilled", 0, unhinted.getMemoryBytes());
+        assertEquals("Output not spilled", ROW_COUNT * WorkflowCostEstimator.estimateSerializedRowBytes(SPEC),
+            unhinted.getDiskSpillBytes());
+        assertEquals("Runtime not taken from profile (same number of rows)", profile.getWallTimeNanos(),
+            unhinted.getRuntimeNanos());
+
+        final NodeCostEstimate hinted = estimate.getNodeEstimate(m_hintedID).get();
+        assertTrue(hinted.isHinted());
+        assertArrayEquals("Hint gets wrong row counts", new long[]{ROW_COUNT}, m_hintInRows.get());
+        assertArrayEquals("Hint gets wrong specs",
+            new PortObjectSpec[]{m_wfm.getNodeContainer(m_unhintedID).getOutPort(1).getPortObjectSpec()},
+            m_hintInSpecs.get());
+        assertFalse("Hint called while holding the workflow lock", m_isHintCalledWithLock.get());
+        final long hintedRows = ROW_COUNT / HINT_ROW_RATIO;
+        assertArrayEquals("Hinted rows not used", new long[]{-1, hintedRows}, hinted.getOutputRowCounts());
+        assertEquals("Output not kept in memory", hintedRows * rowBytes + HINT_MEMORY_BYTES,
+            hinted.getMemoryBytes());
+        assertEquals(0, hinted.getDiskSpillBytes());
+        assertEquals("Runtime not taken from hint", HINT_RUNTIME_NANOS, hinted.getRuntimeNanos());
+    }
+
+    /**
+     * Tests that the runtime is taken from the node timer if the execution wasn't profiled.
+     *
+     * @throws Exception if that fails
+     */
+    @Test
+    public void testRuntimeFromTimer() throws Exception {
+        NodeExecutionProfiler.setEnabled(false);
+        createWorkflow();
+        final NodeContainer nc = m_wfm.getNodeContainer(m_unhintedID);
+        assertFalse(nc.getExecutionProfiler().getLastProfile().isPresent());
+        assertTrue(nc.getNodeTimer().getLastExecutionDuration() >= 0);
+
+        final WorkflowCostEstimate estimate = new WorkflowCostEstimator(Long.MAX_VALUE).estimate(m_wfm);
+        final NodeCostEstimate unhinted = estimate.getNodeEstimate(m_unhintedID).get();
+        assertEquals("Runtime not taken from timer",
+            TimeUnit.MILLISECONDS.toNanos(nc.getNodeTimer().getLastExecutionDuration()), unhinted.getRuntimeNanos());
+        assertEquals(HINT_RUNTIME_NANOS, estimate.getNodeEstimate(m_hintedID).get().getRuntimeNanos());
+    }
+
+    /**
+     * Creates source -> unhinted -> hinted node, executes the source and the unhinted node, and resets the unhinted
+     * node again (so that it has been timed and possibly profiled).
+     */
+    private void createWorkflow() throws IOException {
+        final File dir = FileUtil.createTempDir("estimated_workflow");
+        final WorkflowCreationHelper creationHelper = new WorkflowCreationHelper();
+        creationHelper.setWorkflowContext(new WorkflowContext.Factory(dir).createContext());
+        m_wfm = WorkflowManager.ROOT.createAndAddProject("estimated workflow", creationHelper);
+        m_sourceID = m_wfm.createAndAddNode(new TestNodeFactory(SourceNodeModel::new));
+        m_unhintedID = m_wfm.createAndAddNode(new TestNodeFactory(PassThroughNodeModel::new));
+        m_hintedID = m_wfm.createAndAddNode(new TestNodeFactory(() -> new HintedNodeModel(this::getCostHint)));
+        m_wfm.addConnection(m_sourceID, 1, m_unhintedID, 1);
+        m_wfm.addConnection(m_unhintedID, 1, m_hintedID, 1);
+        m_wfm.executeUpToHere(m_unhintedID);
+        assertTrue("Execution not finished", m_wfm.waitWhileInExecution(10, TimeUnit.SECONDS));
+        assertTrue("Node not executed", m_wfm.getNodeContainer(m_unhintedID).getNodeContainerState().isExecuted());
+        m_wfm.resetAndConfigureNode(m_unhintedID);
+    }
+
+    private CostHint getCostHint(final PortObjectSpec[] inSpecs, final long[] inRowCounts) {
+        m_hintInSpecs.set(inSpecs);
+        m_hintInRows.set(inRowCounts);
+        m_isHintCalledWithLock.set(m_wfm.isLockedByCurrentThread());
+        final CostHint.Builder builder =
+            new CostHint.Builder().withMemoryBytes(HINT_MEMORY_BYTES).withRuntimeNanos(HINT_RUNTIME_NANOS);
+        if (inRowCounts[0] >= 0) {
+            builder.withOutputRowCount(0, inRowCounts[0] / HINT_ROW_RATIO);
+        }
+        return builder.build();
+    }
+
+    /** Factory of the test nodes. */
+    private static final class TestNodeFactory extends NodeFactory<NodeModel> {
+
+        private final Supplier<NodeModel> m_modelFactory;
+
+        TestNodeFactory(final Supplier<NodeModel> modelFactory) {
+            m_modelFactory = modelFactory;
+        }
+
+        @Override
+        protected NodeDescription createNodeDescription() {
+            return new NoDescriptionProxy(getClass());
+        }
+
+        @Override
+        public NodeModel createNodeModel() {
+            return m_modelFactory.get();
+        }
+
+        @Override
+        protected int getNrNodeViews() {
+            return 0;
+        }
+
+        @Override
+        public NodeView<NodeModel> createNodeView(final int viewIndex, final NodeModel nodeModel) {
+            throw new IllegalStateException("No view");
+        }
+
+        @Override
+        protected boolean hasDialog() {
+            return false;
+        }
+
+        @Override
+        protected NodeDialogPane createNodeDialogPane() {
+            throw new IllegalStateException("No dialog");
+        }
+    }
+
+    /** Node model without settings and internals. */
+    private abstract static class AbstractTestNodeModel extends NodeModel {
+
+        AbstractTestNodeModel(final int nrInPorts) {
+            super(nrInPorts, 1);
+        }
+
+        @Override
+        protected void reset() {
+        }
+
+        @Override
+        protected void saveSettingsTo(final NodeSettingsWO settings) {
+        }
+
+        @Override
+        protected void validateSettings(final NodeSettingsRO settings) throws InvalidSettingsException {
+        }
+
+        @Override
+        protected void loadValidatedSettingsFrom(final NodeSettingsRO settings) throws InvalidSettingsException {
+        }
+
+        @Override
+        protected void loadInternals(final File nodeInternDir, final ExecutionMonitor exec) {
+        }
+
+        @Override
+        protected void saveInternals(final File nodeInternDir, final ExecutionMonitor exec) {
+        }
+    }
+
+    /** Outputs a table of {@link #ROW_COUNT} rows. */
+    private static final class SourceNodeModel extends AbstractTestNodeModel {
+
+        SourceNodeModel() {
+            super(0);
+        }
+
+        @Override
+        protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws InvalidSettingsException {
+            return new DataTableSpec[]{SPEC};
+        }
+
+        @Override
+        protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
+            throws Exception {
+            final BufferedDataContainer container = exec.createDataContainer(SPEC);
+            for (int i = 0; i < ROW_COUNT; i++) {
+                container.addRowToTable(new DefaultRow(RowKey.createRowKey((long)i), new IntCell(i)));
+            }
+            container.close();
+            return new BufferedDataTable[]{container.getTable()};
+        }
+    }
+
+    /** Outputs its input table. */
+    private static class PassThroughNodeModel extends AbstractTestNodeModel {
+
+        PassThroughNodeModel() {
+            super(1);
+        }
+
+        @Override
+        protected DataTableSpec[] configure(final DataTableSpec[] inSpecs) throws InvalidSettingsException {
+            return inSpecs;
+        }
+
+        @Override
+        protected BufferedDataTable[] execute(final BufferedDataTable[] inData, final ExecutionContext exec)
+            throws Exception {
+            return inData;
+        }
+    }
+
+    /** Passes its input through, declaring the cost given by a delegate. */
+    private static final class HintedNodeModel extends PassThroughNodeModel implements CostHintProvider {
+
+        private final CostHintProvider m_hints;
+
+        HintedNodeModel(final CostHintProvider hints) {
+            m_hints = hints;
+        }
+
+        @Override
+        public CostHint getCostHint(final PortObjectSpec[] inSpecs, final long[] inRowCounts) {
+            return m_hints.getCostHint(inSpecs, inRowCounts);
+        }
+    }
+
+}
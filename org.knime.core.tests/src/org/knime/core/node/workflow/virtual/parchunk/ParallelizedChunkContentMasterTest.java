@@ -0,0 +1,258 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow.virtual.parchunk;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.RowKey;
+import org.knime.core.data.def.DefaultRow;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.filestore.internal.NotInWorkflowDataRepository;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.DefaultNodeProgressMonitor;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeFactory;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.LoopEndParallelizeNode;
+import org.knime.core.node.workflow.LoopStartParallelizeNode;
+import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.SingleNodeContainer;
+import org.knime.core.node.workflow.WorkflowContext;
+import org.knime.core.node.workflow.WorkflowCreationHelper;
+import org.knime.core.node.workflow.WorkflowManager;
+import org.knime.core.util.FileUtil;
+
+/**
+ * Tests the processing of micro chunks in {@link ParallelizedChunkContentMaster}, with chunks in a real workflow
+ * whose loop body passes the table of the micro chunk (containing the index of the micro chunk) from the virtual input
+ * to the virtual output node.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class ParallelizedChunkContentMasterTest {
+
+    private static final DataTableSpec SPEC =
+        new DataTableSpec(new String[]{"microChunk"}, new DataType[]{IntCell.TYPE});
+
+    private ExecutionContext m_exec;
+
+    private WorkflowManager m_wfm;
+
+    private LoopEndParallelizeNode m_endNode;
+
+    private LoopStartParallelizeNode m_startNode;
+
+    /** tables input into the loop bodies, by micro chunk index. */
+    private Map<Integer, BufferedDataTable> m_bodyInput;
+
+    /**
+     * Creates the execution context, the workflow holding the chunks and the mocked loop start and end.
+     *
+     * @throws IOException if the workflow directory can't be created
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    @Before
+    public void setUp() throws IOException {
+        final NodeFactory<NodeModel> dummyFactory =
+            (NodeFactory)new VirtualParallelizedChunkPortObjectInNodeFactory(new PortType[0]);
+        m_exec = new ExecutionContext(new DefaultNodeProgressMonitor(), new Node(dummyFactory),
+            SingleNodeContainer.MemoryPolicy.CacheOnDisc, NotInWorkflowDataRepository.newInstance());
+        final File dir = FileUtil.createTempDir("parallel_chunks");
+        final WorkflowCreationHelper creationHelper = new WorkflowCreationHelper();
+        creationHelper.setWorkflowContext(new WorkflowContext.Factory(dir).createContext());
+        m_wfm = WorkflowManager.ROOT.createAndAddProject("parallel chunks", creationHelper);
+        m_bodyInput = new ConcurrentHashMap<>();
+        m_endNode = mock(LoopEndParallelizeNode.class);
+        m_startNode = mock(LoopStartParallelizeNode.class);
+        when(m_startNode.getVirtualNodeInput(anyInt())).thenAnswer(inv -> {
+            final int microChunk = inv.getArgument(0);
+            return new VirtualParallelizedChunkNodeInput(new PortObject[]{createTable(microChunk)}, microChunk);
+        });
+    }
+
+    /** Removes the workflow. */
+    @After
+    public void tearDown() {
+        if (m_wfm != null) {
+            WorkflowManager.ROOT.removeProject(m_wfm.getID());
+        }
+    }
+
+    /**
+     * Creates a copy of the loop body (virtual input connected to virtual output) initially processing the micro chunk
+     * given by its index, as done by the workflow manager when parallelizing a loop.
+     */
+    private ParallelizedChunkContent createChunk(final int index) {
+        final PortType[] types = new PortType[]{BufferedDataTable.TYPE};
+        final NodeID inID = m_wfm.createAndAddNode(new VirtualParallelizedChunkPortObjectInNodeFactory(types));
+        final NodeID outID = m_wfm.createAndAddNode(new VirtualParallelizedChunkPortObjectOutNodeFactory(types));
+        m_wfm.addConnection(inID, 1, outID, 1);
+        m_wfm.castNodeModel(inID, VirtualParallelizedChunkPortObjectInNodeModel.class)
+            .setVirtualNodeInput(m_startNode.getVirtualNodeInput(index));
+        return new ParallelizedChunkContent(m_wfm, inID, outID, new NodeID[0]);
+    }
+
+    private BufferedDataTable createTable(final int microChunk) {
+        final BufferedDataContainer cont = m_exec.createDataContainer(SPEC);
+        cont.addRowToTable(new DefaultRow(RowKey.createRowKey((long)microChunk), new IntCell(microChunk)));
+        cont.close();
+        final BufferedDataTable table = cont.getTable();
+        m_bodyInput.put(microChunk, table);
+        return table;
+    }
+
+    private static int getMicroChunk(final PortObject[] result) {
+        int microChunk = -1;
+        for (DataRow row : (BufferedDataTable)result[0]) {
+            assertEquals("More than one row in micro chunk result", -1, microChunk);
+            microChunk = ((IntCell)row.getCell(0)).getIntValue();
+        }
+        return microChunk;
+    }
+
+    /** Tests that all micro chunks are processed and their results are available in order. */
+    @Test
+    public void testProcessMicroChunks() {
+        final int nrChunks = 3;
+        final int nrMicroChunks = 20;
+        final ParallelizedChunkContentMaster master = new ParallelizedChunkContentMaster(null, m_endNode, nrChunks,
+            m_startNode, nrMicroChunks, m_exec);
+        final ParallelizedChunkContent[] chunks = new ParallelizedChunkContent[nrChunks];
+        for (int i = 0; i < nrChunks; i++) {
+            chunks[i] = createChunk(i);
+            master.addParallelChunk(i, chunks[i]);
+        }
+        master.executeChunks();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> master.nrExecutedChunks() == nrChunks);
+        assertEquals("Failed chunks", 0, master.nrFailedChunks());
+        assertEquals("Executing chunks", 0, master.nrExecutingChunks());
+        verify(m_endNode, atLeastOnce()).updateStatus();
+
+        int nrCopied = 0;
+        for (int i = 0; i < nrMicroChunks; i++) {
+            final PortObject[] result = master.getMicroChunkOutportContent(i);
+            assertEquals("Wrong result for micro chunk " + i, i, getMicroChunk(result));
+            if (result[0] != m_bodyInput.get(i)) {
+                nrCopied++;
+            }
+        }
+        // the last micro chunk of each body copy is not reset, hence not copied
+        assertEquals("Copied micro chunk results", nrMicroChunks - nrChunks, nrCopied);
+        for (int i = 0; i < nrChunks; i++) {
+            final PortObject[] last = chunks[i].getOutportContent();
+            final int microChunk = getMicroChunk(last);
+            assertSame("Result of last micro chunk not read from the chunk", last[0],
+                master.getMicroChunkOutportContent(microChunk)[0]);
+        }
+    }
+
+    /** Tests that the result of a micro chunk is a copy if the chunk is reset afterwards. */
+    @Test
+    public void testMicroChunkResultsCopied() {
+        final ParallelizedChunkContentMaster master =
+            new ParallelizedChunkContentMaster(null, m_endNode, 1, m_startNode, 2, m_exec);
+        final ParallelizedChunkContent chunk = createChunk(0);
+        master.addParallelChunk(0, chunk);
+        master.executeChunks();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> master.nrExecutedChunks() == 1);
+        assertNotSame("Result not copied", m_bodyInput.get(0), master.getMicroChunkOutportContent(0)[0]);
+        assertEquals("Wrong copied result", 0, getMicroChunk(master.getMicroChunkOutportContent(0)));
+        assertSame("Result of last micro chunk copied", m_bodyInput.get(1), master.getMicroChunkOutportContent(1)[0]);
+    }
+
+    /** Tests that chunks with unprocessed micro chunks count as failed when the execution is canceled. */
+    @Test
+    public void testCancelWithPendingMicroChunks() {
+        final int nrChunks = 2;
+        final ParallelizedChunkContentMaster master = new ParallelizedChunkContentMaster(null, m_endNode, nrChunks,
+            m_startNode, 10, m_exec);
+        final ParallelizedChunkContent[] chunks = new ParallelizedChunkContent[nrChunks];
+        for (int i = 0; i < nrChunks; i++) {
+            chunks[i] = createChunk(i);
+            master.addParallelChunk(i, chunks[i]);
+        }
+        master.cancelChunkExecution();
+        // the first micro chunks are executed nevertheless
+        master.executeChunks();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> master.nrFailedChunks() == nrChunks
+            && Arrays.stream(chunks).allMatch(ParallelizedChunkContent::isExecuted));
+        assertEquals("Executed chunks", 0, master.nrExecutedChunks());
+        assertEquals("Executing chunks", 0, master.nrExecutingChunks());
+        try {
+            master.getMicroChunkOutportContent(nrChunks);
+            fail("Result of unprocessed micro chunk available");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+}
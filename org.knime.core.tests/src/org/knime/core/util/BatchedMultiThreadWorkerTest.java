@@ -0,0 +1,132 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import org.junit.Test;
+
+/**
+ * Tests {@link BatchedMultiThreadWorker}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+public class BatchedMultiThreadWorkerTest {
+
+    /** Outputs are passed in input order, indices are consecutive. */
+    @Test
+    public void testOrderingAndIndices() throws Exception {
+        final List<Long> input = LongStream.range(0, 10_000).boxed().collect(Collectors.toList());
+        final List<Long> output = new ArrayList<>();
+        final List<Long> indices = new ArrayList<>();
+        final BatchedMultiThreadWorker<Long, Long> worker = new BatchedMultiThreadWorker<Long, Long>(16, 4) {
+            @Override
+            protected Long computeElement(final Long in, final long index) throws Exception {
+                return in * in;
+            }
+
+            @Override
+            protected void processFinished(final ComputationTask task) throws ExecutionException {
+                final Batch<Long> batch = task.getInput();
+                assertEquals(indices.size(), batch.getFirstIndex());
+                assertTrue(batch.size() <= BatchedMultiThreadWorker.MAX_BATCH_SIZE);
+                for (int i = 0; i < batch.size(); i++) {
+                    indices.add(batch.getFirstIndex() + i);
+                }
+                output.addAll(task.get());
+            }
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            worker.setExecutor(executor);
+            worker.runBatched(input);
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(input.size(), output.size());
+        for (int i = 0; i < input.size(); i++) {
+            assertEquals(Long.valueOf((long)i * i), output.get(i));
+            assertEquals(Long.valueOf(i), indices.get(i));
+        }
+    }
+
+    /** An exception in one element fails the execution. */
+    @Test(expected = ExecutionException.class)
+    public void testException() throws Exception {
+        final List<Long> input = LongStream.range(0, 1000).boxed().collect(Collectors.toList());
+        final BatchedMultiThreadWorker<Long, Long> worker = new BatchedMultiThreadWorker<Long, Long>(16, 4) {
+            @Override
+            protected Long computeElement(final Long in, final long index) throws Exception {
+                if (index == 500) {
+                    throw new IllegalStateException("Expected");
+                }
+                return in;
+            }
+
+            @Override
+            protected void processFinished(final ComputationTask task) throws ExecutionException {
+                task.get();
+            }
+        };
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            worker.setExecutor(executor);
+            worker.runBatched(input);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
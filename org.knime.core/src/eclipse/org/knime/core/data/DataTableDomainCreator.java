@@ -46,23 +46,33 @@
  */
 package org.knime.core.data;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import org.knime.core.data.DataColumnMetaDataCalculators.MetaDataCalculator;
 import org.knime.core.data.container.BlobWrapperDataCell;
+import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.DataContainerSettings;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionMonitor;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.util.CheckUtils;
+import org.knime.core.util.ThreadPool;
 
 /**
  * Create or recreate domain of a data table. The original spec has to be given in the constructor. The possible values
@@ -74,6 +84,10 @@
  * @since 2.10
  */
 public class DataTableDomainCreator {
+
+    /** Number of rows processed as one batch by {@link #updateDomain(BufferedDataTable, ExecutionMonitor)}. */
+    private static final int PARALLEL_BATCH_SIZE = 10000;
+
     /** Defines columns to recreate or drop domain values. */
     private final DomainCreatorColumnSelection m_domainValuesColumnSelection;
 
@@ -467,7 +481,115 @@ public void updateDomain(final DataTable table, final ExecutionMonitor exec, fin
      */
     public void updateDomain(final BufferedDataTable table, final ExecutionMonitor exec)
         throws CanceledExecutionException {
-        updateDomain(table, exec, table.size());
+        final long rowCount = table.size();
+        final int parallelism =
+            Math.min(KNIMEConstants.GLOBAL_THREAD_POOL.getMaxThreads(), Runtime.getRuntime().availableProcessors());
+        if (parallelism < 2 || rowCount < 2L * PARALLEL_BATCH_SIZE) {
+            updateDomain(table, exec, rowCount);
+        } else {
+            updateDomainInParallel(table, exec, rowCount, parallelism);
+        }
+    }
+
+    /**
+     * Scans the table in batches of rows whose domains are updated in the global thread pool, similar to the
+     * asynchronous row handling of a data container. The table is read by the calling thread, which is made invisible
+     * to the thread pool while waiting.
+     */
+    private void updateDomainInParallel(final BufferedDataTable table, final ExecutionMonitor exec,
+        final long rowCount, final int parallelism) throws CanceledExecutionException {
+        if (!m_inputSpec.equalStructure(table.getDataTableSpec())) {
+            throw new IllegalArgumentException("Spec of table to scan does not match spec given in constructor");
+        }
+        final Callable<Void> callable = () -> {
+            updateDomainInBatches(table, exec, rowCount, parallelism);
+            return null;
+        };
+        try {
+            final ThreadPool currentPool = ThreadPool.currentPool();
+            if (currentPool != null) {
+                currentPool.runInvisible(callable);
+            } else {
+                callable.call();
+            }
+        } catch (ExecutionException e) { // NOSONAR the cause is rethrown
+            rethrowUnchecked(e.getCause());
+        } catch (Exception e) { // NOSONAR
+            rethrowUnchecked(e);
+        }
+    }
+
+    private static void rethrowUnchecked(final Throwable t) throws CanceledExecutionException {
+        if (t instanceof CanceledExecutionException) {
+            throw (CanceledExecutionException)t;
+        } else if (t instanceof RuntimeException) {
+            throw (RuntimeException)t;
+        } else if (t instanceof Error) {
+            throw (Error)t;
+        }
+        throw new IllegalStateException("Unable to determine domain: " + t.getMessage(), t);
+    }
+
+    /**
+     * Each batch is processed by one of <code>parallelism</code> copies of this instance. A copy only processes one
+     * batch at a time and batches are handed out in order, hence the batch ids seen by each copy are increasing and
+     * the merged possible values have the same order as if the table was scanned sequentially. The copies are only
+     * merged once all batches have been processed, a canceled or failed scan leaves this instance unchanged.
+     */
+    private void updateDomainInBatches(final BufferedDataTable table, final ExecutionMonitor exec,
+        final long rowCount, final int parallelism) throws CanceledExecutionException, InterruptedException {
+        final BlockingQueue<DataTableDomainCreator> idleCreators = new ArrayBlockingQueue<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            final DataTableDomainCreator copy = new DataTableDomainCreator(this);
+            copy.setMaxPossibleValues(m_maxPossibleValues);
+            idleCreators.add(copy);
+        }
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final List<DataTableDomainCreator> creators = new ArrayList<>(parallelism);
+        long batchId = m_batchId;
+        long row = 0;
+        try (CloseableRowIterator it = table.iterator()) {
+            while (it.hasNext() && failure.get() == null) {
+                final List<DataRow> batch = new ArrayList<>(PARALLEL_BATCH_SIZE);
+                while (batch.size() < PARALLEL_BATCH_SIZE && it.hasNext()) {
+                    batch.add(it.next());
+                }
+                row += batch.size();
+                if (exec != null) {
+                    exec.checkCanceled();
+                    final long finalRow = row;
+                    exec.setProgress(Math.min(row / (double)rowCount, 1.0),
+                        () -> String.format("Row %,d/%,d", finalRow, rowCount));
+                }
+                final DataTableDomainCreator creator = idleCreators.take();
+                creator.setBatchId(batchId++);
+                KNIMEConstants.GLOBAL_THREAD_POOL.enqueue(() -> {
+                    try {
+                        for (DataRow r : batch) {
+                            creator.updateDomain(r);
+                        }
+                    } catch (Throwable t) { // NOSONAR reported by the calling thread
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        idleCreators.add(creator);
+                    }
+                });
+            }
+        } finally {
+            // wait for all batches to finish, also if canceled
+            while (creators.size() < parallelism) {
+                creators.add(idleCreators.take());
+            }
+        }
+        if (failure.get() != null) {
+            rethrowUnchecked(failure.get());
+        }
+        creators.forEach(this::merge);
+        m_batchId = batchId;
+        if (exec != null) {
+            exec.checkCanceled();
+            exec.setProgress(1.0);
+        }
     }
 
     /**
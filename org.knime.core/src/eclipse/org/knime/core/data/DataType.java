@@ -388,7 +388,17 @@ public static DataType getCommonSuperType(final DataType type1,
         if (type2.isASuperTypeOf(type1)) {
             return type2;
         }
-        return new DataType(type1, type2);
+        // memoized, which also makes sure the same instance is returned (and its caches are reused) when merging
+        // the same types again, e.g. when concatenating many tables
+        DataType result = type1.m_commonSuperTypes.get(type2);
+        if (result == null) {
+            result = new DataType(type1, type2);
+            DataType previous = type1.m_commonSuperTypes.putIfAbsent(type2, result);
+            if (previous != null) {
+                result = previous;
+            }
+        }
+        return result;
     }
 
     /**
@@ -685,6 +695,13 @@ public static DataType load(final ConfigRO config)
     /** a map that caches whether certain encountered types are subtypes of this type */
     private final Map<DataType, Boolean> m_subTypes = new ConcurrentHashMap<>(100, 1 / 3f);
 
+    /** a map that caches the common super types of this type and certain encountered types that are neither
+     * sub- nor super types of this type, see {@link #getCommonSuperType(DataType, DataType)} */
+    private final Map<DataType, DataType> m_commonSuperTypes = new ConcurrentHashMap<>();
+
+    /** a map that caches whether this type is compatible to certain value classes, see {@link #isCompatible(Class)} */
+    private final Map<Class<? extends DataValue>, Boolean> m_compatibleValueClasses = new ConcurrentHashMap<>();
+
     private String m_name;
 
     /** the cached hash code of this type */
@@ -1129,6 +1146,9 @@ public boolean isASuperTypeOf(final DataType type) {
         if (type == null) {
             throw new NullPointerException("Type argument must not be null.");
         }
+        if (type == this) {
+            return true;
+        }
         return m_subTypes.computeIfAbsent(type, t -> isASuperTypeOfInternal(t));
     }
 
@@ -1166,6 +1186,15 @@ private boolean isASuperTypeOfInternal(final DataType type) {
      * @throws NullPointerException If the argument is null.
      */
     public boolean isCompatible(final Class<? extends DataValue> valueClass) {
+        Boolean isCompatible = m_compatibleValueClasses.get(valueClass);
+        if (isCompatible == null) {
+            isCompatible = Boolean.valueOf(isCompatibleInternal(valueClass));
+            m_compatibleValueClasses.put(valueClass, isCompatible);
+        }
+        return isCompatible.booleanValue();
+    }
+
+    private boolean isCompatibleInternal(final Class<? extends DataValue> valueClass) {
         for (Class<? extends DataValue> cl : m_valueClasses) {
             // a missing value is by definition always compatible, see also DataCell#isMissing()
             if (MissingValue.class.equals(cl) || valueClass.isAssignableFrom(cl)) {
@@ -0,0 +1,88 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Optional interface for a {@link DataCellSerializer} of cells that always serialize into the same number of bytes,
+ * such as cells wrapping a single primitive value. The table store writes and reads these cells via a reusable
+ * {@link ByteBuffer} instead of the {@link DataCellDataOutput} and {@link DataCellDataInput} streams.
+ *
+ * <p>
+ * The bytes written into the buffer must be identical to the bytes written by
+ * {@link DataCellSerializer#serialize(DataCell, DataCellDataOutput)} (in big-endian byte order, the default of
+ * {@link ByteBuffer}) so that the formats can be mixed. As with {@link DataCellSerializer}, implementations must be
+ * thread-safe.
+ *
+ * @param <T> the cell implementation being read or written
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ * @noreference This interface is not intended to be referenced by clients.
+ */
+public interface FixedWidthDataCellSerializer<T extends DataCell> {
+
+    /**
+     * @return the number of bytes of each serialized cell
+     */
+    int getFixedWidth();
+
+    /**
+     * Writes the cell at the buffer's position, advancing the position by {@link #getFixedWidth()}.
+     *
+     * @param cell the cell to write
+     * @param buffer the buffer, with at least {@link #getFixedWidth()} bytes remaining
+     */
+    void serialize(T cell, ByteBuffer buffer);
+
+    /**
+     * Reads a cell from the buffer's position, advancing the position by {@link #getFixedWidth()}.
+     *
+     * @param buffer the buffer, with at least {@link #getFixedWidth()} bytes remaining
+     * @return a new cell (or a singleton)
+     */
+    T deserialize(ByteBuffer buffer);
+}
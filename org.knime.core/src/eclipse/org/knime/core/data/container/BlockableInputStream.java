@@ -54,6 +54,9 @@
  * it encounters a block end. This class is intended to be used on streams
  * written with the
  * {@link org.knime.core.data.container.BlockableOutputStream} class.
+ *
+ * <p>If created with an internal buffer, bytes are read ahead from the wrapped
+ * stream, which then must not be read by any other object.
  * 
  * @see org.knime.core.data.container.BlockableOutputStream
  * @author wiswedel, University of Konstanz
@@ -61,9 +64,22 @@
 final class BlockableInputStream 
     extends InputStream implements KNIMEStreamConstants {
 
+    /** Size of the internal buffer, if used. */
+    private static final int BUFFER_SIZE = 8192;
+
     /** Input stream to wrap. */
     private final InputStream m_inStream;
 
+    /** Bytes read ahead from {@link #m_inStream}, not yet unescaped, or
+     * <code>null</code> if the stream is read byte by byte. */
+    private final byte[] m_buffer;
+
+    /** Position of the next byte in {@link #m_buffer}. */
+    private int m_pos;
+
+    /** Number of valid bytes in {@link #m_buffer}. */
+    private int m_limit;
+
     /**
      * If an block end has been encountered, it will return -1 on subsequent
      * {@link #read()} unless {@link #endBlock()} is called.
@@ -71,15 +87,47 @@ final class BlockableInputStream
     private boolean m_simulateTerminate;
 
     /**
-     * Inits the Stream.
+     * Inits the Stream, reads the wrapped stream byte by byte.
      * 
      * @param inStream the stream to wrap; must not be <code>null</code>
      */
     BlockableInputStream(final InputStream inStream) {
+        this(inStream, false);
+    }
+
+    /**
+     * Inits the Stream.
+     *
+     * @param inStream the stream to wrap; must not be <code>null</code>
+     * @param buffered whether to read ahead from <code>inStream</code> into an
+     *            internal buffer, only allowed if this object is the only one
+     *            reading from <code>inStream</code>
+     */
+    BlockableInputStream(final InputStream inStream, final boolean buffered) {
         m_inStream = inStream;
+        m_buffer = buffered ? new byte[BUFFER_SIZE] : null;
         m_simulateTerminate = false;
     }
 
+    /** @return the next byte of the wrapped stream (possibly buffered) or -1 */
+    private int readRaw() throws IOException {
+        if (m_buffer == null) {
+            return m_inStream.read();
+        }
+        if (m_pos == m_limit && !fillBuffer()) {
+            return -1;
+        }
+        return m_buffer[m_pos++] & 0xFF;
+    }
+
+    /** @return whether bytes could be read into the (empty) buffer */
+    private boolean fillBuffer() throws IOException {
+        final int count = m_inStream.read(m_buffer, 0, m_buffer.length);
+        m_pos = 0;
+        m_limit = Math.max(count, 0);
+        return count > 0;
+    }
+
     /**
      * Reads next byte from stream and if it is an escape byte, it returns the
      * next following byte. If it is a terminate byte, it returns -1, i.e. eof.
@@ -90,18 +138,84 @@ public int read() throws IOException {
         if (m_simulateTerminate) {
             return -1;
         }
-        int c = m_inStream.read();
+        int c = readRaw();
         switch (c) {
         case TC_TERMINATE:
             m_simulateTerminate = true;
             return -1;
         case TC_ESCAPE:
-            return m_inStream.read();
+            return readRaw();
         default:
             return c;
         }
     }
 
+    /**
+     * Reads up to <code>len</code> bytes with the same semantics as {@link #read()}, i.e. stops at the end of the
+     * block. If the stream is buffered, runs of bytes without escape or terminate byte are copied from the buffer at
+     * once, e.g. when reading chunks of a cell via {@link java.io.DataInput#readFully(byte[], int, int)}.
+     * {@inheritDoc}
+     */
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (m_buffer != null) {
+            return readBuffered(b, off, len);
+        }
+        int count = 0;
+        while (count < len) {
+            if (m_simulateTerminate) {
+                break;
+            }
+            int c = m_inStream.read();
+            if (c == TC_TERMINATE) {
+                m_simulateTerminate = true;
+                break;
+            } else if (c == TC_ESCAPE) {
+                c = m_inStream.read();
+            }
+            if (c < 0) {
+                break;
+            }
+            b[off + count] = (byte)c;
+            count++;
+        }
+        return count == 0 ? -1 : count;
+    }
+
+    private int readBuffered(final byte[] b, final int off, final int len) throws IOException {
+        int count = 0;
+        while (count < len && !m_simulateTerminate) {
+            if (m_pos == m_limit && !fillBuffer()) {
+                break;
+            }
+            // copy the bytes up to the next escape or terminate byte
+            final int end = Math.min(m_limit, m_pos + len - count);
+            int i = m_pos;
+            while (i < end && m_buffer[i] != TC_TERMINATE && m_buffer[i] != TC_ESCAPE) {
+                i++;
+            }
+            System.arraycopy(m_buffer, m_pos, b, off + count, i - m_pos);
+            count += i - m_pos;
+            m_pos = i;
+            if (i < end) {
+                if (m_buffer[m_pos++] == TC_TERMINATE) {
+                    m_simulateTerminate = true;
+                } else {
+                    final int c = readRaw();
+                    if (c < 0) {
+                        break;
+                    }
+                    b[off + count] = (byte)c;
+                    count++;
+                }
+            }
+        }
+        return count == 0 ? -1 : count;
+    }
+
     /**
      * Finishes the current block, i.e. when the block end has already been
      * reached, releases the block and allows further {@link #read()}
@@ -59,6 +59,7 @@
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
 import org.knime.core.data.DataType;
+import org.knime.core.data.FixedWidthDataCellSerializer;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
 import org.knime.core.data.container.DCObjectInputVersion2.BlockableDCObjectInputVersion2;
@@ -363,7 +364,13 @@ public DataCell readDataCell(final DCObjectInputVersion2 inStream) throws IOExce
                 // deserialize using KNIME deserialization
                 DataCellSerializer<? extends DataCell> serializer = type.getSerializer();
                 assert serializer != null;
-                result = inStream.readDataCellPerKNIMESerializer(serializer);
+                if (serializer instanceof FixedWidthDataCellSerializer) {
+                    // same bytes, but read at once rather than via the data input stream
+                    result = inStream.readDataCellPerFixedWidthSerializer(
+                        (FixedWidthDataCellSerializer<? extends DataCell>)serializer);
+                } else {
+                    result = inStream.readDataCellPerKNIMESerializer(serializer);
+                }
             }
 
             if (fileStoreKeys != null) {
@@ -94,6 +94,9 @@ public final class BufferedContainerTable implements ContainerTable {
 
     private DataTableSpec m_spec;
 
+    /** Summary of the row keys if the table was created in this session, otherwise <code>null</code>. */
+    private RowKeySummary m_rowKeySummary;
+
     /**
      * Create new Table based on a Buffer. This constructor is called from <code>DataContainer.getTable()</code>.
      *
@@ -201,6 +204,23 @@ public int getTableId() {
         return m_readTask.getBufferID();
     }
 
+    /**
+     * @param rowKeySummary the summary of the row keys collected while the table was written
+     */
+    void setRowKeySummary(final RowKeySummary rowKeySummary) {
+        m_rowKeySummary = rowKeySummary;
+    }
+
+    /**
+     * @return the summary of the row keys collected while the table was written or <code>null</code> if not available
+     *         (e.g. keys don't follow a common pattern or the table was read from file)
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.5
+     */
+    public RowKeySummary getRowKeySummary() {
+        return m_rowKeySummary;
+    }
+
     /**
      * Instruct the underlying buffer to cache the rows into main memory to accelerate future iterations. This method
      * does nothing if the buffer is reading from memory already. see Buffer#setRestoreIntoMemoryOnCacheMiss()
@@ -235,6 +235,12 @@ public Thread newThread(final Runnable r) {
     /** Holds the keys of the added rows to check for duplicates. */
     private DuplicateChecker m_duplicateChecker;
 
+    /**
+     * Summarizes the (unique) keys of the added rows, <code>null</code> if row keys are disabled. Rows handled
+     * asynchronously are summarized per batch and merged while holding the lock on this builder.
+     */
+    private RowKeySummary.Builder m_rowKeySummaryBuilder;
+
     /** The tablespec of the return table. */
     private DataTableSpec m_spec;
 
@@ -267,6 +273,7 @@ public Thread newThread(final Runnable r) {
             settings.getMaxCellsInMemory());
         m_spec = spec;
         m_duplicateChecker = settings.createDuplicateChecker();
+        m_rowKeySummaryBuilder = settings.isEnableRowKeys() ? new RowKeySummary.Builder() : null;
         m_forceSequentialRowHandling = settings.isForceSequentialRowHandling();
         m_batchSize = settings.getRowBatchSize();
         m_memoryLowState = false;
@@ -305,7 +312,7 @@ private void addRowToTableWrite(final DataRow row) {
         // let's do every possible sanity check
         validateSpecCompatiblity(row);
         m_domainCreator.updateDomain(row);
-        addRowKeyForDuplicateCheck(row.getKey());
+        addRowKeyForDuplicateCheck(row.getKey(), m_rowKeySummaryBuilder);
         m_buffer.addRow(row, false, m_forceCopyOfBlobs);
     }
 
@@ -459,6 +466,12 @@ public void close() {
             throw new DuplicateKeyException("Found duplicate row ID \"" + key + "\" (at unknown position)", key);
         }
         m_table = new BufferedContainerTable(m_buffer);
+        if (m_rowKeySummaryBuilder != null) {
+            synchronized (m_rowKeySummaryBuilder) {
+                m_table.setRowKeySummary(m_rowKeySummaryBuilder.build());
+            }
+            m_rowKeySummaryBuilder = null;
+        }
         m_buffer = null;
         m_spec = null;
         m_duplicateChecker.clear();
@@ -687,13 +700,18 @@ final Buffer getBuffer() {
      *
      * @param key Key being added. This implementation extracts the string representation from it and adds it to an
      *            internal {@link DuplicateChecker} instance.
+     * @param rowKeySummary the builder summarizing the key, <code>null</code> if row keys are disabled
      * @throws DataContainerException This implementation may throw a <code>DataContainerException</code> when
      *             {@link DuplicateChecker#addKey(String)} throws an {@link IOException}.
      * @throws DuplicateKeyException If a duplicate is encountered.
      */
-    private void addRowKeyForDuplicateCheck(final RowKey key) {
+    private void addRowKeyForDuplicateCheck(final RowKey key, final RowKeySummary.Builder rowKeySummary) {
         try {
-            m_duplicateChecker.addKey(key.toString());
+            final String keyString = key.getString();
+            m_duplicateChecker.addKey(keyString);
+            if (rowKeySummary != null) {
+                rowKeySummary.add(keyString);
+            }
         } catch (IOException ioe) {
             throw new DataContainerException(
                 ioe.getClass().getSimpleName() + " while checking for duplicate row IDs: " + ioe.getMessage(), ioe);
@@ -758,12 +776,20 @@ public final void run() {
             try {
                 if (m_writeThrowable.get() == null) {
                     final List<BlobSupportDataRow> blobRows = new ArrayList<>(m_rows.size());
+                    final RowKeySummary.Builder containerRowKeySummary = m_rowKeySummaryBuilder;
+                    final RowKeySummary.Builder rowKeySummary =
+                        containerRowKeySummary == null ? null : new RowKeySummary.Builder();
                     for (final DataRow row : m_rows) {
                         validateSpecCompatiblity(row);
                         m_dataTableDomainCreator.updateDomain(row);
-                        addRowKeyForDuplicateCheck(row.getKey());
+                        addRowKeyForDuplicateCheck(row.getKey(), rowKeySummary);
                         blobRows.add(m_buffer.saveBlobsAndFileStores(row, m_forceCopyOfBlobs));
                     }
+                    if (rowKeySummary != null) {
+                        synchronized (containerRowKeySummary) {
+                            containerRowKeySummary.merge(rowKeySummary);
+                        }
+                    }
                     boolean addRows;
                     synchronized (m_pendingBatchIdx) {
                         addRows = m_batchIdx == m_pendingBatchIdx.longValue();
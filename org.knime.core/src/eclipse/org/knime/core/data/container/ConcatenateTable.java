@@ -46,9 +46,11 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
@@ -76,6 +78,9 @@
  *
  */
 public final class ConcatenateTable implements KnowsRowCountTable {
+    /** Maximum number of row keys checked for duplicates in memory (by hashing) rather than by sorting on disk. */
+    private static final long HASH_PROBE_MAX_ROWS = 250_000;
+
     private static final String CFG_INTERNAL_META = "meta_internal";
     private static final String CFG_REFERENCE_IDS = "table_reference_IDS";
     private static final String CFG_ROW_COUNT = "table_rowcount";
@@ -320,17 +325,83 @@ public static ConcatenateTable create(final ExecutionMonitor mon, final Buffered
         return new ConcatenateTable(tables, null, rowCount);
     }
 
+    /**
+     * Checks the row keys of the tables for duplicates. Tables whose {@link RowKeySummary row key summaries} prove
+     * them disjoint from all other tables are skipped. The keys of the remaining tables are probed in a hash set if
+     * there are not too many of them, otherwise checked by a (disk-backed) {@link DuplicateChecker}.
+     */
     private static void checkForDuplicates(final ExecutionMonitor mon, final BufferedDataTable[] tables,
         final long rowCount) throws CanceledExecutionException {
+        final boolean[] mustCheck = findPossiblyOverlappingTables(tables);
+        long rowsToCheck = 0;
+        for (int i = 0; i < tables.length; i++) {
+            rowsToCheck += mustCheck[i] ? tables[i].size() : 0;
+        }
+        if (rowsToCheck == 0) {
+            mon.setProgress(1.0);
+            return;
+        }
+        if (rowsToCheck <= HASH_PROBE_MAX_ROWS) {
+            final Set<String> keys = new HashSet<>();
+            collectKeys(mon, tables, mustCheck, rowsToCheck, key -> {
+                if (!keys.add(key)) {
+                    throw new DuplicateKeyException(key);
+                }
+            });
+            return;
+        }
         DuplicateChecker check = new DuplicateChecker();
+        collectKeys(mon, tables, mustCheck, rowsToCheck, check::addKey);
+        try {
+            check.checkForDuplicates();
+        } catch (DuplicateKeyException | IOException ex) {
+            throw new IllegalArgumentException("Duplicate row keys");
+        }
+    }
+
+    /**
+     * @return for each table whether its keys possibly collide with the keys of another table (or itself, if its keys
+     *         are not known to be unique)
+     */
+    private static boolean[] findPossiblyOverlappingTables(final BufferedDataTable[] tables) {
+        final RowKeySummary[] summaries = new RowKeySummary[tables.length];
+        int nrUnknown = 0;
+        for (int i = 0; i < tables.length; i++) {
+            summaries[i] = tables[i].getRowKeySummary();
+            nrUnknown += summaries[i] == null ? 1 : 0;
+        }
+        final boolean[] mustCheck = new boolean[tables.length];
+        for (int i = 0; i < tables.length; i++) {
+            if (summaries[i] == null) {
+                mustCheck[i] = true;
+            } else if (nrUnknown > 0) {
+                // overlap with tables of unknown keys can only be ruled out if this table is empty
+                mustCheck[i] = !summaries[i].isDisjoint(summaries[i]);
+            }
+            for (int j = i + 1; j < tables.length && nrUnknown == 0; j++) {
+                if (!summaries[i].isDisjoint(summaries[j])) {
+                    mustCheck[i] = true;
+                    mustCheck[j] = true;
+                }
+            }
+        }
+        return mustCheck;
+    }
+
+    private static void collectKeys(final ExecutionMonitor mon, final BufferedDataTable[] tables,
+        final boolean[] mustCheck, final long rowCount, final KeyCollector collector)
+        throws CanceledExecutionException {
         long r = 0;
         // we are only interested in the keys, so we don't need to read any columns
         final var filter = TableFilter.materializeCols();
         for (int i = 0; i < tables.length; i++) {
+            if (!mustCheck[i]) {
+                continue;
+            }
             for (DataRow row : tables[i].filter(filter)) {
                 RowKey key = row.getKey();
                 try {
-                    check.addKey(key.toString());
+                    collector.add(key.toString());
                 } catch (DuplicateKeyException | IOException ex) {
                     throw new IllegalArgumentException("Duplicate row key \"" + key + "\" in table with index " + i);
                 }
@@ -341,11 +412,12 @@ private static void checkForDuplicates(final ExecutionMonitor mon, final Buffere
             }
             mon.checkCanceled();
         }
-        try {
-            check.checkForDuplicates();
-        } catch (DuplicateKeyException | IOException ex) {
-            throw new IllegalArgumentException("Duplicate row keys");
-        }
+    }
+
+    /** Receives the keys to be checked. */
+    @FunctionalInterface
+    private interface KeyCollector {
+        void add(String key) throws DuplicateKeyException, IOException;
     }
 
     /** Creates merged table spec.
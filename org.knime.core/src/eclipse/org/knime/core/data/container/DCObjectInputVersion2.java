@@ -51,10 +51,12 @@
 import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellDataInput;
 import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.FixedWidthDataCellSerializer;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
 import org.knime.core.data.container.BufferFromFileIteratorVersion20.DataCellStreamReader;
@@ -79,6 +81,9 @@ public class DCObjectInputVersion2 implements KNIMEStreamConstants {
      * this stream reads from m_in. */
     private final DCLongUTFDataInputStream m_dataIn;
 
+    /** Reused to read cells with a {@link FixedWidthDataCellSerializer}, grows on demand. */
+    private ByteBuffer m_fixedWidthBuffer = ByteBuffer.allocate(16);
+
     /** Preferred class loader that is set shortly before a java
      * de-serialization takes place. May be null. */
     private ClassLoader m_priorityClassLoader;
@@ -105,6 +110,25 @@ DataCell readDataCellPerKNIMESerializer(final DataCellSerializer<? extends DataC
     }
 
 
+    /** Reads a data cell from the stream using a fixed width serializer, reading all its bytes at once.
+     * @param serializer The serializer that is used to create the cell
+     * @return A new data cell instance.
+     * @throws IOException If reading fails.
+     * @see FixedWidthDataCellSerializer#deserialize(ByteBuffer)
+     */
+    DataCell readDataCellPerFixedWidthSerializer(final FixedWidthDataCellSerializer<? extends DataCell> serializer)
+        throws IOException {
+        final int length = serializer.getFixedWidth();
+        if (m_fixedWidthBuffer.capacity() < length) {
+            m_fixedWidthBuffer = ByteBuffer.allocate(length);
+        }
+        final ByteBuffer buffer = m_fixedWidthBuffer;
+        m_dataIn.readFully(buffer.array(), 0, length);
+        buffer.clear();
+        buffer.limit(length);
+        return serializer.deserialize(buffer);
+    }
+
     /** Reads a data cell from the stream using java de-serialization.
      * @return A new data cell instance.
      * @throws IOException If reading fails (also e.g.
@@ -200,7 +224,8 @@ private BlockableDCObjectInputVersion2(final BlockableInputStream in, final Data
          */
         @SuppressWarnings("resource")
         BlockableDCObjectInputVersion2(final InputStream in, final DataCellStreamReader cellReader) {
-            this(new BlockableInputStream(in), cellReader);
+            // all reads from 'in' go through the blockable stream, it may read ahead
+            this(new BlockableInputStream(in, true), cellReader);
         }
 
         /**
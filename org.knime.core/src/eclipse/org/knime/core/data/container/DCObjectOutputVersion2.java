@@ -51,10 +51,12 @@
 import java.io.IOException;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.FixedWidthDataCellSerializer;
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.BlobDataCell.BlobAddress;
 import org.knime.core.data.container.storage.AbstractTableStoreWriter;
@@ -77,6 +79,9 @@ public class DCObjectOutputVersion2 implements KNIMEStreamConstants, AutoCloseab
     /** This stream writes to m_out and is passed to the DataCellSerializer. */
     private DCLongUTFDataOutputStream m_dataOut;
 
+    /** Reused to write cells with a {@link FixedWidthDataCellSerializer}, grows on demand. */
+    private ByteBuffer m_fixedWidthBuffer = ByteBuffer.allocate(16);
+
     /** Setups a new output stream.
      * @param out The stream to write to (the file)
      * @param tableStoreWriter the corresponding writer (callback for embedded cell writing)
@@ -97,6 +102,27 @@ public void writeDataCellPerKNIMESerializer(
         serializer.serialize(cell, m_dataOut);
     }
 
+    /** Writes the type identifier followed by a data cell using a fixed width serializer, with a single write to the
+     * underlying stream.
+     * @param identifier The type identifier (control byte) of the cell.
+     * @param serializer The serializer being used to write the cell.
+     * @param cell The cell to be written.
+     * @throws IOException If that fails.
+     * @since 4.5
+     */
+    public void writeDataCellPerFixedWidthSerializer(final byte identifier,
+        final FixedWidthDataCellSerializer<DataCell> serializer, final DataCell cell) throws IOException {
+        final int length = 1 + serializer.getFixedWidth();
+        if (m_fixedWidthBuffer.capacity() < length) {
+            m_fixedWidthBuffer = ByteBuffer.allocate(length);
+        }
+        final ByteBuffer buffer = m_fixedWidthBuffer;
+        buffer.clear();
+        buffer.put(identifier);
+        serializer.serialize(cell, buffer);
+        m_dataOut.write(buffer.array(), 0, buffer.position());
+    }
+
     /**
      * Saves an array of file store keys
      * @since 3.7
@@ -71,6 +71,7 @@
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
+import org.knime.core.node.workflow.NodeExecutionProfiler;
 import org.xerial.snappy.SnappyInputStream;
 import org.xerial.snappy.SnappyOutputStream;
 
@@ -206,7 +207,7 @@ OutputStream getOutputStream(final OutputStream out) throws IOException {
         InputStream getInputStream(final File file) throws IOException {
             final FileInputStream fis = new FileInputStream(file);
             try {
-                return m_inFunc.apply(fis);
+                return m_inFunc.apply(NodeExecutionProfiler.countBytesRead(fis));
             } catch (final IOException e) {
                 fis.close();
                 throw e;
@@ -298,7 +299,7 @@ public boolean accepts(final DataTableSpec spec) {
     @Override
     public AbstractTableStoreWriter createWriter(final File binFile, final DataTableSpec spec,
         final boolean writeRowKey) throws IOException {
-        return createWriter(new FileOutputStream(binFile), spec, writeRowKey);
+        return createWriter(NodeExecutionProfiler.countBytesWritten(new FileOutputStream(binFile)), spec, writeRowKey);
     }
 
     /** {@inheritDoc} */
@@ -88,7 +88,7 @@
 import org.knime.core.node.NodeSettingsRO;
 import org.knime.core.node.NodeSettingsWO;
 import org.knime.core.node.workflow.WorkflowDataRepository;
-import org.knime.core.util.MultiThreadWorker;
+import org.knime.core.util.BatchedMultiThreadWorker;
 import org.knime.core.util.Pair;
 
 /**
@@ -525,7 +525,7 @@ private static void calcNewColsASynchronously(final BufferedDataTable table, fin
             new ConcurrentNewColCalculator(queueSize, workers, container, subProgress, finalRowCount,
                 newColsProducerMapping, facForProgress);
         try {
-            calculator.run(table);
+            calculator.runBatched(table);
         } catch (InterruptedException e) {
             CanceledExecutionException cee = new CanceledExecutionException(e.getMessage());
             cee.initCause(e);
@@ -743,9 +743,9 @@ public boolean removeFromTableRepository(final WorkflowDataRepository dataReposi
     /**
      * The MultiThreadWorker that processes the input rows concurrently. Only used if the cell factory is an
      * {@link AbstractCellFactory} with parallel processing ( {@link AbstractCellFactory#setParallelProcessing(boolean)}
-     * )
+     * ). Rows are processed in batches whose size adapts to the cost of the cell factory.
      */
-    private static final class ConcurrentNewColCalculator extends MultiThreadWorker<DataRow, DataRow> {
+    private static final class ConcurrentNewColCalculator extends BatchedMultiThreadWorker<DataRow, DataRow> {
 
         private final ExecutionMonitor m_subProgress;
 
@@ -779,7 +779,7 @@ private ConcurrentNewColCalculator(final int maxQueueSize, final int maxActiveIn
 
         /** {@inheritDoc} */
         @Override
-        protected DataRow compute(final DataRow in, final long index) throws Exception {
+        protected DataRow computeElement(final DataRow in, final long index) throws Exception {
             return calcNewCellsForRow(in, m_reducedList);
         }
 
@@ -787,11 +787,14 @@ protected DataRow compute(final DataRow in, final long index) throws Exception {
         @Override
         protected void processFinished(final ComputationTask task) throws ExecutionException, CancellationException,
             InterruptedException {
-            int r = (int)task.getIndex(); // row count in table is integer
-            RowKey key = task.getInput().getKey();
-            DataRow append = task.get(); // exception falls through
-            m_container.addRowToTable(append);
-            m_facForProgress.setProgress(r + 1, m_totalRowCount, key, m_subProgress);
+            final Batch<DataRow> batch = task.getInput();
+            final List<DataRow> appends = task.get(); // exception falls through
+            final long firstRow = batch.getFirstIndex();
+            for (int i = 0; i < appends.size(); i++) {
+                m_container.addRowToTable(appends.get(i));
+                RowKey key = batch.getElements().get(i).getKey();
+                m_facForProgress.setProgress(firstRow + i + 1, m_totalRowCount, key, m_subProgress);
+            }
             try {
                 m_subProgress.checkCanceled();
             } catch (CanceledExecutionException cee) {
@@ -0,0 +1,339 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.container;
+
+import java.util.Objects;
+
+/**
+ * Compact summary of the row keys of a table whose keys are known to be unique, used to prove that the keys of two
+ * tables are disjoint without comparing the individual keys. It applies to tables whose keys all have the form
+ * <code>&lt;prefix&gt;&lt;number&gt;&lt;suffix&gt;</code> with a common prefix and suffix, as generated by most
+ * nodes (e.g. &quot;Row0&quot;, &quot;Row1&quot;, ... or &quot;Row0#3&quot;, &quot;Row1#3&quot;, ... for the third
+ * iteration of a loop), and keeps the prefix, the suffix and the range of the numbers.
+ *
+ * <p>
+ * The number is either the first or the last run of digits in the key, which makes the decomposition of a key
+ * unique: two keys decomposed the same way are equal if and only if prefix, number and suffix are equal.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class RowKeySummary {
+
+    /** Summary of a table without rows. */
+    static final RowKeySummary EMPTY = new RowKeySummary(false, "", "", 0, -1);
+
+    /** Numbers with more digits may overflow a long. */
+    private static final int MAX_DIGITS = 18;
+
+    private final boolean m_isLastDigitRun;
+
+    private final String m_prefix;
+
+    private final String m_suffix;
+
+    private final long m_min;
+
+    private final long m_max;
+
+    private RowKeySummary(final boolean isLastDigitRun, final String prefix, final String suffix, final long min,
+        final long max) {
+        m_isLastDigitRun = isLastDigitRun;
+        m_prefix = prefix;
+        m_suffix = suffix;
+        m_min = min;
+        m_max = max;
+    }
+
+    private boolean isEmpty() {
+        return m_min > m_max;
+    }
+
+    /**
+     * @param other another summary
+     * @return <code>true</code> if no key of this summary's table can be a key of the other table, <code>false</code>
+     *         if the tables possibly share keys
+     */
+    public boolean isDisjoint(final RowKeySummary other) {
+        if (isEmpty() || other.isEmpty()) {
+            return true;
+        }
+        if (m_isLastDigitRun != other.m_isLastDigitRun) {
+            // keys are decomposed differently, nothing can be said
+            return false;
+        }
+        return !m_prefix.equals(other.m_prefix) || !m_suffix.equals(other.m_suffix) || m_max < other.m_min
+            || other.m_max < m_min;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        if (isEmpty()) {
+            return "<empty>";
+        }
+        return m_prefix + "[" + m_min + ".." + m_max + "]" + m_suffix;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int hashCode() {
+        return Objects.hash(m_isLastDigitRun, m_prefix, m_suffix, m_min, m_max);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof RowKeySummary)) {
+            return false;
+        }
+        final RowKeySummary other = (RowKeySummary)obj;
+        return m_isLastDigitRun == other.m_isLastDigitRun && m_min == other.m_min && m_max == other.m_max
+            && m_prefix.equals(other.m_prefix) && m_suffix.equals(other.m_suffix);
+    }
+
+    /**
+     * Collects the summary while keys are added to a table. Keys are expected to be unique, i.e. the builder must only
+     * be used if uniqueness is verified, e.g. by a duplicate checker. Not thread-safe, keys added concurrently are
+     * collected in separate builders and {@link #merge(Builder) merged}.
+     */
+    static final class Builder {
+
+        private final Candidate m_firstDigitRun = new Candidate(false);
+
+        private final Candidate m_lastDigitRun = new Candidate(true);
+
+        private boolean m_hasKeys;
+
+        /**
+         * @param key the next row key
+         */
+        void add(final String key) {
+            m_hasKeys = true;
+            if (!m_firstDigitRun.m_isValid && !m_lastDigitRun.m_isValid) {
+                return;
+            }
+            final int firstStart = indexOfDigit(key);
+            final int firstEnd = endOfDigitRun(key, firstStart);
+            final int lastEnd = lastIndexOfDigit(key) + 1;
+            if (lastEnd == firstEnd) {
+                // a single run of digits (e.g. "Row5"), both candidates decompose the key the same way
+                final long number = parseNumber(key, firstStart, firstEnd);
+                m_firstDigitRun.add(key, firstStart, firstEnd, number);
+                m_lastDigitRun.add(key, firstStart, firstEnd, number);
+            } else {
+                final int lastStart = startOfDigitRun(key, lastEnd);
+                m_firstDigitRun.add(key, firstStart, firstEnd, parseNumber(key, firstStart, firstEnd));
+                m_lastDigitRun.add(key, lastStart, lastEnd, parseNumber(key, lastStart, lastEnd));
+            }
+        }
+
+        /**
+         * Adds the keys collected by another builder, as if they were added to this builder.
+         *
+         * @param other a builder collecting other keys of the same table
+         */
+        void merge(final Builder other) {
+            m_hasKeys |= other.m_hasKeys;
+            m_firstDigitRun.merge(other.m_firstDigitRun);
+            m_lastDigitRun.merge(other.m_lastDigitRun);
+        }
+
+        /**
+         * @return the summary or <code>null</code> if the keys don't follow a common pattern
+         */
+        RowKeySummary build() {
+            if (!m_hasKeys) {
+                return EMPTY;
+            }
+            if (m_firstDigitRun.m_isValid) {
+                return m_firstDigitRun.toSummary();
+            }
+            if (m_lastDigitRun.m_isValid) {
+                return m_lastDigitRun.toSummary();
+            }
+            return null;
+        }
+    }
+
+    /** One way of decomposing the keys, invalidated once a key doesn't match the common prefix and suffix. */
+    private static final class Candidate {
+
+        private final boolean m_isLastDigitRun;
+
+        private boolean m_isValid = true;
+
+        private String m_prefix;
+
+        private String m_suffix;
+
+        private long m_min = Long.MAX_VALUE;
+
+        private long m_max = Long.MIN_VALUE;
+
+        Candidate(final boolean isLastDigitRun) {
+            m_isLastDigitRun = isLastDigitRun;
+        }
+
+        /**
+         * @param start start of the key's run of digits
+         * @param end end (exclusive) of the key's run of digits
+         * @param number the parsed run of digits, negative if it isn't a canonical number
+         */
+        void add(final String key, final int start, final int end, final long number) {
+            if (!m_isValid) {
+                return;
+            }
+            if (number < 0) {
+                m_isValid = false;
+                return;
+            }
+            if (m_prefix == null) {
+                m_prefix = key.substring(0, start);
+                m_suffix = key.substring(end);
+            } else if (!key.startsWith(m_prefix) || start != m_prefix.length() || !key.endsWith(m_suffix)
+                || key.length() - end != m_suffix.length()) {
+                m_isValid = false;
+                return;
+            }
+            m_min = Math.min(m_min, number);
+            m_max = Math.max(m_max, number);
+        }
+
+        void merge(final Candidate other) {
+            if (!m_isValid) {
+                return;
+            }
+            if (!other.m_isValid) {
+                m_isValid = false;
+                return;
+            }
+            if (other.m_prefix == null) {
+                // no keys
+                return;
+            }
+            if (m_prefix == null) {
+                m_prefix = other.m_prefix;
+                m_suffix = other.m_suffix;
+            } else if (!m_prefix.equals(other.m_prefix) || !m_suffix.equals(other.m_suffix)) {
+                m_isValid = false;
+                return;
+            }
+            m_min = Math.min(m_min, other.m_min);
+            m_max = Math.max(m_max, other.m_max);
+        }
+
+        RowKeySummary toSummary() {
+            return new RowKeySummary(m_isLastDigitRun, m_prefix, m_suffix, m_min, m_max);
+        }
+    }
+
+    /**
+     * @return the number formed by the digits from start to end (exclusive), -1 if there are none, too many or if it's
+     *         not canonical
+     */
+    private static long parseNumber(final String key, final int start, final int end) {
+        final int nrDigits = end - start;
+        // numbers with leading zeros are not canonical, "Row07" and "Row7" would be the same number
+        if (start < 0 || nrDigits == 0 || nrDigits > MAX_DIGITS || (nrDigits > 1 && key.charAt(start) == '0')) {
+            return -1;
+        }
+        long number = 0;
+        for (int i = start; i < end; i++) {
+            number = number * 10 + (key.charAt(i) - '0');
+        }
+        return number;
+    }
+
+    private static int indexOfDigit(final String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (isDigit(key.charAt(i))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int endOfDigitRun(final String key, final int start) {
+        if (start < 0) {
+            return start;
+        }
+        int i = start;
+        while (i < key.length() && isDigit(key.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int lastIndexOfDigit(final String key) {
+        for (int i = key.length() - 1; i >= 0; i--) {
+            if (isDigit(key.charAt(i))) {
+                return i;
+            }
+        }
+        return -2;
+    }
+
+    private static int startOfDigitRun(final String key, final int end) {
+        if (end < 0) {
+            return end;
+        }
+        int i = end;
+        while (i > 0 && isDigit(key.charAt(i - 1))) {
+            i--;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(final char c) {
+        return c >= '0' && c <= '9';
+    }
+
+}
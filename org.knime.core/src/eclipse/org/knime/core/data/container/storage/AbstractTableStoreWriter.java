@@ -50,13 +50,17 @@
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.knime.core.data.DataCell;
 import org.knime.core.data.DataCellSerializer;
 import org.knime.core.data.DataRow;
 import org.knime.core.data.DataTableSpec;
 import org.knime.core.data.DataType;
+import org.knime.core.data.FixedWidthDataCellSerializer;
 import org.knime.core.data.RowKey;
+import org.knime.core.data.collection.CollectionDataValue;
+import org.knime.core.data.container.BlobDataCell;
 import org.knime.core.data.container.BlobWrapperDataCell;
 import org.knime.core.data.container.CellClassInfo;
 import org.knime.core.data.container.DCObjectOutputVersion2;
@@ -94,6 +98,13 @@ public abstract class AbstractTableStoreWriter implements AutoCloseable, KNIMESt
 
     private final DataTableSpec m_spec;
 
+    /**
+     * Type short cut and serializer of cell classes that are written with a {@link FixedWidthDataCellSerializer}
+     * (mapped to {@link FixedWidthCellWriter#NONE} for classes that aren't), to skip the per cell type resolution.
+     */
+    private final Map<Class<? extends DataCell>, FixedWidthCellWriter> m_fixedWidthWriters =
+        new ConcurrentHashMap<>();
+
     /**
      * Constructs an abstract table store writer.
      *
@@ -248,6 +259,13 @@ public void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outS
             return;
         }
 
+        final FixedWidthCellWriter fixedWidthWriter = getFixedWidthWriter(cell);
+        if (fixedWidthWriter != FixedWidthCellWriter.NONE) {
+            outStream.writeDataCellPerFixedWidthSerializer(fixedWidthWriter.m_identifier,
+                fixedWidthWriter.m_serializer, cell);
+            return;
+        }
+
         final boolean isBlob = cell instanceof BlobWrapperDataCell;
         final CellClassInfo cellClass =
             isBlob ? ((BlobWrapperDataCell)cell).getBlobClassInfo() : CellClassInfo.get(cell);
@@ -275,4 +293,45 @@ public void writeDataCell(final DataCell cell, final DCObjectOutputVersion2 outS
             outStream.writeDataCellPerKNIMESerializer(ser, cell);
         }
     }
+
+    /**
+     * @return the fixed width writer for the argument cell (non-missing) or {@link FixedWidthCellWriter#NONE}
+     */
+    private FixedWidthCellWriter getFixedWidthWriter(final DataCell cell) throws IOException {
+        final Class<? extends DataCell> cellClass = cell.getClass();
+        FixedWidthCellWriter writer = m_fixedWidthWriters.get(cellClass);
+        if (writer == null) {
+            writer = FixedWidthCellWriter.NONE;
+            // these require additional information in the stream (and don't have fixed width serializers anyway)
+            if (!(cell instanceof BlobWrapperDataCell || cell instanceof BlobDataCell || cell instanceof FileStoreCell
+                || cell instanceof CollectionDataValue)) {
+                final CellClassInfo cellClassInfo = CellClassInfo.get(cell);
+                final DataCellSerializer<DataCell> ser = getSerializerForDataCell(cellClassInfo);
+                if (ser instanceof FixedWidthDataCellSerializer) {
+                    @SuppressWarnings("unchecked")
+                    final FixedWidthDataCellSerializer<DataCell> fixedWidthSer =
+                        (FixedWidthDataCellSerializer<DataCell>)ser;
+                    writer = new FixedWidthCellWriter(getTypeShortCut(cellClassInfo), fixedWidthSer);
+                }
+            }
+            m_fixedWidthWriters.put(cellClass, writer);
+        }
+        return writer;
+    }
+
+    /** Type short cut and serializer of a cell class written with a {@link FixedWidthDataCellSerializer}. */
+    private static final class FixedWidthCellWriter {
+
+        /** Marker for cell classes not written with a fixed width serializer. */
+        static final FixedWidthCellWriter NONE = new FixedWidthCellWriter((byte)0, null);
+
+        private final byte m_identifier;
+
+        private final FixedWidthDataCellSerializer<DataCell> m_serializer;
+
+        FixedWidthCellWriter(final byte identifier, final FixedWidthDataCellSerializer<DataCell> serializer) {
+            m_identifier = identifier;
+            m_serializer = serializer;
+        }
+    }
 }
\ No newline at end of file
@@ -78,4 +78,22 @@ public interface DoubleToDataCellConverter extends JavaToDataCellConverter<Doubl
     default DataCell convert(final Double source) throws Exception {
         return convertDouble(source);
     }
+
+    /**
+     * Converts <code>values[from]</code> to <code>values[to - 1]</code> into <code>dest[0]</code> to
+     * <code>dest[to - from - 1]</code>, calling {@link #convertDouble(double)} for each value without boxing.
+     *
+     * @param values The values to convert.
+     * @param from Index of the first value to convert (inclusive).
+     * @param to Index of the last value to convert (exclusive).
+     * @param dest Array receiving the cells.
+     * @throws Exception If something went wrong during conversion.
+     * @since 4.5
+     */
+    default void convertDoubles(final double[] values, final int from, final int to, final DataCell[] dest)
+        throws Exception {
+        for (int i = from; i < to; i++) {
+            dest[i - from] = convertDouble(values[i]);
+        }
+    }
 }
@@ -54,6 +54,8 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.MissingCell;
 import org.knime.core.data.convert.DataCellFactoryMethod;
+import org.knime.core.data.convert.util.MethodCompiler;
+import org.knime.core.data.convert.util.MethodCompiler.Invoker1;
 import org.knime.core.data.filestore.FileStoreFactory;
 
 /**
@@ -72,6 +74,9 @@
 
     private final Method m_method;
 
+    /** {@link #m_method} compiled into a lambda, shared by all converters created by this factory. */
+    private final Invoker1 m_invoker;
+
     private final Class<S> m_srcType;
 
     private final DataType m_destDataType;
@@ -103,6 +108,7 @@
         assert DataCell.class.isAssignableFrom(method.getReturnType());
 
         m_method = method;
+        m_invoker = MethodCompiler.compile1(method);
         m_srcType = sourceType;
         m_destDataType = destDataType;
         m_metaType = type;
@@ -119,24 +125,13 @@ public JavaToDataCellConverter<S> create(final FileStoreFactory fileStoreFactory
         final F finalFactory = (F)m_destDataType.getCellFactoryFor(fileStoreFactory).orElseThrow(
             () -> new RuntimeException("No DataCellFactory found for DataType: " + m_destDataType.getName()));
 
-        return new JavaToDataCellConverter<S>() {
-            @Override
-            public DataCell convert(final S source) throws Exception {
-                if (source == null) {
-                    return MISSING;
-                }
-
-                /*
-                 * After about default 15 of these calls (can be set by
-                 * sun.reflect.inflationThreshold), this should be optimized via
-                 * "reflection inflation" which is enabled by default (ensure
-                 * sun.reflect.noInflation is false)
-                 *
-                 * The following is equivalent to
-                 * m_factory.factoryMethod(source)
-                 */
-                return (DataCell)m_method.invoke(finalFactory, source);
+        final Invoker1 invoker = m_invoker;
+        return source -> {
+            if (source == null) {
+                return MISSING;
             }
+            // equivalent to finalFactory.factoryMethod(source), but without the overhead of reflection
+            return (DataCell)invoker.invoke(finalFactory, source);
         };
     }
 
@@ -48,6 +48,7 @@
  */
 package org.knime.core.data.convert.java;
 
+import org.knime.core.data.DataCell;
 import org.knime.core.data.DataValue;
 
 /**
@@ -78,4 +79,37 @@
     default Integer convert(final S source) throws Exception {
         return convertIntoInt(source);
     }
+
+    /**
+     * Converts the cells <code>cells[from]</code> to <code>cells[to - 1]</code> into <code>dest[0]</code> to
+     * <code>dest[to - from - 1]</code>, calling {@link #convertIntoInt(DataValue)} for each cell without boxing.
+     * Missing cells are flagged in <code>missing</code> (their value in <code>dest</code> is left unchanged).
+     *
+     * @param cells The cells to convert.
+     * @param from Index of the first cell to convert (inclusive).
+     * @param to Index of the last cell to convert (exclusive).
+     * @param dest Array receiving the converted values.
+     * @param missing Array receiving the missing flags, if <code>null</code> missing cells are not allowed.
+     * @throws IllegalArgumentException If a cell is missing and <code>missing</code> is <code>null</code>.
+     * @throws Exception If something went wrong during conversion.
+     * @since 4.5
+     */
+    @SuppressWarnings("unchecked")
+    default void convertIntoInts(final DataCell[] cells, final int from, final int to, final int[] dest,
+        final boolean[] missing) throws Exception {
+        for (int i = from; i < to; i++) {
+            final DataCell cell = cells[i];
+            if (cell.isMissing()) {
+                if (missing == null) {
+                    throw new IllegalArgumentException("Missing value at index " + i);
+                }
+                missing[i - from] = true;
+            } else {
+                if (missing != null) {
+                    missing[i - from] = false;
+                }
+                dest[i - from] = convertIntoInt((S)cell);
+            }
+        }
+    }
 }
@@ -74,6 +74,8 @@
 import org.knime.core.data.convert.DataValueAccessMethod;
 import org.knime.core.data.convert.datacell.JavaToDataCellConverterRegistry;
 import org.knime.core.data.convert.util.ClassUtil;
+import org.knime.core.data.convert.util.MethodCompiler;
+import org.knime.core.data.convert.util.MethodCompiler.Invoker0;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.util.Pair;
 
@@ -511,8 +513,9 @@ private <T> void parseAnnotation(final Class<? extends DataValue> valueClass, fi
         try {
             final Class<T> javaType = (Class<T>)ClassUtil.ensureObjectType(method.getReturnType());
             final String name = annotation.name();
+            final Invoker0 invoker = MethodCompiler.compile0(method);
             final DataCellToJavaConverterFactory<?, ?> factory = new SimpleDataCellToJavaConverterFactory<>(valueClass,
-                javaType, (value) -> (T)method.invoke(value), name);
+                javaType, (value) -> (T)invoker.invoke(value), name);
 
             // Check name of factory
             if (!validateFactoryName(factory)) {
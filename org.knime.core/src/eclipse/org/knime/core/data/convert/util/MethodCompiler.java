@@ -0,0 +1,231 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.convert.util;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Compiles reflective {@link Method methods} into directly invocable lambdas via {@link LambdaMetafactory}, so that
+ * frequently called methods (e.g. annotated factory and value access methods used for data conversion) do not pay
+ * the overhead of {@link Method#invoke(Object, Object...)} with its argument array and access checks.
+ * <p>
+ * If the lambda cannot be spun (for instance because the declaring class lives in a class loader which cannot see
+ * the interfaces of this class), a {@link MethodHandle} based invoker is used instead, and if that also fails, the
+ * invoker falls back to plain reflection.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class MethodCompiler {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(MethodCompiler.class);
+
+    private MethodCompiler() {
+        // no instantiation
+    }
+
+    /**
+     * Invoker for an instance method without arguments.
+     */
+    @FunctionalInterface
+    public interface Invoker0 {
+        /**
+         * @param target the object the method is called on
+         * @return the return value of the method (boxed if primitive)
+         * @throws Exception any exception thrown by the method
+         */
+        Object invoke(Object target) throws Exception; // NOSONAR
+    }
+
+    /**
+     * Invoker for an instance method with exactly one argument.
+     */
+    @FunctionalInterface
+    public interface Invoker1 {
+        /**
+         * @param target the object the method is called on
+         * @param arg the argument (boxed if primitive)
+         * @return the return value of the method (boxed if primitive)
+         * @throws Exception any exception thrown by the method
+         */
+        Object invoke(Object target, Object arg) throws Exception; // NOSONAR
+    }
+
+    /**
+     * Compiles a public instance method without parameters.
+     *
+     * @param method the method, must be non-static and take no arguments
+     * @return an invoker calling the method
+     * @throws IllegalArgumentException if the method is static or takes arguments
+     */
+    public static Invoker0 compile0(final Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 0) {
+            throw new IllegalArgumentException("Not an instance method without arguments: " + method);
+        }
+        final MethodType instantiated =
+            MethodType.methodType(ClassUtil.ensureObjectType(method.getReturnType()), method.getDeclaringClass());
+        final Invoker0 lambda = (Invoker0)spinLambda(method, Invoker0.class,
+            MethodType.methodType(Object.class, Object.class), instantiated);
+        if (lambda != null) {
+            return lambda;
+        }
+        final MethodHandle handle = unreflect(method, MethodType.methodType(Object.class, Object.class));
+        if (handle != null) {
+            return target -> invokeExact0(handle, target);
+        }
+        return target -> invokeReflective(method, target);
+    }
+
+    /**
+     * Compiles a public instance method with a single parameter.
+     *
+     * @param method the method, must be non-static and take exactly one argument
+     * @return an invoker calling the method
+     * @throws IllegalArgumentException if the method is static or does not take exactly one argument
+     */
+    public static Invoker1 compile1(final Method method) {
+        if (Modifier.isStatic(method.getModifiers()) || method.getParameterCount() != 1) {
+            throw new IllegalArgumentException("Not an instance method with a single argument: " + method);
+        }
+        final MethodType instantiated = MethodType.methodType(ClassUtil.ensureObjectType(method.getReturnType()),
+            method.getDeclaringClass(), ClassUtil.ensureObjectType(method.getParameterTypes()[0]));
+        final Invoker1 lambda = (Invoker1)spinLambda(method, Invoker1.class,
+            MethodType.methodType(Object.class, Object.class, Object.class), instantiated);
+        if (lambda != null) {
+            return lambda;
+        }
+        final MethodHandle handle =
+            unreflect(method, MethodType.methodType(Object.class, Object.class, Object.class));
+        if (handle != null) {
+            return (target, arg) -> invokeExact1(handle, target, arg);
+        }
+        return (target, arg) -> invokeReflective(method, target, arg);
+    }
+
+    /**
+     * Spins a lambda implementing the given functional interface by calling the method. The LambdaMetafactory
+     * requires a lookup with private access: preferably one on the declaring class (so that the lambda is defined in
+     * the declaring class' loader), otherwise (e.g. for JDK classes whose packages are not open) our own, which works
+     * as long as the declaring class is visible from this bundle.
+     *
+     * @return the lambda or <code>null</code> if it could not be created
+     */
+    private static Object spinLambda(final Method method, final Class<?> samType, final MethodType samMethodType,
+        final MethodType instantiated) {
+        final List<MethodHandles.Lookup> lookups = new ArrayList<>(2);
+        try {
+            lookups.add(MethodHandles.privateLookupIn(method.getDeclaringClass(), MethodHandles.lookup()));
+        } catch (IllegalAccessException | RuntimeException e) { // NOSONAR try the next lookup
+        }
+        lookups.add(MethodHandles.lookup());
+        for (final MethodHandles.Lookup lookup : lookups) {
+            try {
+                return LambdaMetafactory.metafactory(lookup, "invoke", MethodType.methodType(samType), samMethodType,
+                    lookup.unreflect(method), instantiated).getTarget().invoke();
+            } catch (Throwable e) { // NOSONAR LambdaMetafactory linkage errors are reported as Throwable
+                LOGGER.debug("Unable to create lambda for " + method + " in " + lookup + ": " + e.getMessage(), e);
+            }
+        }
+        return null;
+    }
+
+    private static MethodHandle unreflect(final Method method, final MethodType genericType) {
+        try {
+            return MethodHandles.publicLookup().unreflect(method).asType(genericType);
+        } catch (IllegalAccessException | RuntimeException e) {
+            LOGGER.debug("Unable to access " + method + " via method handles, using reflection: " + e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static Object invokeExact0(final MethodHandle handle, final Object target) throws Exception {
+        try {
+            return handle.invokeExact(target);
+        } catch (Exception | Error e) { // NOSONAR rethrown unchanged
+            throw e;
+        } catch (Throwable t) { // NOSONAR
+            throw new RuntimeException(t); // NOSONAR
+        }
+    }
+
+    private static Object invokeExact1(final MethodHandle handle, final Object target, final Object arg)
+        throws Exception {
+        try {
+            return handle.invokeExact(target, arg);
+        } catch (Exception | Error e) { // NOSONAR rethrown unchanged
+            throw e;
+        } catch (Throwable t) { // NOSONAR
+            throw new RuntimeException(t); // NOSONAR
+        }
+    }
+
+    /* Reflective call, unwrapping InvocationTargetExceptions so all invokers behave the same. */
+    private static Object invokeReflective(final Method method, final Object target, final Object... args)
+        throws Exception {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception)cause;
+            } else if (cause instanceof Error) {
+                throw (Error)cause;
+            }
+            throw e;
+        }
+    }
+}
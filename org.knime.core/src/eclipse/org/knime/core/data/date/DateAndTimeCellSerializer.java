@@ -48,10 +48,12 @@
 package org.knime.core.data.date;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.knime.core.data.DataCellDataInput;
 import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataCellSerializer;
+import org.knime.core.data.FixedWidthDataCellSerializer;
 
 /**
  * Serializes a {@link DateAndTimeCell} by writing the long representing the UTC
@@ -63,7 +65,8 @@
  * @deprecated use the new date&amp;time types from <tt>org.knime.time</tt> instead
  */
 @Deprecated
-public final class DateAndTimeCellSerializer implements DataCellSerializer<DateAndTimeCell> {
+public final class DateAndTimeCellSerializer
+    implements DataCellSerializer<DateAndTimeCell>, FixedWidthDataCellSerializer<DateAndTimeCell> {
     /**
      * {@inheritDoc}
      */
@@ -92,4 +95,40 @@ public void serialize(final DateAndTimeCell cell,
         output.writeBoolean(cell.hasMillis());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getFixedWidth() {
+        return Long.BYTES + 3;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void serialize(final DateAndTimeCell cell, final ByteBuffer buffer) {
+        buffer.putLong(cell.getUTCTimeInMillis());
+        buffer.put(toByte(cell.hasDate()));
+        buffer.put(toByte(cell.hasTime()));
+        buffer.put(toByte(cell.hasMillis()));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DateAndTimeCell deserialize(final ByteBuffer buffer) {
+        long utcTime = buffer.getLong();
+        boolean hasDate = buffer.get() != 0;
+        boolean hasTime = buffer.get() != 0;
+        boolean hasMillis = buffer.get() != 0;
+        return new DateAndTimeCell(utcTime, hasDate, hasTime, hasMillis);
+    }
+
+    /** Same encoding as DataOutput#writeBoolean. */
+    private static byte toByte(final boolean b) {
+        return b ? (byte)1 : (byte)0;
+    }
+
 }
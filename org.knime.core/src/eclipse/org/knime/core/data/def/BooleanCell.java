@@ -47,6 +47,7 @@
 
 import java.io.IOException;
 import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
 
 import org.knime.core.data.BooleanValue;
 import org.knime.core.data.BoundedValue;
@@ -60,6 +61,7 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
 import org.knime.core.data.DoubleValue;
+import org.knime.core.data.FixedWidthDataCellSerializer;
 import org.knime.core.data.FuzzyIntervalValue;
 import org.knime.core.data.FuzzyNumberValue;
 import org.knime.core.data.IntValue;
@@ -314,7 +316,7 @@ public static DataCell create(final boolean b) {
      * @noreference This class is not intended to be referenced by clients.
      */
     public static final class BooleanSerializer
-        implements DataCellSerializer<BooleanCell> {
+        implements DataCellSerializer<BooleanCell>, FixedWidthDataCellSerializer<BooleanCell> {
 
         /**
          * {@inheritDoc}
@@ -334,6 +336,31 @@ public BooleanCell deserialize(
             boolean b = input.readBoolean();
             return b ? TRUE : FALSE;
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getFixedWidth() {
+            return 1;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serialize(final BooleanCell cell, final ByteBuffer buffer) {
+            // same as DataOutput#writeBoolean
+            buffer.put(cell.m_boolean ? (byte)1 : (byte)0);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public BooleanCell deserialize(final ByteBuffer buffer) {
+            return buffer.get() != 0 ? TRUE : FALSE;
+        }
     }
 
 }
@@ -50,6 +50,7 @@
 package org.knime.core.data.def;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.knime.core.data.BoundedValue;
 import org.knime.core.data.ComplexNumberValue;
@@ -62,6 +63,7 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
 import org.knime.core.data.DoubleValue;
+import org.knime.core.data.FixedWidthDataCellSerializer;
 import org.knime.core.data.FuzzyIntervalValue;
 import org.knime.core.data.FuzzyNumberValue;
 import org.knime.core.data.convert.DataCellFactoryMethod;
@@ -216,7 +218,7 @@ public String toString() {
      * @noreference This class is not intended to be referenced by clients.
      */
     public static final class DoubleSerializer
-        implements DataCellSerializer<DoubleCell> {
+        implements DataCellSerializer<DoubleCell>, FixedWidthDataCellSerializer<DoubleCell> {
 
         /**
          * {@inheritDoc}
@@ -237,6 +239,30 @@ public DoubleCell deserialize(final DataCellDataInput input)
             double d = input.readDouble();
             return new DoubleCell(d);
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getFixedWidth() {
+            return Double.BYTES;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serialize(final DoubleCell cell, final ByteBuffer buffer) {
+            buffer.putDouble(cell.m_double);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public DoubleCell deserialize(final ByteBuffer buffer) {
+            return new DoubleCell(buffer.getDouble());
+        }
     }
 
 
@@ -50,6 +50,7 @@
 package org.knime.core.data.def;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.knime.core.data.BoundedValue;
 import org.knime.core.data.ComplexNumberValue;
@@ -62,6 +63,7 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
 import org.knime.core.data.DoubleValue;
+import org.knime.core.data.FixedWidthDataCellSerializer;
 import org.knime.core.data.FuzzyIntervalValue;
 import org.knime.core.data.FuzzyNumberValue;
 import org.knime.core.data.IntValue;
@@ -227,7 +229,8 @@ public String toString() {
      * @noreference This class is not intended to be referenced by clients.
      * @since 3.0
      */
-    public static final class IntCellSerializer implements DataCellSerializer<IntCell> {
+    public static final class IntCellSerializer
+        implements DataCellSerializer<IntCell>, FixedWidthDataCellSerializer<IntCell> {
 
         /**
          * {@inheritDoc}
@@ -247,6 +250,30 @@ public IntCell deserialize(
             int i = input.readInt();
             return new IntCell(i);
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getFixedWidth() {
+            return Integer.BYTES;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serialize(final IntCell cell, final ByteBuffer buffer) {
+            buffer.putInt(cell.m_int);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public IntCell deserialize(final ByteBuffer buffer) {
+            return new IntCell(buffer.getInt());
+        }
     }
 
 
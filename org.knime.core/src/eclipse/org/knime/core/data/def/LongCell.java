@@ -48,6 +48,7 @@
 package org.knime.core.data.def;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.knime.core.data.BoundedValue;
 import org.knime.core.data.ComplexNumberValue;
@@ -60,6 +61,7 @@
 import org.knime.core.data.DataType;
 import org.knime.core.data.DataTypeRegistry;
 import org.knime.core.data.DoubleValue;
+import org.knime.core.data.FixedWidthDataCellSerializer;
 import org.knime.core.data.FuzzyIntervalValue;
 import org.knime.core.data.FuzzyNumberValue;
 import org.knime.core.data.LongValue;
@@ -292,7 +294,8 @@ public static DataCell create(final long l) {
      *
      * @noreference This class is not intended to be referenced by clients.
      */
-    public static final class LongSerializer implements DataCellSerializer<LongCell> {
+    public static final class LongSerializer
+        implements DataCellSerializer<LongCell>, FixedWidthDataCellSerializer<LongCell> {
         /**
          * {@inheritDoc}
          */
@@ -311,5 +314,29 @@ public LongCell deserialize(final DataCellDataInput input)
             long l = input.readLong();
             return new LongCell(l);
         }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int getFixedWidth() {
+            return Long.BYTES;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public void serialize(final LongCell cell, final ByteBuffer buffer) {
+            buffer.putLong(cell.m_long);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public LongCell deserialize(final ByteBuffer buffer) {
+            return new LongCell(buffer.getLong());
+        }
     }
 }
@@ -45,6 +45,7 @@
 package org.knime.core.data.def;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -54,6 +55,7 @@
 import org.knime.core.data.DataCellDataOutput;
 import org.knime.core.data.DataCellSerializer;
 import org.knime.core.data.DataType;
+import org.knime.core.data.FixedWidthDataCellSerializer;
 import org.knime.core.data.TimestampValue;
 
 /**
@@ -151,7 +153,8 @@ public static final TimestampCellSerializer getCellSerializer() {
      * @noreference This class is not intended to be referenced by clients.
      */
     @Deprecated
-    public static final class TimestampCellSerializer implements DataCellSerializer<TimestampCell> {
+    public static final class TimestampCellSerializer
+        implements DataCellSerializer<TimestampCell>, FixedWidthDataCellSerializer<TimestampCell> {
         /** {@inheritDoc} */
         @Override
         public void serialize(final TimestampCell cell,
@@ -165,6 +168,21 @@ public TimestampCell deserialize(
                 final DataCellDataInput input) throws IOException {
             return new TimestampCell(new Date(input.readLong()));
         }
+        /** {@inheritDoc} */
+        @Override
+        public int getFixedWidth() {
+            return Long.BYTES;
+        }
+        /** {@inheritDoc} */
+        @Override
+        public void serialize(final TimestampCell cell, final ByteBuffer buffer) {
+            buffer.putLong(cell.getDate().getTime());
+        }
+        /** {@inheritDoc} */
+        @Override
+        public TimestampCell deserialize(final ByteBuffer buffer) {
+            return new TimestampCell(new Date(buffer.getLong()));
+        }
     }
 
 }
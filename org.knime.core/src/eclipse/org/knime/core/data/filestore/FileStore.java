@@ -89,7 +89,9 @@ IFileStoreHandler getFileStoreHandler() {
     public File getFile() {
         File parentDir = m_fileStoreHandler.getParentDir(m_key.getIndex(), false);
         String relativePath = m_key.getNameOnDisc();
-        return new File(parentDir, relativePath);
+        File file = new File(parentDir, relativePath);
+        m_fileStoreHandler.ensureUnpacked(m_key.getIndex(), file);
+        return file;
     }
 
     /**
@@ -0,0 +1,275 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.filestore.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+import org.knime.core.node.NodeLogger;
+
+/**
+ * Packs small file store files into segment files and restores them on access. Segments are stored in a sub folder
+ * of the file store directory, which is saved and restored along with the file stores. Each segment consists of a
+ * data file and an index file listing the file store index, offset and length of the packed files.
+ *
+ * <p>
+ * Space of file stores that are deleted or restored is not reclaimed from the segment files, they are removed along
+ * with the file store directory.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class FileStoreSegments {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(FileStoreSegments.class);
+
+    /** Name of the folder in the file store directory containing the segments. */
+    static final String SEGMENT_FOLDER = "segments";
+
+    /** Files larger than this are not packed. */
+    static final long MAX_PACKED_FILE_SIZE = 64 * 1024;
+
+    private static final String DATA_SUFFIX = ".bin";
+
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private final File m_segmentFolder;
+
+    private final Map<Integer, Entry> m_entries = new ConcurrentHashMap<>();
+
+    private int m_nextSegment;
+
+    private FileStoreSegments(final File segmentFolder) {
+        m_segmentFolder = segmentFolder;
+    }
+
+    /**
+     * @param baseDir the file store directory
+     * @return the segments of the file store directory, <code>null</code> if there are none
+     * @throws IOException if the segment index can't be read
+     */
+    static FileStoreSegments load(final File baseDir) throws IOException {
+        final File segmentFolder = new File(baseDir, SEGMENT_FOLDER);
+        if (!segmentFolder.isDirectory()) {
+            return null;
+        }
+        final FileStoreSegments segments = new FileStoreSegments(segmentFolder);
+        segments.readIndices();
+        return segments;
+    }
+
+    /**
+     * @param baseDir the file store directory
+     * @return new (empty) segments in the file store directory
+     */
+    static FileStoreSegments create(final File baseDir) {
+        return new FileStoreSegments(new File(baseDir, SEGMENT_FOLDER));
+    }
+
+    private void readIndices() throws IOException {
+        final File[] indexFiles = m_segmentFolder.listFiles((dir, name) -> name.endsWith(INDEX_SUFFIX));
+        if (indexFiles == null) {
+            return;
+        }
+        for (File indexFile : indexFiles) {
+            final String name = indexFile.getName();
+            final int segment = Integer.parseInt(name.substring(0, name.length() - INDEX_SUFFIX.length()));
+            final File dataFile = new File(m_segmentFolder, segment + DATA_SUFFIX);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                final int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    final int index = in.readInt();
+                    final long offset = in.readLong();
+                    final long length = in.readLong();
+                    m_entries.put(index, new Entry(dataFile, offset, length));
+                }
+            }
+            m_nextSegment = Math.max(m_nextSegment, segment + 1);
+        }
+    }
+
+    /**
+     * Packs the given files into a new segment and deletes them. Files that are larger than
+     * {@link #MAX_PACKED_FILE_SIZE}, directories and missing files are skipped.
+     *
+     * @param indices the file store indices
+     * @param fileSupplier the file of a file store index
+     * @return the number of packed files
+     * @throws IOException if writing the segment fails, in which case none of the files is deleted
+     */
+    synchronized int pack(final List<Integer> indices, final IntFunction<File> fileSupplier) throws IOException {
+        final List<Integer> packedIndices = new ArrayList<>(indices.size());
+        final List<File> packedFiles = new ArrayList<>(indices.size());
+        for (Integer index : indices) {
+            final File file = fileSupplier.apply(index);
+            if (!m_entries.containsKey(index) && file.isFile() && file.length() <= MAX_PACKED_FILE_SIZE) {
+                packedIndices.add(index);
+                packedFiles.add(file);
+            }
+        }
+        if (packedFiles.size() < 2) {
+            return 0;
+        }
+        if (!m_segmentFolder.isDirectory() && !m_segmentFolder.mkdirs()) {
+            throw new IOException("Unable to create directory \"" + m_segmentFolder.getAbsolutePath() + "\"");
+        }
+        final int segment = m_nextSegment++;
+        final File dataFile = new File(m_segmentFolder, segment + DATA_SUFFIX);
+        final long[] offsets = new long[packedFiles.size() + 1];
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(dataFile))) {
+            for (int i = 0; i < packedFiles.size(); i++) {
+                offsets[i + 1] = offsets[i] + Files.copy(packedFiles.get(i).toPath(), out);
+            }
+        }
+        // the index is written last and renamed once complete, an incomplete segment is ignored when loading
+        final File tmpIndexFile = new File(m_segmentFolder, segment + INDEX_SUFFIX + ".tmp");
+        try (DataOutputStream out =
+            new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpIndexFile)))) {
+            out.writeInt(packedFiles.size());
+            for (int i = 0; i < packedFiles.size(); i++) {
+                out.writeInt(packedIndices.get(i));
+                out.writeLong(offsets[i]);
+                out.writeLong(offsets[i + 1] - offsets[i]);
+            }
+        }
+        final File indexFile = new File(m_segmentFolder, segment + INDEX_SUFFIX);
+        if (!tmpIndexFile.renameTo(indexFile)) {
+            throw new IOException("Unable to rename \"" + tmpIndexFile.getAbsolutePath() + "\"");
+        }
+        for (int i = 0; i < packedFiles.size(); i++) {
+            m_entries.put(packedIndices.get(i), new Entry(dataFile, offsets[i], offsets[i + 1] - offsets[i]));
+            if (!packedFiles.get(i).delete()) {
+                LOGGER.debugWithFormat("Unable to delete packed file store file \"%s\"", packedFiles.get(i));
+            }
+        }
+        return packedFiles.size();
+    }
+
+    /**
+     * Restores the file of a file store if it is packed into a segment. Concurrent calls for the same file store
+     * block until the file is restored.
+     *
+     * @param index the file store index
+     * @param file the file of the file store
+     */
+    void unpack(final int index, final File file) {
+        if (m_entries.isEmpty()) {
+            return;
+        }
+        m_entries.computeIfPresent(index, (i, entry) -> {
+            // the file might already exist if the file store was restored prior to saving the workflow
+            if (!file.exists()) {
+                try {
+                    entry.copyTo(file);
+                } catch (IOException e) {
+                    throw new IllegalStateException(
+                        "Unable to restore file store file \"" + file.getAbsolutePath() + "\" from segment", e);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Forgets a packed file store, e.g. because it's deleted.
+     *
+     * @param index the file store index
+     * @return <code>true</code> if the file store was packed into a segment
+     */
+    boolean remove(final int index) {
+        return !m_entries.isEmpty() && m_entries.remove(index) != null;
+    }
+
+    private static final class Entry {
+
+        private final File m_dataFile;
+
+        private final long m_offset;
+
+        private final long m_length;
+
+        Entry(final File dataFile, final long offset, final long length) {
+            m_dataFile = dataFile;
+            m_offset = offset;
+            m_length = length;
+        }
+
+        void copyTo(final File file) throws IOException {
+            final File parent = file.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+                throw new IOException("Unable to create directory \"" + parent.getAbsolutePath() + "\"");
+            }
+            try (RandomAccessFile in = new RandomAccessFile(m_dataFile, "r");
+                    OutputStream out = new BufferedOutputStream(new FileOutputStream(file))) {
+                in.seek(m_offset);
+                final byte[] buffer = new byte[(int)Math.min(m_length, 8192)];
+                long remaining = m_length;
+                while (remaining > 0) {
+                    final int read = in.read(buffer, 0, (int)Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new IOException("Unexpected end of segment file \"" + m_dataFile + "\"");
+                    }
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+        }
+    }
+
+}
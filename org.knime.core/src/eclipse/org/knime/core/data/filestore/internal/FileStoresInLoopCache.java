@@ -48,7 +48,13 @@
 package org.knime.core.data.filestore.internal;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.knime.core.data.DataColumnSpecCreator;
@@ -65,6 +71,7 @@
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.util.FileUtil;
@@ -81,6 +88,9 @@ final class FileStoresInLoopCache {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(FileStoresInLoopCache.class);
 
+    private static final boolean PACK_KEPT_FILE_STORES =
+        Boolean.getBoolean(KNIMEConstants.PROPERTY_FILESTORE_LOOP_COMPACTION);
+
     static final DataTableSpec LOOP_FILE_STORE_SPEC = new DataTableSpec(
             new DataColumnSpecCreator(COL_NAME, FileStoreKeyDataCell.TYPE).createSpec());
 
@@ -96,10 +106,61 @@ final class FileStoresInLoopCache {
         m_exec = exec;
     }
 
-    void onIterationEnd(final FileStoresInLoopCache endNodeCacheWithKeysToPersist,
+    /**
+     * Deletes the file stores created in the iteration that are not referenced by the loop end's output. The keys
+     * created in the iteration are still in memory, each key referenced by the loop end marks its file store as
+     * reachable, all others are deleted. This avoids writing and sorting a table of all created keys.
+     * If {@link KNIMEConstants#PROPERTY_FILESTORE_LOOP_COMPACTION} is set, the reachable (small) file stores are
+     * subsequently packed into segment files.
+     */
+    synchronized void onIterationEnd(final FileStoresInLoopCache endNodeCacheWithKeysToPersist,
             final ILoopStartWriteFileStoreHandler handler) throws CanceledExecutionException {
-        close();
-        deletableUnusedFileStores(endNodeCacheWithKeysToPersist, handler);
+        if (m_fileStoreCache == null) {
+            // closed before (not done by any of the loop start handlers)
+            deletableUnusedFileStores(endNodeCacheWithKeysToPersist, handler);
+        } else {
+            final Set<FileStoreKey> unreachableKeys = m_fileStoreCache;
+            m_fileStoreCache = null;
+            final List<FileStoreKey> keysToPack = new ArrayList<>();
+            try (CloseableRowIterator it = endNodeCacheWithKeysToPersist.getCreatedFileStoresTable().iterator()) {
+                while (it.hasNext()) {
+                    final FileStoreKey key = getFileStoreKey(it.next());
+                    if (unreachableKeys.remove(key) && PACK_KEPT_FILE_STORES) {
+                        keysToPack.add(key);
+                    }
+                }
+            }
+            MutableInteger nrFilesDeleted = new MutableInteger(0);
+            MutableInteger nrFailedDeletes = new MutableInteger(0);
+            for (FileStoreKey key : unreachableKeys) {
+                delete(key, handler, nrFilesDeleted, nrFailedDeletes);
+            }
+            logDeletes(nrFilesDeleted, nrFailedDeletes);
+            if (!keysToPack.isEmpty()) {
+                pack(keysToPack, handler);
+            }
+        }
+    }
+
+    private static void pack(final List<FileStoreKey> keys, final ILoopStartWriteFileStoreHandler handler) {
+        final Map<WriteFileStoreHandler, List<FileStoreKey>> keysByOwner = new LinkedHashMap<>();
+        for (FileStoreKey key : keys) {
+            final IFileStoreHandler owner = FileStoreUtil.getFileStoreHandler(handler.getFileStore(key));
+            if (owner instanceof WriteFileStoreHandler) {
+                keysByOwner.computeIfAbsent((WriteFileStoreHandler)owner, o -> new ArrayList<>()).add(key);
+            }
+        }
+        for (Map.Entry<WriteFileStoreHandler, List<FileStoreKey>> e : keysByOwner.entrySet()) {
+            try {
+                final int nrPacked = e.getKey().pack(e.getValue());
+                if (nrPacked > 0) {
+                    LOGGER.debugWithFormat("Packed %d file store(s) of \"%s\" into segment file", nrPacked,
+                        e.getKey());
+                }
+            } catch (IOException ex) {
+                LOGGER.warn("Unable to pack file stores of \"" + e.getKey() + "\": " + ex.getMessage(), ex);
+            }
+        }
     }
 
     void add(final FileStore fs) {
@@ -151,6 +212,10 @@ void deletableUnusedFileStores(final FileStoresInLoopCache endNodeCacheWithKeysT
         }
         allKeysIterator.close();
         endNodeKeysIterator.close();
+        logDeletes(nrFilesDeleted, nrFailedDeletes);
+    }
+
+    private static void logDeletes(final MutableInteger nrFilesDeleted, final MutableInteger nrFailedDeletes) {
         if (nrFilesDeleted.intValue() > 0) {
             StringBuilder b = new StringBuilder("Deleted ");
             b.append(nrFilesDeleted.intValue()).append(" files ");
@@ -201,6 +266,12 @@ void dispose() {
     private void delete(final FileStoreKey key, final ILoopStartWriteFileStoreHandler handler,
             final MutableInteger nrFilesDeleted, final MutableInteger nrFilesFailedDelete) {
         FileStore fileStore = handler.getFileStore(key);
+        IFileStoreHandler owner = FileStoreUtil.getFileStoreHandler(fileStore);
+        if (owner instanceof WriteFileStoreHandler && ((WriteFileStoreHandler)owner).discardPacked(key)) {
+            // packed into a segment file, no need to restore it
+            nrFilesDeleted.inc();
+            return;
+        }
         File file = fileStore.getFile();
         if (file.exists() && !FileUtil.deleteRecursively(file)) {
             nrFilesFailedDelete.inc();
@@ -239,6 +310,8 @@ public String toString() {
         if (m_createdFileStoresTable != null) {
             return "Closed - " + m_createdFileStoresTable.size() + " element(s):\n"
                     + DefaultTable.toString(m_createdFileStoresTable);
+        } else if (m_fileStoreCache == null) {
+            return "Iteration end processed";
         } else {
             return "Open - currently " + m_fileStoreCache.size() + " element(s)";
         }
@@ -53,6 +53,7 @@
 import org.knime.core.util.DuplicateKeyException;
 
 /**
+ * Thread-safe wrapper of a {@link DuplicateChecker}, file stores may be created concurrently.
  *
  * @author Bernd Wiswedel, KNIME AG, Zurich, Switzerland
  */
@@ -60,7 +61,7 @@ class InternalDuplicateChecker {
 
     private DuplicateChecker m_duplicateChecker = new DuplicateChecker();
 
-    void add(final String key) {
+    synchronized void add(final String key) {
         if (m_duplicateChecker == null) {
             throw new IllegalStateException("No add permitted (open not called)");
         }
@@ -72,7 +73,7 @@ void add(final String key) {
         }
     }
 
-    void close() {
+    synchronized void close() {
         if (m_duplicateChecker == null) {
             return;
         }
@@ -49,7 +49,13 @@
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.knime.core.data.IDataRepository;
 import org.knime.core.data.filestore.FileStore;
@@ -85,12 +91,19 @@ public class WriteFileStoreHandler implements IWriteFileStoreHandler {
 
     private final String m_name;
     private final UUID m_storeUUID;
-    private File m_baseDirInWorkflowFolder;
-    private File m_baseDir;
-    private InternalDuplicateChecker m_duplicateChecker;
+    private volatile File m_baseDirInWorkflowFolder;
+    private volatile File m_baseDir;
+    private volatile InternalDuplicateChecker m_duplicateChecker;
     private IDataRepository m_dataRepository;
+    /** Guarded by {@link #m_copyLock}. */
     private LRUCache<FileStoreKey, FileStoreKey> m_createdFileStoreKeys;
-    private int m_nextIndex = 0;
+    private final Object m_copyLock = new Object();
+    /** Index of the next file store, allocated without locking so that file stores can be created concurrently. */
+    private final AtomicInteger m_nextIndex = new AtomicInteger();
+    /** Leaf folders (index / {@value #FILES_PER_FOLDER}) that are known to exist in the base directory. */
+    private final Map<Integer, Boolean> m_createdShards = new ConcurrentHashMap<>();
+    /** Segment files small file stores are packed into, <code>null</code> if none. */
+    private volatile FileStoreSegments m_segments;
 
 
     /**
@@ -112,6 +125,11 @@ public void setBaseDir(final File baseDir) {
         CheckUtils.checkState(baseDir.isDirectory(), "Base directory of file store to node %s does not exist: %s",
             m_name, baseDir.getAbsolutePath());
         m_baseDir = baseDir;
+        try {
+            m_segments = FileStoreSegments.load(baseDir);
+        } catch (IOException e) {
+            LOGGER.error("Unable to read file store segments in " + baseDir.getAbsolutePath(), e);
+        }
     }
 
     /** {@inheritDoc} */
@@ -174,7 +192,14 @@ public boolean mustBeFlushedPriorSave(final FileStore fs) {
         return getOwnerHandler(key) == null;
     }
 
-    private synchronized FileStoreKey copyFileStore(final FileStore fs, final FlushCallback flushCallback) {
+    private FileStoreKey copyFileStore(final FileStore fs, final FlushCallback flushCallback) {
+        synchronized (m_copyLock) {
+            return copyFileStoreInternal(fs, flushCallback);
+        }
+    }
+
+    private FileStoreKey copyFileStoreInternal(final FileStore fs, final FlushCallback flushCallback) {
+        assert Thread.holdsLock(m_copyLock);
         FileStoreKey key = FileStoreUtil.getFileStoreKey(fs);
         if (m_createdFileStoreKeys == null) {
             LOGGER.debug("Duplicating file store objects - file store handler id "
@@ -234,7 +259,7 @@ IFileStoreHandler getOwnerHandler(final FileStoreKey key) {
         return ownerHandler;
     }
 
-    private synchronized FileStore getFileStoreInternal(final FileStoreKey key)
+    private FileStore getFileStoreInternal(final FileStoreKey key)
         throws IOException {
         assert key.getStoreUUID().equals(getStoreUUID());
         CheckUtils.checkState(getBaseDir() != null || m_baseDirInWorkflowFolder != null,
@@ -258,7 +283,7 @@ public String toString() {
     }
 
     @Override
-    public synchronized FileStore createFileStore(final String name) throws IOException {
+    public FileStore createFileStore(final String name) throws IOException {
         addToDuplicateChecker(name);
         return createFileStoreInternal(name, null, -1);
     }
@@ -267,15 +292,16 @@ public synchronized FileStore createFileStore(final String name) throws IOExcept
      * @param name
      * @throws IOException */
     void addToDuplicateChecker(final String name) throws IOException {
-        CheckUtils.checkState(m_duplicateChecker != null, "File store on node %s is read only/closed", m_name);
-        m_duplicateChecker.add(name);
+        final InternalDuplicateChecker duplicateChecker = m_duplicateChecker;
+        CheckUtils.checkState(duplicateChecker != null, "File store on node %s is read only/closed", m_name);
+        duplicateChecker.add(name);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public synchronized FileStore createFileStore(final String name, final int[] nestedLoopPath,
+    public FileStore createFileStore(final String name, final int[] nestedLoopPath,
         final int iterationIndex) throws IOException {
         // NOTE: inconsistent with the other createFileStore-method - doesn't add to the duplicate checker
         return createFileStoreInternal(name, nestedLoopPath, iterationIndex);
@@ -283,7 +309,6 @@ public synchronized FileStore createFileStore(final String name, final int[] nes
 
     private FileStore createFileStoreInternal(final String name,
             final int[] nestedLoopPath, final int iterationIndex) throws IOException {
-        assert Thread.holdsLock(this);
         CheckUtils.checkArgumentNotNull(name, "Argument must not be null.");
         if (name.startsWith(".")) {
             throw new IOException("Name must not start with a dot: \"" + name + "\"");
@@ -291,20 +316,100 @@ private FileStore createFileStoreInternal(final String name,
         if (name.contains("/") || name.contains("\\")) {
             throw new IOException("Invalid file name, must not contain (back) slash: \"" + name + "\"");
         }
-        FileStoreKey key = new FileStoreKey(m_storeUUID, m_nextIndex, nestedLoopPath, iterationIndex, name);
         ensureInitBaseDirectory();
-        if (m_nextIndex > MAX_NR_FILES) {
-            throw new IOException("Maximum number of files stores reached: " + MAX_NR_FILES);
-        }
-        getParentDir(m_nextIndex, true);
-        m_nextIndex++;
+        final int index = allocateIndex();
+        FileStoreKey key = new FileStoreKey(m_storeUUID, index, nestedLoopPath, iterationIndex, name);
+        ensureShardExists(index);
         FileStore fs = FileStoreUtil.createFileStore(this, key);
         return fs;
     }
 
+    private int allocateIndex() throws IOException {
+        int index;
+        do {
+            index = m_nextIndex.get();
+            if (index > MAX_NR_FILES) {
+                throw new IOException("Maximum number of files stores reached: " + MAX_NR_FILES);
+            }
+        } while (!m_nextIndex.compareAndSet(index, index + 1));
+        return index;
+    }
+
+    /** Creates the leaf folder for the given index if not done before. The folder of the following shard is created
+     * along with it so that threads crossing the shard boundary usually find their folder in place. */
+    private void ensureShardExists(final int index) {
+        final int shard = index / FILES_PER_FOLDER;
+        // the following shard is only added after this one, so both exist if the following one is known
+        if (m_createdShards.get(shard + 1) == null) {
+            // computeIfAbsent blocks other threads of the same shard until the folder is created
+            m_createdShards.computeIfAbsent(shard, s -> createShard(s));
+            if ((shard + 1) * FILES_PER_FOLDER <= MAX_NR_FILES) {
+                m_createdShards.computeIfAbsent(shard + 1, s -> createShard(s));
+            }
+        }
+    }
+
+    private Boolean createShard(final int shard) {
+        getParentDir(shard * FILES_PER_FOLDER, true);
+        return Boolean.TRUE;
+    }
+
+    /**
+     * Restores the file of a file store if it was packed into a segment file.
+     *
+     * @param index the index of the file store
+     * @param file the file of the file store
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public void ensureUnpacked(final int index, final File file) {
+        final FileStoreSegments segments = m_segments;
+        if (segments != null) {
+            segments.unpack(index, file);
+        }
+    }
+
+    /**
+     * Packs small file stores into a segment file. Only to be called if the file stores are not accessed
+     * concurrently, e.g. for the file stores of a completed loop iteration.
+     *
+     * @param keys the keys of the file stores, all owned by this handler
+     * @return the number of packed file stores
+     * @throws IOException if writing the segment fails
+     */
+    int pack(final List<FileStoreKey> keys) throws IOException {
+        final FileStoreSegments segments;
+        synchronized (this) {
+            if (m_baseDir == null) {
+                return 0;
+            }
+            if (m_segments == null) {
+                m_segments = FileStoreSegments.create(m_baseDir);
+            }
+            segments = m_segments;
+        }
+        final Map<Integer, FileStoreKey> keysByIndex = new HashMap<>();
+        for (FileStoreKey key : keys) {
+            assert key.getStoreUUID().equals(m_storeUUID);
+            keysByIndex.put(key.getIndex(), key);
+        }
+        return segments.pack(new ArrayList<>(keysByIndex.keySet()),
+            index -> new File(getParentDir(index, false), keysByIndex.get(index).getNameOnDisc()));
+    }
+
+    /**
+     * Forgets a file store that was packed into a segment file, used when the file store is deleted.
+     *
+     * @param key the file store key
+     * @return <code>true</code> if the file store was packed
+     */
+    boolean discardPacked(final FileStoreKey key) {
+        final FileStoreSegments segments = m_segments;
+        return segments != null && segments.remove(key.getIndex());
+    }
+
     /** @return the nextIndex */
     public int getNextIndex() {
-        return m_nextIndex;
+        return m_nextIndex.get();
     }
 
     public File getParentDir(final int indexArg, final boolean create) {
@@ -320,7 +425,8 @@ public File getParentDir(final int indexArg, final boolean create) {
             parentDir = new File(parentDir, subFolderNames[level]);
         }
         if (create && !parentDir.isDirectory()) {
-            if (!parentDir.mkdirs()) {
+            // concurrent creation of the same folder lets mkdirs fail in one of the threads
+            if (!parentDir.mkdirs() && !parentDir.isDirectory()) {
                 LOGGER.error("Failed to create directory \"" + parentDir.getAbsolutePath() + "\"");
             }
         }
@@ -329,6 +435,14 @@ public File getParentDir(final int indexArg, final boolean create) {
 
 
     private void ensureInitBaseDirectory() throws IOException {
+        if (m_baseDir == null) {
+            synchronized (this) {
+                initBaseDirectory();
+            }
+        }
+    }
+
+    private void initBaseDirectory() throws IOException {
         assert Thread.holdsLock(this);
         if (m_baseDir == null) {
             StringBuilder baseDirName = new StringBuilder("fs-");
@@ -371,15 +485,26 @@ public void close() {
 
     /** {@inheritDoc} */
     @Override
-    public synchronized void ensureOpenAfterLoad() throws IOException {
+    public void ensureOpenAfterLoad() throws IOException {
+        if (m_baseDirInWorkflowFolder != null) {
+            restoreAfterLoad();
+        }
+    }
+
+    private synchronized void restoreAfterLoad() throws IOException {
         if (m_baseDirInWorkflowFolder != null) {
             assert m_baseDir == null;
-            ensureInitBaseDirectory();
+            initBaseDirectory();
             LOGGER.debugWithFormat("Restoring file store directory \"%s\" from \"%s\"",
                 toString(), m_baseDirInWorkflowFolder);
             File source = m_baseDirInWorkflowFolder;
-            m_baseDirInWorkflowFolder = null;
-            FileUtil.copyDir(source, m_baseDir);
+            try {
+                FileUtil.copyDir(source, m_baseDir);
+                m_segments = FileStoreSegments.load(m_baseDir);
+            } finally {
+                // reset only after copying as readers don't acquire the lock once this field is null
+                m_baseDirInWorkflowFolder = null;
+            }
         }
     }
 
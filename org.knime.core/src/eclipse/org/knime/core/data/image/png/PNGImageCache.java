@@ -0,0 +1,288 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.image.png;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.knime.core.data.util.memory.MemoryAlert;
+import org.knime.core.data.util.memory.MemoryAlertListener;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.util.ConvenienceMethods;
+
+/**
+ * Least recently used cache of decoded PNG images and their thumbnails, limited by the number of bytes occupied by the
+ * decoded pixels and the PNG bytes referenced by the keys. Entries are keyed by the content of the PNG byte array, so
+ * equal images read from different cells (e.g. the same blob deserialized several times) share one decoded copy.
+ * Thumbnails are bucketed by powers of two of their longer edge, so that all images painted at similar sizes (e.g. in a
+ * table view) share a thumbnail. The cache is cleared if the {@link MemoryAlertSystem} reports low memory. The cached
+ * images are shared and must not be modified.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PNGImageCache {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(PNGImageCache.class);
+
+    /** Smallest thumbnail size (longer edge in pixels). */
+    static final int MIN_THUMBNAIL_SIZE = 32;
+
+    /** Maximum number of bytes occupied by cached images and their keys, 0 disables the cache. */
+    private static final long BUDGET = ConvenienceMethods.readSizeSystemProperty("org.knime.pngcachesize",
+        Math.min(Runtime.getRuntime().maxMemory() / 20, 256L << 20));
+
+    private static final PNGImageCache INSTANCE = new PNGImageCache(BUDGET);
+
+    private final long m_budget;
+
+    private final LinkedHashMap<Key, BufferedImage> m_images = new LinkedHashMap<>(64, 0.75f, true);
+
+    private long m_usedBytes;
+
+    /**
+     * @param budget maximum number of bytes occupied by the cached images and their keys
+     */
+    PNGImageCache(final long budget) {
+        m_budget = budget;
+        if (budget > 0) {
+            MemoryAlertSystem.getInstance().addListener(new MemoryAlertListener() {
+                @Override
+                protected boolean memoryAlert(final MemoryAlert alert) {
+                    LOGGER.debug("Clearing PNG image cache in response to memory alert");
+                    clear();
+                    return false;
+                }
+            });
+        }
+    }
+
+    /** @return the shared instance */
+    static PNGImageCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the decoded image, decoding and caching it if necessary.
+     *
+     * @param key the key of the content
+     * @param decoder decodes the image if it is not cached
+     * @return the image
+     */
+    BufferedImage getImage(final Key key, final Supplier<BufferedImage> decoder) {
+        BufferedImage image = get(key);
+        if (image == null) {
+            // decode outside the lock, concurrent decodes of the same image are rare and harmless
+            image = decoder.get();
+            put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * Returns a thumbnail whose longer edge is <code>size</code> pixels, computing and caching it if necessary.
+     *
+     * @param key the key of the content
+     * @param size the bucket as returned by {@link #thumbnailSize(int, int, int, int)}
+     * @param decoder decodes the full image if neither the thumbnail nor the image is cached
+     * @return the thumbnail
+     */
+    BufferedImage getThumbnail(final Key key, final int size, final Supplier<BufferedImage> decoder) {
+        final Key thumbnailKey = key.withThumbnailSize(size);
+        BufferedImage thumbnail = get(thumbnailKey);
+        if (thumbnail == null) {
+            thumbnail = scale(getImage(key, decoder), size);
+            put(thumbnailKey, thumbnail);
+        }
+        return thumbnail;
+    }
+
+    /**
+     * Determines the thumbnail bucket to use for painting an image into an area, assuming the image is shrunk as
+     * needed but not enlarged.
+     *
+     * @param imageWidth width of the image
+     * @param imageHeight height of the image
+     * @param width width of the painted area
+     * @param height height of the painted area
+     * @return the longer edge of the thumbnail or 0 if the full image should be painted
+     */
+    static int thumbnailSize(final int imageWidth, final int imageHeight, final int width, final int height) {
+        final int longerEdge = Math.max(imageWidth, imageHeight);
+        if (width <= 0 || height <= 0 || longerEdge <= MIN_THUMBNAIL_SIZE) {
+            return 0;
+        }
+        final double scale = Math.min(1.0, Math.min(width / (double)imageWidth, height / (double)imageHeight));
+        final int paintedEdge = (int)Math.ceil(longerEdge * scale);
+        int size = MIN_THUMBNAIL_SIZE;
+        while (size < paintedEdge) {
+            size <<= 1;
+        }
+        return size < longerEdge ? size : 0;
+    }
+
+    /** Removes all images from the cache. */
+    synchronized void clear() {
+        m_images.clear();
+        m_usedBytes = 0;
+    }
+
+    /** @return number of bytes occupied by the cached images and their keys */
+    synchronized long getUsedBytes() {
+        return m_usedBytes;
+    }
+
+    private synchronized BufferedImage get(final Key key) {
+        return m_images.get(key);
+    }
+
+    private synchronized void put(final Key key, final BufferedImage image) {
+        final long bytes = sizeOf(key, image);
+        if (bytes > m_budget) {
+            return;
+        }
+        final BufferedImage previous = m_images.put(key, image);
+        if (previous != null) {
+            m_usedBytes -= sizeOf(key, previous);
+        }
+        m_usedBytes += bytes;
+        for (Iterator<Map.Entry<Key, BufferedImage>> it = m_images.entrySet().iterator();
+                m_usedBytes > m_budget && it.hasNext();) {
+            final Map.Entry<Key, BufferedImage> entry = it.next();
+            m_usedBytes -= sizeOf(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+    }
+
+    /* The PNG bytes are counted for each entry, also if shared by an image and its thumbnails, as they are kept
+     * alive by the cache once the content is gone. */
+    private static long sizeOf(final Key key, final BufferedImage image) {
+        return key.m_bytes.length + sizeOf(image);
+    }
+
+    private static long sizeOf(final BufferedImage image) {
+        final DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long)buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+    }
+
+    /* Scales in steps of at most a factor of two, plain bilinear interpolation looks poor for larger factors. */
+    private static BufferedImage scale(final BufferedImage image, final int size) {
+        final double factor = size / (double)Math.max(image.getWidth(), image.getHeight());
+        final int targetWidth = Math.max(1, (int)Math.round(image.getWidth() * factor));
+        final int targetHeight = Math.max(1, (int)Math.round(image.getHeight() * factor));
+        BufferedImage current = image;
+        do {
+            final int width = Math.max(targetWidth, current.getWidth() / 2);
+            final int height = Math.max(targetHeight, current.getHeight() / 2);
+            final BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            final Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (current.getWidth() != targetWidth || current.getHeight() != targetHeight);
+        return current;
+    }
+
+    /**
+     * Cache key identifying an image by the content of its PNG byte array, optionally referring to one of its
+     * thumbnails.
+     */
+    static final class Key {
+
+        private final byte[] m_bytes;
+
+        private final int m_hash;
+
+        private final int m_thumbnailSize;
+
+        /**
+         * @param bytes the PNG bytes, must not be modified afterwards
+         * @param hash the hash code of the bytes as per {@link Arrays#hashCode(byte[])}
+         */
+        Key(final byte[] bytes, final int hash) {
+            this(bytes, hash, 0);
+        }
+
+        private Key(final byte[] bytes, final int hash, final int thumbnailSize) {
+            m_bytes = bytes;
+            m_hash = hash;
+            m_thumbnailSize = thumbnailSize;
+        }
+
+        Key withThumbnailSize(final int size) {
+            return new Key(m_bytes, m_hash, size);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * m_hash + m_thumbnailSize;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key)obj;
+            return m_hash == other.m_hash && m_thumbnailSize == other.m_thumbnailSize
+                && Arrays.equals(m_bytes, other.m_bytes);
+        }
+    }
+}
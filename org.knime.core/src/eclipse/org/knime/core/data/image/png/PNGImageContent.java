@@ -50,12 +50,12 @@
 import java.awt.Image;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.lang.ref.SoftReference;
 import java.util.Arrays;
 
 import javax.imageio.ImageIO;
@@ -84,7 +84,11 @@ public class PNGImageContent implements ImageContent {
     /** PNG image content as byte array. */
     private byte[] m_imageBytes;
 
-    private SoftReference<Image> m_imageRef;
+    /** Key of the decoded image in the {@link PNGImageCache}, created lazily. */
+    private PNGImageCache.Key m_cacheKey;
+
+    /** Image dimension, read lazily from the PNG header (or the decoded image). */
+    private Dimension m_dimension;
 
     /** Framework constructor for restoring content. <b>Do not use!</b> */
     public PNGImageContent() {
@@ -102,7 +106,8 @@ public PNGImageContent(final byte[] imageBytes) {
             throw new NullPointerException("Argument must not be null.");
         }
         m_imageBytes = imageBytes;
-        m_imageRef = new SoftReference<Image>(getImageInternal(imageBytes));
+        // validates the bytes, the decoded image is kept in the cache for subsequent painting
+        getImageInternal();
     }
 
     /** Reads image content from a stream. The reader will read content
@@ -145,29 +150,41 @@ public byte[] getByteArray() {
     }
 
     /** Get the image represented by this object.
-     * @return The image.
+     * @return A new copy of the image, which may be modified by the caller.
      * @throws IllegalStateException If the image can't be read from the
      *         internal memory representation (the Image is not actually stored
-     *         as part of this cell but kept in a SoftReference)
+     *         as part of this cell but kept in a memory sensitive cache)
      */
     public Image getImage() {
-        Image image = m_imageRef.get();
-        if (image != null) {
-            return image;
-        }
         try {
-            image = getImageInternal(m_imageBytes);
-            m_imageRef = new SoftReference<Image>(image);
-            return image;
+            // the cached image is shared by all contents with the same bytes
+            final BufferedImage image = getImageInternal();
+            final ColorModel colorModel = image.getColorModel();
+            return new BufferedImage(colorModel, image.copyData(null), colorModel.isAlphaPremultiplied(), null);
         } catch (IllegalArgumentException e) {
             throw new IllegalStateException("Image can't be re-read", e);
         }
     }
 
+    /** Get the image from the cache, decoding it if necessary.
+     * @return The image
+     * @throws IllegalArgumentException If the image can't be decoded
+     */
+    private BufferedImage getImageInternal() {
+        return PNGImageCache.getInstance().getImage(getCacheKey(), () -> readImage(m_imageBytes));
+    }
+
+    private PNGImageCache.Key getCacheKey() {
+        if (m_cacheKey == null) {
+            m_cacheKey = new PNGImageCache.Key(m_imageBytes, Arrays.hashCode(m_imageBytes));
+        }
+        return m_cacheKey;
+    }
+
     /** Read image from byte[] array.
      * @return A new image
      */
-    private static Image getImageInternal(final byte[] array) {
+    private static BufferedImage readImage(final byte[] array) {
         try {
             BufferedImage bufImage =
                 ImageIO.read(new ByteArrayInputStream(array));
@@ -182,26 +199,49 @@ private static Image getImageInternal(final byte[] array) {
         }
     }
 
+    /** Get the dimension of the image, preferably from the PNG header (IHDR chunk) without decoding the image.
+     * @return The dimension
+     * @throws IllegalArgumentException If the image can't be decoded
+     */
+    private Dimension getDimension() {
+        if (m_dimension == null) {
+            final byte[] b = m_imageBytes;
+            // 8 byte signature, 4 byte chunk length, "IHDR", 4 byte width, 4 byte height
+            if (b.length >= 24 && (b[0] & 0xFF) == 0x89 && b[1] == 'P' && b[2] == 'N' && b[3] == 'G'
+                && b[12] == 'I' && b[13] == 'H' && b[14] == 'D' && b[15] == 'R') {
+                m_dimension = new Dimension(readInt(b, 16), readInt(b, 20));
+            } else {
+                final BufferedImage image = getImageInternal();
+                m_dimension = new Dimension(image.getWidth(), image.getHeight());
+            }
+        }
+        return new Dimension(m_dimension);
+    }
+
+    private static int readInt(final byte[] b, final int offset) {
+        return ((b[offset] & 0xFF) << 24) | ((b[offset + 1] & 0xFF) << 16) | ((b[offset + 2] & 0xFF) << 8)
+            | (b[offset + 3] & 0xFF);
+    }
+
     /** {@inheritDoc} */
     @Override
     public void paint(final Graphics2D g, final int width, final int height) {
-        BufferedImage image = null;
-        String error = null;
+        final Dimension dim;
+        final Image image;
         try {
-            image = ImageIO.read(new ByteArrayInputStream(m_imageBytes));
-            if (image == null) {
-                error = "ImageIO returned null";
-            }
-        } catch (IOException e) {
-            error = e.getMessage();
-        }
-        if (error != null) {
-            g.drawString(error, 0, 0);
-        } else {
-            ImageViewPanel.drawInto(g, image, image.getWidth(), image.getHeight(),
-                new Rectangle(width, height), ScaleType.ShrinkAsNeeded);
-//            g.drawImage(image, 0, 0, width, height, null);
+            dim = getDimension();
+            // paint a cached thumbnail if the image is shrunk considerably, e.g. in table views
+            final int thumbnailSize = PNGImageCache.thumbnailSize(dim.width, dim.height, width, height);
+            image = thumbnailSize > 0
+                ? PNGImageCache.getInstance().getThumbnail(getCacheKey(), thumbnailSize, () -> readImage(m_imageBytes))
+                : getImageInternal();
+        } catch (IllegalArgumentException e) {
+            final String error = e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+            g.drawString(error != null ? error : "Image can't be read", 0, 0);
+            return;
         }
+        ImageViewPanel.drawInto(g, image, dim.width, dim.height,
+            new Rectangle(width, height), ScaleType.ShrinkAsNeeded);
     }
 
     /** {@inheritDoc} */
@@ -251,13 +291,11 @@ public DataCell toImageCell() {
     /** {@inheritDoc} */
     @Override
     public Dimension getPreferredSize() {
-        Image image;
         try {
-            image = getImage();
-        } catch (IllegalStateException ise) {
+            return getDimension();
+        } catch (IllegalArgumentException e) {
             return new Dimension(16, 16);
         }
-        return new Dimension(image.getWidth(null), image.getHeight(null));
     }
 
     /** {@inheritDoc} */
@@ -0,0 +1,279 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.sort;
+
+import java.util.Random;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.data.util.memory.MemoryAlertSystem.MemoryActionIndicator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+
+/**
+ * Shuffles a table without sorting it. In a first pass the rows are scattered into randomly chosen buckets (tables
+ * written to disk), then each bucket is shuffled using Fisher-Yates and appended to the result. Since each row is
+ * assigned to a bucket uniformly and independently and each bucket is permuted uniformly, all permutations of the
+ * input are equally likely.
+ *
+ * <p>
+ * The number of buckets only depends on the number of rows (a bucket has at most {@link #ROWS_PER_BUCKET} rows) and
+ * the permutation of a bucket is drawn on the row indices before its rows are read. Hence the same seed always yields
+ * the same permutation, independent of the available memory. Usually a table is read twice in total. If the
+ * {@link MemoryAlertSystem} reports low memory while the rows of a bucket are collected, the bucket is read again in
+ * several passes, each of which collects a smaller window of the shuffled bucket.
+ *
+ * <p>
+ * The number of rows is not limited to {@link Integer#MAX_VALUE}, only the number of rows of a bucket is.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BucketShuffler {
+
+    /** Maximum number of buckets written at the same time, limits the number of open files. */
+    static final int MAX_BUCKETS = 256;
+
+    /** Maximum number of rows of a bucket, larger tables (and buckets) are scattered. */
+    static final int ROWS_PER_BUCKET = 1 << 18;
+
+    private final ExecutionContext m_exec;
+
+    private final Random m_random;
+
+    private final int m_rowsPerBucket;
+
+    private final int m_maxRowsInMemory;
+
+    private final MemoryActionIndicator m_memIndicator = MemoryAlertSystem.getInstance().newIndicator();
+
+    private long m_nrRowsProcessed;
+
+    private long m_nrRowsTotal;
+
+    /**
+     * @param exec execution context used for creating tables and reporting progress
+     * @param seed random seed for permutation generation
+     */
+    BucketShuffler(final ExecutionContext exec, final long seed) {
+        this(exec, seed, ROWS_PER_BUCKET, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param exec execution context used for creating tables and reporting progress
+     * @param seed random seed for permutation generation
+     * @param rowsPerBucket maximum number of rows of a bucket
+     * @param maxRowsInMemory maximum number of rows held in memory at the same time, determines the number of passes
+     *            over a bucket but not the permutation (in addition to the limit imposed by the memory alerts)
+     */
+    BucketShuffler(final ExecutionContext exec, final long seed, final int rowsPerBucket,
+        final int maxRowsInMemory) {
+        if (rowsPerBucket < 1 || maxRowsInMemory < 1) {
+            throw new IllegalArgumentException(
+                "Number of rows must be positive: " + rowsPerBucket + ", " + maxRowsInMemory);
+        }
+        m_exec = exec;
+        m_random = new Random(seed);
+        m_rowsPerBucket = rowsPerBucket;
+        m_maxRowsInMemory = maxRowsInMemory;
+    }
+
+    /**
+     * @param table the table to shuffle
+     * @return the shuffled table
+     * @throws CanceledExecutionException if the execution was canceled
+     */
+    BufferedDataTable shuffle(final BufferedDataTable table) throws CanceledExecutionException {
+        final DataTableSpec spec = table.getDataTableSpec();
+        // each row is read twice, once while scattering and once while shuffling its bucket (plus once per level of
+        // recursion or additional pass over a bucket, which is rare and not accounted for)
+        m_nrRowsTotal = 2 * table.size();
+        m_nrRowsProcessed = 0;
+        final BufferedDataContainer result = m_exec.createDataContainer(spec, true);
+        boolean success = false;
+        try {
+            shuffleInto(table, result);
+            success = true;
+        } finally {
+            result.close();
+            if (!success) {
+                m_exec.clearTable(result.getTable());
+            }
+        }
+        m_exec.setProgress(1.0);
+        return result.getTable();
+    }
+
+    private void shuffleInto(final BufferedDataTable table, final BufferedDataContainer result)
+        throws CanceledExecutionException {
+        if (table.size() <= m_rowsPerBucket) {
+            shuffleBucket(table, result);
+        } else {
+            scatterAndShuffle(table, result);
+        }
+    }
+
+    /** Scatters the table into buckets and shuffles them. */
+    private void scatterAndShuffle(final BufferedDataTable table, final BufferedDataContainer result)
+        throws CanceledExecutionException {
+        final long size = table.size();
+        final int nrBuckets =
+            (int)Math.max(2, Math.min(MAX_BUCKETS, (size + m_rowsPerBucket - 1) / m_rowsPerBucket));
+        final BufferedDataContainer[] buckets = new BufferedDataContainer[nrBuckets];
+        try {
+            for (int i = 0; i < nrBuckets; i++) {
+                // many buckets are written at the same time, write them to disk right away
+                buckets[i] = m_exec.createDataContainer(table.getDataTableSpec(), true, 0);
+            }
+            try (CloseableRowIterator it = table.iterator()) {
+                while (it.hasNext()) {
+                    buckets[m_random.nextInt(nrBuckets)].addRowToTable(it.next());
+                    rowProcessed();
+                }
+            }
+            for (int i = 0; i < nrBuckets; i++) {
+                buckets[i].close();
+            }
+            for (int i = 0; i < nrBuckets; i++) {
+                final BufferedDataTable bucket = buckets[i].getTable();
+                try {
+                    shuffleInto(bucket, result);
+                } finally {
+                    buckets[i] = null;
+                    m_exec.clearTable(bucket);
+                }
+            }
+        } finally {
+            // only non-null if the scatter pass or the shuffling of a previous bucket failed
+            for (BufferedDataContainer bucket : buckets) {
+                if (bucket != null) {
+                    if (!bucket.isClosed()) {
+                        bucket.close();
+                    }
+                    m_exec.clearTable(bucket.getTable());
+                }
+            }
+        }
+    }
+
+    /**
+     * Shuffles a bucket and appends it to the result. The target positions of the rows are shuffled using
+     * Fisher-Yates before any row is read, then the rows are collected at their positions in one pass over the bucket
+     * or, if memory gets low, in several passes each collecting a window of the shuffled bucket.
+     */
+    private void shuffleBucket(final BufferedDataTable table, final BufferedDataContainer result)
+        throws CanceledExecutionException {
+        final int size = (int)table.size();
+        // positions[i] is the position of the i-th row of the table in the shuffled bucket
+        final int[] positions = new int[size];
+        for (int i = 0; i < size; i++) {
+            positions[i] = i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            final int r = m_random.nextInt(i + 1);
+            final int swap = positions[r];
+            positions[r] = positions[i];
+            positions[i] = swap;
+        }
+        int windowSize = Math.min(size, m_maxRowsInMemory);
+        int start = 0;
+        while (start < size) {
+            final DataRow[] window = new DataRow[Math.min(windowSize, size - start)];
+            final int collected = collectWindow(table, positions, start, window);
+            if (collected < window.length) {
+                // memory got low, read the bucket again collecting a smaller window
+                windowSize = Math.max(1, collected / 2);
+                continue;
+            }
+            for (DataRow row : window) {
+                result.addRowToTable(row);
+                rowProcessed();
+            }
+            start += window.length;
+        }
+    }
+
+    /**
+     * Collects the rows whose positions are in [start, start + window.length) in one pass over the table.
+     *
+     * @return the number of rows collected, less than the window length if reading was aborted because of low
+     *         memory
+     */
+    private int collectWindow(final BufferedDataTable table, final int[] positions, final int start,
+        final DataRow[] window) throws CanceledExecutionException {
+        int collected = 0;
+        int index = 0;
+        try (CloseableRowIterator it = table.iterator()) {
+            while (collected < window.length && it.hasNext()) {
+                final DataRow row = it.next();
+                final int position = positions[index++] - start;
+                if (position >= 0 && position < window.length) {
+                    window[position] = row;
+                    collected++;
+                }
+                if ((index & 0x3FF) == 0) {
+                    m_exec.checkCanceled();
+                    if (collected > 1 && collected < window.length && m_memIndicator.lowMemoryActionRequired()) {
+                        return collected;
+                    }
+                }
+            }
+        }
+        return collected;
+    }
+
+    private void rowProcessed() throws CanceledExecutionException {
+        m_nrRowsProcessed++;
+        if ((m_nrRowsProcessed & 0x3FF) == 0) {
+            m_exec.checkCanceled();
+            m_exec.setProgress(Math.min(1.0, m_nrRowsProcessed / (double)m_nrRowsTotal));
+        }
+    }
+
+}
@@ -49,27 +49,16 @@
 package org.knime.core.data.sort;
 
 import java.io.Closeable;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
 
-import org.knime.core.data.DataCell;
-import org.knime.core.data.DataColumnSpec;
-import org.knime.core.data.DataColumnSpecCreator;
-import org.knime.core.data.DataRow;
-import org.knime.core.data.DataTableSpec;
-import org.knime.core.data.container.ColumnRearranger;
-import org.knime.core.data.container.SingleCellFactory;
-import org.knime.core.data.def.IntCell;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
-import org.knime.core.node.util.CheckUtils;
 
 /**
  * Implementation of the Fisher Yates shuffle, that guarantees that all n! possible outcomes are possible and equally
  * likely. The shuffling procedure requires only linear runtime. For further details see "Fisher-Yates shuffle", from
- * Dictionary of Algorithms and Data Structures, Paul E. Black, ed., NIST.
+ * Dictionary of Algorithms and Data Structures, Paul E. Black, ed., NIST. Tables that don't fit into memory are first
+ * scattered into random buckets, which are shuffled individually. The number of rows is not limited.
  *
  * @author Adrian Nembach, KNIME GmbH, Konstanz, Germany
  * @author Benjamin Wilhelm, KNIME GmbH, Konstanz, Germany
@@ -83,10 +72,6 @@ public final class ClosableShuffler implements Closeable {
 
     private final long m_seed;
 
-    private BufferedDataTable m_intermediate;
-
-    private BufferedDataTable m_sorted;
-
     private BufferedDataTable m_shuffled;
 
     /**
@@ -101,9 +86,6 @@ public final class ClosableShuffler implements Closeable {
      * @since 4.3
      */
     public ClosableShuffler(final BufferedDataTable table, final ExecutionContext exec, final long seed) {
-        CheckUtils.checkArgument(table.size() <= Integer.MAX_VALUE,
-            "It's currently not possible to shuffle tables with more than Integer.MAX_VALUE rows.");
-
         m_table = table;
         m_exec = exec;
         m_seed = seed;
@@ -118,99 +100,17 @@ public ClosableShuffler(final BufferedDataTable table, final ExecutionContext ex
      */
     public BufferedDataTable getShuffled() throws CanceledExecutionException {
         if (m_shuffled == null) {
-            shuffle();
+            // intermediate tables (buckets) are cleared while shuffling
+            m_shuffled = new BucketShuffler(m_exec, m_seed).shuffle(m_table);
         }
         return m_shuffled;
     }
 
     @Override
     public void close() {
-        m_exec.clearTable(m_sorted);
-        m_exec.clearTable(m_shuffled);
-        m_exec.clearTable(m_intermediate);
-    }
-
-    private void shuffle() throws CanceledExecutionException {
-        try {
-            final RandomNumberAppendFactory randomnumfac = RandomNumberAppendFactory.create(m_seed, m_table);
-            ColumnRearranger colre = new ColumnRearranger(m_table.getDataTableSpec());
-            colre.append(randomnumfac);
-            m_intermediate = m_exec.createColumnRearrangeTable(m_table, colre, m_exec.createSubProgress(.2));
-            List<String> include = new ArrayList<>();
-            String randomcol = randomnumfac.getColumnSpecs()[0].getName();
-            include.add(randomcol);
-            BufferedDataTableSorter sorter = new BufferedDataTableSorter(m_intermediate, include, new boolean[]{true});
-            m_sorted = sorter.sort(m_exec.createSubExecutionContext(0.75));
-            colre = new ColumnRearranger(m_sorted.getDataTableSpec());
-            colre.remove(randomcol);
-            m_shuffled = m_exec.createColumnRearrangeTable(m_sorted, colre, m_exec.createSubProgress(.05));
-        } catch (final CanceledExecutionException e) {
-            m_exec.clearTable(m_sorted);
-            throw e;
+        if (m_shuffled != null) {
+            m_exec.clearTable(m_shuffled);
         }
     }
 
-    /*
-     * The CellFactory adds a shuffled number to each input DataRow.
-     */
-    private static final class RandomNumberAppendFactory extends SingleCellFactory {
-
-        /** Shuffled row number array. */
-        private int[] m_shuffle;
-
-        /** Position in array. */
-        private int m_pos = 0;
-
-        /** Constructor. */
-        private RandomNumberAppendFactory(final Long seed, final int rowCount, final DataColumnSpec appendSpec) {
-            super(appendSpec);
-            Random random;
-            if (seed != null) {
-                random = new Random(seed.longValue());
-            } else {
-                random = new Random();
-            }
-            int nrRows = rowCount;
-
-            // initialize
-            m_shuffle = new int[nrRows];
-            for (int i = 0; i < nrRows; i++) {
-                m_shuffle[i] = i;
-            }
-
-            // let's shuffle
-            for (int i = 0; i < m_shuffle.length; i++) {
-                int r = random.nextInt(i + 1);
-                int swap = m_shuffle[r];
-                m_shuffle[r] = m_shuffle[i];
-                m_shuffle[i] = swap;
-            }
-        }
-
-        /** {@inheritDoc} */
-        @Override
-        public DataCell getCell(final DataRow row) {
-            assert (m_pos <= m_shuffle.length);
-            DataCell nextRandomNumberCell = new IntCell(m_shuffle[m_pos]);
-            m_pos++;
-            return nextRandomNumberCell;
-        }
-
-        /** Factory method to create a new random number append factory. */
-        private static RandomNumberAppendFactory create(final Long seed, final BufferedDataTable inData) {
-            final DataTableSpec spec = inData.getDataTableSpec();
-            final long tableSize = inData.size();
-            CheckUtils.checkArgument(tableSize < Integer.MAX_VALUE,
-                "It's currently not possible to shuffle tables with more than Integer.MAX_VALUE rows.");
-            final int rowCount = (int)tableSize;
-            String appendName = "random_row_number";
-            int uniquifier = 1;
-            while (spec.containsName(appendName)) {
-                appendName = "random_row_number_#" + uniquifier++;
-            }
-            DataColumnSpec s = new DataColumnSpecCreator(appendName, IntCell.TYPE).createSpec();
-            return new RandomNumberAppendFactory(seed, rowCount, s);
-        }
-
-    }
 }
@@ -60,6 +60,7 @@
 import org.knime.core.data.StringValue;
 import org.knime.core.data.container.BlobDataCell;
 import org.knime.core.data.util.LockedSupplier;
+import org.knime.core.data.xml.io.XMLTokenStream;
 import org.w3c.dom.Document;
 import org.xml.sax.SAXException;
 
@@ -193,4 +194,15 @@ public LockedSupplier<Document> getDocumentSupplier() {
         return m_content.getDocumentSupplier();
     }
 
+    /**
+     * Returns the document as compact token stream, which allows evaluating limited XPaths without building a DOM.
+     *
+     * @return the token stream
+     * @throws IOException if the document cannot be encoded
+     * @since 4.5
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public XMLTokenStream getTokenStream() throws IOException {
+        return m_content.getTokenStream();
+    }
 }
@@ -62,6 +62,7 @@
 import org.knime.core.data.xml.io.XMLCellReaderFactory;
 import org.knime.core.data.xml.io.XMLCellWriter;
 import org.knime.core.data.xml.io.XMLCellWriterFactory;
+import org.knime.core.data.xml.io.XMLTokenStream;
 import org.knime.core.node.NodeLogger;
 import org.w3c.dom.DOMConfiguration;
 import org.w3c.dom.Document;
@@ -81,6 +82,8 @@ public class XMLCellContent implements XMLValue<Document> {
 
     private SoftReference<Document> m_content;
 
+    private SoftReference<XMLTokenStream> m_tokens = new SoftReference<>(null);
+
     private final ReentrantLock m_lock = new ReentrantLock();
 
     /**
@@ -226,6 +229,36 @@ public Document getDocument() {
         return doc;
     }
 
+    /**
+     * Returns the document as compact token stream, which allows evaluating limited XPaths without a DOM. It is
+     * encoded from the DOM if it is still in memory, otherwise from the string in a single streaming pass, and cached
+     * in a soft reference. Since it is a fraction of the size of the DOM, it usually survives memory pressure which
+     * causes the DOM to be collected.
+     *
+     * @return the token stream
+     * @throws IOException if the document cannot be encoded
+     * @since 4.5
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public XMLTokenStream getTokenStream() throws IOException {
+        XMLTokenStream tokens = m_tokens.get();
+        if (tokens == null) {
+            final Document doc = m_content == null ? null : m_content.get();
+            if (doc != null) {
+                m_lock.lock();
+                try {
+                    tokens = XMLTokenStream.encode(doc);
+                } finally {
+                    m_lock.unlock();
+                }
+            } else {
+                tokens = XMLTokenStream.encode(m_xmlString);
+            }
+            m_tokens = new SoftReference<>(tokens);
+        }
+        return tokens;
+    }
+
     /**
      * Returns the XML Document as a string.
      *
@@ -143,6 +143,35 @@ public static DataCell create(final String xml) throws IOException,
         }
     }
 
+    /**
+     * Factory method to create a {@link DataCell} from a string that is known to be a well-formed XML document, e.g.
+     * as it was written by an XML serializer. Other than {@link #create(String)} the string is neither parsed nor
+     * normalized, the DOM is built when it is first accessed.
+     *
+     * @param xml String representing a well-formed XML document
+     * @return DataCell representing the XML document
+     * @throws NullPointerException if argument is null
+     * @since 4.5
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public static DataCell createWellFormed(final String xml) {
+        if (xml == null) {
+            throw new NullPointerException("XML must not be null");
+        }
+        final XMLCellContent content;
+        try {
+            content = new XMLCellContent(xml, false);
+        } catch (IOException | ParserConfigurationException | SAXException ex) {
+            // not thrown as the string is not parsed
+            throw new IllegalStateException(ex.getMessage(), ex);
+        }
+        if (xml.length() >= MIN_BLOB_SIZE_IN_BYTES) {
+            return new XMLBlobCell(content);
+        } else {
+            return new XMLCell(content);
+        }
+    }
+
     /**
      * Factory method to create {@link DataCell} representing
      * {@link org.w3c.dom.Document}.
@@ -47,13 +47,23 @@
  */
 package org.knime.core.data.xml.io;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.stream.XMLStreamException;
 
+import org.knime.core.data.DataCell;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.xml.XMLBlobCell;
+import org.knime.core.data.xml.XMLCell;
+import org.knime.core.data.xml.XMLCellFactory;
+import org.knime.core.data.xml.XMLValue;
 import org.knime.core.node.KNIMEConstants;
+import org.w3c.dom.Document;
 
 /**
  * Factory class for {@link XMLCellReader}.
@@ -135,4 +145,37 @@ public static XMLCellReader createXPathXMLCellReader2(final InputStream is,
             throws ParserConfigurationException, XMLStreamException {
         return new XMLXpathCellReader(is, xpathMatcher,true);
     }
+
+    /**
+     * Creates a {@link XMLCellReader} to read nodes matching the given limited
+     * XPath from an XML value, e.g. an XML cell. Every node is read in a single
+     * DataCell whereas namespaces are retained. The nodes are selected on the
+     * compact token stream of the cell without building a DOM and are read in
+     * document order. If the document contains xml:base, xml:space or xml:lang
+     * definitions it is parsed as by
+     * {@link #createXPathXMLCellReader2(InputStream, LimitedXPathMatcher)}
+     * instead, which retains them.
+     *
+     * @param xml the xml document
+     * @param xpathMatcher Only nodes that match are read
+     * @return {@link XMLCellReader} to read nodes matching the given limited
+     * XPath. Every node is read in a single DataCell.
+     * @throws IOException if the document cannot be encoded
+     * @throws ParserConfigurationException when the factory object for
+     * DOMs could not be created.
+     * @throws XMLStreamException when parser could not be configured
+     * @since 4.5
+     */
+    public static XMLCellReader createXPathXMLCellReader(final XMLValue<Document> xml,
+            final LimitedXPathMatcher xpathMatcher)
+            throws IOException, ParserConfigurationException, XMLStreamException {
+        final DataCell cell = XMLCellFactory.create(xml);
+        final XMLTokenStream tokens = cell instanceof XMLBlobCell ? ((XMLBlobCell)cell).getTokenStream()
+            : ((XMLCell)cell).getTokenStream();
+        if (!tokens.hasXMLAttributes()) {
+            return new XMLXpathCellReader(tokens, xpathMatcher);
+        }
+        return createXPathXMLCellReader2(new ByteArrayInputStream(
+            ((StringValue)cell).getStringValue().getBytes(StandardCharsets.UTF_8)), xpathMatcher);
+    }
 }
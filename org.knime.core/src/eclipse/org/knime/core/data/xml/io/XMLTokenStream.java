@@ -0,0 +1,720 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.data.xml.io;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.NamespaceContext;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.knime.core.node.InvalidSettingsException;
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.ProcessingInstruction;
+
+/**
+ * Compact, immutable binary encoding of an XML document. Element and attribute names as well as namespace prefixes
+ * and URIs are interned into tables, the document itself is a stream of tokens (start element, end element,
+ * characters, comment and processing instruction) with variable length integers referencing the tables. The encoding
+ * is considerably smaller than a DOM and can be traversed with a {@link Cursor} or evaluated against the limited XPath
+ * syntax of {@link LimitedXPathMatcher} without building a DOM.
+ * <p>
+ * DTDs and entity references are not retained (entities are replaced by their content), CDATA sections are stored as
+ * characters.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ * @noreference This class is not intended to be referenced by clients.
+ */
+public final class XMLTokenStream {
+
+    private final byte[] m_tokens;
+
+    private final QName[] m_names;
+
+    private final String[] m_strings;
+
+    /** whether any element has an xml:base, xml:space or xml:lang attribute. */
+    private final boolean m_hasXMLAttributes;
+
+    private XMLTokenStream(final byte[] tokens, final QName[] names, final String[] strings,
+        final boolean hasXMLAttributes) {
+        m_tokens = tokens;
+        m_names = names;
+        m_strings = strings;
+        m_hasXMLAttributes = hasXMLAttributes;
+    }
+
+    /**
+     * Encodes the given XML document. External entities are not resolved.
+     *
+     * @param xml the XML document
+     * @return the encoded document
+     * @throws IOException if the string is not a well-formed XML document
+     */
+    public static XMLTokenStream encode(final String xml) throws IOException {
+        final XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+        factory.setProperty(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        final Encoder encoder = new Encoder();
+        try {
+            final XMLStreamReader parser = factory.createXMLStreamReader(new StringReader(xml));
+            try {
+                while (parser.hasNext()) {
+                    switch (parser.next()) {
+                        case XMLStreamConstants.START_ELEMENT:
+                            encoder.startElement(parser.getName(), parser.getNamespaceCount());
+                            for (int i = 0; i < parser.getNamespaceCount(); i++) {
+                                encoder.namespace(parser.getNamespacePrefix(i), parser.getNamespaceURI(i));
+                            }
+                            encoder.attributeCount(parser.getAttributeCount());
+                            for (int i = 0; i < parser.getAttributeCount(); i++) {
+                                encoder.attribute(parser.getAttributeName(i), parser.getAttributeValue(i));
+                            }
+                            break;
+                        case XMLStreamConstants.END_ELEMENT:
+                            encoder.token(XMLStreamConstants.END_ELEMENT);
+                            break;
+                        case XMLStreamConstants.CHARACTERS:
+                        case XMLStreamConstants.CDATA:
+                        case XMLStreamConstants.SPACE:
+                            encoder.characters(parser.getText());
+                            break;
+                        case XMLStreamConstants.COMMENT:
+                            encoder.text(XMLStreamConstants.COMMENT, parser.getText());
+                            break;
+                        case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                            encoder.processingInstruction(parser.getPITarget(), parser.getPIData());
+                            break;
+                        default:
+                            // DTD, entity declarations, start and end document are not retained
+                            break;
+                    }
+                }
+            } finally {
+                parser.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException("Could not encode XML: " + e.getMessage(), e);
+        }
+        return encoder.finish();
+    }
+
+    /**
+     * Encodes the given DOM.
+     *
+     * @param doc the document
+     * @return the encoded document
+     */
+    public static XMLTokenStream encode(final Document doc) {
+        final Encoder encoder = new Encoder();
+        encodeChildren(doc, encoder);
+        return encoder.finish();
+    }
+
+    private static void encodeChildren(final Node parent, final Encoder encoder) {
+        for (Node child = parent.getFirstChild(); child != null; child = child.getNextSibling()) {
+            switch (child.getNodeType()) {
+                case Node.ELEMENT_NODE:
+                    final NamedNodeMap attributes = child.getAttributes();
+                    final List<Attr> namespaces = new ArrayList<>();
+                    final List<Attr> attrs = new ArrayList<>();
+                    for (int i = 0; i < attributes.getLength(); i++) {
+                        final Attr attr = (Attr)attributes.item(i);
+                        if (XMLConstants.XMLNS_ATTRIBUTE_NS_URI.equals(attr.getNamespaceURI())) {
+                            namespaces.add(attr);
+                        } else {
+                            attrs.add(attr);
+                        }
+                    }
+                    encoder.startElement(qName(child), namespaces.size());
+                    for (final Attr ns : namespaces) {
+                        encoder.namespace(XMLConstants.XMLNS_ATTRIBUTE.equals(ns.getName()) ? null : ns.getLocalName(),
+                            ns.getValue());
+                    }
+                    encoder.attributeCount(attrs.size());
+                    for (final Attr attr : attrs) {
+                        encoder.attribute(qName(attr), attr.getValue());
+                    }
+                    encodeChildren(child, encoder);
+                    encoder.token(XMLStreamConstants.END_ELEMENT);
+                    break;
+                case Node.TEXT_NODE:
+                case Node.CDATA_SECTION_NODE:
+                    encoder.characters(child.getNodeValue());
+                    break;
+                case Node.COMMENT_NODE:
+                    encoder.text(XMLStreamConstants.COMMENT, child.getNodeValue());
+                    break;
+                case Node.PROCESSING_INSTRUCTION_NODE:
+                    final ProcessingInstruction pi = (ProcessingInstruction)child;
+                    encoder.processingInstruction(pi.getTarget(), pi.getData());
+                    break;
+                case Node.ENTITY_REFERENCE_NODE:
+                    encodeChildren(child, encoder);
+                    break;
+                default:
+                    // document type
+                    break;
+            }
+        }
+    }
+
+    private static QName qName(final Node node) {
+        final String localName = node.getLocalName() != null ? node.getLocalName() : node.getNodeName();
+        return new QName(node.getNamespaceURI() != null ? node.getNamespaceURI() : XMLConstants.NULL_NS_URI, localName,
+            node.getPrefix() != null ? node.getPrefix() : XMLConstants.DEFAULT_NS_PREFIX);
+    }
+
+    /**
+     * @return the approximate number of bytes occupied by this encoding
+     */
+    public long getSizeInBytes() {
+        long size = m_tokens.length + 16L * (m_names.length + m_strings.length);
+        for (final String s : m_strings) {
+            size += s.length();
+        }
+        return size;
+    }
+
+    /**
+     * @return a new cursor positioned before the first token
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Evaluates a limited XPath on this document without building a DOM, see {@link LimitedXPathMatcher} for the
+     * supported syntax.
+     *
+     * @param xpath the limited XPath, i.e. absolute paths to elements, optionally combined with the |-operator
+     * @param nsContext the namespace context for the prefixes used in the XPath
+     * @return the matching elements, each serialized as a standalone XML fragment including all namespace declarations
+     *         in scope, in document order (i.e. by the position of their start tags)
+     * @throws InvalidSettingsException if the XPath uses prefixes not defined in the namespace context
+     */
+    public List<String> select(final String xpath, final NamespaceContext nsContext) throws InvalidSettingsException {
+        return select(new LimitedXPathMatcher(xpath, nsContext), false);
+    }
+
+    /**
+     * Evaluates a limited XPath like {@link #select(String, NamespaceContext)}.
+     *
+     * @param matcher a new matcher for the XPath
+     * @param skipWhitespace whether to omit text consisting of whitespace only from the matches
+     * @return the matching elements in document order
+     */
+    List<String> select(final LimitedXPathMatcher matcher, final boolean skipWhitespace) {
+        final List<String> result = new ArrayList<>();
+        evaluate(matcher, result, skipWhitespace);
+        return result;
+    }
+
+    /**
+     * @return whether any element of the document has an <code>xml:base</code>, <code>xml:space</code> or
+     *         <code>xml:lang</code> attribute, which are inherited by the descendants but not by the matches of
+     *         {@link #select(String, NamespaceContext)}
+     */
+    boolean hasXMLAttributes() {
+        return m_hasXMLAttributes;
+    }
+
+    /**
+     * Counts the elements matching a limited XPath without building a DOM or serializing the matches, see
+     * {@link LimitedXPathMatcher} for the supported syntax.
+     *
+     * @param xpath the limited XPath, i.e. absolute paths to elements, optionally combined with the |-operator
+     * @param nsContext the namespace context for the prefixes used in the XPath
+     * @return the number of matching elements
+     * @throws InvalidSettingsException if the XPath uses prefixes not defined in the namespace context
+     */
+    public int count(final String xpath, final NamespaceContext nsContext) throws InvalidSettingsException {
+        return evaluate(new LimitedXPathMatcher(xpath, nsContext), null, false);
+    }
+
+    /* Streams the tokens through the (fresh) matcher. Matches are serialized into result unless it is null. */
+    private int evaluate(final LimitedXPathMatcher matcher, final List<String> result, final boolean skipWhitespace) {
+        final boolean rootMatches = matcher.rootMatches();
+        if (!matcher.nodeMatches() && !rootMatches) {
+            return 0;
+        }
+        int count = 0;
+        int depth = 0;
+        // open captures: the writer of a match and the depth of its element
+        final List<Capture> captures = new ArrayList<>();
+        // namespace declarations per open element, needed for the declarations in scope of a match
+        final Deque<String[]> namespaceStack = new ArrayDeque<>();
+        final Cursor cursor = cursor();
+        try {
+            for (int event = cursor.next(); event != XMLStreamConstants.END_DOCUMENT; event = cursor.next()) {
+                switch (event) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        namespaceStack.push(cursor.namespaceArray());
+                        for (final Capture c : captures) {
+                            c.startElement(cursor, false, null);
+                        }
+                        final boolean match = matcher.startElement(cursor.getName()) || (rootMatches && depth == 0);
+                        if (match) {
+                            count++;
+                            if (result != null) {
+                                // matches end in reverse order if nested (e.g. "/a|/a/b"), hence reserve the position
+                                final Capture c = new Capture(depth, result.size());
+                                result.add(null);
+                                c.startElement(cursor, true, namespaceStack);
+                                captures.add(c);
+                            }
+                        }
+                        depth++;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        matcher.endElement();
+                        namespaceStack.pop();
+                        depth--;
+                        for (int i = captures.size() - 1; i >= 0; i--) {
+                            final Capture c = captures.get(i);
+                            c.m_writer.writeEndElement();
+                            if (c.m_depth == depth) {
+                                result.set(c.m_index, c.finish());
+                                captures.remove(i);
+                            }
+                        }
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                        if (skipWhitespace && cursor.getText().trim().isEmpty()) {
+                            break;
+                        }
+                        for (final Capture c : captures) {
+                            c.m_writer.writeCharacters(cursor.getText());
+                        }
+                        break;
+                    case XMLStreamConstants.COMMENT:
+                        for (final Capture c : captures) {
+                            c.m_writer.writeComment(cursor.getText());
+                        }
+                        break;
+                    case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                        for (final Capture c : captures) {
+                            c.m_writer.writeProcessingInstruction(cursor.getPITarget(), cursor.getText());
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+        } catch (XMLStreamException e) {
+            // writing to a string writer does not fail
+            throw new IllegalStateException("Could not serialize XML fragment: " + e.getMessage(), e);
+        }
+        return count;
+    }
+
+    /** Serialization of a single matching element. */
+    private static final class Capture {
+
+        private final int m_depth;
+
+        /** position of the match in the result. */
+        private final int m_index;
+
+        private final StringWriter m_out = new StringWriter();
+
+        private final XMLStreamWriter m_writer;
+
+        Capture(final int depth, final int index) throws XMLStreamException {
+            m_depth = depth;
+            m_index = index;
+            m_writer = XMLOutputFactory.newInstance().createXMLStreamWriter(m_out);
+        }
+
+        void startElement(final Cursor cursor, final boolean isMatch, final Deque<String[]> namespaceStack)
+            throws XMLStreamException {
+            final QName name = cursor.getName();
+            m_writer.writeStartElement(name.getPrefix(), name.getLocalPart(), name.getNamespaceURI());
+            if (isMatch) {
+                // all declarations in scope, inner declarations override outer ones
+                final Map<String, String> inScope = new LinkedHashMap<>();
+                for (final String[] declarations : namespaceStack) {
+                    for (int i = 0; i < declarations.length; i += 2) {
+                        inScope.putIfAbsent(declarations[i], declarations[i + 1]);
+                    }
+                }
+                for (final Map.Entry<String, String> e : inScope.entrySet()) {
+                    writeNamespace(e.getKey(), e.getValue());
+                }
+            } else {
+                for (int i = 0; i < cursor.getNamespaceCount(); i++) {
+                    writeNamespace(cursor.getNamespacePrefix(i), cursor.getNamespaceURI(i));
+                }
+            }
+            for (int i = 0; i < cursor.getAttributeCount(); i++) {
+                final QName attrName = cursor.getAttributeName(i);
+                if (attrName.getPrefix().isEmpty()) {
+                    m_writer.writeAttribute(attrName.getLocalPart(), cursor.getAttributeValue(i));
+                } else {
+                    m_writer.writeAttribute(attrName.getPrefix(), attrName.getNamespaceURI(),
+                        attrName.getLocalPart(), cursor.getAttributeValue(i));
+                }
+            }
+        }
+
+        private void writeNamespace(final String prefix, final String uri) throws XMLStreamException {
+            if (prefix.isEmpty()) {
+                m_writer.writeDefaultNamespace(uri);
+            } else {
+                m_writer.writeNamespace(prefix, uri);
+            }
+        }
+
+        String finish() throws XMLStreamException {
+            m_writer.close();
+            return m_out.toString();
+        }
+    }
+
+    /**
+     * Forward-only cursor over the tokens, similar to a {@link XMLStreamReader}. Not thread-safe, but any number of
+     * cursors can be used concurrently on the same token stream.
+     */
+    public final class Cursor {
+
+        private int m_pos;
+
+        private int m_event = XMLStreamConstants.START_DOCUMENT;
+
+        private QName m_name;
+
+        private String m_text;
+
+        private String m_piTarget;
+
+        private int[] m_namespaces = new int[0];
+
+        private int m_namespaceCount;
+
+        private int[] m_attrNames = new int[0];
+
+        private String[] m_attrValues = new String[0];
+
+        private int m_attrCount;
+
+        private Cursor() {
+        }
+
+        /**
+         * Advances to the next token.
+         *
+         * @return the type of the token as defined in {@link XMLStreamConstants}, i.e. one of
+         *         {@link XMLStreamConstants#START_ELEMENT START_ELEMENT}, {@link XMLStreamConstants#END_ELEMENT
+         *         END_ELEMENT}, {@link XMLStreamConstants#CHARACTERS CHARACTERS}, {@link XMLStreamConstants#COMMENT
+         *         COMMENT}, {@link XMLStreamConstants#PROCESSING_INSTRUCTION PROCESSING_INSTRUCTION} or
+         *         {@link XMLStreamConstants#END_DOCUMENT END_DOCUMENT} if there are no more tokens
+         */
+        public int next() {
+            if (m_pos >= m_tokens.length) {
+                m_event = XMLStreamConstants.END_DOCUMENT;
+                return m_event;
+            }
+            m_event = m_tokens[m_pos++];
+            switch (m_event) {
+                case XMLStreamConstants.START_ELEMENT:
+                    m_name = m_names[readInt()];
+                    m_namespaceCount = readInt();
+                    if (m_namespaces.length < 2 * m_namespaceCount) {
+                        m_namespaces = new int[2 * m_namespaceCount];
+                    }
+                    for (int i = 0; i < 2 * m_namespaceCount; i++) {
+                        m_namespaces[i] = readInt();
+                    }
+                    m_attrCount = readInt();
+                    if (m_attrNames.length < m_attrCount) {
+                        m_attrNames = new int[m_attrCount];
+                        m_attrValues = new String[m_attrCount];
+                    }
+                    for (int i = 0; i < m_attrCount; i++) {
+                        m_attrNames[i] = readInt();
+                        m_attrValues[i] = readString();
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.COMMENT:
+                    m_text = readString();
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    m_piTarget = readString();
+                    m_text = readString();
+                    break;
+                default:
+                    break;
+            }
+            return m_event;
+        }
+
+        /** @return the name of the current start element */
+        public QName getName() {
+            return m_name;
+        }
+
+        /** @return the text of the current characters or comment token, or the data of a processing instruction */
+        public String getText() {
+            return m_text;
+        }
+
+        /** @return the target of the current processing instruction */
+        public String getPITarget() {
+            return m_piTarget;
+        }
+
+        /** @return the number of namespace declarations of the current start element */
+        public int getNamespaceCount() {
+            return m_namespaceCount;
+        }
+
+        /**
+         * @param index the index of the declaration
+         * @return the prefix of the namespace declaration, empty for the default namespace
+         */
+        public String getNamespacePrefix(final int index) {
+            return m_strings[m_namespaces[2 * index]];
+        }
+
+        /**
+         * @param index the index of the declaration
+         * @return the URI of the namespace declaration
+         */
+        public String getNamespaceURI(final int index) {
+            return m_strings[m_namespaces[2 * index + 1]];
+        }
+
+        /** @return the number of attributes of the current start element */
+        public int getAttributeCount() {
+            return m_attrCount;
+        }
+
+        /**
+         * @param index the index of the attribute
+         * @return the name of the attribute
+         */
+        public QName getAttributeName(final int index) {
+            return m_names[m_attrNames[index]];
+        }
+
+        /**
+         * @param index the index of the attribute
+         * @return the value of the attribute
+         */
+        public String getAttributeValue(final int index) {
+            return m_attrValues[index];
+        }
+
+        /* prefix, URI pairs of the namespace declarations of the current element */
+        String[] namespaceArray() {
+            final String[] result = new String[2 * m_namespaceCount];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = m_strings[m_namespaces[i]];
+            }
+            return result;
+        }
+
+        private int readInt() {
+            int result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = m_tokens[m_pos++];
+                result |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return result;
+        }
+
+        private String readString() {
+            final int length = readInt();
+            final String s = new String(m_tokens, m_pos, length, StandardCharsets.UTF_8);
+            m_pos += length;
+            return s;
+        }
+    }
+
+    /** Builds the token stream, interning names and namespace strings. */
+    private static final class Encoder {
+
+        private byte[] m_buffer = new byte[256];
+
+        private int m_size;
+
+        private final Map<String, Integer> m_nameIndex = new HashMap<>();
+
+        private final List<QName> m_names = new ArrayList<>();
+
+        private final Map<String, Integer> m_stringIndex = new HashMap<>();
+
+        private final List<String> m_strings = new ArrayList<>();
+
+        /* Adjacent character tokens (e.g. text split by an entity reference in a DOM) are merged. */
+        private final StringBuilder m_pendingText = new StringBuilder();
+
+        private boolean m_hasXMLAttributes;
+
+        /* Followed by namespaceCount calls of namespace(), then attributeCount() and the attribute() calls. */
+        void startElement(final QName name, final int namespaceCount) {
+            token(XMLStreamConstants.START_ELEMENT);
+            writeInt(name(name));
+            writeInt(namespaceCount);
+        }
+
+        void namespace(final String prefix, final String uri) {
+            writeInt(string(prefix == null ? XMLConstants.DEFAULT_NS_PREFIX : prefix));
+            writeInt(string(uri == null ? XMLConstants.NULL_NS_URI : uri));
+        }
+
+        void attributeCount(final int attributeCount) {
+            writeInt(attributeCount);
+        }
+
+        void attribute(final QName name, final String value) {
+            m_hasXMLAttributes |= XMLConstants.XML_NS_URI.equals(name.getNamespaceURI());
+            writeInt(name(name));
+            writeString(value);
+        }
+
+        void characters(final String text) {
+            m_pendingText.append(text);
+        }
+
+        void text(final int type, final String text) {
+            token(type);
+            writeString(text);
+        }
+
+        void processingInstruction(final String target, final String data) {
+            token(XMLStreamConstants.PROCESSING_INSTRUCTION);
+            writeString(target);
+            writeString(data == null ? "" : data);
+        }
+
+        void token(final int type) {
+            flushText();
+            write(type);
+        }
+
+        XMLTokenStream finish() {
+            flushText();
+            return new XMLTokenStream(Arrays.copyOf(m_buffer, m_size), m_names.toArray(new QName[0]),
+                m_strings.toArray(new String[0]), m_hasXMLAttributes);
+        }
+
+        private void flushText() {
+            if (m_pendingText.length() > 0) {
+                write(XMLStreamConstants.CHARACTERS);
+                writeString(m_pendingText.toString());
+                m_pendingText.setLength(0);
+            }
+        }
+
+        private int name(final QName name) {
+            final String key = name.getPrefix() + '\u0000' + name.getNamespaceURI() + '\u0000' + name.getLocalPart();
+            return m_nameIndex.computeIfAbsent(key, k -> {
+                m_names.add(name);
+                return m_names.size() - 1;
+            });
+        }
+
+        private int string(final String s) {
+            return m_stringIndex.computeIfAbsent(s, k -> {
+                m_strings.add(s);
+                return m_strings.size() - 1;
+            });
+        }
+
+        private void write(final int b) {
+            if (m_size == m_buffer.length) {
+                m_buffer = Arrays.copyOf(m_buffer, 2 * m_buffer.length);
+            }
+            m_buffer[m_size++] = (byte)b;
+        }
+
+        private void writeInt(final int value) {
+            int v = value;
+            while ((v & ~0x7F) != 0) {
+                write((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            write(v);
+        }
+
+        private void writeString(final String s) {
+            final byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            if (m_size + bytes.length > m_buffer.length) {
+                m_buffer = Arrays.copyOf(m_buffer, Math.max(2 * m_buffer.length, m_size + bytes.length));
+            }
+            System.arraycopy(bytes, 0, m_buffer, m_size, bytes.length);
+            m_size += bytes.length;
+        }
+    }
+}
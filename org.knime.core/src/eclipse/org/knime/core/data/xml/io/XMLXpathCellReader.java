@@ -53,6 +53,7 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -96,6 +97,8 @@ public class XMLXpathCellReader implements XMLCellReader {
 	private final List<String> m_space;
 	private final List<String> m_lang;
 	private final Deque<List<Pair<String, String>>> m_namespaceStack = new ArrayDeque<>();
+	/** the matches if reading from a token stream, null if parsing the input stream. */
+	private final Iterator<String> m_matches;
 
 	/**
 	 * Create a new instance.
@@ -144,9 +147,31 @@ public XMLXpathCellReader(final InputStream is,
         m_base = new LinkedList<>();
         m_space = new LinkedList<>();
         m_lang = new LinkedList<>();
+        m_matches = null;
         initStreamParser(disableExternalEntities);
     }
 
+    /**
+     * Create a new instance that selects the matching nodes on the token stream of a document without building a
+     * DOM, see {@link XMLCellReaderFactory#createXPathXMLCellReader(XMLValue, LimitedXPathMatcher)}.
+     *
+     * @param tokens the document, must not contain xml:base, xml:space or xml:lang attributes as they are not
+     *            retained by the selected nodes
+     * @param xpathMatcher nodes of the input that match will be read, only
+     */
+    XMLXpathCellReader(final XMLTokenStream tokens, final LimitedXPathMatcher xpathMatcher) {
+        m_in = null;
+        m_builder = null;
+        m_xpathMatcher = xpathMatcher;
+        m_docs = Collections.emptyList();
+        m_currNodes = Collections.emptyList();
+        m_base = Collections.emptyList();
+        m_space = Collections.emptyList();
+        m_lang = Collections.emptyList();
+        // whitespace is only retained with xml:space="preserve" (see below)
+        m_matches = tokens.select(xpathMatcher, true).iterator();
+    }
+
     /** Initialize the stream parser object. */
     private void initStreamParser(final boolean disableExternalEntities) throws XMLStreamException {
         XMLInputFactory factory = XMLInputFactory.newInstance();
@@ -186,8 +211,12 @@ private void popNamespaceContext() {
 	/**
 	 * {@inheritDoc}
 	 */
+	@SuppressWarnings("unchecked")
 	@Override
 	public XMLValue<Document> readXML() throws IOException {
+		if (m_matches != null) {
+		    return m_matches.hasNext() ? (XMLValue<Document>)XMLCellFactory.createWellFormed(m_matches.next()) : null;
+		}
 		if (!m_xpathMatcher.nodeMatches()) {
 			return null;
 		}
@@ -411,6 +440,9 @@ private XMLValue<Document> createDataCell(final Document doc) {
 	 */
 	@Override
 	public void close() throws IOException {
+		if (m_matches != null) {
+		    return;
+		}
 		try {
 			m_parser.close();
 		} catch (XMLStreamException e) {
@@ -0,0 +1,283 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.helpers.LogLog;
+
+/**
+ * Passes log messages from the logging threads to the log appenders via a single background thread, used by
+ * {@link NodeLogger} if {@link KNIMEConstants#PROPERTY_ASYNC_LOGGING} is set.
+ *
+ * <p>
+ * Messages are queued in a bounded, lock-free ring buffer (multiple producers, one consumer). The logging thread only
+ * renders the message to a string and captures its thread name and time stamp; formatting the log line, routing it to
+ * the workflow log files and all I/O happens in the background thread. If the buffer is full, the logging thread
+ * either waits or the message is dropped, depending on {@link OverflowPolicy}.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class AsyncLogDispatcher {
+
+    /** What to do if the buffer is full. */
+    enum OverflowPolicy {
+            /** The logging thread waits until there is space in the buffer. */
+            BLOCK,
+            /** The message is discarded (and counted). */
+            DROP;
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final long MAX_CONSUMER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private static final long PRODUCER_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /** Slots of the ring buffer. */
+    private final AtomicReferenceArray<Event> m_slots;
+
+    /** Per slot sequence: slot is free for position p if sequence == p, filled for position p if sequence == p + 1. */
+    private final AtomicLongArray m_sequences;
+
+    private final int m_mask;
+
+    /** Next position to be claimed by a producer. */
+    private final AtomicLong m_tail = new AtomicLong();
+
+    /** Next position to be consumed, only written by the consumer thread. */
+    private volatile long m_head;
+
+    private final AtomicLong m_droppedCount = new AtomicLong();
+
+    private final OverflowPolicy m_policy;
+
+    private final Thread m_consumer;
+
+    private volatile boolean m_isConsumerWaiting;
+
+    /**
+     * @param bufferSize number of messages in the buffer, rounded up to a power of two
+     * @param policy what to do if the buffer is full
+     */
+    AsyncLogDispatcher(final int bufferSize, final OverflowPolicy policy) {
+        int size = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+        m_slots = new AtomicReferenceArray<>(size);
+        m_sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            m_sequences.set(i, i);
+        }
+        m_mask = size - 1;
+        m_policy = policy;
+        m_consumer = new Thread(this::consume, "KNIME-Logger");
+        m_consumer.setDaemon(true);
+        m_consumer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> flush(TimeUnit.SECONDS.toMillis(5)), "KNIME-Logger-Flush"));
+    }
+
+    /**
+     * Creates the dispatcher as configured via {@link KNIMEConstants#PROPERTY_ASYNC_LOGGING_BUFFER_SIZE} and
+     * {@link KNIMEConstants#PROPERTY_ASYNC_LOGGING_OVERFLOW}.
+     *
+     * @return a new dispatcher
+     */
+    static AsyncLogDispatcher createFromSystemProperties() {
+        int bufferSize = Integer.getInteger(KNIMEConstants.PROPERTY_ASYNC_LOGGING_BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+        String policyString = System.getProperty(KNIMEConstants.PROPERTY_ASYNC_LOGGING_OVERFLOW,
+            OverflowPolicy.BLOCK.name());
+        OverflowPolicy policy;
+        try {
+            policy = OverflowPolicy.valueOf(policyString.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            LogLog.warn("Invalid value for " + KNIMEConstants.PROPERTY_ASYNC_LOGGING_OVERFLOW + ": \""
+                + policyString + "\", using \"block\"");
+            policy = OverflowPolicy.BLOCK;
+        }
+        return new AsyncLogDispatcher(bufferSize, policy);
+    }
+
+    /**
+     * Queues a message. The caller is expected to have checked that the level is enabled.
+     *
+     * @param logger the logger the message was logged to
+     * @param level the level
+     * @param message the message, already rendered to a string (possibly wrapped into a
+     *            {@link NodeLogger.KNIMELogMessage}) as message objects may be modified before they are passed on
+     * @param t the throwable, may be null
+     */
+    void dispatch(final NodeLogger logger, final Level level, final Object message, final Throwable t) {
+        final Event event =
+            new Event(logger, level, message, t, Thread.currentThread().getName(), System.currentTimeMillis());
+        while (!offer(event)) {
+            if (m_policy == OverflowPolicy.DROP || Thread.currentThread() == m_consumer) {
+                // the logger thread must never wait for itself (e.g. an appender logging via NodeLogger)
+                m_droppedCount.incrementAndGet();
+                return;
+            }
+            LockSupport.unpark(m_consumer);
+            LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+        }
+        if (m_isConsumerWaiting) {
+            LockSupport.unpark(m_consumer);
+        }
+    }
+
+    /**
+     * Waits until all messages queued before this method was called are passed to the appenders.
+     *
+     * @param timeoutMillis the maximum time to wait
+     * @return whether all messages were passed on in time
+     */
+    boolean flush(final long timeoutMillis) {
+        final long target = m_tail.get();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (m_head < target) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            LockSupport.unpark(m_consumer);
+            LockSupport.parkNanos(this, PRODUCER_PARK_NANOS);
+        }
+        return true;
+    }
+
+    private boolean offer(final Event event) {
+        long pos = m_tail.get();
+        while (true) {
+            final int index = (int)pos & m_mask;
+            final long diff = m_sequences.get(index) - pos;
+            if (diff == 0) {
+                if (m_tail.compareAndSet(pos, pos + 1)) {
+                    m_slots.set(index, event);
+                    m_sequences.set(index, pos + 1);
+                    return true;
+                }
+                pos = m_tail.get();
+            } else if (diff < 0) {
+                // slot not consumed yet, buffer is full
+                return false;
+            } else {
+                // claimed by another producer in the meantime
+                pos = m_tail.get();
+            }
+        }
+    }
+
+    private Event poll() {
+        final long head = m_head;
+        final int index = (int)head & m_mask;
+        if (m_sequences.get(index) != head + 1) {
+            return null;
+        }
+        final Event event = m_slots.get(index);
+        m_slots.set(index, null);
+        m_sequences.set(index, head + m_mask + 1);
+        m_head = head + 1;
+        return event;
+    }
+
+    private void consume() {
+        while (true) {
+            final Event event = poll();
+            if (event == null) {
+                reportDroppedMessages();
+                m_isConsumerWaiting = true;
+                if (m_sequences.get((int)m_head & m_mask) != m_head + 1) {
+                    LockSupport.parkNanos(this, MAX_CONSUMER_PARK_NANOS);
+                }
+                m_isConsumerWaiting = false;
+                continue;
+            }
+            try {
+                event.m_logger.callAppenders(event.m_level, event.m_message, event.m_throwable, event.m_threadName,
+                    event.m_timeStamp);
+            } catch (RuntimeException e) { // NOSONAR don't let the logger thread die
+                LogLog.error("Unable to log message \"" + event.m_message + "\"", e);
+            }
+        }
+    }
+
+    private void reportDroppedMessages() {
+        final long dropped = m_droppedCount.getAndSet(0);
+        if (dropped > 0) {
+            NodeLogger.getLogger(AsyncLogDispatcher.class).callAppenders(Level.WARN,
+                dropped + " log message(s) dropped as the logging buffer was full", null,
+                Thread.currentThread().getName(), System.currentTimeMillis());
+        }
+    }
+
+    /** A queued message. */
+    private static final class Event {
+
+        private final NodeLogger m_logger;
+
+        private final Level m_level;
+
+        private final Object m_message;
+
+        private final Throwable m_throwable;
+
+        private final String m_threadName;
+
+        private final long m_timeStamp;
+
+        Event(final NodeLogger logger, final Level level, final Object message, final Throwable throwable,
+            final String threadName, final long timeStamp) {
+            m_logger = logger;
+            m_level = level;
+            m_message = message;
+            m_throwable = throwable;
+            m_threadName = threadName;
+            m_timeStamp = timeStamp;
+        }
+    }
+}
@@ -85,6 +85,7 @@
 import org.knime.core.data.container.DefaultTableStoreFormat;
 import org.knime.core.data.container.JoinedTable;
 import org.knime.core.data.container.RearrangeColumnsTable;
+import org.knime.core.data.container.RowKeySummary;
 import org.knime.core.data.container.TableSpecReplacerTable;
 import org.knime.core.data.container.VoidTable;
 import org.knime.core.data.container.WrappedTable;
@@ -307,6 +308,21 @@ private BufferedDataTable(final KnowsRowCountTable table, final int id,
         return m_delegate;
     }
 
+    /**
+     * Summary of the row keys collected when the table was written, used to skip duplicate checks when concatenating
+     * tables with provably disjoint keys.
+     *
+     * @return the summary or <code>null</code> if not available for this table
+     * @noreference This method is not intended to be referenced by clients.
+     * @since 4.5
+     */
+    public RowKeySummary getRowKeySummary() {
+        if (m_delegate instanceof BufferedContainerTable) {
+            return ((BufferedContainerTable)m_delegate).getRowKeySummary();
+        }
+        return null;
+    }
+
     /** Called after execution of node has finished to put the tables that
      * are returned from the execute method into a global table repository.
      * @param dataRepository The repository from the workflow
@@ -0,0 +1,180 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import java.util.Arrays;
+import java.util.OptionalLong;
+
+/**
+ * Cost of a node's execution as estimated by the node itself, see {@link CostHintProvider}. All values are optional,
+ * the estimator uses its defaults for values that are not set.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ */
+public final class CostHint {
+
+    private static final long UNKNOWN = -1;
+
+    private final long[] m_outputRowCounts;
+
+    private final long m_memoryBytes;
+
+    private final long m_temporaryDiskBytes;
+
+    private final long m_runtimeNanos;
+
+    private CostHint(final Builder builder) {
+        m_outputRowCounts = builder.m_outputRowCounts.clone();
+        m_memoryBytes = builder.m_memoryBytes;
+        m_temporaryDiskBytes = builder.m_temporaryDiskBytes;
+        m_runtimeNanos = builder.m_runtimeNanos;
+    }
+
+    /**
+     * @param port the output port (of the node model)
+     * @return the estimated number of rows of the output table
+     */
+    public OptionalLong getOutputRowCount(final int port) {
+        return toOptional(port < m_outputRowCounts.length ? m_outputRowCounts[port] : UNKNOWN);
+    }
+
+    /** @return the estimated memory needed by the node in addition to its input and output tables, e.g. for hash
+     *         tables or models */
+    public OptionalLong getMemoryBytes() {
+        return toOptional(m_memoryBytes);
+    }
+
+    /** @return the estimated number of bytes of temporary data written to disk, e.g. by an external sort */
+    public OptionalLong getTemporaryDiskBytes() {
+        return toOptional(m_temporaryDiskBytes);
+    }
+
+    /** @return the estimated runtime in nanoseconds */
+    public OptionalLong getRuntimeNanos() {
+        return toOptional(m_runtimeNanos);
+    }
+
+    private static OptionalLong toOptional(final long value) {
+        return value < 0 ? OptionalLong.empty() : OptionalLong.of(value);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "CostHint[rows " + Arrays.toString(m_outputRowCounts) + ", memory " + m_memoryBytes
+            + "B, temporary disk " + m_temporaryDiskBytes + "B, runtime " + m_runtimeNanos + "ns]";
+    }
+
+    /**
+     * Builder for {@link CostHint} objects.
+     */
+    public static final class Builder {
+
+        private long[] m_outputRowCounts = new long[0];
+
+        private long m_memoryBytes = UNKNOWN;
+
+        private long m_temporaryDiskBytes = UNKNOWN;
+
+        private long m_runtimeNanos = UNKNOWN;
+
+        /**
+         * @param port the output port (of the node model)
+         * @param rowCount the estimated number of rows of the output table
+         * @return this
+         */
+        public Builder withOutputRowCount(final int port, final long rowCount) {
+            if (port >= m_outputRowCounts.length) {
+                final int oldLength = m_outputRowCounts.length;
+                m_outputRowCounts = Arrays.copyOf(m_outputRowCounts, port + 1);
+                Arrays.fill(m_outputRowCounts, oldLength, port, UNKNOWN);
+            }
+            m_outputRowCounts[port] = checkNotNegative(rowCount);
+            return this;
+        }
+
+        /**
+         * @param bytes the estimated memory needed in addition to the input and output tables
+         * @return this
+         */
+        public Builder withMemoryBytes(final long bytes) {
+            m_memoryBytes = checkNotNegative(bytes);
+            return this;
+        }
+
+        /**
+         * @param bytes the estimated number of bytes of temporary data written to disk
+         * @return this
+         */
+        public Builder withTemporaryDiskBytes(final long bytes) {
+            m_temporaryDiskBytes = checkNotNegative(bytes);
+            return this;
+        }
+
+        /**
+         * @param nanos the estimated runtime in nanoseconds
+         * @return this
+         */
+        public Builder withRuntimeNanos(final long nanos) {
+            m_runtimeNanos = checkNotNegative(nanos);
+            return this;
+        }
+
+        private static long checkNotNegative(final long value) {
+            if (value < 0) {
+                throw new IllegalArgumentException("Estimate must not be negative: " + value);
+            }
+            return value;
+        }
+
+        /** @return a new cost hint */
+        public CostHint build() {
+            return new CostHint(this);
+        }
+    }
+
+}
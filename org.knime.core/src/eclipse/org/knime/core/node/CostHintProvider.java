@@ -0,0 +1,73 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node;
+
+import org.knime.core.node.port.PortObjectSpec;
+
+/**
+ * Optional interface for a {@link NodeModel} that can estimate the cost of its execution before it's executed, used
+ * by the {@link org.knime.core.node.workflow.WorkflowCostEstimator}. Without it the estimator assumes that a node
+ * outputs as many rows as its first data input and uses the node's execution history for the runtime.
+ *
+ * <p>
+ * Implementations must be cheap and must not access any data; the port indices are those of the node model (i.e.
+ * without the flow variable port).
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ */
+public interface CostHintProvider {
+
+    /**
+     * Estimates the cost of an execution.
+     *
+     * @param inSpecs the specs of the inputs, elements may be null if not known (or not connected)
+     * @param inRowCounts the (estimated) number of rows of the table inputs, -1 if not known or not a table
+     * @return the hint, may be null if the node cannot estimate its cost for the given inputs
+     */
+    CostHint getCostHint(PortObjectSpec[] inSpecs, long[] inRowCounts);
+
+}
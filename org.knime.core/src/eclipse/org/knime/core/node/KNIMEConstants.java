@@ -264,6 +264,34 @@ public final class KNIMEConstants {
     // see AP-6752
     public static final String PROPERTY_XML_DISABLE_EXT_ENTITIES = "knime.xml.disable_external_entities";
 
+    /** Java property to enable lazy loading of PMML port objects. If <code>true</code>, the PMML document is kept in
+     * its serialized form when a port object is loaded and only parsed once the model is accessed; parsed documents
+     * are shared between port objects with identical content. Default is false.
+     * @since 4.5 */
+    public static final String PROPERTY_PMML_LAZY_LOADING = "knime.pmml.lazy_loading";
+
+    /** Java property to enable asynchronous logging. If <code>true</code>, messages logged via {@link NodeLogger} are
+     * queued and passed to the log appenders (console, log files) by a single background thread. Default is false.
+     * @since 4.5 */
+    public static final String PROPERTY_ASYNC_LOGGING = "knime.logging.async";
+
+    /** Java property to set the number of log messages queued when {@link #PROPERTY_ASYNC_LOGGING asynchronous
+     * logging} is enabled, rounded up to a power of two. Default is 8192.
+     * @since 4.5 */
+    public static final String PROPERTY_ASYNC_LOGGING_BUFFER_SIZE = "knime.logging.async.buffersize";
+
+    /** Java property to set what happens if the queue of log messages is full when {@link #PROPERTY_ASYNC_LOGGING
+     * asynchronous logging} is enabled: either "block" (default, the logging thread waits) or "drop" (the message
+     * is discarded, the number of discarded messages is reported as a warning).
+     * @since 4.5 */
+    public static final String PROPERTY_ASYNC_LOGGING_OVERFLOW = "knime.logging.async.overflow";
+
+    /** Java property to enable compaction of file stores in loops. If <code>true</code>, small file stores that are
+     * kept by a loop end node are packed into segment files once their iteration has completed and are unpacked again
+     * when accessed. This reduces the number of files in the temp directory of long running loops. Default is false.
+     * @since 4.5 */
+    public static final String PROPERTY_FILESTORE_LOOP_COMPACTION = "knime.filestore.loop.compaction";
+
     /** For KNIME's R extension: Run the R process in debug mode and print debug messages to the logging facilities.
      * Value is true or false (default).
      * @since 3.2*/
@@ -315,12 +343,35 @@ public final class KNIMEConstants {
      * @since 2.6 */
     public static final String PROPERTY_DATABASE_BATCH_WRITE_SIZE = "knime.database.batch_write_size";
 
+    /** Java property to enable reading rows from a database in a background thread. The value is the number of
+     * row batches that are read ahead, 0 (default) disables the prefetching.
+     * @since 4.5 */
+    public static final String PROPERTY_DATABASE_PREFETCH_BATCHES = "knime.database.prefetch_batches";
+
     /** Java property to switch on/off the database connection access (applies only for the same database connection).
      * Default is true, that is all database accesses are synchronized based on single connection; false means off,
      * that is, the access is not synchronized and may lead to database errors.
      * @since 2.8 */
     public static final String PROPERTY_DATABASE_CONCURRENCY = "knime.database.enable.concurrency";
 
+    /** Java property to enable a pool of database connections. The value is the maximum number of connections that
+     * are opened to the same database with the same credentials; 0 (default) disables the pool, in which case all
+     * accesses share a single connection.
+     * @since 4.5 */
+    public static final String PROPERTY_DATABASE_CONNECTION_POOL_SIZE = "knime.database.connection_pool_size";
+
+    /** Java property defining the time in seconds after which unused pooled database connections are closed.
+     * Default is 300 seconds.
+     * @since 4.5 */
+    public static final String PROPERTY_DATABASE_CONNECTION_POOL_IDLE_TIMEOUT =
+        "knime.database.connection_pool_idle_timeout";
+
+    /** Java property to enable profiling of node executions. If <code>true</code>, the CPU time, allocated bytes,
+     * rows, bytes read and written and time waiting for the workflow lock are recorded for each node execution, see
+     * {@link org.knime.core.node.workflow.NodeExecutionProfiler}. Default is false.
+     * @since 4.5 */
+    public static final String PROPERTY_NODE_PROFILING = "knime.node.profiling";
+
     /** If <code>true</code>, nodes using passwords as part of their configuration (e.g. DB connection or SendEmail) will
      * not store the password as part of the workflow on disc. Instead a null value is stored, which will cause the
      * node's configuration to be incorrect (but valid) after the workflow is restored from disc.
@@ -78,9 +78,11 @@
 import org.apache.log4j.helpers.LogLog;
 import org.apache.log4j.helpers.OptionConverter;
 import org.apache.log4j.spi.Filter;
+import org.apache.log4j.spi.LocationInfo;
 import org.apache.log4j.spi.LoggerRepository;
 import org.apache.log4j.spi.LoggingEvent;
 import org.apache.log4j.spi.RendererSupport;
+import org.apache.log4j.spi.ThrowableInformation;
 import org.apache.log4j.varia.LevelMatchFilter;
 import org.apache.log4j.varia.LevelRangeFilter;
 import org.apache.log4j.varia.NullAppender;
@@ -549,6 +551,12 @@ private static void copyrightMessage() {
         l.info("# E-mail: contact@knime.com                                                             #");
     }
 
+    /** Passes messages to the appenders in the background, null unless {@link KNIMEConstants#PROPERTY_ASYNC_LOGGING}
+     * is set. */
+    private static final AsyncLogDispatcher ASYNC_DISPATCHER =
+        Boolean.getBoolean(KNIMEConstants.PROPERTY_ASYNC_LOGGING) ? AsyncLogDispatcher.createFromSystemProperties()
+            : null;
+
     /** The Log4J logger to which all messages are logged. Do not access it directly if you want to log a message
      * but use the {@link #getLoggerInternal()} method instead.*/
     private final Logger m_logger;
@@ -634,7 +642,7 @@ public static NodeLogger getLogger(final String s) {
      * @param o The object to print.
      */
     public void warn(final Object o) {
-        getLoggerInternal().warn(getLogObject(o));
+        log(Level.WARN, o, null);
     }
 
     /**
@@ -643,7 +651,7 @@ public void warn(final Object o) {
      * @param o The object to print.
      */
     public void debug(final Object o) {
-        getLoggerInternal().debug(getLogObject(o));
+        log(Level.DEBUG, o, null);
     }
 
 
@@ -655,7 +663,7 @@ public void debug(final Object o) {
      * @since 3.1
      */
     public void debugWithoutContext(final Object o) {
-        m_logger.debug(o);
+        logWithoutContext(Level.DEBUG, o);
     }
 
     /**
@@ -723,6 +731,72 @@ private Object getLogObject(final Object message) {
         return new KNIMELogMessage(nodeID, nodeName, workflowDir, jobID,  message);
     }
 
+    /**
+     * Logs a message with the node context of the current thread, either directly or, if enabled, asynchronously.
+     *
+     * @param level the level
+     * @param message the message
+     * @param t the throwable to log, may be null
+     */
+    private void log(final Level level, final Object message, final Throwable t) {
+        if (ASYNC_DISPATCHER == null) {
+            getLoggerInternal().log(level, getLogObject(message), t);
+        } else if (m_logger.isEnabledFor(level)) {
+            // the node context is only available in the logging thread, the rest is done in the background
+            ASYNC_DISPATCHER.dispatch(this, level, getLogObject(render(message)), t);
+        }
+    }
+
+    /**
+     * Logs a message without node context, either directly or, if enabled, asynchronously.
+     *
+     * @param level the level
+     * @param message the message
+     */
+    private void logWithoutContext(final Level level, final Object message) {
+        if (ASYNC_DISPATCHER == null) {
+            m_logger.log(level, message);
+        } else if (m_logger.isEnabledFor(level)) {
+            ASYNC_DISPATCHER.dispatch(this, level, render(message), null);
+        }
+    }
+
+    /**
+     * Renders a message to be logged asynchronously in the logging thread, as the message object may be modified
+     * before it is passed to the appenders.
+     *
+     * @param message the message, may be null
+     * @return the message as rendered by log4j
+     */
+    private String render(final Object message) {
+        if (message == null || message instanceof String) {
+            return (String)message;
+        }
+        final LoggerRepository repository = m_logger.getLoggerRepository();
+        if (repository instanceof RendererSupport) {
+            return ((RendererSupport)repository).getRendererMap().findAndRender(message);
+        }
+        return message.toString();
+    }
+
+    /**
+     * Passes a message queued by the {@link AsyncLogDispatcher} to the appenders, called in the dispatcher thread.
+     *
+     * @param level the level
+     * @param logObject the message as returned by {@link #getLogObject(Object)}
+     * @param t the throwable, may be null
+     * @param threadName the name of the thread that logged the message
+     * @param timeStamp the time the message was logged
+     */
+    void callAppenders(final Level level, final Object logObject, final Throwable t, final String threadName,
+        final long timeStamp) {
+        if (LOG_IN_WF_DIR && logObject instanceof KNIMELogMessage) {
+            addWorkflowDirAppender(((KNIMELogMessage)logObject).getWorkflowDir());
+        }
+        m_logger.callAppenders(new LoggingEvent(Logger.class.getName(), m_logger, timeStamp, level, logObject,
+            threadName, t == null ? null : new ThrowableInformation(t), null, LocationInfo.NA_LOCATION_INFO, null));
+    }
+
     /**
      * Use this method whenever you want to log a message. It ensures that the right logger is used and that all
      * required appenders are added to it e.g. workflow directory appender.
@@ -841,7 +915,7 @@ private static void removeWorkflowDirAppender(final File workflowDir) {
      * @param o The object to print.
      */
     public void info(final Object o) {
-        getLoggerInternal().info(getLogObject(o));
+        log(Level.INFO, o, null);
     }
 
     /**
@@ -850,7 +924,7 @@ public void info(final Object o) {
      * @param o The object to print.
      */
     public void error(final Object o) {
-        getLoggerInternal().error(getLogObject(o));
+        log(Level.ERROR, o, null);
     }
 
     /**
@@ -859,7 +933,7 @@ public void error(final Object o) {
      * @param o The object to print.
      */
     public void fatal(final Object o) {
-        getLoggerInternal().fatal(getLogObject(o));
+        log(Level.FATAL, o, null);
     }
 
     /**
@@ -869,7 +943,7 @@ public void fatal(final Object o) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void warn(final Object o, final Throwable t) {
-        getLoggerInternal().warn(getLogObject(o), t);
+        log(Level.WARN, o, t);
     }
 
     /**
@@ -879,7 +953,7 @@ public void warn(final Object o, final Throwable t) {
      * @param t The exception to log, including its stack trace.
      */
     public void debug(final Object o, final Throwable t) {
-        getLoggerInternal().debug(getLogObject(o), t);
+        log(Level.DEBUG, o, t);
     }
 
     /**
@@ -889,7 +963,7 @@ public void debug(final Object o, final Throwable t) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void info(final Object o, final Throwable t) {
-        getLoggerInternal().info(getLogObject(o), t);
+        log(Level.INFO, o, t);
     }
 
     /**
@@ -899,7 +973,7 @@ public void info(final Object o, final Throwable t) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void error(final Object o, final Throwable t) {
-        getLoggerInternal().error(getLogObject(o), t);
+        log(Level.ERROR, o, t);
     }
 
     /**
@@ -910,7 +984,7 @@ public void error(final Object o, final Throwable t) {
      */
     public void assertLog(final boolean b, final String m) {
         if (KNIMEConstants.ASSERTIONS_ENABLED && !b) {
-            getLoggerInternal().error("ASSERT " + m, new AssertionError(m));
+            log(Level.ERROR, "ASSERT " + m, new AssertionError(m));
         }
     }
 
@@ -923,11 +997,11 @@ public void assertLog(final boolean b, final String m) {
      */
     public void assertLog(final boolean b, final String m,
             final AssertionError e) {
-        if (KNIMEConstants.ASSERTIONS_ENABLED) {
-            getLoggerInternal().assertLog(b, "ASSERT " + m);
+        if (KNIMEConstants.ASSERTIONS_ENABLED && !b) {
+            log(Level.ERROR, "ASSERT " + m, null);
             // for stacktrace
-            if (!b & e != null) {
-                getLoggerInternal().debug("ASSERT\t " + m, e);
+            if (e != null) {
+                log(Level.DEBUG, "ASSERT\t " + m, e);
             }
         }
     }
@@ -940,7 +1014,7 @@ public void assertLog(final boolean b, final String m,
      */
     public void coding(final Object o) {
         if (isToLogCodingMessages()) {
-            getLoggerInternal().error(getLogObject(CODING_PROBLEM_PREFIX + o));
+            log(Level.ERROR, CODING_PROBLEM_PREFIX + o, null);
         }
     }
 
@@ -953,7 +1027,7 @@ public void coding(final Object o) {
      */
     public void coding(final Object o, final Throwable t) {
         if (isToLogCodingMessages()) {
-            getLoggerInternal().error(getLogObject(CODING_PROBLEM_PREFIX + o), t);
+            log(Level.ERROR, CODING_PROBLEM_PREFIX + o, t);
         }
     }
 
@@ -966,7 +1040,7 @@ public void coding(final Object o, final Throwable t) {
      */
     public void codingWithoutContext(final Object o) {
         if (isToLogCodingMessages()) {
-            m_logger.error(CODING_PROBLEM_PREFIX + o);
+            logWithoutContext(Level.ERROR, CODING_PROBLEM_PREFIX + o);
         }
     }
 
@@ -977,7 +1051,7 @@ public void codingWithoutContext(final Object o) {
      * @param t The exception to log at debug level, including its stack trace.
      */
     public void fatal(final Object o, final Throwable t) {
-        getLoggerInternal().fatal(getLogObject(o), t);
+        log(Level.FATAL, o, t);
     }
 
     /**
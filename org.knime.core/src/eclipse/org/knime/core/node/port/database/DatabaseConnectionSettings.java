@@ -68,6 +68,7 @@
 import org.knime.core.node.config.ConfigWO;
 import org.knime.core.node.port.database.connection.CachedConnectionFactory;
 import org.knime.core.node.port.database.connection.CachedConnectionFactory.ConnectionKey;
+import org.knime.core.node.port.database.connection.DBConnectionPool;
 import org.knime.core.node.util.CheckUtils;
 import org.knime.core.node.util.StringHistory;
 import org.knime.core.node.workflow.CredentialsProvider;
@@ -257,6 +258,28 @@ private static int initBatchWriteSize() {
         return 1;
     }
 
+    /** Number of row batches read ahead by a background thread while reading from a database, 0 if disabled.
+     * @since 4.5 */
+    public static final int PREFETCH_BATCHES = initPrefetchBatches();
+    private static int initPrefetchBatches() {
+        String batches = System.getProperty(KNIMEConstants.PROPERTY_DATABASE_PREFETCH_BATCHES);
+        if (batches != null) {
+            try {
+                final int prefetchBatches = Integer.parseInt(batches);
+                if (prefetchBatches >= 0) {
+                    LOGGER.debug("Database prefetch batches: " + prefetchBatches + ".");
+                    return prefetchBatches;
+                } else {
+                    LOGGER.warn("Database property " + KNIMEConstants.PROPERTY_DATABASE_PREFETCH_BATCHES + "="
+                        + prefetchBatches + " can't be negative, prefetching is disabled.");
+                }
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Database prefetch batches not valid '" + batches + "', prefetching is disabled.");
+            }
+        }
+        return 0;
+    }
+
     private String m_driver;
     private String m_credName = null;
 
@@ -652,7 +675,9 @@ private boolean loadConnection(final ConfigRO settings,
 
     /**
      * Executes a block of SQL commands using a valid connection. The method makes sure that the connection
-     * passed into the {@link ExecuteStatement} is valid and synchronized if required.
+     * passed into the {@link ExecuteStatement} is valid and synchronized if required. If the
+     * {@link DBConnectionPool connection pool} is enabled, the statement gets a connection of the pool for exclusive
+     * use instead of the shared connection.
      *
      * @param cp {@link CredentialsProvider} to use
      * @param stmt the {@link ExecuteStatement} implementation that can use the {@link Connection}
@@ -662,6 +687,38 @@ private boolean loadConnection(final ConfigRO settings,
      */
     @SuppressWarnings("resource")
     public <T> T execute(final CredentialsProvider cp, final ExecuteStatement<T> stmt) throws SQLException {
+        if (DBConnectionPool.isEnabled()) {
+            final DBConnectionPool.Lease lease = DBConnectionPool.getInstance().lease(cp, this);
+            if (lease != null) {
+                // the leased connection is used exclusively, no need to synchronize
+                try {
+                    return stmt.apply(lease.getConnection());
+                } catch (SQLException ex) {
+                    throw ex;
+                } catch (Exception ex) {
+                    throw new SQLException(ex);
+                } finally {
+                    lease.close();
+                }
+            }
+        }
+        return executeWithSharedConnection(cp, stmt);
+    }
+
+    /**
+     * Executes a block of SQL commands on the shared connection, also if the {@link DBConnectionPool connection pool}
+     * is enabled. To be used by statements that return objects bound to the connection (e.g. the
+     * {@link java.sql.DatabaseMetaData}) that are used after this method returns, as a leased connection would be
+     * returned to the pool by then.
+     *
+     * @param cp {@link CredentialsProvider} to use
+     * @param stmt the {@link ExecuteStatement} implementation that can use the {@link Connection}
+     * @return the return value of the {@link ExecuteStatement}
+     * @throws SQLException if the statement could not be executed
+     * @since 4.5
+     */
+    public <T> T executeWithSharedConnection(final CredentialsProvider cp, final ExecuteStatement<T> stmt)
+        throws SQLException {
         try {
             for (int i = 1; i <= MAX_CONNECTION_TRIES; i++) {
                 final Connection conn = createConnection(cp);
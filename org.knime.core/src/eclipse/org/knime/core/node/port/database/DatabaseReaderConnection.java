@@ -95,6 +95,7 @@
 import org.knime.core.node.CanceledExecutionException;
 import org.knime.core.node.ExecutionContext;
 import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.database.connection.DBConnectionPool;
 import org.knime.core.node.port.database.reader.DBReader;
 import org.knime.core.node.workflow.CredentialsProvider;
 import org.knime.core.util.FileUtil;
@@ -300,32 +301,47 @@ public RowIteratorConnection createRowIteratorConnection(final ExecutionContext
         if (m_blobFactory == null) {
             m_blobFactory = new BinaryObjectCellFactory(exec);
         }
-        // retrieve connection
-//        final Connection conn = initConnection(cp);
-//        exec.setMessage("Waiting for free database connection...");
-//        synchronized (m_conn.syncConnection(conn)) {
-        return m_conn.execute(cp, conn -> {
-            exec.setMessage("Start reading rows from database...");
-            // remember auto-commit flag
-            final boolean autoCommit = conn.getAutoCommit();
-            final Statement stmt = initStatement(cp, conn);
-            int fetchsize =
-                (DatabaseConnectionSettings.FETCH_SIZE != null) ? DatabaseConnectionSettings.FETCH_SIZE : -1;
-            m_conn.getUtility().getStatementManipulator().setFetchSize(stmt, fetchsize);
-            final String[] oQueries = m_conn.getQuery().split(SQL_QUERY_SEPARATOR);
-            // execute all except the last query
-            for (int i = 0; i < oQueries.length - 1; i++) {
-                LOGGER.debug("Executing SQL statement as execute: " + oQueries[i]);
-                stmt.execute(oQueries[i]);
+        // the returned iterator keeps using the connection, hence a leased connection is only returned to the
+        // pool when the iterator is closed
+        final DBConnectionPool.Lease lease =
+            DBConnectionPool.isEnabled() ? DBConnectionPool.getInstance().lease(cp, m_conn) : null;
+        if (lease != null) {
+            try {
+                final RowIteratorConnection ric =
+                    openRowIteratorConnection(lease.getConnection(), exec, cp, useDbRowId);
+                ric.m_lease = lease;
+                return ric;
+            } catch (SQLException | RuntimeException ex) {
+                lease.close();
+                throw ex;
             }
-            final String selectQuery = oQueries[oQueries.length - 1];
-            LOGGER.debug("Executing SQL statement as executeQuery: " + selectQuery);
-            final ResultSet result = stmt.executeQuery(selectQuery);
-            LOGGER.debug("Reading meta data from database ResultSet...");
-            m_spec = createTableSpec(result.getMetaData());
-            LOGGER.debug("Parsing database ResultSet...");
-            return new RowIteratorConnection(conn, stmt, result, m_spec, autoCommit, useDbRowId);
-        });
+        }
+        return m_conn.executeWithSharedConnection(cp,
+            conn -> openRowIteratorConnection(conn, exec, cp, useDbRowId));
+    }
+
+    private RowIteratorConnection openRowIteratorConnection(final Connection conn, final ExecutionContext exec,
+        final CredentialsProvider cp, final boolean useDbRowId) throws SQLException {
+        exec.setMessage("Start reading rows from database...");
+        // remember auto-commit flag
+        final boolean autoCommit = conn.getAutoCommit();
+        final Statement stmt = initStatement(cp, conn);
+        int fetchsize =
+            (DatabaseConnectionSettings.FETCH_SIZE != null) ? DatabaseConnectionSettings.FETCH_SIZE : -1;
+        m_conn.getUtility().getStatementManipulator().setFetchSize(stmt, fetchsize);
+        final String[] oQueries = m_conn.getQuery().split(SQL_QUERY_SEPARATOR);
+        // execute all except the last query
+        for (int i = 0; i < oQueries.length - 1; i++) {
+            LOGGER.debug("Executing SQL statement as execute: " + oQueries[i]);
+            stmt.execute(oQueries[i]);
+        }
+        final String selectQuery = oQueries[oQueries.length - 1];
+        LOGGER.debug("Executing SQL statement as executeQuery: " + selectQuery);
+        final ResultSet result = stmt.executeQuery(selectQuery);
+        LOGGER.debug("Reading meta data from database ResultSet...");
+        m_spec = createTableSpec(result.getMetaData());
+        LOGGER.debug("Parsing database ResultSet...");
+        return new RowIteratorConnection(conn, stmt, result, m_spec, autoCommit, useDbRowId);
     }
 
     /** Called from the database port to read the first n-number of rows.
@@ -983,6 +999,9 @@ public class RowIteratorConnection {
 
         private DataTableSpec m_spec2;
 
+        /** The pool lease of the connection, null if the connection isn't pooled. */
+        private DBConnectionPool.Lease m_lease;
+
         /**
         *
         */
@@ -1011,17 +1030,23 @@ public DataTableSpec getDataTableSpec() {
         }
 
         /**
-         * Closes the database connection.
+         * Closes the database connection (or returns it to the connection pool).
          *
          * @throws SQLException
          */
         public void close() throws SQLException {
-            if (m_stmt != null) {
-                if (!m_conn2.getAutoCommit()) {
-                    m_conn2.commit();
+            try {
+                if (m_stmt != null) {
+                    if (!m_conn2.getAutoCommit()) {
+                        m_conn2.commit();
+                    }
+                    DatabaseConnectionSettings.setAutoCommit(m_conn2, m_autoCommit);
+                    m_stmt.close();
+                }
+            } finally {
+                if (m_lease != null) {
+                    m_lease.close();
                 }
-                DatabaseConnectionSettings.setAutoCommit(m_conn2, m_autoCommit);
-                m_stmt.close();
             }
         }
 
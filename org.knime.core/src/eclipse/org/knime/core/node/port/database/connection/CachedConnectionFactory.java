@@ -172,11 +172,6 @@ public DBDriverFactory getDriverFactory() {
      */
     @Override
     public Connection getConnection(final CredentialsProvider cp, final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException {
-        final String jdbcUrl = settings.getJDBCUrl();
-        final String user = settings.getUserName(cp);
-        final String pass = settings.getPassword(cp);
-        final boolean kerberos = settings.useKerberos();
-
         ConnectionKey databaseConnKey = createConnectionKey(cp, settings);
 
         // retrieve original key and/or modify connection key map
@@ -205,48 +200,69 @@ public Connection getConnection(final CredentialsProvider cp, final DatabaseConn
                 CONNECTION_MAP.remove(databaseConnKey);
             }
             LOGGER.debug("Create new connection for key: " + databaseConnKey);
-            final Driver d;
-            try {
-                d = getDriverFactory().getDriver(settings);
-            } catch (Exception ex1) {
-                throw new InvalidSettingsException(ex1);
-            }
-            if (!d.acceptsURL(jdbcUrl)) {
-                throw new InvalidSettingsException("Driver \"" + d + "\" does not accept URL: " + jdbcUrl);
+            conn = openConnection(cp, settings);
+            LOGGER.debug("Add connection to map for key: " + databaseConnKey);
+            CONNECTION_MAP.put(databaseConnKey, conn);
+            return conn;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The returned connection is not added to the connection cache of this factory.
+     * @since 4.5
+     */
+    @Override
+    public Connection createUncachedConnection(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException {
+        LOGGER.debug("Create new uncached connection for JDBC URL: " + settings.getJDBCUrl());
+        return openConnection(cp, settings);
+    }
+
+    private Connection openConnection(final CredentialsProvider cp, final DatabaseConnectionSettings settings)
+        throws InvalidSettingsException, SQLException, IOException {
+        final String jdbcUrl = settings.getJDBCUrl();
+        final String user = settings.getUserName(cp);
+        final String pass = settings.getPassword(cp);
+        final boolean kerberos = settings.useKerberos();
+        final Driver d;
+        try {
+            d = getDriverFactory().getDriver(settings);
+        } catch (Exception ex1) {
+            throw new InvalidSettingsException(ex1);
+        }
+        if (!d.acceptsURL(jdbcUrl)) {
+            throw new InvalidSettingsException("Driver \"" + d + "\" does not accept URL: " + jdbcUrl);
+        }
+        // if a connection is not available
+        Callable<Connection> callable = new Callable<Connection>() {
+            /** {@inheritDoc} */
+            @Override
+            public Connection call() throws Exception {
+                LOGGER.debug("Opening database connection to \"" + jdbcUrl + "\"...");
+                return createConnection(settings, jdbcUrl, user, pass, kerberos, d);
             }
-            // if a connection is not available
-            Callable<Connection> callable = new Callable<Connection>() {
-                /** {@inheritDoc} */
-                @Override
-                public Connection call() throws Exception {
-                    LOGGER.debug("Opening database connection to \"" + jdbcUrl + "\"...");
-                    return createConnection(settings, jdbcUrl, user, pass, kerberos, d);
-                }
-            };
-            //TODO:this has to be more robust e.g. the thread should terminate when KNIME terminates and should be
-            //cancelable if the user presses cancel. If no credentials are present for Phoenix the thread keeps KNIME
-            //alive for ages
-            Future<Connection> task = CONNECTION_CREATOR_EXECUTOR.submit(callable);
-            try {
-                conn = task.get(DatabaseConnectionSettings.getDatabaseTimeout() + 1, TimeUnit.SECONDS);
-                LOGGER.debug("Add connection to map for key: " + databaseConnKey);
-                CONNECTION_MAP.put(databaseConnKey, conn);
-                return conn;
-            } catch (ExecutionException ee) {
-                if (ee.getCause() instanceof SQLException) {
-                    throw (SQLException) ee.getCause();
-                } else {
-                    throw new SQLException(ee.getCause());
-                }
-            } catch (InterruptedException ex) {
-                throw new SQLException("Thread was interrupted while waiting for database to respond");
-            } catch (TimeoutException ex) {
-                throw new IOException("Connection to database '" + jdbcUrl + "' timed out");
+        };
+        //TODO:this has to be more robust e.g. the thread should terminate when KNIME terminates and should be
+        //cancelable if the user presses cancel. If no credentials are present for Phoenix the thread keeps KNIME
+        //alive for ages
+        Future<Connection> task = CONNECTION_CREATOR_EXECUTOR.submit(callable);
+        try {
+            return task.get(DatabaseConnectionSettings.getDatabaseTimeout() + 1, TimeUnit.SECONDS);
+        } catch (ExecutionException ee) {
+            if (ee.getCause() instanceof SQLException) {
+                throw (SQLException) ee.getCause();
+            } else {
+                throw new SQLException(ee.getCause());
             }
+        } catch (InterruptedException ex) {
+            throw new SQLException("Thread was interrupted while waiting for database to respond");
+        } catch (TimeoutException ex) {
+            throw new IOException("Connection to database '" + jdbcUrl + "' timed out");
         }
     }
 
-    private static ConnectionKey createConnectionKey(final CredentialsProvider cp, final DatabaseConnectionSettings settings) {
+    static ConnectionKey createConnectionKey(final CredentialsProvider cp, final DatabaseConnectionSettings settings) {
         final String jdbcUrl = settings.getJDBCUrl();
         final String user = settings.getUserName(cp);
         final String pass = settings.getPassword(cp);
@@ -51,6 +51,7 @@
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 
 import org.knime.core.node.InvalidSettingsException;
 import org.knime.core.node.port.database.DatabaseConnectionSettings;
@@ -74,6 +75,25 @@ public interface DBConnectionFactory {
     Connection getConnection(final CredentialsProvider cp,
         final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException;
 
+    /**
+     * Creates a new {@link Connection} that is not shared with any other caller e.g. to write into the database using
+     * several connections in parallel. The caller owns the returned connection and has to close it after usage.
+     * The default implementation does not support dedicated connections.
+     *
+     * @param cp {@link CredentialsProvider}
+     * @param settings {@link DatabaseConnectionSettings}
+     * @return a new {@link Connection} which needs to be closed after usage by calling {@link Connection#close()}
+     * @throws InvalidSettingsException
+     * @throws SQLException if the connection could not be created or the factory does not support uncached
+     *             connections
+     * @throws IOException
+     * @since 4.5
+     */
+    default Connection createUncachedConnection(final CredentialsProvider cp,
+        final DatabaseConnectionSettings settings) throws InvalidSettingsException, SQLException, IOException {
+        throw new SQLFeatureNotSupportedException(getClass().getName() + " does not support uncached connections");
+    }
+
     /**
      * @return the {@link DBDriverFactory} the connection factory uses
      */
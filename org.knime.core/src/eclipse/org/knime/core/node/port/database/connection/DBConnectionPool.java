@@ -0,0 +1,461 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.connection;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.database.DatabaseConnectionSettings;
+import org.knime.core.node.port.database.connection.CachedConnectionFactory.ConnectionKey;
+import org.knime.core.node.workflow.CredentialsProvider;
+
+/**
+ * Bounded pool of database connections keyed by the JDBC URL, the credentials and the workflow user. Each caller
+ * leases a connection for exclusive use and returns it by closing the {@link Lease}. Idle connections are validated
+ * before they are handed out again and closed once they have not been used for the idle timeout.
+ *
+ * <p>Leases are reentrant: a thread that already holds a lease of a key gets the same connection again (without
+ * waiting for a free one), the connection is returned to the pool once all its leases are closed. This prevents
+ * deadlocks of nested {@link DatabaseConnectionSettings#execute(CredentialsProvider,
+ * org.knime.core.node.port.database.ExecuteStatement) execute} calls and of code that keeps a lease open beyond a
+ * single statement, e.g. while iterating a result set.</p>
+ *
+ * <p>The pool is disabled by default and is enabled by setting the system property
+ * {@value KNIMEConstants#PROPERTY_DATABASE_CONNECTION_POOL_SIZE} to the maximum number of connections per key.</p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ */
+public final class DBConnectionPool {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(DBConnectionPool.class);
+
+    /** Maximum number of connections per key, 0 if the pool is disabled. */
+    private static final int MAX_POOL_SIZE = initMaxPoolSize();
+    private static int initMaxPoolSize() {
+        final String size = System.getProperty(KNIMEConstants.PROPERTY_DATABASE_CONNECTION_POOL_SIZE);
+        if (size != null) {
+            try {
+                final int poolSize = Integer.parseInt(size);
+                if (poolSize >= 0) {
+                    LOGGER.debug("Database connection pool size: " + poolSize + ".");
+                    return poolSize;
+                }
+                LOGGER.warn("Database connection pool size " + poolSize
+                    + " can't be negative, connection pool is disabled.");
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Database connection pool size not valid '" + size
+                    + "', connection pool is disabled.");
+            }
+        }
+        return 0;
+    }
+
+    /** Time in seconds after which an unused connection is closed. */
+    private static final int IDLE_TIMEOUT = initIdleTimeout();
+    private static int initIdleTimeout() {
+        final String timeout = System.getProperty(KNIMEConstants.PROPERTY_DATABASE_CONNECTION_POOL_IDLE_TIMEOUT);
+        if (timeout != null) {
+            try {
+                final int seconds = Integer.parseInt(timeout);
+                if (seconds > 0) {
+                    return seconds;
+                }
+                LOGGER.warn("Database connection pool idle timeout " + seconds
+                    + " must be positive, using 300 seconds as default.");
+            } catch (NumberFormatException nfe) {
+                LOGGER.warn("Database connection pool idle timeout not valid '" + timeout
+                    + "', using 300 seconds as default.");
+            }
+        }
+        return 300;
+    }
+
+    private static final DBConnectionPool INSTANCE =
+        new DBConnectionPool(MAX_POOL_SIZE, TimeUnit.SECONDS.toMillis(IDLE_TIMEOUT));
+
+    /** Creates new connections for a pool partition. */
+    @FunctionalInterface
+    interface ConnectionCreator {
+        /**
+         * @return a new connection owned by the pool
+         * @throws Exception if the connection can't be created
+         */
+        Connection create() throws Exception;
+    }
+
+    /** Checks whether an idle connection can be handed out again. */
+    @FunctionalInterface
+    interface ConnectionValidator {
+        /**
+         * @param conn the open connection to validate
+         * @return <code>true</code> if the connection can be used
+         * @throws Exception if the validation fails
+         */
+        boolean isValid(Connection conn) throws Exception;
+    }
+
+    private final int m_maxSize;
+
+    private final long m_idleTimeoutMillis;
+
+    private final ConcurrentMap<Object, Partition> m_partitions = new ConcurrentHashMap<>();
+
+    private ScheduledExecutorService m_evictor;
+
+    /**
+     * @param maxSize maximum number of connections per key
+     * @param idleTimeoutMillis time in milliseconds after which unused connections are closed
+     */
+    DBConnectionPool(final int maxSize, final long idleTimeoutMillis) {
+        m_maxSize = maxSize;
+        m_idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * @return the pool used by {@link DatabaseConnectionSettings#execute(CredentialsProvider,
+     *         org.knime.core.node.port.database.ExecuteStatement)}
+     */
+    public static DBConnectionPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return <code>true</code> if connections should be leased from the pool instead of sharing a single
+     *         synchronized connection per key
+     */
+    public static boolean isEnabled() {
+        return MAX_POOL_SIZE > 0;
+    }
+
+    /**
+     * Leases a connection for exclusive use. The method blocks until a connection of the given key is available.
+     *
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param settings the {@link DatabaseConnectionSettings} to connect with
+     * @return the leased connection that needs to be closed after usage or <code>null</code> if the connection
+     *         factory of the database does not support pooling
+     * @throws SQLException if no valid connection could be created
+     */
+    public Lease lease(final CredentialsProvider cp, final DatabaseConnectionSettings settings)
+        throws SQLException {
+        final ConnectionKey key = CachedConnectionFactory.createConnectionKey(cp, settings);
+        try {
+            return lease(key,
+                () -> settings.getUtility().getConnectionFactory().createUncachedConnection(cp, settings),
+                conn -> settings.getUtility().isValid(conn));
+        } catch (SQLFeatureNotSupportedException ex) {
+            LOGGER.debug("Connection pooling not supported for key " + key + ": " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param key the key of the pool partition
+     * @param creator creates new connections if no idle connection is available
+     * @param validator checks idle connections before they are handed out again
+     * @return the leased connection
+     * @throws SQLException if no valid connection could be created
+     */
+    Lease lease(final Object key, final ConnectionCreator creator, final ConnectionValidator validator)
+        throws SQLException {
+        return m_partitions.computeIfAbsent(key, this::createPartition).lease(creator, validator);
+    }
+
+    private Partition createPartition(final Object key) {
+        synchronized (this) {
+            if (m_evictor == null) {
+                m_evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+                    final Thread t = new Thread(r, "KNIME DB Connection Pool Evictor");
+                    t.setDaemon(true);
+                    return t;
+                });
+                final long period = Math.max(1000, m_idleTimeoutMillis / 2);
+                m_evictor.scheduleAtFixedRate(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+            }
+        }
+        return new Partition(key);
+    }
+
+    /** Closes all connections that have not been used for longer than the idle timeout. */
+    void evictIdleConnections() {
+        final long oldestAllowed = System.currentTimeMillis() - m_idleTimeoutMillis;
+        for (Partition partition : m_partitions.values()) {
+            partition.evictIdle(oldestAllowed);
+        }
+    }
+
+    /** Closes all idle connections of the pool. Leased connections are closed when they are returned. */
+    public void clear() {
+        for (Partition partition : m_partitions.values()) {
+            partition.evictIdle(Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * @param key the key of the pool partition
+     * @return the number of idle connections of the key
+     */
+    int getIdleCount(final Object key) {
+        final Partition partition = m_partitions.get(key);
+        return partition == null ? 0 : partition.getIdleCount();
+    }
+
+    private static void closeSafely(final Object key, final Connection conn) {
+        try {
+            if (!conn.isClosed()) {
+                LOGGER.debug("Closing pooled connection with key: " + key);
+                conn.close();
+            }
+        } catch (Exception ex) {
+            LOGGER.debug("Error closing connection:" + ex.getMessage(), ex);
+        }
+    }
+
+    /** The connections of a single key. */
+    private final class Partition {
+
+        private final Object m_key;
+
+        private final Semaphore m_permits = new Semaphore(m_maxSize, true);
+
+        /** Idle connections, the most recently used first. */
+        private final Deque<IdleConnection> m_idle = new ArrayDeque<>();
+
+        /** The connections currently leased, by the thread that leased them. */
+        private final Map<Thread, Holder> m_held = new ConcurrentHashMap<>();
+
+        Partition(final Object key) {
+            m_key = key;
+        }
+
+        Lease lease(final ConnectionCreator creator, final ConnectionValidator validator) throws SQLException {
+            final Holder held = m_held.get(Thread.currentThread());
+            if (held != null && held.tryAcquire()) {
+                LOGGER.debug("Reusing connection already leased by this thread with key: " + m_key);
+                return new Lease(this, held);
+            }
+            LOGGER.debug("Waiting for free pooled connection with key: " + m_key);
+            try {
+                m_permits.acquire();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Thread was interrupted while waiting for a database connection", ex);
+            }
+            try {
+                IdleConnection idle;
+                while ((idle = pollIdle()) != null) {
+                    if (isOpenAndValid(idle.m_conn, validator)) {
+                        LOGGER.debug("Reusing pooled connection with key: " + m_key);
+                        return newLease(idle.m_conn);
+                    }
+                    closeSafely(m_key, idle.m_conn);
+                }
+                LOGGER.debug("Create new pooled connection for key: " + m_key);
+                final Connection conn = creator.create();
+                if (conn == null) {
+                    throw new SQLException("No connection created for key: " + m_key);
+                }
+                return newLease(conn);
+            } catch (Exception ex) {
+                m_permits.release();
+                if (ex instanceof SQLException) {
+                    throw (SQLException)ex;
+                }
+                throw new SQLException(ex.getMessage(), ex);
+            }
+        }
+
+        private Lease newLease(final Connection conn) {
+            final Holder holder = new Holder(conn, Thread.currentThread());
+            m_held.put(holder.m_owner, holder);
+            return new Lease(this, holder);
+        }
+
+        private boolean isOpenAndValid(final Connection conn, final ConnectionValidator validator) {
+            try {
+                if (conn.isClosed()) {
+                    LOGGER.debug("Closed connection found in pool with key: " + m_key);
+                } else if (!validator.isValid(conn)) {
+                    LOGGER.debug("Invalid connection found in pool with key: " + m_key);
+                } else {
+                    conn.clearWarnings();
+                    return true;
+                }
+            } catch (Exception e) {
+                LOGGER.debug("Invalid connection with key '" + m_key + "': " + e.getMessage(), e);
+            }
+            return false;
+        }
+
+        private synchronized IdleConnection pollIdle() {
+            return m_idle.pollFirst();
+        }
+
+        void release(final Holder holder) {
+            m_held.remove(holder.m_owner, holder);
+            synchronized (this) {
+                m_idle.addFirst(new IdleConnection(holder.m_conn, System.currentTimeMillis()));
+            }
+            m_permits.release();
+        }
+
+        void evictIdle(final long oldestAllowed) {
+            final Deque<IdleConnection> evicted = new ArrayDeque<>();
+            synchronized (this) {
+                for (Iterator<IdleConnection> it = m_idle.descendingIterator(); it.hasNext();) {
+                    final IdleConnection idle = it.next();
+                    if (idle.m_lastUsed > oldestAllowed) {
+                        // all remaining connections have been used more recently
+                        break;
+                    }
+                    it.remove();
+                    evicted.add(idle);
+                }
+            }
+            for (IdleConnection idle : evicted) {
+                closeSafely(m_key, idle.m_conn);
+            }
+        }
+
+        synchronized int getIdleCount() {
+            return m_idle.size();
+        }
+    }
+
+    /** A leased connection and the number of open leases on it. */
+    private static final class Holder {
+        private final Connection m_conn;
+
+        private final Thread m_owner;
+
+        private final AtomicInteger m_leaseCount = new AtomicInteger(1);
+
+        Holder(final Connection conn, final Thread owner) {
+            m_conn = conn;
+            m_owner = owner;
+        }
+
+        /** @return whether another lease was added, false if the connection is being returned to the pool */
+        boolean tryAcquire() {
+            int count;
+            do {
+                count = m_leaseCount.get();
+                if (count <= 0) {
+                    return false;
+                }
+            } while (!m_leaseCount.compareAndSet(count, count + 1));
+            return true;
+        }
+
+        /** @return whether this was the last lease */
+        boolean releaseOne() {
+            return m_leaseCount.decrementAndGet() == 0;
+        }
+    }
+
+    private static final class IdleConnection {
+        private final Connection m_conn;
+
+        private final long m_lastUsed;
+
+        IdleConnection(final Connection conn, final long lastUsed) {
+            m_conn = conn;
+            m_lastUsed = lastUsed;
+        }
+    }
+
+    /**
+     * A connection leased from the pool for exclusive use by the leasing thread. Closing the lease returns the
+     * connection to the pool (once all leases of the thread on the connection are closed), it does not close the
+     * connection itself. A lease may be closed by another thread than the one that leased it.
+     */
+    public static final class Lease implements AutoCloseable {
+
+        private final Partition m_partition;
+
+        private final Holder m_holder;
+
+        private final AtomicBoolean m_released = new AtomicBoolean();
+
+        private Lease(final Partition partition, final Holder holder) {
+            m_partition = partition;
+            m_holder = holder;
+        }
+
+        /**
+         * @return the leased connection, must not be used after the lease has been closed
+         */
+        public Connection getConnection() {
+            return m_holder.m_conn;
+        }
+
+        /**
+         * Returns the connection to the pool. Subsequent calls are ignored.
+         */
+        @Override
+        public void close() {
+            if (m_released.compareAndSet(false, true) && m_holder.releaseOne()) {
+                m_partition.release(m_holder);
+            }
+        }
+    }
+}
@@ -134,7 +134,8 @@ public final DatabaseMetaData getDatabaseMetaData(
             final CredentialsProvider cp) throws SQLException {
         try {
             final DatabaseQueryConnectionSettings dbConn = getQueryConnection();
-            return dbConn.execute(cp, (conn) -> conn.getMetaData());
+            // the meta data is used after the statement returns, keep it off the connection pool
+            return dbConn.executeWithSharedConnection(cp, (conn) -> conn.getMetaData());
         } catch (SQLException sql) {
             throw sql;
         } catch (Exception ex) {
@@ -302,7 +303,23 @@ private DBRowIterator createRowIteratorConnection(final Connection conn, final E
         LOGGER.debug("Reading meta data from database ResultSet...");
         m_spec = createTableSpec(result.getMetaData());
         LOGGER.debug("Parsing database ResultSet...");
-        final RowIterator iterator = createDBRowIterator(m_spec, dbConn, m_blobFactory, useDbRowId, result);
+        RowIterator iterator = createDBRowIterator(m_spec, dbConn, m_blobFactory, useDbRowId, result);
+        if (DatabaseConnectionSettings.PREFETCH_BATCHES > 0) {
+            final int batchSize;
+            if (fetchsize > 0) {
+                batchSize = fetchsize;
+            } else {
+                // no fetch size configured, derive it from the width of the rows
+                batchSize = PrefetchingRowIterator.computeFetchSize(result.getMetaData());
+                try {
+                    result.setFetchSize(batchSize);
+                } catch (SQLException ex) {
+                    LOGGER.debug("Can't set fetch size on result set, reason: " + ex.getMessage(), ex);
+                }
+            }
+            LOGGER.debug("Prefetching database rows in batches of " + batchSize + " rows.");
+            iterator = new PrefetchingRowIterator(iterator, batchSize, DatabaseConnectionSettings.PREFETCH_BATCHES);
+        }
         return new RowIteratorConnection(conn, stmt, m_spec, iterator);
     }
 
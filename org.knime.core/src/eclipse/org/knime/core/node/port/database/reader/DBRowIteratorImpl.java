@@ -126,6 +126,12 @@ public class DBRowIteratorImpl extends RowIterator {
 
     protected final BinaryObjectCellFactory m_blobFactory;
 
+    /** Converter of each column, resolved with the first row. */
+    private CellReader[] m_readers;
+
+    /** The database type of each column, resolved with the first row. */
+    private int[] m_dbTypes;
+
     /**
      * @param spec {@link DataTableSpec}
      * @param conn {@link DatabaseConnectionSettings}
@@ -189,120 +195,19 @@ public boolean hasNext() {
      */
     @Override
     public DataRow next() {
+        if (m_readers == null) {
+            initReaders();
+        }
         DataCell[] cells = new DataCell[m_spec.getNumColumns()];
         for (int i = 0; i < cells.length; i++) {
-            DataType type = m_spec.getColumnSpec(i).getType();
-            int dbType = Types.NULL;
-            final DataCell cell;
             try {
-                dbType = m_result.getMetaData().getColumnType(i + 1);
-                if (type.isCompatible(BooleanValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as boolean
-                        case Types.BIT:
-                        case Types.BOOLEAN:
-                            cell = readBoolean(i);
-                            break;
-                        default: cell = readBoolean(i);
-                    }
-                } else if (type.isCompatible(IntValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as integer
-                        case Types.TINYINT:
-                            cell = readByte(i);
-                            break;
-                        case Types.SMALLINT:
-                            cell = readShort(i);
-                            break;
-                        case Types.INTEGER:
-                            cell = readInt(i);
-                            break;
-                        default: cell = readInt(i);
-                    }
-                } else if (type.isCompatible(LongValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as long
-                        case Types.BIGINT:
-                            cell = readLong(i);
-                            break;
-                        default: cell = readLong(i);
-                    }
-                } else if (type.isCompatible(DoubleValue.class)) {
-                    switch (dbType) {
-                        // all types that can be interpreted as double
-                        case Types.REAL:
-                            cell = readFloat(i);
-                            break;
-                        default: cell = readDouble(i);
-                    }
-                } else if (type.isCompatible(DateAndTimeValue.class)) {
-                    switch (dbType) {
-                        case Types.DATE:
-                            cell = readDate(i); break;
-                        case Types.TIME:
-                            cell = readTime(i); break;
-                        case Types.TIMESTAMP:
-                            cell = readTimestamp(i); break;
-                        default: cell = readString(i);
-                    }
-                } else if (type.isCompatible(BinaryObjectDataValue.class)) {
-                    switch (dbType) {
-                        case Types.BLOB:
-                            DataCell c = null;
-                            try {
-                                c = readBlob(i);
-                            } catch (SQLException ex) {
-                                // probably not supported (e.g. SQLite), therefore try another method
-                                c = readBytesAsBLOB(i);
-                            }
-                            cell = c;
-                            break;
-                        case Types.LONGVARCHAR:
-                        case Types.LONGNVARCHAR:
-                            cell = readAsciiStream(i); break;
-                        case Types.BINARY:
-                        case Types.LONGVARBINARY:
-                        case Types.VARBINARY:
-                            cell = readBinaryStream(i); break;
-                        default: cell = readString(i);
-                    }
-                } else {
-                    switch (dbType) {
-                        case Types.CLOB:
-                            cell = readClob(i); break;
-                        case Types.ARRAY:
-                            cell = readArray(i); break;
-                        case Types.CHAR:
-                        case Types.VARCHAR:
-                        case Types.LONGVARCHAR:
-                            cell = readString(i); break;
-                        case Types.VARBINARY:
-                            cell = readBytesAsString(i); break;
-                        case Types.REF:
-                            cell = readRef(i); break;
-                        case Types.NCHAR:
-                        case Types.NVARCHAR:
-                        case Types.LONGNVARCHAR:
-                            cell = readNString(i); break;
-                        case Types.NCLOB:
-                            cell = readNClob(i); break;
-                        case Types.DATALINK:
-                            cell = readURL(i); break;
-                        case Types.STRUCT:
-                        case Types.JAVA_OBJECT:
-                            cell = readObject(i); break;
-                        default:
-                            cell = readObject(i); break;
-
-                    }
-                }
                 // finally set the new cell into the array of cells
-                cells[i] = cell;
+                cells[i] = m_readers[i].read(i);
             } catch (SQLException sqle) {
-                handlerException("SQL Exception reading Object of type \"" + dbType + "\": ", sqle);
+                handlerException("SQL Exception reading Object of type \"" + m_dbTypes[i] + "\": ", sqle);
                 cells[i] = new MissingCell(sqle.getMessage());
             } catch (IOException ioe) {
-                handlerException("I/O Exception reading Object of type \"" + dbType + "\": ", ioe);
+                handlerException("I/O Exception reading Object of type \"" + m_dbTypes[i] + "\": ", ioe);
                 cells[i] = new MissingCell(ioe.getMessage());
             }
         }
@@ -324,6 +229,121 @@ public DataRow next() {
         return new DefaultRow(RowKey.createRowKey(rowId), cells);
     }
 
+    /**
+     * Resolves the {@link CellReader} of each column once based on the KNIME type and the database type of the
+     * column instead of doing so for every single cell.
+     */
+    private void initReaders() {
+        final int noOfCols = m_spec.getNumColumns();
+        final CellReader[] readers = new CellReader[noOfCols];
+        m_dbTypes = new int[noOfCols];
+        for (int i = 0; i < noOfCols; i++) {
+            int dbType = Types.NULL;
+            try {
+                dbType = m_result.getMetaData().getColumnType(i + 1);
+                readers[i] = getCellReader(m_spec.getColumnSpec(i).getType(), dbType);
+            } catch (SQLException sqle) {
+                handlerException("SQL Exception reading type of column " + i + ": ", sqle);
+                // fall back to the generic reader which reports any further error per cell
+                readers[i] = this::readObject;
+            }
+            m_dbTypes[i] = dbType;
+        }
+        m_readers = readers;
+    }
+
+    /**
+     * @param type the KNIME type of the column
+     * @param dbType the database type of the column as defined in {@link Types}
+     * @return the {@link CellReader} that converts the column values into {@link DataCell}s
+     */
+    private CellReader getCellReader(final DataType type, final int dbType) {
+        if (type.isCompatible(BooleanValue.class)) {
+            // all types that can be interpreted as boolean
+            return this::readBoolean;
+        } else if (type.isCompatible(IntValue.class)) {
+            switch (dbType) {
+                // all types that can be interpreted as integer
+                case Types.TINYINT:
+                    return this::readByte;
+                case Types.SMALLINT:
+                    return this::readShort;
+                default:
+                    return this::readInt;
+            }
+        } else if (type.isCompatible(LongValue.class)) {
+            // all types that can be interpreted as long
+            return this::readLong;
+        } else if (type.isCompatible(DoubleValue.class)) {
+            switch (dbType) {
+                // all types that can be interpreted as double
+                case Types.REAL:
+                    return this::readFloat;
+                default:
+                    return this::readDouble;
+            }
+        } else if (type.isCompatible(DateAndTimeValue.class)) {
+            switch (dbType) {
+                case Types.DATE:
+                    return this::readDate;
+                case Types.TIME:
+                    return this::readTime;
+                case Types.TIMESTAMP:
+                    return this::readTimestamp;
+                default:
+                    return this::readString;
+            }
+        } else if (type.isCompatible(BinaryObjectDataValue.class)) {
+            switch (dbType) {
+                case Types.BLOB:
+                    return i -> {
+                        try {
+                            return readBlob(i);
+                        } catch (SQLException ex) {
+                            // probably not supported (e.g. SQLite), therefore try another method
+                            return readBytesAsBLOB(i);
+                        }
+                    };
+                case Types.LONGVARCHAR:
+                case Types.LONGNVARCHAR:
+                    return this::readAsciiStream;
+                case Types.BINARY:
+                case Types.LONGVARBINARY:
+                case Types.VARBINARY:
+                    return this::readBinaryStream;
+                default:
+                    return this::readString;
+            }
+        } else {
+            switch (dbType) {
+                case Types.CLOB:
+                    return this::readClob;
+                case Types.ARRAY:
+                    return this::readArray;
+                case Types.CHAR:
+                case Types.VARCHAR:
+                case Types.LONGVARCHAR:
+                    return this::readString;
+                case Types.VARBINARY:
+                    return this::readBytesAsString;
+                case Types.REF:
+                    return this::readRef;
+                case Types.NCHAR:
+                case Types.NVARCHAR:
+                case Types.LONGNVARCHAR:
+                    return this::readNString;
+                case Types.NCLOB:
+                    return this::readNClob;
+                case Types.DATALINK:
+                    return this::readURL;
+                case Types.STRUCT:
+                case Types.JAVA_OBJECT:
+                default:
+                    return this::readObject;
+            }
+        }
+    }
+
     protected DataCell readClob(final int i)
             throws IOException, SQLException {
         Clob clob = m_result.getClob(i + 1);
@@ -626,4 +646,10 @@ protected void handlerException(final String msg, final Exception ex) {
                 + "and reported on debug level only", ex);
         }
     }
-}
\ No newline at end of file
+
+    /** Converts the value of a column of the current result set row into a {@link DataCell}. */
+    @FunctionalInterface
+    private interface CellReader {
+        DataCell read(int i) throws SQLException, IOException;
+    }
+}
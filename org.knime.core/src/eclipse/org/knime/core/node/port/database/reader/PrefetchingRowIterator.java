@@ -0,0 +1,276 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.database.reader;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.util.ThreadUtils;
+
+/**
+ * Row iterator that reads the rows of another (database) row iterator in a background thread. The rows are handed
+ * over in batches via a bounded queue so that fetching and converting the database rows overlaps with the
+ * processing of the rows by the consumer.
+ *
+ * <p>No public API.</p>
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PrefetchingRowIterator extends CloseableRowIterator {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(PrefetchingRowIterator.class);
+
+    /** Approximate number of bytes fetched from the database in one round trip. */
+    private static final long TARGET_FETCH_BYTES = 4L * 1024 * 1024;
+
+    /** Lower bound of the computed fetch size. */
+    static final int MIN_FETCH_SIZE = 100;
+
+    /** Upper bound of the computed fetch size. */
+    static final int MAX_FETCH_SIZE = 10000;
+
+    /** Marks the end of the input, compared by identity. */
+    private static final List<DataRow> END_OF_INPUT = Collections.unmodifiableList(new ArrayList<>(0));
+
+    private final RowIterator m_source;
+
+    private final int m_batchSize;
+
+    private final BlockingQueue<List<DataRow>> m_queue;
+
+    private final Thread m_fetcher;
+
+    private volatile boolean m_closed;
+
+    private volatile Throwable m_failure;
+
+    private List<DataRow> m_current = Collections.emptyList();
+
+    private int m_index;
+
+    private boolean m_endReached;
+
+    /**
+     * @param source the iterator to read from in the background
+     * @param batchSize number of rows handed over at once
+     * @param maxBatches maximum number of batches that are read ahead
+     */
+    PrefetchingRowIterator(final RowIterator source, final int batchSize, final int maxBatches) {
+        m_source = source;
+        m_batchSize = Math.max(1, batchSize);
+        m_queue = new ArrayBlockingQueue<>(Math.max(1, maxBatches));
+        m_fetcher = ThreadUtils.threadWithContext(this::fetch, "KNIME-DB-Prefetch");
+        m_fetcher.setDaemon(true);
+        m_fetcher.start();
+    }
+
+    private void fetch() {
+        try {
+            while (!m_closed && m_source.hasNext()) {
+                final List<DataRow> batch = new ArrayList<>(m_batchSize);
+                do {
+                    batch.add(m_source.next());
+                } while (batch.size() < m_batchSize && !m_closed && m_source.hasNext());
+                if (!offer(batch)) {
+                    return;
+                }
+            }
+        } catch (Throwable t) { // NOSONAR the error is rethrown in the consumer thread
+            m_failure = t;
+        }
+        offer(END_OF_INPUT);
+    }
+
+    /** @return <code>false</code> if the iterator has been closed while waiting for free space in the queue */
+    private boolean offer(final List<DataRow> batch) {
+        try {
+            while (!m_queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (m_closed) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean hasNext() {
+        while (m_index >= m_current.size()) {
+            if (m_endReached || m_closed) {
+                return false;
+            }
+            try {
+                m_current = m_queue.take();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for rows from the database", ex);
+            }
+            m_index = 0;
+            if (m_current == END_OF_INPUT) {
+                m_endReached = true;
+                final Throwable failure = m_failure;
+                if (failure instanceof RuntimeException) {
+                    throw (RuntimeException)failure;
+                } else if (failure instanceof Error) {
+                    throw (Error)failure;
+                } else if (failure != null) {
+                    throw new IllegalStateException(failure.getMessage(), failure);
+                }
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No more rows");
+        }
+        return m_current.get(m_index++);
+    }
+
+    /**
+     * Stops the background thread and waits for its termination so that the underlying result set can safely be
+     * closed afterwards.
+     */
+    @Override
+    public void close() {
+        if (m_closed) {
+            return;
+        }
+        m_closed = true;
+        m_queue.clear();
+        try {
+            m_fetcher.join();
+        } catch (InterruptedException ex) {
+            LOGGER.debug("Interrupted while waiting for the database prefetch thread to terminate", ex);
+            Thread.currentThread().interrupt();
+        }
+        m_current = Collections.emptyList();
+    }
+
+    /**
+     * Computes a fetch size so that each round trip to the database transfers roughly the same amount of data
+     * independent of the number and type of the columns.
+     *
+     * @param meta the meta data of the result set
+     * @return the fetch size to use
+     * @throws SQLException if the meta data can not be accessed
+     */
+    static int computeFetchSize(final ResultSetMetaData meta) throws SQLException {
+        long rowWidth = 0;
+        for (int i = 1; i <= meta.getColumnCount(); i++) {
+            rowWidth += estimateColumnWidth(meta.getColumnType(i), meta.getPrecision(i));
+        }
+        return computeFetchSize(rowWidth);
+    }
+
+    /**
+     * @param rowWidth the estimated width of a row in bytes
+     * @return the fetch size for rows of the given width
+     */
+    static int computeFetchSize(final long rowWidth) {
+        final long fetchSize = TARGET_FETCH_BYTES / Math.max(1, rowWidth);
+        return (int)Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, fetchSize));
+    }
+
+    private static int estimateColumnWidth(final int dbType, final int precision) {
+        switch (dbType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+            case Types.TINYINT:
+                return 1;
+            case Types.SMALLINT:
+                return 2;
+            case Types.INTEGER:
+            case Types.REAL:
+            case Types.DATE:
+            case Types.TIME:
+                return 4;
+            case Types.BIGINT:
+            case Types.DOUBLE:
+            case Types.FLOAT:
+            case Types.TIMESTAMP:
+                return 8;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return 16;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.BINARY:
+            case Types.VARBINARY:
+                // the precision is the maximum length which is often much larger than the actual values
+                return precision > 0 ? Math.min(precision, 256) : 64;
+            default:
+                // LOBs, arrays and other objects
+                return 1024;
+        }
+    }
+}
@@ -126,6 +126,42 @@ String writeData(String table, RowInput input, final long rowCount, boolean appe
         Map<String, String> sqlTypes, CredentialsProvider cp, int batchSize, boolean insertNullForMissingCols,
         boolean failOnError) throws Exception;
 
+    /** Create connection to write into database. If the parallelism is larger than one the input is partitioned
+     * into batches that are written by the given number of dedicated database connections in parallel. Each
+     * connection uses its own prepared statement and transaction; all transactions are committed once the input
+     * has been written completely. The default implementation ignores the parallelism and writes the data
+     * using a single connection.
+     * <p>
+     * <b>The parallel mode is not atomic.</b> The transactions of the partitions are committed one after another.
+     * If a commit fails, the partitions committed before remain in the table and the thrown exception reports
+     * them along with their row count. Callers that cannot tolerate partial data must use a parallelism of one
+     * (or write into a staging table). With <code>failOnError</code> a partition failing while writing rolls back
+     * all partitions.
+     * @param table name of table to write
+     * @param input the data table as as row input
+     * @param rowCount number of row of the table to write, -1 if unknown
+     * @param appendData if checked the data is appended to an existing table
+     * @param exec Used the cancel writing.
+     * @param sqlTypes A mapping from column name to SQL-type.
+     * @param cp {@link CredentialsProvider} providing user/password
+     * @param batchSize number of rows written in one batch
+     * @param insertNullForMissingCols <code>true</code> if <code>null</code> should be inserted for missing columns
+     * @param failOnError <code>true</code> if the node should fail with invalid input data otherwise it will
+     * return a warning if an error occurs
+     * @param parallelism the number of database connections to write with, values smaller than 2 disable the
+     * parallel mode
+     * @return error string or null, if non
+     * @throws Exception if connection could not be established
+     * @since 4.5
+     */
+    default String writeData(final String table, final RowInput input, final long rowCount,
+        final boolean appendData, final ExecutionMonitor exec, final Map<String, String> sqlTypes,
+        final CredentialsProvider cp, final int batchSize, final boolean insertNullForMissingCols,
+        final boolean failOnError, final int parallelism) throws Exception {
+        return writeData(table, input, rowCount, appendData, exec, sqlTypes, cp, batchSize, insertNullForMissingCols,
+            failOnError);
+    }
+
     /** Update rows in the given database table.
      * @param schema optional db schema
      * @param table name of table to write
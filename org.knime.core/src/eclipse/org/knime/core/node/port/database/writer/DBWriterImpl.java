@@ -44,16 +44,29 @@
  */
 package org.knime.core.node.port.database.writer;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.knime.core.data.BooleanValue;
 import org.knime.core.data.DataCell;
@@ -74,6 +87,7 @@
 import org.knime.core.node.port.database.DatabaseHelper;
 import org.knime.core.node.streamable.RowInput;
 import org.knime.core.node.workflow.CredentialsProvider;
+import org.knime.core.util.ThreadUtils;
 
 /**
  * Creates a connection to write to database.
@@ -87,6 +101,10 @@ public class DBWriterImpl extends DatabaseHelper implements DBWriter {
 
     private static final NodeLogger LOGGER = NodeLogger.getLogger(DBWriterImpl.class);
 
+    /** Runs the partition writers of the parallel write mode. */
+    private static final ExecutorService PARTITION_EXECUTOR =
+        ThreadUtils.executorServiceWithContext(Executors.newCachedThreadPool());
+
     /**
      * @param conn {@link DatabaseConnectionSettings}
      */
@@ -104,212 +122,15 @@ public String writeData(final String table, final RowInput input, final long row
         final ExecutionMonitor exec, final Map<String, String> sqlTypes, final CredentialsProvider cp,
         final int batchSize, final boolean insertNullForMissingCols, final boolean failOnError) throws Exception {
         final DatabaseConnectionSettings conSettings = getDatabaseConnectionSettings();
-//        final Connection conn = conSettings.createConnection(cp);
         return conSettings.execute(cp, conn -> {
-        exec.setMessage("Waiting for free database connection...");
-        final StringBuilder columnNamesForInsertStatement = new StringBuilder("(");
-//        synchronized (conSettings.syncConnection(conn)) {
             exec.setMessage("Start writing rows in database...");
-            DataTableSpec spec = input.getDataTableSpec();
+            final DataTableSpec spec = input.getDataTableSpec();
+            final InsertStatement insert =
+                prepareInsert(conn, table, spec, appendData, sqlTypes, insertNullForMissingCols);
             // mapping from spec columns to database columns
-            final int[] mapping;
-            // append data to existing table
-            if (appendData) {
-                if (conSettings.getUtility().tableExists(conn, table)) {
-                    String query =
-                        conSettings.getUtility().getStatementManipulator().forMetadataOnly("SELECT * FROM " + table);
-                    try (ResultSet rs = conn.createStatement().executeQuery(query)) {
-                        ResultSetMetaData rsmd = rs.getMetaData();
-                        final Map<String, Integer> columnNames =
-                                new LinkedHashMap<String, Integer>();
-                        for (int i = 0; i < spec.getNumColumns(); i++) {
-                            String colName = replaceColumnName(spec.getColumnSpec(i).getName());
-                            columnNames.put(colName.toLowerCase(), i);
-                        }
-
-                        // sanity check to lock if all input columns are in db
-                        ArrayList<String> columnNotInSpec = new ArrayList<String>(
-                                columnNames.keySet());
-                        for (int i = 0; i < rsmd.getColumnCount(); i++) {
-                            String dbColName = replaceColumnName(rsmd.getColumnName(i + 1));
-                            if (columnNames.containsKey(dbColName.toLowerCase())) {
-                                columnNotInSpec.remove(dbColName.toLowerCase());
-                                columnNamesForInsertStatement.append(dbColName).append(',');
-                            } else if (insertNullForMissingCols) {
-                                //append the column name of a missing column only if the insert null for missing
-                                //column option is enabled
-                                columnNamesForInsertStatement.append(dbColName).append(',');
-                            }
-                        }
-                        if (rsmd.getColumnCount() > 0) {
-                            columnNamesForInsertStatement.deleteCharAt(columnNamesForInsertStatement.length() - 1);
-                        }
-                        columnNamesForInsertStatement.append(')');
-
-                        if (columnNotInSpec.size() > 0) {
-                            throw new RuntimeException("No. of columns in input"
-                                    + " table > in database; not existing columns: "
-                                    + columnNotInSpec.toString());
-                        }
-                        mapping = new int[rsmd.getColumnCount()];
-                        for (int i = 0; i < mapping.length; i++) {
-                            String name = replaceColumnName(rsmd.getColumnName(i + 1)).toLowerCase();
-                            if (!columnNames.containsKey(name)) {
-                                mapping[i] = -1;
-                                continue;
-                            }
-                            mapping[i] = columnNames.get(name);
-                            DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
-                            int type = rsmd.getColumnType(i + 1);
-                            switch (type) {
-                                // check all boolean compatible types
-                                case Types.BIT:
-                                case Types.BOOLEAN:
-                                    // types must be compatible to BooleanValue
-                                    if (!cspec.getType().isCompatible(BooleanValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                    // check all int compatible types
-                                case Types.TINYINT:
-                                case Types.SMALLINT:
-                                case Types.INTEGER:
-                                    // types must be compatible to IntValue
-                                    if (!cspec.getType().isCompatible(IntValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                case Types.BIGINT:
-                                    // types must also be compatible to LongValue
-                                    if (!cspec.getType().isCompatible(LongValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                    // check all double compatible types
-                                case Types.FLOAT:
-                                case Types.DOUBLE:
-                                case Types.NUMERIC:
-                                case Types.DECIMAL:
-                                case Types.REAL:
-                                    // types must also be compatible to DoubleValue
-                                    if (!cspec.getType().isCompatible(DoubleValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                    // check for date-and-time compatible types
-                                case Types.DATE:
-                                case Types.TIME:
-                                case Types.TIMESTAMP:
-                                    // types must also be compatible to DataValue
-                                    if (!cspec.getType().isCompatible(DateAndTimeValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                    // check for blob compatible types
-                                case Types.BLOB:
-                                case Types.BINARY:
-                                case Types.LONGVARBINARY:
-                                    // types must also be compatible to DataValue
-                                    if (!cspec.getType().isCompatible(BinaryObjectDataValue.class)) {
-                                        throw new RuntimeException("Column \"" + name
-                                            + "\" of type \"" + cspec.getType()
-                                            + "\" from input does not match type "
-                                            + "\"" + rsmd.getColumnTypeName(i + 1)
-                                            + "\" in database at position " + i);
-                                    }
-                                    break;
-                                    // all other cases are defined as StringValue types
-                            }
-                        }
-                    }
-                } else {
-                    LOGGER.info("Table \"" + table
-                        + "\" does not exist in database, "
-                        + "will create new table.");
-                    // and create new table
-                    final String query =
-                            "CREATE TABLE " + table + " "
-                                    + createTableStmt(spec, sqlTypes, columnNamesForInsertStatement);
-                    LOGGER.debug("Executing SQL statement as execute: " + query);
-                    try (Statement statement = conn.createStatement()) {
-                        statement.execute(query);
-                    }
-                    if (!conn.getAutoCommit()) {
-                        conn.commit();
-                    }
-                    mapping = new int[spec.getNumColumns()];
-                    for (int k = 0; k < mapping.length; k++) {
-                        mapping[k] = k;
-                    }
-                }
-            } else {
-                LOGGER.debug("Append not enabled. Table " + table + " will be dropped if exists.");
-                mapping = new int[spec.getNumColumns()];
-                for (int k = 0; k < mapping.length; k++) {
-                    mapping[k] = k;
-                }
-                Statement statement = null;
-                try {
-                    statement = conn.createStatement();
-                    // remove existing table (if any)
-                    final String query = "DROP TABLE " + table;
-                    LOGGER.debug("Executing SQL statement as execute: " + query);
-                    statement.execute(query);
-                } catch (Throwable t) {
-                    if (statement == null) {
-                        throw new SQLException("Could not create SQL statement,"
-                            + " reason: " + t.getMessage(), t);
-                    }
-                    LOGGER.info("Exception droping table \"" + table + "\": " + t.getMessage()
-                        + ". Will create new table.");
-                } finally {
-                    if (!conn.getAutoCommit()) {
-                        conn.commit();
-                    }
-                }
-                // and create new table
-                final String query =
-                    "CREATE TABLE " + table + " " + createTableStmt(spec, sqlTypes, columnNamesForInsertStatement);
-                LOGGER.debug("Executing SQL statement as execute: " + query);
-                statement.execute(query);
-                statement.close();
-                if (!conn.getAutoCommit()) {
-                    conn.commit();
-                }
-            }
-
-            // this is a (temporary) workaround for bug #5802: if there is a DataValue column in the input table
-            // we need to use the SQL type for creating the insert statements.
-            Map<Integer, Integer> columnTypes = null;
-            for (DataColumnSpec cs : spec) {
-                if (cs.getType().getPreferredValueClass() == DataValue.class) {
-                    columnTypes = getColumnTypes(conn, table);
-                    break;
-                }
-            }
-
-            final String insertStamtement =
-                    createInsertStatment(table, columnNamesForInsertStatement.toString(), mapping, insertNullForMissingCols);
+            final int[] mapping = insert.m_mapping;
+            final Map<Integer, Integer> columnTypes = insert.m_columnTypes;
+            final String insertStamtement = insert.m_sql;
 
             // problems writing more than 13 columns. the prepare statement
             // ensures that we can set the columns directly row-by-row, the
@@ -341,19 +162,7 @@ public String writeData(final String table, final RowInput input, final long row
                             exec.setProgress("Writing Row#" + cnt);
                         }
 
-                    int dbIdx = 1;
-                    for (int i = 0; i < mapping.length; i++) {
-                        if (mapping[i] < 0) {
-                            if (insertNullForMissingCols) {
-                                //insert only null if the insert null for missing col option is enabled
-                                stmt.setNull(dbIdx++, Types.NULL);
-                            }
-                        } else {
-                            final DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
-                            final DataCell cell = row.getCell(mapping[i]);
-                            fillStatement(stmt, dbIdx++, cspec, cell, timezone, columnTypes);
-                        }
-                    }
+                    fillRow(stmt, row, spec, mapping, columnTypes, timezone, insertNullForMissingCols);
                     // if batch mode
                     if (batchSize > 1) {
                         // a new row will be added
@@ -439,6 +248,410 @@ public String writeData(final String table, final RowInput input, final long row
         });
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String writeData(final String table, final RowInput input, final long rowCount, final boolean appendData,
+        final ExecutionMonitor exec, final Map<String, String> sqlTypes, final CredentialsProvider cp,
+        final int batchSize, final boolean insertNullForMissingCols, final boolean failOnError,
+        final int parallelism) throws Exception {
+        if (parallelism <= 1) {
+            return writeData(table, input, rowCount, appendData, exec, sqlTypes, cp, batchSize,
+                insertNullForMissingCols, failOnError);
+        }
+        final DatabaseConnectionSettings conSettings = getDatabaseConnectionSettings();
+        exec.setMessage("Opening " + parallelism + " database connections...");
+        final List<Connection> connections = new ArrayList<>(parallelism);
+        try {
+            for (int i = 0; i < parallelism; i++) {
+                connections.add(conSettings.getUtility().getConnectionFactory().createUncachedConnection(cp,
+                    conSettings));
+            }
+        } catch (SQLFeatureNotSupportedException ex) {
+            closeAll(connections);
+            LOGGER.info("Database connection factory does not support parallel writing, falling back to a single "
+                + "connection. Reason: " + ex.getMessage());
+            return writeData(table, input, rowCount, appendData, exec, sqlTypes, cp, batchSize,
+                insertNullForMissingCols, failOnError);
+        } catch (Exception ex) {
+            closeAll(connections);
+            throw ex;
+        }
+        try {
+            exec.setMessage("Start writing rows in database...");
+            final DataTableSpec spec = input.getDataTableSpec();
+            final InsertStatement insert = conSettings.execute(cp,
+                conn -> prepareInsert(conn, table, spec, appendData, sqlTypes, insertNullForMissingCols));
+            final TimeZone timezone = conSettings.getTimeZone();
+            final BlockingQueue<RowBatch> queue = new ArrayBlockingQueue<>(2 * parallelism);
+            final AtomicBoolean abort = new AtomicBoolean();
+            final List<PartitionWriter> writers = new ArrayList<>(parallelism);
+            final List<Future<Void>> futures = new ArrayList<>(parallelism);
+            for (int i = 0; i < parallelism; i++) {
+                final PartitionWriter writer = new PartitionWriter(i + 1, connections.get(i), insert, spec,
+                    timezone, batchSize, insertNullForMissingCols, failOnError, queue, abort);
+                writers.add(writer);
+                futures.add(PARTITION_EXECUTOR.submit(writer));
+            }
+            long cnt = 0;
+            boolean success = false;
+            try {
+                final int rowsPerBatch = Math.max(1, batchSize);
+                List<DataRow> rows = new ArrayList<>(rowsPerBatch);
+                DataRow row;
+                while ((row = input.poll()) != null) {
+                    cnt++;
+                    exec.checkCanceled();
+                    if (rowCount > 0) {
+                        exec.setProgress(1.0 * cnt / rowCount, "Row " + "#" + cnt);
+                    } else {
+                        exec.setProgress("Writing Row#" + cnt);
+                    }
+                    rows.add(row);
+                    if (rows.size() == rowsPerBatch) {
+                        if (!enqueue(queue, new RowBatch(cnt - rows.size() + 1, rows), abort, exec)) {
+                            break;
+                        }
+                        rows = new ArrayList<>(rowsPerBatch);
+                    }
+                }
+                if (!rows.isEmpty() && !abort.get()) {
+                    enqueue(queue, new RowBatch(cnt - rows.size() + 1, rows), abort, exec);
+                }
+                for (int i = 0; i < parallelism; i++) {
+                    if (!enqueue(queue, RowBatch.END_OF_INPUT, abort, exec)) {
+                        break;
+                    }
+                }
+                // wait for all partitions before deciding about commit or rollback
+                for (Future<Void> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException ee) {
+                        final Throwable cause = ee.getCause();
+                        throw cause instanceof Exception ? (Exception)cause : new Exception(cause);
+                    }
+                }
+                // the partitions use independent transactions, a failing commit cannot undo the previous ones
+                final List<PartitionWriter> committed = new ArrayList<>(parallelism);
+                for (PartitionWriter writer : writers) {
+                    try {
+                        writer.commit();
+                    } catch (SQLException ex) {
+                        throw new SQLException(createPartialCommitMessage(table, committed, writer, ex), ex);
+                    }
+                    committed.add(writer);
+                }
+                success = true;
+            } finally {
+                if (!success) {
+                    abort.set(true);
+                    for (Future<Void> future : futures) {
+                        try {
+                            future.get();
+                        } catch (ExecutionException ee) {
+                            // already reported to the caller
+                        }
+                    }
+                    for (PartitionWriter writer : writers) {
+                        writer.rollback();
+                    }
+                }
+            }
+            long allErrors = 0;
+            final StringBuilder partitionErrors = new StringBuilder();
+            for (PartitionWriter writer : writers) {
+                if (writer.m_allErrors > 0) {
+                    allErrors += writer.m_allErrors;
+                    partitionErrors.append(partitionErrors.length() == 0 ? " (" : ", ");
+                    partitionErrors.append("partition ").append(writer.m_partition).append(": ")
+                        .append(writer.m_allErrors);
+                }
+            }
+            if (allErrors == 0) {
+                return null;
+            }
+            partitionErrors.append(')');
+            return "Errors \"" + allErrors + "\" writing " + cnt + " rows" + partitionErrors + ".";
+        } finally {
+            closeAll(connections);
+        }
+    }
+
+    private static String createPartialCommitMessage(final String table, final List<PartitionWriter> committed,
+        final PartitionWriter failed, final SQLException ex) {
+        final StringBuilder msg = new StringBuilder("Committing partition ").append(failed.m_partition)
+            .append(" failed: ").append(ex.getMessage());
+        if (committed.isEmpty()) {
+            return msg.toString();
+        }
+        long rows = 0;
+        final StringBuilder partitions = new StringBuilder();
+        for (PartitionWriter writer : committed) {
+            rows += writer.m_rowCount;
+            partitions.append(partitions.length() == 0 ? "" : ", ").append(writer.m_partition);
+        }
+        return msg.append(". Table \"").append(table).append("\" contains partial data, ").append(rows)
+            .append(" rows of partition(s) ").append(partitions).append(" have already been committed.").toString();
+    }
+
+    /**
+     * Puts the batch into the queue while checking for cancellation.
+     * @return <code>false</code> if one of the partitions failed and writing needs to be aborted
+     */
+    private static boolean enqueue(final BlockingQueue<RowBatch> queue, final RowBatch batch,
+        final AtomicBoolean abort, final ExecutionMonitor exec) throws Exception {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+            exec.checkCanceled();
+            if (abort.get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void closeAll(final List<Connection> connections) {
+        for (Connection conn : connections) {
+            try {
+                if (!conn.isClosed()) {
+                    conn.close();
+                }
+            } catch (Exception ex) {
+                LOGGER.debug("Error closing connection: " + ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Creates or drops the table if necessary and returns the insert statement along with the mapping from database
+     * columns to input columns.
+     */
+    private InsertStatement prepareInsert(final Connection conn, final String table, final DataTableSpec spec,
+        final boolean appendData, final Map<String, String> sqlTypes, final boolean insertNullForMissingCols)
+        throws Exception {
+        final DatabaseConnectionSettings conSettings = getDatabaseConnectionSettings();
+        final StringBuilder columnNamesForInsertStatement = new StringBuilder("(");
+        // mapping from spec columns to database columns
+        final int[] mapping;
+        // append data to existing table
+        if (appendData) {
+            if (conSettings.getUtility().tableExists(conn, table)) {
+                String query =
+                    conSettings.getUtility().getStatementManipulator().forMetadataOnly("SELECT * FROM " + table);
+                try (ResultSet rs = conn.createStatement().executeQuery(query)) {
+                    ResultSetMetaData rsmd = rs.getMetaData();
+                    final Map<String, Integer> columnNames =
+                            new LinkedHashMap<String, Integer>();
+                    for (int i = 0; i < spec.getNumColumns(); i++) {
+                        String colName = replaceColumnName(spec.getColumnSpec(i).getName());
+                        columnNames.put(colName.toLowerCase(), i);
+                    }
+
+                    // sanity check to lock if all input columns are in db
+                    ArrayList<String> columnNotInSpec = new ArrayList<String>(
+                            columnNames.keySet());
+                    for (int i = 0; i < rsmd.getColumnCount(); i++) {
+                        String dbColName = replaceColumnName(rsmd.getColumnName(i + 1));
+                        if (columnNames.containsKey(dbColName.toLowerCase())) {
+                            columnNotInSpec.remove(dbColName.toLowerCase());
+                            columnNamesForInsertStatement.append(dbColName).append(',');
+                        } else if (insertNullForMissingCols) {
+                            //append the column name of a missing column only if the insert null for missing
+                            //column option is enabled
+                            columnNamesForInsertStatement.append(dbColName).append(',');
+                        }
+                    }
+                    if (rsmd.getColumnCount() > 0) {
+                        columnNamesForInsertStatement.deleteCharAt(columnNamesForInsertStatement.length() - 1);
+                    }
+                    columnNamesForInsertStatement.append(')');
+
+                    if (columnNotInSpec.size() > 0) {
+                        throw new RuntimeException("No. of columns in input"
+                                + " table > in database; not existing columns: "
+                                + columnNotInSpec.toString());
+                    }
+                    mapping = new int[rsmd.getColumnCount()];
+                    for (int i = 0; i < mapping.length; i++) {
+                        String name = replaceColumnName(rsmd.getColumnName(i + 1)).toLowerCase();
+                        if (!columnNames.containsKey(name)) {
+                            mapping[i] = -1;
+                            continue;
+                        }
+                        mapping[i] = columnNames.get(name);
+                        DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
+                        int type = rsmd.getColumnType(i + 1);
+                        switch (type) {
+                            // check all boolean compatible types
+                            case Types.BIT:
+                            case Types.BOOLEAN:
+                                // types must be compatible to BooleanValue
+                                if (!cspec.getType().isCompatible(BooleanValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                                // check all int compatible types
+                            case Types.TINYINT:
+                            case Types.SMALLINT:
+                            case Types.INTEGER:
+                                // types must be compatible to IntValue
+                                if (!cspec.getType().isCompatible(IntValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                            case Types.BIGINT:
+                                // types must also be compatible to LongValue
+                                if (!cspec.getType().isCompatible(LongValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                                // check all double compatible types
+                            case Types.FLOAT:
+                            case Types.DOUBLE:
+                            case Types.NUMERIC:
+                            case Types.DECIMAL:
+                            case Types.REAL:
+                                // types must also be compatible to DoubleValue
+                                if (!cspec.getType().isCompatible(DoubleValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                                // check for date-and-time compatible types
+                            case Types.DATE:
+                            case Types.TIME:
+                            case Types.TIMESTAMP:
+                                // types must also be compatible to DataValue
+                                if (!cspec.getType().isCompatible(DateAndTimeValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                                // check for blob compatible types
+                            case Types.BLOB:
+                            case Types.BINARY:
+                            case Types.LONGVARBINARY:
+                                // types must also be compatible to DataValue
+                                if (!cspec.getType().isCompatible(BinaryObjectDataValue.class)) {
+                                    throw new RuntimeException("Column \"" + name
+                                        + "\" of type \"" + cspec.getType()
+                                        + "\" from input does not match type "
+                                        + "\"" + rsmd.getColumnTypeName(i + 1)
+                                        + "\" in database at position " + i);
+                                }
+                                break;
+                                // all other cases are defined as StringValue types
+                        }
+                    }
+                }
+            } else {
+                LOGGER.info("Table \"" + table
+                    + "\" does not exist in database, "
+                    + "will create new table.");
+                // and create new table
+                final String query =
+                        "CREATE TABLE " + table + " "
+                                + createTableStmt(spec, sqlTypes, columnNamesForInsertStatement);
+                LOGGER.debug("Executing SQL statement as execute: " + query);
+                try (Statement statement = conn.createStatement()) {
+                    statement.execute(query);
+                }
+                if (!conn.getAutoCommit()) {
+                    conn.commit();
+                }
+                mapping = new int[spec.getNumColumns()];
+                for (int k = 0; k < mapping.length; k++) {
+                    mapping[k] = k;
+                }
+            }
+        } else {
+            LOGGER.debug("Append not enabled. Table " + table + " will be dropped if exists.");
+            mapping = new int[spec.getNumColumns()];
+            for (int k = 0; k < mapping.length; k++) {
+                mapping[k] = k;
+            }
+            Statement statement = null;
+            try {
+                statement = conn.createStatement();
+                // remove existing table (if any)
+                final String query = "DROP TABLE " + table;
+                LOGGER.debug("Executing SQL statement as execute: " + query);
+                statement.execute(query);
+            } catch (Throwable t) {
+                if (statement == null) {
+                    throw new SQLException("Could not create SQL statement,"
+                        + " reason: " + t.getMessage(), t);
+                }
+                LOGGER.info("Exception droping table \"" + table + "\": " + t.getMessage()
+                    + ". Will create new table.");
+            } finally {
+                if (!conn.getAutoCommit()) {
+                    conn.commit();
+                }
+            }
+            // and create new table
+            final String query =
+                "CREATE TABLE " + table + " " + createTableStmt(spec, sqlTypes, columnNamesForInsertStatement);
+            LOGGER.debug("Executing SQL statement as execute: " + query);
+            statement.execute(query);
+            statement.close();
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+        }
+
+        // this is a (temporary) workaround for bug #5802: if there is a DataValue column in the input table
+        // we need to use the SQL type for creating the insert statements.
+        Map<Integer, Integer> columnTypes = null;
+        for (DataColumnSpec cs : spec) {
+            if (cs.getType().getPreferredValueClass() == DataValue.class) {
+                columnTypes = getColumnTypes(conn, table);
+                break;
+            }
+        }
+
+        final String insertStamtement =
+                createInsertStatment(table, columnNamesForInsertStatement.toString(), mapping, insertNullForMissingCols);
+        return new InsertStatement(insertStamtement, mapping, columnTypes);
+    }
+
+    private void fillRow(final PreparedStatement stmt, final DataRow row, final DataTableSpec spec,
+        final int[] mapping, final Map<Integer, Integer> columnTypes, final TimeZone timezone,
+        final boolean insertNullForMissingCols) throws SQLException {
+        int dbIdx = 1;
+        for (int i = 0; i < mapping.length; i++) {
+            if (mapping[i] < 0) {
+                if (insertNullForMissingCols) {
+                    //insert only null if the insert null for missing col option is enabled
+                    stmt.setNull(dbIdx++, Types.NULL);
+                }
+            } else {
+                final DataColumnSpec cspec = spec.getColumnSpec(mapping[i]);
+                final DataCell cell = row.getCell(mapping[i]);
+                fillStatement(stmt, dbIdx++, cspec, cell, timezone, columnTypes);
+            }
+        }
+    }
+
     /** Create connection to update table in database.
      * @param data The data to write.
      * @param setColumns columns part of the SET clause
@@ -718,4 +931,161 @@ public final String deleteRows(final String schema,
             }
         });
     }
+
+    /** The insert statement along with the mapping from database columns to input columns. */
+    private static final class InsertStatement {
+        private final String m_sql;
+        private final int[] m_mapping;
+        private final Map<Integer, Integer> m_columnTypes;
+
+        private InsertStatement(final String sql, final int[] mapping, final Map<Integer, Integer> columnTypes) {
+            m_sql = sql;
+            m_mapping = mapping;
+            m_columnTypes = columnTypes;
+        }
+    }
+
+    /** Consecutive rows of the input handed to one of the partition writers. */
+    private static final class RowBatch {
+        private static final RowBatch END_OF_INPUT = new RowBatch(-1, Collections.emptyList());
+
+        /** 1-based index of the first row in the input. */
+        private final long m_firstRow;
+        private final List<DataRow> m_rows;
+
+        private RowBatch(final long firstRow, final List<DataRow> rows) {
+            m_firstRow = firstRow;
+            m_rows = rows;
+        }
+    }
+
+    /**
+     * Writes the batches taken from the shared queue into the database using its own connection and prepared
+     * statement. Changes are committed or rolled back by the caller once all partitions are done.
+     */
+    private final class PartitionWriter implements Callable<Void> {
+        private final int m_partition;
+        private final Connection m_conn;
+        private final InsertStatement m_insert;
+        private final DataTableSpec m_spec;
+        private final TimeZone m_timezone;
+        private final int m_batchSize;
+        private final boolean m_insertNullForMissingCols;
+        private final boolean m_failOnError;
+        private final BlockingQueue<RowBatch> m_queue;
+        private final AtomicBoolean m_abort;
+        private long m_allErrors;
+        /** number of rows written by this partition (including failed ones). */
+        private long m_rowCount;
+
+        PartitionWriter(final int partition, final Connection conn, final InsertStatement insert,
+            final DataTableSpec spec, final TimeZone timezone, final int batchSize,
+            final boolean insertNullForMissingCols, final boolean failOnError, final BlockingQueue<RowBatch> queue,
+            final AtomicBoolean abort) {
+            m_partition = partition;
+            m_conn = conn;
+            m_insert = insert;
+            m_spec = spec;
+            m_timezone = timezone;
+            m_batchSize = batchSize;
+            m_insertNullForMissingCols = insertNullForMissingCols;
+            m_failOnError = failOnError;
+            m_queue = queue;
+            m_abort = abort;
+        }
+
+        @Override
+        public Void call() throws Exception {
+            DatabaseConnectionSettings.setAutoCommit(m_conn, false);
+            long errorCnt = 0;
+            try (PreparedStatement stmt = m_conn.prepareStatement(m_insert.m_sql)) {
+                while (!m_abort.get()) {
+                    final RowBatch batch = m_queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (batch == null) {
+                        continue;
+                    }
+                    if (batch == RowBatch.END_OF_INPUT) {
+                        break;
+                    }
+                    long cnt = batch.m_firstRow;
+                    for (DataRow row : batch.m_rows) {
+                        fillRow(stmt, row, m_spec, m_insert.m_mapping, m_insert.m_columnTypes, m_timezone,
+                            m_insertNullForMissingCols);
+                        if (m_batchSize > 1) {
+                            stmt.addBatch();
+                        } else {
+                            errorCnt = execute(stmt, batch, cnt, row, errorCnt);
+                        }
+                        cnt++;
+                    }
+                    m_rowCount += batch.m_rows.size();
+                    if (m_batchSize > 1) {
+                        errorCnt = execute(stmt, batch, cnt - 1, null, errorCnt);
+                    }
+                }
+            } catch (Exception ex) {
+                m_abort.set(true);
+                throw ex;
+            }
+            return null;
+        }
+
+        private long execute(final PreparedStatement stmt, final RowBatch batch, final long cnt, final DataRow row,
+            final long errorCnt) throws Exception {
+            try {
+                if (m_batchSize > 1) {
+                    stmt.executeBatch();
+                } else {
+                    stmt.execute();
+                }
+                return errorCnt;
+            } catch (Throwable t) {
+                final String errorMsg;
+                if (row == null) {
+                    errorMsg = "Error while adding rows #" + batch.m_firstRow + " - #" + cnt + " in partition "
+                        + m_partition + ", reason: " + t.getMessage();
+                } else {
+                    errorMsg = "Error while adding row #" + cnt + " (" + row.getKey() + ") in partition "
+                        + m_partition + ", reason: " + t.getMessage();
+                }
+                if (m_failOnError) {
+                    throw new Exception(errorMsg, t);
+                }
+                // Postgres will refuse any more commands in this transaction after errors
+                // Therefore we commit the changes that were possible.
+                if (!m_conn.getAutoCommit()) {
+                    m_conn.commit();
+                }
+                m_allErrors++;
+                if (errorCnt > -1) {
+                    if (errorCnt < 10) {
+                        LOGGER.warn(errorMsg);
+                        return errorCnt + 1;
+                    }
+                    LOGGER.warn(errorMsg + " - more errors...", t);
+                }
+                return -1;
+            } finally {
+                if (m_batchSize > 1) {
+                    stmt.clearBatch();
+                }
+            }
+        }
+
+        void commit() throws SQLException {
+            if (!m_conn.getAutoCommit()) {
+                m_conn.commit();
+            }
+        }
+
+        void rollback() {
+            try {
+                m_conn.rollback();
+                LOGGER.debug("Rollback transaction of partition " + m_partition);
+            } catch (Throwable ex) {
+                LOGGER.info("Failed rollback of partition " + m_partition + " after db exception. Rollback error: "
+                    + ex.getMessage(), ex);
+            }
+        }
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.port.pmml;
+
+import java.lang.ref.SoftReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.xmlbeans.XmlException;
+import org.dmg.pmml.PMMLDocument;
+
+/**
+ * Cache of parsed PMML documents, keyed by a hash of their serialized content. Used by lazily loaded
+ * {@link PMMLPortObject PMMLPortObjects} so that the same (possibly very large) model, e.g. passed to several
+ * downstream nodes or loaded repeatedly, is only parsed once. The documents are softly referenced and hence
+ * released under memory pressure.
+ *
+ * <p>
+ * Cached documents are shared and must not be modified; port objects copy them before any modification.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PMMLDocumentCache {
+
+    /** Maximum number of documents kept in the cache. */
+    private static final int MAX_ENTRIES = 16;
+
+    private static final PMMLDocumentCache INSTANCE = new PMMLDocumentCache();
+
+    /** Parses the serialized content of a PMML document. */
+    @FunctionalInterface
+    interface Parser {
+        /**
+         * @param content the serialized document
+         * @return the parsed document
+         * @throws XmlException if the content can't be parsed
+         */
+        PMMLDocument parse(byte[] content) throws XmlException;
+    }
+
+    private final Map<String, SoftReference<PMMLDocument>> m_cache =
+        new LinkedHashMap<String, SoftReference<PMMLDocument>>(MAX_ENTRIES, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, SoftReference<PMMLDocument>> eldest) {
+                return size() > MAX_ENTRIES;
+            }
+        };
+
+    private PMMLDocumentCache() {
+    }
+
+    /**
+     * @return the singleton instance
+     */
+    static PMMLDocumentCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the parsed document for the given content, parsing it if it is not cached yet. Parsing happens outside
+     * of any lock, i.e. different documents are parsed concurrently.
+     *
+     * @param content the serialized document
+     * @param parser used if the document is not cached
+     * @return the shared, parsed document; must not be modified
+     * @throws XmlException if the content can't be parsed
+     */
+    PMMLDocument getOrParse(final byte[] content, final Parser parser) throws XmlException {
+        String key = hash(content);
+        synchronized (m_cache) {
+            SoftReference<PMMLDocument> ref = m_cache.get(key);
+            PMMLDocument doc = ref == null ? null : ref.get();
+            if (doc != null) {
+                return doc;
+            }
+        }
+        PMMLDocument doc = parser.parse(content);
+        synchronized (m_cache) {
+            m_cache.put(key, new SoftReference<>(doc));
+        }
+        return doc;
+    }
+
+    /**
+     * @return the number of cached entries (including entries whose document has already been garbage collected)
+     */
+    int size() {
+        synchronized (m_cache) {
+            return m_cache.size();
+        }
+    }
+
+    /** Removes all cached documents. */
+    void clear() {
+        synchronized (m_cache) {
+            m_cache.clear();
+        }
+    }
+
+    /**
+     * @param content the content to hash
+     * @return the hex encoded SHA-256 hash of the content
+     */
+    static String hash(final byte[] content) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(ex);
+        }
+        byte[] hash = digest.digest(content);
+        StringBuilder b = new StringBuilder(2 * hash.length);
+        for (byte h : hash) {
+            b.append(Character.forDigit((h >> 4) & 0xF, 16)).append(Character.forDigit(h & 0xF, 16));
+        }
+        return b.toString();
+    }
+
+}
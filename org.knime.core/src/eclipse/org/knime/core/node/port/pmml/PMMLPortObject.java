@@ -44,10 +44,13 @@
  */
 package org.knime.core.node.port.pmml;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
@@ -60,6 +63,10 @@
 import javax.swing.JComponent;
 import javax.xml.namespace.QName;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
 import org.apache.xmlbeans.SchemaType;
 import org.apache.xmlbeans.XmlCursor;
@@ -96,6 +103,7 @@
 import org.knime.core.data.util.NonClosableInputStream;
 import org.knime.core.data.xml.PMMLCellFactory;
 import org.knime.core.data.xml.PMMLValue;
+import org.knime.core.node.KNIMEConstants;
 import org.knime.core.node.NodeLogger;
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.port.PortType;
@@ -200,8 +208,22 @@ public final class PMMLPortObject implements PortObject {
     /* ------------------------------------------------------ */
 
 
+    /** Whether PMML documents are loaded lazily, see {@link KNIMEConstants#PROPERTY_PMML_LAZY_LOADING}. */
+    private static final boolean LAZY_LOADING = Boolean.getBoolean(KNIMEConstants.PROPERTY_PMML_LAZY_LOADING);
+
+    /** The document; <code>null</code> while a lazily loaded document hasn't been accessed yet. */
     private PMMLDocument m_pmmlDoc;
 
+    /**
+     * The serialized document if loaded lazily and not modified since, otherwise <code>null</code>. While set,
+     * {@link #m_pmmlDoc} (if not <code>null</code>) is shared via the {@link PMMLDocumentCache} and must be copied
+     * before being modified.
+     */
+    private volatile byte[] m_rawPMML;
+
+    /** The character encoding of {@link #m_rawPMML}, written before it. */
+    private volatile Charset m_rawEncoding = StandardCharsets.UTF_8;
+
     private PMMLPortObjectSpec m_spec;
 
     /**
@@ -267,7 +289,11 @@ public PMMLPortObject(final PMMLPortObjectSpec spec,
     public PMMLPortObject(final PMMLPortObjectSpec spec,
             final PMMLPortObject port, final DataTableSpec inData) {
         m_spec = spec;
-        if (port != null) {
+        if (port != null && port.m_rawPMML != null) {
+            // share the serialized content, the document is copied on first modification
+            m_rawEncoding = port.m_rawEncoding;
+            m_rawPMML = port.m_rawPMML;
+        } else if (port != null) {
             try (LockedSupplier<Document> supplier = port.getPMMLValue().getDocumentSupplier()) {
                 parse(supplier.get());
             }
@@ -278,6 +304,52 @@ public PMMLPortObject(final PMMLPortObjectSpec spec,
         }
     }
 
+    /**
+     * Returns the document for read access, parsing a lazily loaded document (or retrieving it from the
+     * {@link PMMLDocumentCache}) if necessary. The returned document must not be modified.
+     *
+     * @return the document
+     */
+    private synchronized PMMLDocument getDocument() {
+        if (m_pmmlDoc == null && m_rawPMML != null) {
+            try {
+                m_pmmlDoc = PMMLDocumentCache.getInstance().getOrParse(m_rawPMML, PMMLPortObject::parseDocument);
+            } catch (XmlException e) {
+                throw new IllegalStateException("Parsing of PMML document failed: " + e.getMessage(), e);
+            }
+        }
+        return m_pmmlDoc;
+    }
+
+    /**
+     * Returns the document for write access. A document shared via the {@link PMMLDocumentCache} is copied first,
+     * the serialized content is discarded as it will no longer reflect the document.
+     *
+     * @return the document, which may be modified
+     */
+    private synchronized PMMLDocument getWritableDocument() {
+        PMMLDocument pmmlDoc = getDocument();
+        if (m_rawPMML != null) {
+            m_pmmlDoc = (PMMLDocument)pmmlDoc.copy();
+            m_rawPMML = null;
+        }
+        return m_pmmlDoc;
+    }
+
+    private static PMMLDocument parseDocument(final byte[] content) throws XmlException {
+        Thread current = Thread.currentThread();
+        ClassLoader oldLoader = current.getContextClassLoader();
+        current.setContextClassLoader(PMMLDocument.class.getClassLoader());
+        try {
+            return PMMLDocument.Factory.parse(new ByteArrayInputStream(content));
+        } catch (IOException e) {
+            // can't happen for in-memory streams
+            throw new XmlException(e.getMessage(), e);
+        } finally {
+            current.setContextClassLoader(oldLoader);
+        }
+    }
+
     /**
      * @param doc
      */
@@ -331,7 +403,7 @@ public void addPMMLModelFromHandler(final PMMLContentHandler handler)
         } finally {
             current.setContextClassLoader(oldLoader);
         }
-        PMML pmmlXml = m_pmmlDoc.getPMML();
+        PMML pmmlXml = getWritableDocument().getPMML();
         XmlCursor pmmlCursor = pmmlXml.newCursor();
         pmmlCursor.toEndToken();
         XmlCursor modelCursor = model.newCursor();
@@ -350,7 +422,13 @@ public void addPMMLModelFromHandler(final PMMLContentHandler handler)
      * @throws IOException if the file cannot be written to the stream
      */
     public final void save(final OutputStream out) throws IOException {
-        PMMLFormatter.save(m_pmmlDoc, out);
+        byte[] raw = m_rawPMML;
+        if (raw != null) {
+            // lazily loaded and unmodified, no need to materialize the document
+            out.write(raw);
+            return;
+        }
+        PMMLFormatter.save(getDocument(), out);
     }
 
    /**
@@ -373,7 +451,7 @@ private void initializePMMLDocument(final DataTableSpec inData) {
      * @param translator the model translator to be initialized
      */
     public void initializeModelTranslator(final PMMLTranslator translator) {
-        translator.initializeFrom(m_pmmlDoc);
+        translator.initializeFrom(getDocument());
     }
 
     /**
@@ -382,7 +460,8 @@ public void initializeModelTranslator(final PMMLTranslator translator) {
      *      added
      */
     public void addModelTranslater(final PMMLTranslator modelTranslator) {
-        SchemaType type = modelTranslator.exportTo(m_pmmlDoc, m_spec);
+        PMMLDocument pmmlDoc = getWritableDocument();
+        SchemaType type = modelTranslator.exportTo(pmmlDoc, m_spec);
         LocalTransformations localTransformations = moveDerivedFields(type);
 
         /* Remove mining fields from mining schema that where created as a
@@ -395,7 +474,7 @@ public void addModelTranslater(final PMMLTranslator modelTranslator) {
         for (DerivedField derivedField : getDerivedFields()) {
             derivedFields.add(derivedField.getName());
         }
-        MiningSchema miningSchema = PMMLUtils.getFirstMiningSchema(m_pmmlDoc,
+        MiningSchema miningSchema = PMMLUtils.getFirstMiningSchema(pmmlDoc,
                 type);
         if (miningSchema == null) {
             LOGGER.info("No mining schema found.");
@@ -454,7 +533,7 @@ public void addModelTranslater(final PMMLTranslator modelTranslator) {
     /** Moves the content of the transformation dictionary to local
      * transformations of the model if a model exists. */
     public void moveGlobalTransformationsToModel() {
-        PMML pmml = m_pmmlDoc.getPMML();
+        PMML pmml = getWritableDocument().getPMML();
         TransformationDictionary transDict
                 = pmml.getTransformationDictionary();
         if (transDict == null || transDict.getDerivedFieldArray() == null
@@ -527,7 +606,7 @@ public void moveGlobalTransformationsToModel() {
      *      has to be moved
      */
     private LocalTransformations moveDerivedFields(final SchemaType type) {
-        PMML pmml = m_pmmlDoc.getPMML();
+        PMML pmml = getWritableDocument().getPMML();
 
         TransformationDictionary transDict
                 = pmml.getTransformationDictionary();
@@ -606,11 +685,12 @@ private LocalTransformations moveDerivedFields(final SchemaType type) {
     public String getSummary() {
         StringBuffer sb = new StringBuffer();
         sb.append("PMML document with version ");
-        sb.append(m_pmmlDoc.getPMML().getVersion());
+        PMMLDocument pmmlDoc = getDocument();
+        sb.append(pmmlDoc.getPMML().getVersion());
         sb.append(" and models: ");
         boolean first = true;
         for (PMMLModelType modelType
-                : PMMLUtils.getNumberOfModels(m_pmmlDoc).keySet()) {
+                : PMMLUtils.getNumberOfModels(pmmlDoc).keySet()) {
             if (!first) {
                 sb.append(",");
             } else {
@@ -658,7 +738,15 @@ public void loadFrom(final PMMLPortObjectSpec spec, final InputStream is)
         // close to closeEntry(), we have to make sure that close is only
         // called once.
         // TODO: The document is read twice here. Could we "probe" into the file to check the version?
+        // (done in lazy loading mode, see loadLazily)
+        if (LAZY_LOADING) {
+            loadLazily(spec, is);
+        } else {
+            loadEagerly(spec, is);
+        }
+    }
 
+    private void loadEagerly(final PMMLPortObjectSpec spec, final InputStream is) throws IOException, XmlException {
         XmlObject xmlDoc = null;
         Thread current = Thread.currentThread();
         ClassLoader oldLoader = current.getContextClassLoader();
@@ -693,9 +781,55 @@ public void loadFrom(final PMMLPortObjectSpec spec, final InputStream is)
                         "Parsing of PMML v 3.x/4.0 document failed.");
             }
         }
+        m_rawPMML = null;
         m_spec = spec;
     }
 
+    /**
+     * Lazy variant of {@link #loadFrom(PMMLPortObjectSpec, InputStream)}: Only the root element is read (streamed
+     * via StAX) to determine the PMML version; documents of the current version are kept serialized until accessed.
+     * Documents of older versions are converted as in the non-lazy case.
+     */
+    private void loadLazily(final PMMLPortObjectSpec spec, final InputStream is) throws IOException, XmlException {
+        byte[] raw;
+        try (NonClosableInputStream nonClosableIn = new NonClosableInputStream(is)) {
+            raw = nonClosableIn.readAllBytes();
+        } finally {
+            is.close(); // call only once (see loadFrom)
+        }
+        String encoding;
+        String namespace;
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(raw));
+            try {
+                encoding = reader.getCharacterEncodingScheme();
+                if (encoding == null) {
+                    encoding = reader.getEncoding();
+                }
+                while (reader.hasNext() && reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    // skip prolog
+                }
+                namespace = reader.isStartElement() && PMML_ELEMENT.equals(reader.getLocalName())
+                    ? reader.getNamespaceURI() : null;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new XmlException("Invalid PMML document: " + e.getMessage(), e);
+        }
+        if (PMMLUtils.getPMMLCurrentVersionNamespace().equals(namespace)) {
+            m_rawEncoding = encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding);
+            m_rawPMML = raw;
+            m_pmmlDoc = null;
+            m_spec = spec;
+        } else {
+            // old version, needs to be converted
+            loadEagerly(spec, new ByteArrayInputStream(raw));
+        }
+    }
+
     /**
      *
      * {@inheritDoc}
@@ -731,11 +865,12 @@ public void addGlobalTransformations(
                     + "supported so far. Only derived fields are allowed.");
         }
 
+        PMMLDocument pmmlDoc = getWritableDocument();
         TransformationDictionary dict
-            = m_pmmlDoc.getPMML().getTransformationDictionary();
+            = pmmlDoc.getPMML().getTransformationDictionary();
         if (dict == null) {
-            m_pmmlDoc.getPMML().setTransformationDictionary(dictionary);
-            dict = m_pmmlDoc.getPMML().getTransformationDictionary();
+            pmmlDoc.getPMML().setTransformationDictionary(dictionary);
+            dict = pmmlDoc.getPMML().getTransformationDictionary();
         } else {
             // append the transformations to the existing dictionary
             DerivedField[] existingFields = dict.getDerivedFieldArray();
@@ -765,7 +900,7 @@ public void addGlobalTransformations(
          * results in duplicate entries. Those columns should only appear once
          * as derived field in the transformation dictionary or local
          * transformations. */
-        DataDictionary dataDict = m_pmmlDoc.getPMML().getDataDictionary();
+        DataDictionary dataDict = pmmlDoc.getPMML().getDataDictionary();
         DataField[] dataFieldArray = dataDict.getDataFieldArray();
         List<DataField> dataFields = new ArrayList<DataField>(Arrays.asList(
                 dataFieldArray));
@@ -784,7 +919,7 @@ public void addGlobalTransformations(
         Map<String, String> derivedFieldMap = dfm.getDerivedFieldMap();
         /* Use XPATH to update field names in the model and move the derived
          * fields to local transformations. */
-        PMML pmml = m_pmmlDoc.getPMML();
+        PMML pmml = pmmlDoc.getPMML();
         if (pmml.getTreeModelArray().length > 0) {
             fixAttributeAtPath(pmml, TREE_PATH, FIELD, derivedFieldMap);
         } else if (pmml.getClusteringModelArray().length > 0) {
@@ -873,7 +1008,7 @@ private void fixAttributeAtPath(final PMML pmml, final String xpath,
      *          are defined.
      */
     public DerivedField[] getDerivedFields() {
-        return DerivedFieldMapper.getDerivedFields(m_pmmlDoc.getPMML());
+        return DerivedFieldMapper.getDerivedFields(getDocument().getPMML());
     }
 
     /**
@@ -883,7 +1018,11 @@ public DerivedField[] getDerivedFields() {
      */
     public PMMLValue getPMMLValue() {
         try {
-            return (PMMLValue)PMMLCellFactory.create(PMMLFormatter.xmlText(m_pmmlDoc));
+            byte[] raw = m_rawPMML;
+            if (raw != null) {
+                return (PMMLValue)PMMLCellFactory.create(new String(raw, m_rawEncoding));
+            }
+            return (PMMLValue)PMMLCellFactory.create(PMMLFormatter.xmlText(getDocument()));
         } catch (Exception e) {
             throw new RuntimeException("Could not create PMML value.", e);
         }
@@ -895,7 +1034,7 @@ public PMMLValue getPMMLValue() {
      *      valid PMML document
      */
     public void validate() throws IllegalStateException {
-        Map<String, String> errors = PMMLValidator.validatePMML(m_pmmlDoc);
+        Map<String, String> errors = PMMLValidator.validatePMML(getDocument());
         if (!errors.isEmpty()) {
             StringBuffer sb = new StringBuffer("Invalid PMML document found. "
                     + "Errors: ");
@@ -978,11 +1117,13 @@ public boolean equals(final Object obj) {
             return false;
         }
         PMMLPortObject other = (PMMLPortObject)obj;
-        if (m_pmmlDoc == null) {
-            if (other.m_pmmlDoc != null) {
+        PMMLDocument pmmlDoc = getDocument();
+        PMMLDocument otherPmmlDoc = other.getDocument();
+        if (pmmlDoc == null) {
+            if (otherPmmlDoc != null) {
                 return false;
             }
-        } else if (!m_pmmlDoc.valueEquals(other.m_pmmlDoc)) {
+        } else if (!pmmlDoc.valueEquals(otherPmmlDoc)) {
             return false;
         }
         if (m_spec == null) {
@@ -1002,8 +1143,9 @@ public boolean equals(final Object obj) {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
+        PMMLDocument pmmlDoc = getDocument();
         result = prime * result
-                + ((m_pmmlDoc == null) ? 0 : m_pmmlDoc.hashCode());
+                + ((pmmlDoc == null) ? 0 : pmmlDoc.hashCode());
         result = prime * result + ((m_spec == null) ? 0 : m_spec.hashCode());
         return result;
     }
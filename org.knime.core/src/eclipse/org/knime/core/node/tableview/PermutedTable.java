@@ -0,0 +1,243 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.tableview;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.container.filter.TableFilter;
+import org.knime.core.node.BufferedDataTable;
+
+/**
+ * A sorted view on a {@link BufferedDataTable} as created by the
+ * {@link TablePermutationSorter}. It doesn't write a copy of the data; instead
+ * the rows of this view are materialized in memory window by window: the
+ * (original) indices of a window of consecutive rows in this view are sorted
+ * and the rows are read in one pass over the spanned range of the underlying
+ * table. Any row can therefore be accessed with at most one pass over the
+ * underlying table, rows in the same window without reading at all. The
+ * window size is chosen such that a window holds about
+ * {@link #MAX_WINDOW_CELLS} cells; the most recently used windows are kept.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class PermutedTable implements DataTable {
+
+    /** Minimum number of rows in a window. */
+    static final int MIN_WINDOW_SIZE = 1024;
+
+    /** Number of cells a window should hold (determines the window size). */
+    static final int MAX_WINDOW_CELLS = 1 << 19;
+
+    /** Number of materialized windows kept in memory. */
+    static final int CACHED_WINDOWS = 2;
+
+    private final BufferedDataTable m_table;
+
+    private final int[] m_permutation;
+
+    private final int m_windowSize;
+
+    /** Materialized windows by window index, in access order (guarded by itself). */
+    private final Map<Integer, DataRow[]> m_windows =
+        new LinkedHashMap<Integer, DataRow[]>(CACHED_WINDOWS + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Integer, DataRow[]> eldest) {
+                return size() > CACHED_WINDOWS;
+            }
+        };
+
+    /**
+     * @param table the underlying table
+     * @param permutation element <i>i</i> is the index of the <i>i</i>-th row
+     *        of this view in the underlying table
+     */
+    PermutedTable(final BufferedDataTable table, final int[] permutation) {
+        this(table, permutation, Math.max(MIN_WINDOW_SIZE,
+            MAX_WINDOW_CELLS / (table.getDataTableSpec().getNumColumns() + 1)));
+    }
+
+    /**
+     * @param table the underlying table
+     * @param permutation element <i>i</i> is the index of the <i>i</i>-th row
+     *        of this view in the underlying table
+     * @param windowSize number of rows materialized in one pass over the
+     *        underlying table
+     */
+    PermutedTable(final BufferedDataTable table, final int[] permutation, final int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+        }
+        m_table = table;
+        m_permutation = permutation;
+        m_windowSize = windowSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public DataTableSpec getDataTableSpec() {
+        return m_table.getDataTableSpec();
+    }
+
+    /** @return the number of rows */
+    int size() {
+        return m_permutation.length;
+    }
+
+    /** @return the number of rows materialized in one pass */
+    int getWindowSize() {
+        return m_windowSize;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public CloseableRowIterator iterator() {
+        return iterator(0);
+    }
+
+    /**
+     * @param fromIndex index of the first row returned by the iterator
+     * @return a new iterator starting at the given row
+     */
+    CloseableRowIterator iterator(final int fromIndex) {
+        return new PermutedRowIterator(fromIndex);
+    }
+
+    /**
+     * Returns the rows of the window with the given index, reading them from
+     * the underlying table if the window is not in memory.
+     *
+     * @param window the window index
+     * @return the rows at [window * windowSize, (window + 1) * windowSize) of
+     *         this view
+     */
+    private DataRow[] getWindow(final int window) {
+        synchronized (m_windows) {
+            DataRow[] rows = m_windows.get(window);
+            if (rows == null) {
+                rows = readWindow(window);
+                m_windows.put(window, rows);
+            }
+            return rows;
+        }
+    }
+
+    /** Reads the rows of a window in one pass over the underlying table. */
+    private DataRow[] readWindow(final int window) {
+        final int start = window * m_windowSize;
+        final int length = Math.min(m_windowSize, m_permutation.length - start);
+        // (original index << 32 | position in window), sorted by original index
+        final long[] indices = new long[length];
+        for (int i = 0; i < length; i++) {
+            indices[i] = ((long)m_permutation[start + i] << 32) | i;
+        }
+        Arrays.sort(indices);
+        final long first = indices[0] >>> 32;
+        final long last = indices[length - 1] >>> 32;
+        final DataRow[] rows = new DataRow[length];
+        try (final CloseableRowIterator it =
+            m_table.filter(TableFilter.filterRangeOfRows(first, last)).iterator()) {
+            long index = first;
+            for (int i = 0; i < length; i++) {
+                final long wanted = indices[i] >>> 32;
+                for (; index < wanted; index++) {
+                    it.next(); // skip rows not in this window
+                }
+                rows[(int)indices[i]] = it.next();
+                index++;
+            }
+        }
+        return rows;
+    }
+
+    private final class PermutedRowIterator extends CloseableRowIterator {
+
+        /** Index of the next row in this view. */
+        private int m_next;
+
+        /** Index of the window in m_rows, -1 if none. */
+        private int m_window = -1;
+
+        /** Rows of the current window or null. */
+        private DataRow[] m_rows;
+
+        PermutedRowIterator(final int fromIndex) {
+            m_next = Math.max(0, fromIndex);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_next < m_permutation.length;
+        }
+
+        @Override
+        public DataRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int window = m_next / m_windowSize;
+            if (window != m_window) {
+                m_rows = getWindow(window);
+                m_window = window;
+            }
+            return m_rows[m_next++ - window * m_windowSize];
+        }
+
+        @Override
+        public void close() {
+            m_next = m_permutation.length;
+            m_rows = null;
+            m_window = -1;
+        }
+    }
+
+}
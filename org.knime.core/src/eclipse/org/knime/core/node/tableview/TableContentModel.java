@@ -46,10 +46,17 @@
 
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import javax.swing.JComponent;
 import javax.swing.ListSelectionModel;
@@ -65,6 +72,7 @@
 import org.knime.core.data.RowKey;
 import org.knime.core.data.container.CloseableRowIterator;
 import org.knime.core.data.container.ContainerTable;
+import org.knime.core.data.container.filter.TableFilter;
 import org.knime.core.data.property.ColorAttr;
 import org.knime.core.node.BufferedDataTable;
 import org.knime.core.node.NodeLogger;
@@ -85,10 +93,14 @@
  * (using the the table's {@link org.knime.core.data.RowIterator}) they are
  * added to the ring buffer (and "old" rows
  * are deleted). Each time a row is requested that resides before the cursor
- * of the current iterator and is not in the cache (default size: 500), the
- * cache is cleared and a new iterator is instantiated. Thus, this class will
- * have some performance problems when the user scrolls up in the table view.
- * However, when scrolling down, the data flow is somewhat "fluent".</p>
+ * of the current iterator and is not in the cache, the
+ * cache is cleared and a new iterator is instantiated. For
+ * {@link BufferedDataTable}s the new iterator starts close to the requested
+ * row (using a {@link TableFilter}), which also applies when jumping far ahead;
+ * other tables are iterated from the start. While scrolling down in a
+ * {@link BufferedDataTable}, rows are read ahead in a background thread. Unless set explicitly via
+ * {@link #setCacheSize(int)}, the size of the cache is derived from the number of
+ * columns (between {@link #CACHE_SIZE} and {@value #MAX_ADAPTIVE_CACHE_SIZE} rows).</p>
  *
  * <p>This class also supports hiliting of rows (even though it is a view
  * property). We do store the hilite status of the rows in here as it
@@ -156,6 +168,19 @@ public boolean performsFiltering() {
      */
     public static final int CHUNK_SIZE = 50;
 
+    /** Upper bound of the cache size derived from the number of columns. */
+    private static final int MAX_ADAPTIVE_CACHE_SIZE = 5000;
+
+    /** Number of cells the cache should hold if its size is derived from the number of columns. */
+    private static final int ADAPTIVE_CACHE_CELLS = 100000;
+
+    /** Reads rows ahead for all table views, a single daemon thread as the reads are I/O bound. */
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+        final Thread t = new Thread(r, "KNIME-TableView-Prefetch");
+        t.setDaemon(true);
+        return t;
+    });
+
     /** underlying data; may be null to indicate invalid status. */
     private DataTable m_data;
 
@@ -225,6 +250,25 @@ public boolean performsFiltering() {
      * (if m_cachedRows not <code>null</code>). */
     private int m_cacheSize;
 
+    /** Whether the cache size was set via {@link #setCacheSize(int)}, otherwise
+     * it is derived from the number of columns when new data is set. */
+    private boolean m_isCacheSizeFixed;
+
+    /** Index of the row the current iterator started with (non-zero if it was
+     * positioned using a {@link TableFilter}). Rows before are not cached. */
+    private int m_cacheStart;
+
+    /** Most recently requested row, used to determine the scroll direction. */
+    private int m_lastRequestedRow;
+
+    /** Rows read ahead from {@link #m_iterator} in the background, not yet
+     * processed by {@link #cacheNextRow()}. Only accessed in the EDT. */
+    private final ArrayDeque<DataRow> m_prefetchedRows = new ArrayDeque<>();
+
+    /** Pending read ahead of rows from {@link #m_iterator} or <code>null</code>.
+     * While it runs, the iterator must not be used by any other thread. */
+    private Future<List<DataRow>> m_prefetch;
+
     /** Handler to get the hilite status of the rows from and to send
      * hilite requests to. Is <code>null</code> when no hilite available.
      */
@@ -257,6 +301,11 @@ public boolean performsFiltering() {
      * sorted table). */
     private DataTable m_originalUnsortedTable;
 
+    /** Sorter for {@link #m_originalUnsortedTable}, keeps the sort keys of
+     * previous sorts. Null if not sorted yet or if the table can't be sorted by
+     * means of a permutation. Only accessed in the EDT. */
+    private TablePermutationSorter m_permutationSorter;
+
     /**
      * Creates a new TableContentModel with empty content. Call
      * {@link #setDataTable(DataTable)} to set a valid data table. No
@@ -358,15 +407,22 @@ private void setDataTableIntern(final DataTable originalData,
             data != null ? data.getDataTableSpec().getNumColumns() : 0;
         int oldRowCount = getRowCount();
         DataTable oldData = m_data;
+        if (m_permutationSorter != null && !m_permutationSorter.isSorterFor(originalData)) {
+            m_permutationSorter.clearCache();
+            m_permutationSorter = null;
+        }
         m_originalUnsortedTable = originalData;
         m_data = data;
         m_cachedRows = null;
         m_hilitSet = null;
+        discardPrefetch();
         if (m_iterator instanceof CloseableRowIterator) {
             ((CloseableRowIterator)m_iterator).close();
         }
         m_iterator = null;
         m_rowCountOfInterestInIterator = 0;
+        m_cacheStart = 0;
+        m_lastRequestedRow = 0;
         m_rowCountOfInterest = 0;
         m_maxRowCount = 0;
         cancelRowCountingInBackground();
@@ -391,6 +447,8 @@ private void setDataTableIntern(final DataTable originalData,
                 rowCountFromTable = ((BufferedDataTable)data).size();
             } else if (data instanceof ContainerTable) {
                 rowCountFromTable = ((ContainerTable)data).size();
+            } else if (data instanceof PermutedTable) {
+                rowCountFromTable = ((PermutedTable)data).size();
             } else {
                 rowCountFromTable = -1; // unknown
             }
@@ -419,6 +477,12 @@ private void setDataTableIntern(final DataTable originalData,
                 });
             }
 
+            if (!m_isCacheSizeFixed) {
+                // narrow tables get a larger cache, wide tables a smaller one
+                final int nrCols = Math.max(1, newColCount);
+                m_cacheSize = Math.max(2 * getChunkSize(),
+                    Math.max(CACHE_SIZE, Math.min(MAX_ADAPTIVE_CACHE_SIZE, ADAPTIVE_CACHE_CELLS / nrCols)));
+            }
             int cacheSize = getCacheSize();
             m_cachedRows = new DataRow[cacheSize];
             m_hilitSet = new BitSet(cacheSize);
@@ -622,7 +686,7 @@ private void sortTableIntern(final int column, final JComponent parComponent, fi
             setDataTableOnSort(m_originalUnsortedTable, nextOrder);
         } else {
             TableSorterWorker sortWorker = new TableSorterWorker(
-                m_originalUnsortedTable, nextOrder, parComponent, this);
+                m_originalUnsortedTable, getPermutationSorter(), nextOrder, parComponent, this);
             sortWorker.executeAndShowProgress();
             m_tableSorterWorker = sortWorker;
         }
@@ -867,6 +931,7 @@ public boolean isRowCountFinal() {
      * @throws IllegalArgumentException if <code>size</code> <= 0.
      */
     protected final int setCacheSize(final int size) {
+        m_isCacheSizeFixed = true;
         if (size == getCacheSize()) { // cool, nothing changed
             return size;
         }
@@ -927,8 +992,7 @@ public final int getChunkSize() {
     public boolean isHiLit(final int row) {
         // ensure row is cached
         getRow(row);
-        assert (row >= (m_rowCountOfInterestInIterator - getCacheSize())
-                && row < m_rowCountOfInterestInIterator);
+        assert isCached(row);
         return getHiLiteFromCache(row);
     } // isHiLit(int)
 
@@ -942,8 +1006,7 @@ public boolean isHiLit(final int row) {
     public ColorAttr getColorAttr(final int row) {
         // makes also sure row is cached
         DataRow r = getRow(row);
-        assert (row >= (m_rowCountOfInterestInIterator - getCacheSize())
-                && row < m_rowCountOfInterestInIterator);
+        assert isCached(row);
         return m_data.getDataTableSpec().getRowColor(r);
     }
 
@@ -1079,19 +1142,31 @@ protected DataRow getRow(final int row) {
         boundRow(row);
         final int cacheSize = getCacheSize();
         final int oldRowCount = getRowCount();
+        final boolean isScrollingUp = row < m_lastRequestedRow;
+        final int distance = Math.abs(row - m_lastRequestedRow);
+        m_lastRequestedRow = row;
 
         // the iterator goes further when the last known row is requested
         boolean pushIterator = !isRowCountFinal() && (row == oldRowCount - 1);
-        if (row >= (m_rowCountOfInterestInIterator - cacheSize)
-                && (row < m_rowCountOfInterestInIterator) && !pushIterator) {
+        if (isCached(row) && !pushIterator) {
+            prefetch(row, isScrollingUp, distance);
             return getRowFromCache(row);
         }
 
         /* row is not in cache */
-        // row already released from cache
-        if (row < (m_rowCountOfInterestInIterator - cacheSize)) {
-            // clear cache, init new iterator
-            clearCache();
+        if (row < firstRowInCache()) {
+            // row already released from cache: position new iterator such that
+            // the rows above the requested row are cached when scrolling up
+            final int seekStart = isScrollingUp
+                ? row - (cacheSize - 2 * m_chunkSize) : row - m_chunkSize;
+            if (!canSeek() || !seekTo(Math.max(0, seekStart))) {
+                // clear cache, init new iterator
+                clearCache();
+            }
+        } else if (row >= m_rowCountOfInterestInIterator + cacheSize
+                && canSeek()) {
+            // far ahead, don't iterate through all rows in between
+            seekTo(row - m_chunkSize);
         }
         assert (row >= m_rowCountOfInterestInIterator - 1);
 
@@ -1114,6 +1189,9 @@ protected DataRow getRow(final int row) {
             }
             fireTableRowsInserted(oldRowCount, getRowCount() - 1);
         }
+        if (mayHaveNext) {
+            prefetch(row, isScrollingUp, distance);
+        }
         return getRowFromCache(row);
     } // getRow(int)
 
@@ -1130,14 +1208,14 @@ private boolean cacheNextRow() {
         DataRow currentRow;
         boolean isHiLit;
         do {
-            if (!m_iterator.hasNext()) {
+            if (!hasNextRawRow()) {
                 // set to false with new data
                 m_isMaxRowCountFinal = true;
                 // set to false with new highlight event or new data
                 m_isRowCountOfInterestFinal = true;
                 return false;
             }
-            currentRow = m_iterator.next();
+            currentRow = nextRawRow();
             m_rowCountInIterator++;
             if (!m_isMaxRowCountFinal) {
                 m_maxRowCount = Math.max(m_maxRowCount, m_rowCountInIterator);
@@ -1157,6 +1235,145 @@ private boolean cacheNextRow() {
         return true;
     } // cacheNextRow()
 
+    /** @return whether {@link #cacheNextRow()} may read another row, waits for
+     * a pending read ahead if necessary */
+    private boolean hasNextRawRow() {
+        if (m_prefetchedRows.isEmpty()) {
+            awaitPrefetch();
+        }
+        return !m_prefetchedRows.isEmpty() || m_iterator.hasNext();
+    }
+
+    /** @return the next row, either read ahead or from the iterator */
+    private DataRow nextRawRow() {
+        final DataRow row = m_prefetchedRows.poll();
+        return row != null ? row : m_iterator.next();
+    }
+
+    /**
+     * Reads rows ahead in the background if the user scrolls down in a
+     * {@link BufferedDataTable} (or a sorted view on it) and the requested row
+     * is close to the end of the cached rows. The number of rows
+     * read ahead grows with the scrolling speed.
+     *
+     * @param row the requested row
+     * @param isScrollingUp whether the user scrolls up
+     * @param distance distance to the previously requested row
+     */
+    private void prefetch(final int row, final boolean isScrollingUp, final int distance) {
+        // only the iterators of seekable tables are known to be safe to use from another thread
+        if (isScrollingUp || m_prefetch != null || m_iterator == null || !isSeekableTable(m_data)
+            || row < m_rowCountOfInterestInIterator - 2 * m_chunkSize
+            || m_prefetchedRows.size() >= m_chunkSize) {
+            return;
+        }
+        final int count = Math.min(getCacheSize() / 2, Math.max(2 * m_chunkSize, 4 * distance));
+        final RowIterator iterator = m_iterator;
+        m_prefetch = PREFETCH_EXECUTOR.submit(() -> {
+            final List<DataRow> rows = new ArrayList<>(count);
+            while (rows.size() < count && !Thread.currentThread().isInterrupted() && iterator.hasNext()) {
+                rows.add(iterator.next());
+            }
+            return rows;
+        });
+    }
+
+    /** @return the pending read ahead or <code>null</code>, only used in tests */
+    Future<List<DataRow>> getPendingPrefetch() {
+        return m_prefetch;
+    }
+
+    /** Waits for a pending read ahead (or cancels it if not yet started) and
+     * adds its rows to {@link #m_prefetchedRows}. */
+    private void awaitPrefetch() {
+        final Future<List<DataRow>> prefetch = m_prefetch;
+        if (prefetch == null) {
+            return;
+        }
+        m_prefetch = null;
+        if (prefetch.cancel(false)) {
+            return; // was not started yet
+        }
+        try {
+            m_prefetchedRows.addAll(prefetch.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // reading from the iterator will fail again in the EDT and be handled there
+            NodeLogger.getLogger(getClass()).debug("Unable to read rows ahead: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /** Waits for a pending read ahead and drops all rows read ahead, to be
+     * called before {@link #m_iterator} is closed or replaced. */
+    private void discardPrefetch() {
+        awaitPrefetch();
+        m_prefetchedRows.clear();
+    }
+
+    /** @return whether the iterator can be positioned at arbitrary rows, which
+     * requires a table of known size whose rows are all shown */
+    private boolean canSeek() {
+        return isSeekableTable(m_data) && m_isMaxRowCountFinal
+            && !m_tableFilter.performsFiltering();
+    }
+
+    /** @return whether the table supports iterators starting at arbitrary rows
+     * (and whose iterators are known to be safe to use from another thread) */
+    private static boolean isSeekableTable(final DataTable data) {
+        return data instanceof BufferedDataTable || data instanceof PermutedTable;
+    }
+
+    /** @return the (possibly cached) sorter for the unsorted table or null if
+     * it can't be sorted by means of a permutation */
+    private TablePermutationSorter getPermutationSorter() {
+        if (!TablePermutationSorter.canSort(m_originalUnsortedTable)) {
+            return null;
+        }
+        if (m_permutationSorter == null || !m_permutationSorter.isSorterFor(m_originalUnsortedTable)) {
+            if (m_permutationSorter != null) {
+                m_permutationSorter.clearCache();
+            }
+            m_permutationSorter = new TablePermutationSorter(m_originalUnsortedTable,
+                (int)((BufferedDataTable)m_originalUnsortedTable).size());
+        }
+        return m_permutationSorter;
+    }
+
+    /**
+     * Clears the cache and instantiates a new iterator starting at the given row.
+     *
+     * @param start index of the first row of the new iterator
+     * @return <code>true</code> if successful, <code>false</code> if the
+     *         iterator could not be created (cache unchanged)
+     */
+    private boolean seekTo(final int start) {
+        final RowIterator iterator;
+        try {
+            if (m_data instanceof PermutedTable) {
+                iterator = ((PermutedTable)m_data).iterator(start);
+            } else {
+                iterator = ((BufferedDataTable)m_data).filter(
+                    TableFilter.filterRowsFromIndex(start)).iterator();
+            }
+        } catch (RuntimeException e) {
+            NodeLogger.getLogger(getClass()).debug("Unable to position iterator at row " + start + ": "
+                + e.getMessage(), e);
+            return false;
+        }
+        discardPrefetch();
+        if (m_iterator instanceof CloseableRowIterator) {
+            ((CloseableRowIterator)m_iterator).close();
+        }
+        m_iterator = iterator;
+        m_rowCountInIterator = start;
+        m_rowCountOfInterestInIterator = start;
+        m_cacheStart = start;
+        Arrays.fill(m_cachedRows, null);
+        m_hilitSet.clear();
+        return true;
+    }
+
     /** Get new iterator, only to be called when data is set. Gets an
      * {@link BufferedDataTable#iteratorFailProve() fail prove iterator} if
      * the table is an instance of {@link BufferedDataTable}. */
@@ -1175,6 +1392,7 @@ protected void clearCache() {
         if (!hasData() || m_cachedRows == null) {
             return;
         }
+        discardPrefetch();
         if (m_iterator instanceof CloseableRowIterator) {
             ((CloseableRowIterator)m_iterator).close();
         }
@@ -1182,16 +1400,29 @@ protected void clearCache() {
         m_rowCountInIterator = 0;
         // all updated in nextBlock()
         m_rowCountOfInterestInIterator = 0;
+        m_cacheStart = 0;
         // clear cache
         Arrays.fill(m_cachedRows, null);
         m_hilitSet.clear();
     } // clearCache()
 
+    /** @return index of the first row in the cache */
+    private int firstRowInCache() {
+        return Math.max(m_cacheStart, m_rowCountOfInterestInIterator - getCacheSize());
+    }
+
+    /**
+     * @param row index of the row in the underlying <code>DataTable</code>
+     * @return whether the row is in the cache
+     */
+    boolean isCached(final int row) {
+        return row >= firstRowInCache() && row < m_rowCountOfInterestInIterator;
+    }
+
     /**
      * Returns a row with a given index from the cache. It is mandatory to give
      * a row index which is certainly in the cache, i.e.
-     * <code>(row >= (m_rowCountOfInterestInIterator - cS)
-     * && row < m_rowCountOfInterestInIterator)</code> must hold.
+     * {@link #isCached(int)} must hold.
      *
      * @param  row index of the row in the underlying <code>DataTable</code>
      * @return the row with the given index
@@ -1220,8 +1451,7 @@ private boolean getHiLiteFromCache(final int row) {
      */
     private int indexForRow(final int row) {
         final int cS = getCacheSize();
-        assert (row >= (m_rowCountOfInterestInIterator - cS)
-                && row < m_rowCountOfInterestInIterator) : "Row is not cached";
+        assert isCached(row) : "Row is not cached";
         // index of row in ring buffer
         int indexInCache = (row % cS);
         return indexInCache;
@@ -1251,7 +1481,7 @@ private int firstRowCached() {
         }
         final int cS = getCacheSize();
         int next = (lastRow + 1) % cS;
-        return m_cachedRows[next] != null ? next : 0;
+        return m_cachedRows[next] != null ? next : m_cacheStart % cS;
     }
 
     /** @return index in cache hosting the last row in the table that's
@@ -1392,8 +1622,7 @@ private void processHiLiteRequest(
         final int lastSelected = selModel.getMaxSelectionIndex();
         final HashSet<RowKey> selectedSet = new HashSet<RowKey>();
         // if all selected rows are in cache
-        if ((firstSelected >=  m_rowCountOfInterestInIterator - getCacheSize())
-            && (lastSelected < m_rowCountOfInterestInIterator)) {
+        if (isCached(firstSelected) && isCached(lastSelected)) {
             // no new iteration necessary, simply traverse cache
             final int length = lastSelected - firstSelected;
             for (int i = 0; i <= length; i++) {
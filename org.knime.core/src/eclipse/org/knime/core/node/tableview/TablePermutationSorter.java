@@ -0,0 +1,523 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.tableview;
+
+import java.lang.ref.WeakReference;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RecursiveAction;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataRow;
+import org.knime.core.data.DataTable;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.DataValueComparator;
+import org.knime.core.data.DoubleValue;
+import org.knime.core.data.LongValue;
+import org.knime.core.data.RowIterator;
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.util.memory.MemoryAlert;
+import org.knime.core.data.util.memory.MemoryAlertListener;
+import org.knime.core.data.util.memory.MemoryAlertSystem;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionMonitor;
+
+/**
+ * Sorts a table for the interactive table view by computing a permutation of
+ * the row indices rather than a sorted copy of the table. The values of the
+ * sort columns are read into arrays; those of numeric columns are primitive and
+ * cached, so that re-sorting on such a column does not read the table again.
+ * The cache is released on low memory (see {@link MemoryAlertSystem}) and by
+ * {@link #clearCache()}. The permutation is sorted in parallel using a stable
+ * merge sort, ties keep the original row order (same as in the
+ * {@link org.knime.core.data.sort.DataTableSorter}).
+ *
+ * <p>An instance is bound to one (unsorted) table and is safe to be used by
+ * consecutive sort workers, key extraction is synchronized.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class TablePermutationSorter {
+
+    /** Column index used for the row key (same as in {@link TableSortOrder}). */
+    static final int ROW_KEY_INDEX = -1;
+
+    /** Ranges smaller than this are sorted in the calling thread. */
+    private static final int SEQUENTIAL_THRESHOLD = 1 << 13;
+
+    /** Ranges smaller than this are sorted using insertion sort. */
+    private static final int INSERTION_SORT_THRESHOLD = 32;
+
+    /** Estimated heap size of the key of a non-primitive column per row
+     * (the reference plus the cell or string). */
+    private static final long OBJECT_KEY_BYTES = 64;
+
+    /** Fraction of the free heap the keys and the permutation may use. */
+    private static final double MEMORY_FRACTION = 0.5;
+
+    private final DataTable m_table;
+
+    private final int m_rowCount;
+
+    /** Primitive sort keys per column index, filled lazily. */
+    private final Map<Integer, ColumnKeys> m_keys = new ConcurrentHashMap<>();
+
+    private final KeyCacheReleaser m_memoryListener = new KeyCacheReleaser(m_keys);
+
+    /**
+     * @param table the table to sort, must be able to be iterated repeatedly
+     * @param rowCount the number of rows in the table
+     */
+    TablePermutationSorter(final DataTable table, final int rowCount) {
+        m_table = table;
+        m_rowCount = rowCount;
+        MemoryAlertSystem.getInstance().addListener(m_memoryListener);
+    }
+
+    /** Releases the cached keys, to be called when the sorter isn't used anymore. */
+    void clearCache() {
+        m_keys.clear();
+        MemoryAlertSystem.getInstance().removeListener(m_memoryListener);
+    }
+
+    /**
+     * @param table a table to be sorted in the view
+     * @return whether the argument can be sorted (and shown) by means of a
+     *         permutation, i.e. it's a {@link BufferedDataTable} whose row
+     *         count fits into an array
+     */
+    static boolean canSort(final DataTable table) {
+        return table instanceof BufferedDataTable
+            && ((BufferedDataTable)table).size() <= Integer.MAX_VALUE - 8;
+    }
+
+    /**
+     * @param table a table
+     * @return whether this sorter (and its cached keys) belongs to the argument table
+     */
+    boolean isSorterFor(final DataTable table) {
+        return m_table == table;
+    }
+
+    /**
+     * @param columns the sort column indices, {@link #ROW_KEY_INDEX} for the row key
+     * @return whether the keys of the columns that aren't cached and the
+     *         permutation fit into the free heap; if not the table should be
+     *         sorted by a sorter that swaps to disk
+     */
+    boolean fitsInMemory(final int[] columns) {
+        final DataTableSpec spec = m_table.getDataTableSpec();
+        long bytes = 2L * Integer.BYTES * m_rowCount; // permutation and merge buffer
+        for (int column : columns) {
+            if (!m_keys.containsKey(column)) {
+                bytes += isPrimitive(column, spec) ? Long.BYTES * (long)m_rowCount + m_rowCount / 8
+                    : OBJECT_KEY_BYTES * m_rowCount;
+            }
+        }
+        final long free = MemoryAlertSystem.getMaximumMemory() - MemoryAlertSystem.getUsedMemory();
+        return bytes <= free * MEMORY_FRACTION;
+    }
+
+    /** @return the table being sorted */
+    DataTable getTable() {
+        return m_table;
+    }
+
+    /**
+     * Sorts the table.
+     *
+     * @param columns the sort column indices, {@link #ROW_KEY_INDEX} for the row key
+     * @param ascending the sort order for each column
+     * @param exec for progress and cancelation
+     * @return the permutation, element <i>i</i> is the index of the <i>i</i>-th row in the sorted table
+     * @throws CanceledExecutionException if canceled
+     */
+    int[] sort(final int[] columns, final boolean[] ascending, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        final ColumnKeys[] keys = getKeys(columns, exec.createSubProgress(0.8));
+        final IndexComparator comparator = (a, b) -> {
+            for (int i = 0; i < keys.length; i++) {
+                final int c = keys[i].compare(a, b);
+                if (c != 0) {
+                    return ascending[i] ? c : -c;
+                }
+            }
+            return 0;
+        };
+        exec.setMessage("Sorting " + m_rowCount + " rows");
+        final int[] permutation = new int[m_rowCount];
+        for (int i = 0; i < permutation.length; i++) {
+            permutation[i] = i;
+        }
+        new MergeSortTask(permutation, new int[m_rowCount], 0, m_rowCount, comparator, exec).invoke();
+        exec.checkCanceled();
+        exec.setProgress(1.0);
+        return permutation;
+    }
+
+    /** Returns the keys for the argument columns, reading all columns that
+     * were not read before in one pass over the table. */
+    private synchronized ColumnKeys[] getKeys(final int[] columns, final ExecutionMonitor exec)
+        throws CanceledExecutionException {
+        final DataTableSpec spec = m_table.getDataTableSpec();
+        final ColumnKeys[] result = new ColumnKeys[columns.length];
+        final ColumnKeys[] toRead = new ColumnKeys[columns.length];
+        int toReadCount = 0;
+        for (int i = 0; i < columns.length; i++) {
+            result[i] = m_keys.get(columns[i]);
+            if (result[i] == null) {
+                result[i] = createKeys(columns[i], spec);
+                toRead[toReadCount++] = result[i];
+            }
+        }
+        if (toReadCount > 0) {
+            exec.setMessage("Reading sort keys");
+            final RowIterator it = m_table instanceof BufferedDataTable
+                ? ((BufferedDataTable)m_table).iteratorFailProve() : m_table.iterator();
+            try {
+                for (int r = 0; r < m_rowCount && it.hasNext(); r++) {
+                    final DataRow row = it.next();
+                    for (int k = 0; k < toReadCount; k++) {
+                        toRead[k].read(r, row);
+                    }
+                    if ((r & 0x3FF) == 0) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            throw new CanceledExecutionException();
+                        }
+                        exec.checkCanceled();
+                        exec.setProgress(r / (double)m_rowCount);
+                    }
+                }
+            } finally {
+                if (it instanceof CloseableRowIterator) {
+                    ((CloseableRowIterator)it).close();
+                }
+            }
+            // only cache complete (primitive) keys, i.e. not if canceled
+            for (int i = 0; i < columns.length; i++) {
+                if (result[i] instanceof PrimitiveKeys) {
+                    m_keys.putIfAbsent(columns[i], result[i]);
+                }
+            }
+        }
+        exec.setProgress(1.0);
+        return result;
+    }
+
+    private ColumnKeys createKeys(final int column, final DataTableSpec spec) {
+        if (column == ROW_KEY_INDEX) {
+            return new RowKeyKeys(m_rowCount);
+        }
+        final DataType type = spec.getColumnSpec(column).getType();
+        if (type.equals(DoubleCell.TYPE)) {
+            return new DoubleKeys(column, m_rowCount);
+        } else if (type.equals(IntCell.TYPE) || type.equals(LongCell.TYPE)) {
+            return new LongKeys(column, m_rowCount);
+        }
+        return new CellKeys(column, m_rowCount, type.getComparator());
+    }
+
+    /** @return whether the keys of the column are held in a primitive array (and cached) */
+    private static boolean isPrimitive(final int column, final DataTableSpec spec) {
+        if (column == ROW_KEY_INDEX) {
+            return false;
+        }
+        final DataType type = spec.getColumnSpec(column).getType();
+        return type.equals(DoubleCell.TYPE) || type.equals(IntCell.TYPE) || type.equals(LongCell.TYPE);
+    }
+
+    /** Clears the key cache on low memory. Only weakly references the cache so
+     * that the registration doesn't keep an abandoned sorter alive; removes
+     * itself with the next alert once the sorter is gone. */
+    private static final class KeyCacheReleaser extends MemoryAlertListener {
+
+        private final WeakReference<Map<Integer, ColumnKeys>> m_keysRef;
+
+        KeyCacheReleaser(final Map<Integer, ColumnKeys> keys) {
+            m_keysRef = new WeakReference<>(keys);
+        }
+
+        @Override
+        protected boolean memoryAlert(final MemoryAlert alert) {
+            final Map<Integer, ColumnKeys> keys = m_keysRef.get();
+            if (keys == null) {
+                return true;
+            }
+            keys.clear();
+            return false;
+        }
+    }
+
+    /** Compares two row indices. */
+    @FunctionalInterface
+    private interface IndexComparator {
+        int compare(int a, int b);
+    }
+
+    /** The sort keys of one column. */
+    private abstract static class ColumnKeys {
+
+        /** Reads the key of the argument row (which has the given index). */
+        abstract void read(int index, DataRow row);
+
+        /** Compares the keys of two rows. Missing values are smaller than any
+         * other value (same as in {@link DataValueComparator}). */
+        abstract int compare(int a, int b);
+    }
+
+    private static final class RowKeyKeys extends ColumnKeys {
+
+        private final String[] m_keys;
+
+        RowKeyKeys(final int rowCount) {
+            m_keys = new String[rowCount];
+        }
+
+        @Override
+        void read(final int index, final DataRow row) {
+            m_keys[index] = row.getKey().getString();
+        }
+
+        @Override
+        int compare(final int a, final int b) {
+            return m_keys[a].compareTo(m_keys[b]);
+        }
+    }
+
+    private abstract static class PrimitiveKeys extends ColumnKeys {
+
+        private final int m_column;
+
+        private final BitSet m_missing = new BitSet();
+
+        PrimitiveKeys(final int column) {
+            m_column = column;
+        }
+
+        @Override
+        final void read(final int index, final DataRow row) {
+            final DataCell cell = row.getCell(m_column);
+            if (cell.isMissing()) {
+                m_missing.set(index);
+            } else {
+                readValue(index, cell);
+            }
+        }
+
+        @Override
+        final int compare(final int a, final int b) {
+            final boolean aMissing = m_missing.get(a);
+            final boolean bMissing = m_missing.get(b);
+            if (aMissing || bMissing) {
+                return aMissing == bMissing ? 0 : (aMissing ? -1 : 1);
+            }
+            return compareValues(a, b);
+        }
+
+        abstract void readValue(int index, DataCell cell);
+
+        abstract int compareValues(int a, int b);
+    }
+
+    private static final class DoubleKeys extends PrimitiveKeys {
+
+        private final double[] m_values;
+
+        DoubleKeys(final int column, final int rowCount) {
+            super(column);
+            m_values = new double[rowCount];
+        }
+
+        @Override
+        void readValue(final int index, final DataCell cell) {
+            m_values[index] = ((DoubleValue)cell).getDoubleValue();
+        }
+
+        @Override
+        int compareValues(final int a, final int b) {
+            return Double.compare(m_values[a], m_values[b]);
+        }
+    }
+
+    private static final class LongKeys extends PrimitiveKeys {
+
+        private final long[] m_values;
+
+        LongKeys(final int column, final int rowCount) {
+            super(column);
+            m_values = new long[rowCount];
+        }
+
+        @Override
+        void readValue(final int index, final DataCell cell) {
+            m_values[index] = ((LongValue)cell).getLongValue();
+        }
+
+        @Override
+        int compareValues(final int a, final int b) {
+            return Long.compare(m_values[a], m_values[b]);
+        }
+    }
+
+    private static final class CellKeys extends ColumnKeys {
+
+        private final int m_column;
+
+        private final DataCell[] m_cells;
+
+        private final DataValueComparator m_comparator;
+
+        CellKeys(final int column, final int rowCount, final DataValueComparator comparator) {
+            m_column = column;
+            m_cells = new DataCell[rowCount];
+            m_comparator = comparator;
+        }
+
+        @Override
+        void read(final int index, final DataRow row) {
+            m_cells[index] = row.getCell(m_column);
+        }
+
+        @Override
+        int compare(final int a, final int b) {
+            return m_comparator.compare(m_cells[a], m_cells[b]);
+        }
+    }
+
+    /** Stable merge sort of a range of the permutation, the two halves of
+     * large ranges are sorted in parallel. */
+    @SuppressWarnings("serial")
+    private static final class MergeSortTask extends RecursiveAction {
+
+        private final int[] m_array;
+
+        private final int[] m_buffer;
+
+        private final int m_from;
+
+        private final int m_to;
+
+        private final IndexComparator m_comparator;
+
+        private final ExecutionMonitor m_exec;
+
+        MergeSortTask(final int[] array, final int[] buffer, final int from, final int to,
+            final IndexComparator comparator, final ExecutionMonitor exec) {
+            m_array = array;
+            m_buffer = buffer;
+            m_from = from;
+            m_to = to;
+            m_comparator = comparator;
+            m_exec = exec;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                m_exec.checkCanceled();
+            } catch (CanceledExecutionException e) {
+                return; // the caller checks again and throws
+            }
+            if (m_to - m_from <= SEQUENTIAL_THRESHOLD) {
+                sortSequentially(m_array, m_buffer, m_from, m_to, m_comparator);
+                return;
+            }
+            final int mid = (m_from + m_to) >>> 1;
+            invokeAll(new MergeSortTask(m_array, m_buffer, m_from, mid, m_comparator, m_exec),
+                new MergeSortTask(m_array, m_buffer, mid, m_to, m_comparator, m_exec));
+            merge(m_array, m_buffer, m_from, mid, m_to, m_comparator);
+        }
+    }
+
+    private static void sortSequentially(final int[] array, final int[] buffer, final int from, final int to,
+        final IndexComparator comparator) {
+        if (to - from < INSERTION_SORT_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                final int value = array[i];
+                int j = i - 1;
+                while (j >= from && comparator.compare(array[j], value) > 0) {
+                    array[j + 1] = array[j];
+                    j--;
+                }
+                array[j + 1] = value;
+            }
+            return;
+        }
+        final int mid = (from + to) >>> 1;
+        sortSequentially(array, buffer, from, mid, comparator);
+        sortSequentially(array, buffer, mid, to, comparator);
+        merge(array, buffer, from, mid, to, comparator);
+    }
+
+    /** Merges the sorted ranges [from, mid) and [mid, to), elements of the
+     * first range come first if equal. */
+    private static void merge(final int[] array, final int[] buffer, final int from, final int mid, final int to,
+        final IndexComparator comparator) {
+        if (comparator.compare(array[mid - 1], array[mid]) <= 0) {
+            return; // already in order
+        }
+        System.arraycopy(array, from, buffer, from, to - from);
+        int i = from;
+        int j = mid;
+        int k = from;
+        while (i < mid && j < to) {
+            array[k++] = comparator.compare(buffer[j], buffer[i]) < 0 ? buffer[j++] : buffer[i++];
+        }
+        while (i < mid) {
+            array[k++] = buffer[i++];
+        }
+        while (j < to) {
+            array[k++] = buffer[j++];
+        }
+    }
+
+}
@@ -88,6 +88,9 @@
 
 /**
  * SwingWorker that is used to sort the table content on mouse click in header.
+ * Buffered data tables are sorted by means of a {@link TablePermutationSorter},
+ * the result is then a {@link PermutedTable} view; other tables are sorted
+ * into a copy using a {@link DataTableSorter}.
  *
  * @author Bernd Wiswedel, KNIME AG, Zurich, Switzerland
  */
@@ -99,6 +102,10 @@ final class TableSorterWorker extends SwingWorker<DataTable, NodeProgress> {
     /** Table to sort. */
     private final DataTable m_inputTable;
 
+    /** Sorter computing a permutation of the input table (caching the sort
+     * keys of previous sorts) or null if the table needs to be copied. */
+    private final TablePermutationSorter m_permutationSorter;
+
     /** Content model (for callback). */
     private final TableContentModel m_cntModel;
 
@@ -120,14 +127,18 @@ final class TableSorterWorker extends SwingWorker<DataTable, NodeProgress> {
 
     /** Initialize new sorter, does not start sorting yet.
      * @param table Table to sort.
+     * @param permutationSorter Sorter for the table, if it can be sorted by
+     *        means of a permutation, or null.
      * @param order The sort order
      * @param parentComponent The parent component to block using a modal
      *        progress bar
      * @param cntModel The callback model. */
-    TableSorterWorker(final DataTable table, final TableSortOrder order,
-            final JComponent parentComponent,
+    TableSorterWorker(final DataTable table,
+            final TablePermutationSorter permutationSorter,
+            final TableSortOrder order, final JComponent parentComponent,
             final TableContentModel cntModel) {
         m_inputTable = table;
+        m_permutationSorter = permutationSorter;
         m_parentComponent = parentComponent;
         m_cntModel = cntModel;
         m_sortOrder = order;
@@ -174,10 +185,6 @@ protected DataTable doInBackground() throws Exception {
         LOGGER.debug("Starting interactive table sorting on column(s) "
                 + sortColNames);
         boolean[] sortOrders = m_sortOrder.getSortColumnOrder();
-        // it DOES NOT respect blobs -- they will be copied (expensive)
-        DataTableSorter sorter =
-                new DataTableSorter(m_inputTable, rowCount, sortColNames,
-                        sortOrders, false);
         NodeProgressListener progLis = new NodeProgressListener() {
             @Override
             public void progressChanged(final NodeProgressEvent pe) {
@@ -188,7 +195,26 @@ public void progressChanged(final NodeProgressEvent pe) {
         ExecutionMonitor exec = new ExecutionMonitor(m_nodeProgressMonitor);
         m_nodeProgressMonitor.addProgressListener(progLis);
         try {
-            DataTable result = sorter.sort(exec);
+            DataTable result = null;
+            final int[] sortColumns = m_sortOrder.getSortColumnIndices();
+            if (m_permutationSorter != null) {
+                if (m_permutationSorter.fitsInMemory(sortColumns)) {
+                    int[] permutation = m_permutationSorter.sort(
+                            sortColumns, sortOrders, exec);
+                    result = new PermutedTable(
+                        (BufferedDataTable)m_permutationSorter.getTable(), permutation);
+                } else {
+                    LOGGER.debug("Sort keys don't fit into memory, "
+                            + "falling back to sorted copy");
+                }
+            }
+            if (result == null) {
+                // it DOES NOT respect blobs -- they will be copied (expensive)
+                DataTableSorter sorter =
+                        new DataTableSorter(m_inputTable, rowCount, sortColNames,
+                                sortOrders, false);
+                result = sorter.sort(exec);
+            }
             long elapsedMS = System.currentTimeMillis() - start;
             String time = StringFormat.formatElapsedTime(elapsedMS);
             LOGGER.debug("Interactive table sorting finished (" + time + ")");
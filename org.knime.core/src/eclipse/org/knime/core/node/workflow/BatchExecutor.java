@@ -626,7 +626,20 @@ public static String getOptionsString() {
                 + "                      if omitted the workflow is only saved in place\n"
                 + " -workflow.variable=name,value,type => define or overwrite workflow variable\n"
                 + "                      'name' with value 'value' (possibly enclosed by quotes). The\n"
-                + "                      'type' must be one of \"String\", \"int\" or \"double\".";
+                + "                      'type' must be one of \"String\", \"int\" or \"double\".\n"
+                + "Daemon mode (keeps running and executes jobs, each consisting of the above\n"
+                + "options, one per line; other options given to the daemon apply to all jobs;\n"
+                + "-masterkey and -preferences can only be given to the daemon):\n"
+                + " -daemonSpoolDir=... => directory polled for job files '<name>.job', the exit\n"
+                + "                      code is written to '<name>.result', a file 'stop' ends\n"
+                + "                      the daemon\n"
+                + " -daemonPort=...   => local port to listen on; a job is sent as lines terminated\n"
+                + "                      by an empty line, the first line being the token from the\n"
+                + "                      token file; the exit code is sent back; '-shutdown' ends\n"
+                + "                      the daemon\n"
+                + " -daemonTokenFile=... => file the token is written to (readable only by the\n"
+                + "                      current user), default '~/.knime-batch-executor-<port>.token'\n"
+                + " -daemonThreads=n  => number of jobs executed concurrently";
     }
 
     /**
@@ -665,7 +678,30 @@ public static int mainRun(final String... args) {
             new BatchExecutor().usage();
             return EXIT_SUCCESS;
         }
+        if (BatchExecutorDaemon.isDaemonInvocation(args)) {
+            return BatchExecutorDaemon.run(args, BatchExecutor::applyGlobalOptions, BatchExecutor::runBatch);
+        }
+        return runBatch(args);
+    }
+
+    /** Applies the options changing the whole application (master key and preferences), used once by the
+     * {@link BatchExecutorDaemon} at startup rather than for each of its jobs. */
+    private static int applyGlobalOptions(final String... args) {
+        try {
+            new BatchExecutor().parseConfigFromArguments(args);
+            return EXIT_SUCCESS;
+        } catch (IOException | CoreException ex) {
+            LOGGER.error("Error while reading preferences file: " + ex.getMessage(), ex);
+            return EXIT_ERR_PRESTART;
+        } catch (IllegalOptionException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            return EXIT_ERR_PRESTART;
+        }
+    }
 
+    /** Runs the workflow(s) specified by the arguments, used by {@link #mainRun(String...)} and for the jobs of the
+     * {@link BatchExecutorDaemon}. */
+    private static int runBatch(final String... args) {
         try {
             BatchExecutor exec = new BatchExecutor(args);
             return exec.runAll();
@@ -0,0 +1,610 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.workflow.BatchExecutor.IllegalOptionException;
+
+/**
+ * Resident mode of the {@link BatchExecutor}: instead of executing one workflow per JVM invocation the daemon stays
+ * alive and runs batch jobs as they are submitted, so that the startup of the application (and the initialization of
+ * the node repository etc.) is paid only once. Jobs are run concurrently, each one loads its workflow with its own
+ * {@link WorkflowContext}, exactly as a separate batch executor invocation would do.
+ *
+ * <p>
+ * A job consists of the usual batch executor arguments (see {@link BatchExecutor#getOptionsString()}), one per line.
+ * Arguments passed to the daemon itself (other than the daemon options) are prepended to the arguments of every job,
+ * e.g. <tt>-reset</tt>. The master key and the preferences are global to the application, hence they can only be
+ * passed to the daemon, which applies them once at startup; jobs containing <tt>-masterkey</tt> or
+ * <tt>-preferences</tt> are rejected. Jobs can be submitted
+ * <ul>
+ * <li>via a spool directory (<tt>-daemonSpoolDir=...</tt>): each file <tt>&lt;name&gt;.job</tt> is a job. The daemon
+ * renames it to <tt>&lt;name&gt;.running</tt> while it runs, then writes the exit code into
+ * <tt>&lt;name&gt;.result</tt> and renames the job to <tt>&lt;name&gt;.done</tt>. An (empty) file named <tt>stop</tt>
+ * shuts the daemon down once all running jobs have finished. Several daemons may share a spool directory. Everybody
+ * who can write to the spool directory can run workflows as the daemon's user, its permissions must be set
+ * accordingly.</li>
+ * <li>via a socket on the loopback interface (<tt>-daemonPort=...</tt>): a client sends a secret token, the arguments
+ * and an empty line, one per line; the daemon answers with the exit code once the job has finished and closes the
+ * connection. Requests are read and authenticated by a few separate threads, only valid jobs occupy a job thread. A
+ * request consisting of the token and the single line <tt>-shutdown</tt> shuts the daemon down. The
+ * token is created randomly at startup and written to a file only readable by the daemon's user
+ * (<tt>-daemonTokenFile=...</tt>, by default <tt>.knime-batch-executor-&lt;port&gt;.token</tt> in the user's home
+ * directory), requests without the correct token are rejected. The file is deleted on shutdown.</li>
+ * </ul>
+ * The number of concurrently executed jobs is set with <tt>-daemonThreads=...</tt>.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ */
+final class BatchExecutorDaemon {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(BatchExecutorDaemon.class);
+
+    /** Option for the spool directory. */
+    static final String OPTION_SPOOL_DIR = "-daemonSpoolDir";
+
+    /** Option for the port on the loopback interface, 0 for any free port. */
+    static final String OPTION_PORT = "-daemonPort";
+
+    /** Option for the number of concurrently executed jobs. */
+    static final String OPTION_THREADS = "-daemonThreads";
+
+    /** Option for the file the socket token is written to. */
+    static final String OPTION_TOKEN_FILE = "-daemonTokenFile";
+
+    /** Options changing global state of the application, not allowed in jobs. */
+    static final Set<String> GLOBAL_OPTIONS =
+        Collections.unmodifiableSet(new HashSet<>(Arrays.asList("-masterkey", "-preferences")));
+
+    /** Suffix of job files in the spool directory. */
+    static final String JOB_SUFFIX = ".job";
+
+    /** Suffix of job files that are being executed. */
+    static final String RUNNING_SUFFIX = ".running";
+
+    /** Suffix of job files that have been executed. */
+    static final String DONE_SUFFIX = ".done";
+
+    /** Suffix of the files containing the exit code of a job. */
+    static final String RESULT_SUFFIX = ".result";
+
+    /** Name of the file in the spool directory that shuts down the daemon. */
+    static final String STOP_FILE = "stop";
+
+    /** Socket request that shuts down the daemon. */
+    static final String SHUTDOWN_REQUEST = "-shutdown";
+
+    private static final long SPOOL_POLL_INTERVAL_MS = 200;
+
+    private static final int SOCKET_READ_TIMEOUT_MS = 30000;
+
+    /** Number of threads reading and authenticating socket requests. */
+    private static final int READER_THREADS = 2;
+
+    private final ToIntFunction<String[]> m_globalOptionsHandler;
+
+    private final ToIntFunction<String[]> m_jobRunner;
+
+    private final String[] m_globalArgs;
+
+    private final String[] m_defaultArgs;
+
+    private final Path m_spoolDir;
+
+    private final int m_port;
+
+    private final Path m_tokenFile;
+
+    private byte[] m_token;
+
+    private final ExecutorService m_executor;
+
+    private final ExecutorService m_requestReader;
+
+    private final CountDownLatch m_shutdown = new CountDownLatch(1);
+
+    private volatile boolean m_isShuttingDown;
+
+    private ServerSocket m_serverSocket;
+
+    /**
+     * @param args the daemon arguments, see class description
+     * @param globalOptionsHandler applies the {@linkplain #GLOBAL_OPTIONS global options} passed to the daemon (once,
+     *            when the daemon is started) and returns an exit code
+     * @param jobRunner runs a single job given its arguments and returns the exit code
+     * @throws IllegalOptionException if the daemon options are invalid
+     */
+    BatchExecutorDaemon(final String[] args, final ToIntFunction<String[]> globalOptionsHandler,
+        final ToIntFunction<String[]> jobRunner) throws IllegalOptionException {
+        m_globalOptionsHandler = globalOptionsHandler;
+        m_jobRunner = jobRunner;
+        Path spoolDir = null;
+        Path tokenFile = null;
+        int port = -1;
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        final List<String> globalArgs = new ArrayList<>();
+        final List<String> defaultArgs = new ArrayList<>();
+        for (String s : args) {
+            final String[] parts = s.split("=", 2);
+            if (OPTION_SPOOL_DIR.equals(parts[0])) {
+                if (parts.length != 2 || parts[1].isEmpty()) {
+                    throw new IllegalOptionException("No spool directory given: " + s);
+                }
+                spoolDir = Paths.get(parts[1]);
+                if (!Files.isDirectory(spoolDir)) {
+                    throw new IllegalOptionException("Spool directory '" + parts[1] + "' does not exist");
+                }
+            } else if (OPTION_PORT.equals(parts[0])) {
+                port = parseInt(s, parts, 0, 65535);
+            } else if (OPTION_THREADS.equals(parts[0])) {
+                threads = parseInt(s, parts, 1, Integer.MAX_VALUE);
+            } else if (OPTION_TOKEN_FILE.equals(parts[0])) {
+                if (parts.length != 2 || parts[1].isEmpty()) {
+                    throw new IllegalOptionException("No token file given: " + s);
+                }
+                tokenFile = Paths.get(parts[1]);
+            } else if (GLOBAL_OPTIONS.contains(parts[0])) {
+                globalArgs.add(s);
+            } else {
+                defaultArgs.add(s);
+            }
+        }
+        if (spoolDir == null && port < 0) {
+            throw new IllegalOptionException(
+                "Daemon mode requires a spool directory (" + OPTION_SPOOL_DIR + ") or a port (" + OPTION_PORT + ")");
+        }
+        m_spoolDir = spoolDir;
+        m_port = port;
+        m_tokenFile = tokenFile;
+        m_globalArgs = globalArgs.toArray(new String[0]);
+        m_defaultArgs = defaultArgs.toArray(new String[0]);
+        final AtomicInteger threadCount = new AtomicInteger();
+        m_executor = Executors.newFixedThreadPool(threads,
+            r -> new Thread(r, "KNIME-BatchExecutor-Job-" + threadCount.incrementAndGet()));
+        final AtomicInteger readerCount = new AtomicInteger();
+        m_requestReader = Executors.newFixedThreadPool(READER_THREADS, r -> {
+            final Thread t = new Thread(r, "KNIME-BatchExecutor-Reader-" + readerCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    private static int parseInt(final String s, final String[] parts, final int min, final int max)
+        throws IllegalOptionException {
+        try {
+            final int value = parts.length == 2 ? Integer.parseInt(parts[1]) : -1;
+            if (value >= min && value <= max) {
+                return value;
+            }
+        } catch (NumberFormatException ex) {
+            throw new IllegalOptionException("Couldn't parse argument: " + s, ex);
+        }
+        throw new IllegalOptionException("Value must be in [" + min + ", " + max + "]: " + s);
+    }
+
+    /**
+     * @param args command line arguments
+     * @return whether the arguments contain a daemon option
+     */
+    static boolean isDaemonInvocation(final String[] args) {
+        return Arrays.stream(args).map(s -> s.split("=", 2)[0])
+            .anyMatch(s -> OPTION_SPOOL_DIR.equals(s) || OPTION_PORT.equals(s));
+    }
+
+    /**
+     * Starts a daemon and waits until it has been shut down.
+     *
+     * @param args the daemon arguments
+     * @param globalOptionsHandler applies the global options
+     * @param jobRunner runs a single job
+     * @return an exit code, {@link BatchExecutor#EXIT_SUCCESS} or {@link BatchExecutor#EXIT_ERR_PRESTART}
+     */
+    static int run(final String[] args, final ToIntFunction<String[]> globalOptionsHandler,
+        final ToIntFunction<String[]> jobRunner) {
+        final BatchExecutorDaemon daemon;
+        try {
+            daemon = new BatchExecutorDaemon(args, globalOptionsHandler, jobRunner);
+            daemon.start();
+        } catch (IllegalOptionException ex) {
+            LOGGER.error(ex.getMessage(), ex);
+            return BatchExecutor.EXIT_ERR_PRESTART;
+        } catch (IOException ex) {
+            LOGGER.error("Unable to start batch executor daemon: " + ex.getMessage(), ex);
+            return BatchExecutor.EXIT_ERR_PRESTART;
+        }
+        try {
+            daemon.awaitShutdown();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            daemon.shutdown();
+        }
+        return BatchExecutor.EXIT_SUCCESS;
+    }
+
+    /**
+     * Applies the global options, then starts listening on the socket and polling the spool directory.
+     *
+     * @throws IOException if the socket cannot be opened
+     * @throws IllegalOptionException if the global options cannot be applied
+     */
+    synchronized void start() throws IOException, IllegalOptionException {
+        if (m_globalArgs.length > 0) {
+            // once for all jobs: the preferences are imported and the master key is prompted for only here
+            final int exitCode = m_globalOptionsHandler.applyAsInt(m_globalArgs);
+            if (exitCode != BatchExecutor.EXIT_SUCCESS) {
+                throw new IllegalOptionException(
+                    "Unable to apply " + String.join(" ", m_globalArgs) + " (exit code " + exitCode + ")");
+            }
+        }
+        if (m_port >= 0) {
+            m_serverSocket = new ServerSocket(m_port, 50, InetAddress.getLoopbackAddress());
+            try {
+                m_token = writeToken(getTokenFile());
+            } catch (IOException ex) {
+                closeQuietly(m_serverSocket);
+                throw ex;
+            }
+            LOGGER.info("Batch executor daemon listening on port " + m_serverSocket.getLocalPort()
+                + ", token written to " + getTokenFile());
+            startThread(this::acceptConnections, "KNIME-BatchExecutor-Socket");
+        }
+        if (m_spoolDir != null) {
+            LOGGER.info("Batch executor daemon polling spool directory " + m_spoolDir);
+            startThread(this::pollSpoolDirectory, "KNIME-BatchExecutor-Spool");
+        }
+    }
+
+    private static void startThread(final Runnable r, final String name) {
+        final Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Creates a random token and writes it (hex encoded) to a new file that is only readable by the current user. An
+     * existing file is replaced.
+     */
+    private static byte[] writeToken(final Path file) throws IOException {
+        final byte[] token = new byte[32];
+        new SecureRandom().nextBytes(token);
+        final StringBuilder hex = new StringBuilder();
+        for (byte b : token) {
+            hex.append(String.format("%02x", b));
+        }
+        Files.deleteIfExists(file);
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            Files.createFile(file,
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else {
+            // other file systems (Windows) inherit the ACL of the (user's home) directory
+            Files.createFile(file);
+        }
+        Files.write(file, (hex + "\n").getBytes(StandardCharsets.US_ASCII));
+        return hex.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /** @return the file holding the socket token, null if the daemon doesn't use a socket or isn't started yet */
+    synchronized Path getTokenFile() {
+        if (m_serverSocket == null) {
+            return null;
+        }
+        return m_tokenFile != null ? m_tokenFile : Paths.get(System.getProperty("user.home"),
+            ".knime-batch-executor-" + m_serverSocket.getLocalPort() + ".token");
+    }
+
+    /** @return the port the daemon listens on or -1 if it doesn't use a socket */
+    synchronized int getLocalPort() {
+        return m_serverSocket != null ? m_serverSocket.getLocalPort() : -1;
+    }
+
+    /**
+     * Blocks until the daemon has been shut down and all jobs have finished.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    void awaitShutdown() throws InterruptedException {
+        m_shutdown.await();
+    }
+
+    /** Stops accepting new jobs, waits for the running jobs and releases the waiting threads. */
+    void shutdown() {
+        synchronized (this) {
+            if (m_isShuttingDown) {
+                return;
+            }
+            m_isShuttingDown = true;
+        }
+        LOGGER.info("Shutting down batch executor daemon");
+        startThread(() -> {
+            if (m_serverSocket != null) {
+                closeQuietly(m_serverSocket);
+                try {
+                    Files.deleteIfExists(getTokenFile());
+                } catch (IOException ex) {
+                    LOGGER.debug("Unable to delete token file: " + ex.getMessage(), ex);
+                }
+            }
+            // requests still being read are rejected once they are submitted
+            m_requestReader.shutdown();
+            m_executor.shutdown();
+            try {
+                while (!m_executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    LOGGER.info("Waiting for running jobs to finish");
+                }
+            } catch (InterruptedException ex) {
+                m_executor.shutdownNow();
+            }
+            m_shutdown.countDown();
+        }, "KNIME-BatchExecutor-Shutdown");
+    }
+
+    /**
+     * Runs a single job.
+     *
+     * @param jobArgs the job's arguments
+     * @return the exit code
+     */
+    int runJob(final String[] jobArgs) {
+        for (String arg : jobArgs) {
+            if (GLOBAL_OPTIONS.contains(arg.split("=", 2)[0])) {
+                LOGGER.error("Batch job rejected, option " + arg.split("=", 2)[0]
+                    + " changes the whole application and can only be passed to the daemon");
+                return BatchExecutor.EXIT_ERR_PRESTART;
+            }
+        }
+        final String[] args = new String[m_defaultArgs.length + jobArgs.length];
+        System.arraycopy(m_defaultArgs, 0, args, 0, m_defaultArgs.length);
+        System.arraycopy(jobArgs, 0, args, m_defaultArgs.length, jobArgs.length);
+        if (args.length == 0) {
+            LOGGER.error("Empty batch job");
+            return BatchExecutor.EXIT_ERR_PRESTART;
+        }
+        try {
+            return m_jobRunner.applyAsInt(args);
+        } catch (RuntimeException ex) { // NOSONAR a failing job must not bring down the daemon
+            LOGGER.error("Batch job failed: " + ex.getMessage(), ex);
+            return BatchExecutor.EXIT_ERR_EXECUTION;
+        }
+    }
+
+    private void acceptConnections() {
+        while (!m_isShuttingDown) {
+            final Socket socket;
+            try {
+                socket = m_serverSocket.accept();
+            } catch (SocketException ex) {
+                if (!m_isShuttingDown) {
+                    LOGGER.error("Batch executor daemon socket closed unexpectedly: " + ex.getMessage(), ex);
+                    shutdown();
+                }
+                return;
+            } catch (IOException ex) {
+                LOGGER.warn("Unable to accept connection: " + ex.getMessage(), ex);
+                continue;
+            }
+            // read the request in a reader thread, a slow client must neither block other submissions nor a job thread
+            try {
+                m_requestReader.execute(() -> readRequest(socket));
+            } catch (RuntimeException ex) { // NOSONAR RejectedExecutionException, shutting down
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    /** Reads and authenticates a socket request and submits it as job (or shuts down the daemon). */
+    private void readRequest(final Socket socket) {
+        final List<String> args = new ArrayList<>();
+        try {
+            socket.setSoTimeout(SOCKET_READ_TIMEOUT_MS);
+            final BufferedReader reader =
+                new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            final String token = reader.readLine();
+            if (token == null
+                || !MessageDigest.isEqual(m_token, token.trim().getBytes(StandardCharsets.US_ASCII))) {
+                LOGGER.warn("Batch job from " + socket.getRemoteSocketAddress() + " rejected, invalid token");
+                closeQuietly(socket);
+                return;
+            }
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                args.add(line);
+            }
+        } catch (IOException ex) {
+            LOGGER.warn("Unable to read batch job from socket: " + ex.getMessage(), ex);
+            closeQuietly(socket);
+            return;
+        }
+        if (args.size() == 1 && SHUTDOWN_REQUEST.equals(args.get(0))) {
+            writeExitCode(socket, BatchExecutor.EXIT_SUCCESS);
+            shutdown();
+            return;
+        }
+        submit(() -> writeExitCode(socket, runJob(args.toArray(new String[0]))), () -> closeQuietly(socket));
+    }
+
+    private static void writeExitCode(final Socket socket, final int exitCode) {
+        try (Writer writer = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+            writer.write(exitCode + "\n");
+        } catch (IOException ex) {
+            LOGGER.warn("Unable to send exit code of batch job: " + ex.getMessage(), ex);
+        } finally {
+            closeQuietly(socket);
+        }
+    }
+
+    private static void closeQuietly(final AutoCloseable socket) {
+        try {
+            socket.close();
+        } catch (Exception ex) { // NOSONAR nothing to do
+        }
+    }
+
+    /** Submits a job to the executor, calls the rejection handler if the daemon is shutting down. */
+    private void submit(final Runnable job, final Runnable onRejection) {
+        try {
+            m_executor.execute(job);
+        } catch (RuntimeException ex) { // RejectedExecutionException
+            LOGGER.warn("Batch executor daemon is shutting down, job rejected");
+            onRejection.run();
+        }
+    }
+
+    private void pollSpoolDirectory() {
+        while (!m_isShuttingDown) {
+            try {
+                if (Files.deleteIfExists(m_spoolDir.resolve(STOP_FILE))) {
+                    shutdown();
+                    return;
+                }
+                for (Path job : listJobs()) {
+                    claimAndSubmit(job);
+                }
+            } catch (IOException ex) {
+                LOGGER.warn("Unable to read spool directory " + m_spoolDir + ": " + ex.getMessage(), ex);
+            }
+            try {
+                Thread.sleep(SPOOL_POLL_INTERVAL_MS);
+            } catch (InterruptedException ex) {
+                shutdown();
+                return;
+            }
+        }
+    }
+
+    /** @return the job files in the spool directory, ordered by name */
+    private List<Path> listJobs() throws IOException {
+        final List<Path> jobs = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(m_spoolDir, "*" + JOB_SUFFIX)) {
+            stream.forEach(jobs::add);
+        }
+        jobs.sort(null);
+        return jobs;
+    }
+
+    private void claimAndSubmit(final Path job) {
+        final String name = job.getFileName().toString();
+        final String baseName = name.substring(0, name.length() - JOB_SUFFIX.length());
+        final Path running = m_spoolDir.resolve(baseName + RUNNING_SUFFIX);
+        try {
+            // an atomic rename makes sure no other daemon runs the job
+            Files.move(job, running, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException | FileAlreadyExistsException ex) { // NOSONAR claimed by another daemon
+            return;
+        } catch (AtomicMoveNotSupportedException ex) {
+            LOGGER.error("Spool directory doesn't support atomic renames: " + ex.getMessage(), ex);
+            shutdown();
+            return;
+        } catch (IOException ex) {
+            LOGGER.warn("Unable to claim batch job " + job + ": " + ex.getMessage(), ex);
+            return;
+        }
+        submit(() -> runSpooledJob(running, baseName), () -> {
+            try {
+                // give the job back
+                Files.move(running, job, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException ex) {
+                LOGGER.warn("Unable to release batch job " + running + ": " + ex.getMessage(), ex);
+            }
+        });
+    }
+
+    private void runSpooledJob(final Path running, final String baseName) {
+        int exitCode;
+        try {
+            final String[] args = Files.readAllLines(running, StandardCharsets.UTF_8).stream().map(String::trim)
+                .filter(s -> !s.isEmpty() && !s.startsWith("#")).toArray(String[]::new);
+            LOGGER.info("Running batch job " + baseName);
+            exitCode = runJob(args);
+        } catch (IOException ex) {
+            LOGGER.error("Unable to read batch job " + running + ": " + ex.getMessage(), ex);
+            exitCode = BatchExecutor.EXIT_ERR_PRESTART;
+        }
+        try {
+            final Path tmp = m_spoolDir.resolve(baseName + RESULT_SUFFIX + ".tmp");
+            Files.write(tmp, (exitCode + "\n").getBytes(StandardCharsets.UTF_8));
+            Files.move(tmp, m_spoolDir.resolve(baseName + RESULT_SUFFIX), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+            Files.move(running, m_spoolDir.resolve(baseName + DONE_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException ex) {
+            LOGGER.error("Unable to write result of batch job " + baseName + ": " + ex.getMessage(), ex);
+        }
+    }
+
+}
@@ -48,6 +48,7 @@
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -95,6 +96,10 @@ public final class FlowObjectStack implements Iterable<FlowObject> {
      * StackWrapper. */
     private final NodeID m_nodeID;
 
+    /** Index of the flow variables on m_stack by name, null if m_stack was modified since it was built. Read without
+     * lock, reset and rebuilt while holding the lock on m_stack. */
+    private volatile VariableIndex m_variableIndex;
+
     /** Root stack. */
     private FlowObjectStack() {
         m_nodeID = WorkflowManager.ROOT.getID();
@@ -340,6 +345,7 @@ public <T extends FlowScopeContext> T peekScopeContext(final Class<T> type, fina
      */
     public <T extends FlowObject> T pop(final Class<T> type) {
         synchronized (m_stack) {
+            m_variableIndex = null;
             for (int i = m_stack.size() - 1; i >= 0; i--) {
                 FlowObject e = m_stack.remove(i);
                 if (type.isInstance(e)) {
@@ -366,6 +372,7 @@ public <T extends FlowObject> T pop(final Class<T> type) {
      */
     public <T extends FlowScopeContext> T popScopeContext(final Class<T> type, final boolean isInactiveScope) {
         synchronized (m_stack) {
+            m_variableIndex = null;
             for (int i = m_stack.size() - 1; i >= 0; i--) {
                 FlowObject e = m_stack.remove(i);
                 if (type.isInstance(e) && (type.cast(e).isInactiveScope() == isInactiveScope)) {
@@ -386,16 +393,9 @@ public <T extends FlowScopeContext> T popScopeContext(final Class<T> type, final
      */
     @Deprecated
     public FlowVariable peekFlowVariable(final String name, final Type type) {
-        synchronized (m_stack) {
-            for (int i = m_stack.size() - 1; i >= 0; i--) {
-                FlowObject e = m_stack.get(i);
-                if (!(e instanceof FlowVariable)) {
-                    continue;
-                }
-                FlowVariable v = (FlowVariable)e;
-                if (v.getName().equals(name) && v.getType().equals(type)) {
-                    return v;
-                }
+        for (FlowVariable v : getVariableIndex().get(name)) {
+            if (v.getType().equals(type)) {
+                return v;
             }
         }
         throw new NoSuchElementException("No such variable \"" + name + "\" of"
@@ -415,14 +415,30 @@ public FlowVariable peekFlowVariable(final String name, final Type type) {
     public Optional<FlowVariable> peekFlowVariable(final String name, final VariableType<?> type) {
         CheckUtils.checkArgumentNotNull(name, "Variable name must not be null.");
         CheckUtils.checkArgumentNotNull(type, "Variable type must not be null.");
-        synchronized (m_stack) {
-            final int size = m_stack.size();
-            return IntStream.rangeClosed(1, size).mapToObj(i -> m_stack.get(size - i))//
-                .filter(o -> o instanceof FlowVariable)//
-                .map(o -> (FlowVariable)o)//
-                .filter(v -> v.getName().equals(name) && v.getVariableType().equals(type))//
-                .findFirst();
+        for (FlowVariable v : getVariableIndex().get(name)) {
+            if (v.getVariableType().equals(type)) {
+                return Optional.of(v);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the index of the flow variables on the stack, building it if the stack was modified since it was last
+     * built. Doesn't lock if the index is up to date.
+     */
+    private VariableIndex getVariableIndex() {
+        VariableIndex index = m_variableIndex;
+        if (index == null) {
+            synchronized (m_stack) {
+                index = m_variableIndex;
+                if (index == null) {
+                    index = new VariableIndex(m_stack);
+                    m_variableIndex = index;
+                }
+            }
         }
+        return index;
     }
 
     /**
@@ -592,7 +608,12 @@ public void push(final FlowObject item) {
      */
     void pushWithOwner(final FlowObject item) {
         CheckUtils.checkArgument(item.getOwner() != null, "Item should have owner set at this point: %s", item);
-        m_stack.add(item);
+        synchronized (m_stack) {
+            m_stack.add(item);
+            if (item instanceof FlowVariable) {
+                m_variableIndex = null;
+            }
+        }
     }
 
     /**
@@ -731,6 +752,35 @@ private static final Pair<String, Type> getVariableDefinition(
         return new Pair<String, Type>(varName, varType);
     }
 
+    /** Immutable snapshot of the flow variables on a stack, grouped by name. Each group lists the variables top of
+     * stack first so that the first one matching a type is the one visible to nodes (variables with the same name
+     * shadow the ones below, separately for each type).
+     */
+    private static final class VariableIndex {
+
+        private final Map<String, List<FlowVariable>> m_variablesByName;
+
+        /** Builds the index, to be called while holding the lock on the stack.
+         * @param stack the stack, bottom first */
+        VariableIndex(final List<FlowObject> stack) {
+            Map<String, List<FlowVariable>> variablesByName = new HashMap<>();
+            for (int i = stack.size() - 1; i >= 0; i--) {
+                FlowObject o = stack.get(i);
+                if (o instanceof FlowVariable) {
+                    FlowVariable v = (FlowVariable)o;
+                    variablesByName.computeIfAbsent(v.getName(), k -> new ArrayList<>(1)).add(v);
+                }
+            }
+            m_variablesByName = variablesByName;
+        }
+
+        /** @param name variable name
+         * @return variables with the name, top of stack first, possibly empty */
+        List<FlowVariable> get(final String name) {
+            return m_variablesByName.getOrDefault(name, Collections.emptyList());
+        }
+    }
+
     /** Iterator that removes flow variables with given scopes from an
      * underlying iterator. Used, for instance to remove "local" variables when
      * merging stacks of predecessor nodes.
@@ -66,4 +66,17 @@ public interface LoopEndParallelizeNode extends LoopEndNode {
      */
     public void updateStatus();
 
+    /**
+     * Whether this end node collects its input via
+     * {@link ParallelizedChunkContentMaster#getMicroChunkOutportContent(int)} for all
+     * {@link ParallelizedChunkContentMaster#nrMicroChunks() micro chunks}, and hence supports loop bodies that process
+     * more than one chunk, see {@link LoopStartParallelizeNode#getNrMicroChunks()}.
+     *
+     * @return <code>false</code> by default
+     * @since 4.5
+     */
+    default boolean supportsMicroChunks() {
+        return false;
+    }
+
 }
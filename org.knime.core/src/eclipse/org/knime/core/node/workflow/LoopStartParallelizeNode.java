@@ -68,7 +68,7 @@
 public interface LoopStartParallelizeNode extends LoopStartNode {
 
     /**
-     * @param chunkIndex index
+     * @param chunkIndex index, in the range of [0, {@link #getNrMicroChunks()})
      * @return virtual input node for the given chunk
      */
 	VirtualParallelizedChunkNodeInput getVirtualNodeInput(final int chunkIndex);
@@ -79,6 +79,20 @@ public interface LoopStartParallelizeNode extends LoopStartNode {
 	 */
     int getNrRemoteChunks();
 
+    /**
+     * Returns the number of remote chunks the input is split into. If this number is larger than
+     * {@link #getNrRemoteChunks()} (and the matching end node {@link LoopEndParallelizeNode#supportsMicroChunks()
+     * supports it}), the framework creates {@link #getNrRemoteChunks()} copies of the loop body, each of which
+     * processes one of these micro chunks at a time and then pulls the next unprocessed one until all are done. This
+     * balances the load if the chunks take very different times to process.
+     *
+     * @return overall number of remote (micro) chunks, by default {@link #getNrRemoteChunks()}
+     * @since 4.5
+     */
+    default int getNrMicroChunks() {
+        return getNrRemoteChunks();
+    }
+
     /** Set parallel chunk master so the start node has access to clean up
      * when reset.
      *
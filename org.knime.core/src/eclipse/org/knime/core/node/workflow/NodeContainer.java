@@ -173,6 +173,8 @@ public boolean executionInProgress() {
 
     private final NodeTimer m_nodeTimer = new NodeTimer(this);
 
+    private final NodeExecutionProfiler m_executionProfiler = new NodeExecutionProfiler(this);
+
     private ChangesTracker m_changesTracker;
 
     /**
@@ -1451,6 +1453,15 @@ public NodeTimer getNodeTimer() {
         return m_nodeTimer;
     }
 
+    /**
+     * @return the profiler holding the resource usage of the recent executions of this node (only recorded if
+     *         {@linkplain NodeExecutionProfiler#isEnabled() enabled})
+     * @since 4.5
+     */
+    public NodeExecutionProfiler getExecutionProfiler() {
+        return m_executionProfiler;
+    }
+
     /** Is this node a to be locally executed workflow. In contrast to remotely
      * executed workflows, the nodes in the encapsulated workflow will be
      * executed independently (each represented by an own job), whereas remote
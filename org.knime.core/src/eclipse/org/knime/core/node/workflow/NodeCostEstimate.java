@@ -0,0 +1,148 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.util.Arrays;
+
+/**
+ * Estimated cost of the execution of a single node, computed by the {@link WorkflowCostEstimator}. Values are -1 if
+ * they cannot be estimated, e.g. because the row count of a source node is not known.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ */
+public final class NodeCostEstimate {
+
+    private final NodeID m_nodeID;
+
+    private final String m_nodeName;
+
+    private final boolean m_isExecuted;
+
+    private final boolean m_isHinted;
+
+    private final long[] m_outputRowCounts;
+
+    private final long[] m_outputBytes;
+
+    private final long m_memoryBytes;
+
+    private final long m_diskSpillBytes;
+
+    private final long m_runtimeNanos;
+
+    NodeCostEstimate(final NodeID nodeID, final String nodeName, final boolean isExecuted, // NOSONAR
+        final boolean isHinted, final long[] outputRowCounts, final long[] outputBytes, final long memoryBytes,
+        final long diskSpillBytes, final long runtimeNanos) {
+        m_nodeID = nodeID;
+        m_nodeName = nodeName;
+        m_isExecuted = isExecuted;
+        m_isHinted = isHinted;
+        m_outputRowCounts = outputRowCounts;
+        m_outputBytes = outputBytes;
+        m_memoryBytes = memoryBytes;
+        m_diskSpillBytes = diskSpillBytes;
+        m_runtimeNanos = runtimeNanos;
+    }
+
+    /** @return the ID of the node */
+    public NodeID getNodeID() {
+        return m_nodeID;
+    }
+
+    /** @return the name of the node including its ID */
+    public String getNodeName() {
+        return m_nodeName;
+    }
+
+    /** @return whether the node is executed already, i.e. the row counts are exact and there is no remaining cost */
+    public boolean isExecuted() {
+        return m_isExecuted;
+    }
+
+    /** @return whether the estimate is based on a {@link org.knime.core.node.CostHint} of the node */
+    public boolean isHinted() {
+        return m_isHinted;
+    }
+
+    /** @return the (estimated) number of rows per output port, indexed like the ports of the node container (index 0
+     *         being the flow variable port), -1 if unknown or not a table */
+    public long[] getOutputRowCounts() {
+        return m_outputRowCounts.clone();
+    }
+
+    /** @return the estimated in-memory size of the output tables in bytes, indexed like
+     *         {@link #getOutputRowCounts()}, -1 if unknown or not a table */
+    public long[] getOutputBytes() {
+        return m_outputBytes.clone();
+    }
+
+    /** @return the estimated memory needed by the execution in bytes (output tables held in memory and memory
+     *         declared by the node), 0 if executed, -1 if unknown */
+    public long getMemoryBytes() {
+        return m_memoryBytes;
+    }
+
+    /** @return the estimated number of bytes written to disk by the execution (output tables too large to be held in
+     *         memory and temporary data declared by the node), 0 if executed, -1 if unknown */
+    public long getDiskSpillBytes() {
+        return m_diskSpillBytes;
+    }
+
+    /** @return the estimated runtime in nanoseconds, 0 if executed, -1 if unknown */
+    public long getRuntimeNanos() {
+        return m_runtimeNanos;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return m_nodeName + " [" + (m_isExecuted ? "executed, " : "") + (m_isHinted ? "hinted, " : "") + "rows "
+            + Arrays.toString(m_outputRowCounts) + ", memory " + m_memoryBytes + "B, disk " + m_diskSpillBytes
+            + "B, runtime " + m_runtimeNanos + "ns]";
+    }
+
+}
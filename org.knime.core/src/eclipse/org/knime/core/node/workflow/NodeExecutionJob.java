@@ -78,6 +78,9 @@ public abstract class NodeExecutionJob implements Runnable {
     private final NodeContainer m_nc;
     private final PortObject[] m_data;
 
+    /** Records the execution if profiled, null otherwise or once the profile has been recorded. */
+    private NodeExecutionProfiler.Recorder m_recorder;
+
 
     /** Creates a new execution job for a given node. The array argument
      * represent the available input data..
@@ -113,9 +116,16 @@ public final void run() {
         }
 
         NodeContext.pushContext(m_nc);
+        final NodeExecutionProfiler profiler = m_nc.getExecutionProfiler();
+        m_recorder = isReConnecting() ? null : profiler.start(getPortObjects());
         try {
            internalRun();
         } finally {
+            if (m_recorder != null) {
+                // execution didn't get to the post-execute step, e.g. canceled before it started
+                profiler.discard(m_recorder);
+                m_recorder = null;
+            }
             NodeContext.removeLastContext();
             assert contextStack.size() == 0 : "Context stack is not empty although it should be";
             contextStack.addAll(savedContextStack);
@@ -233,6 +243,12 @@ private void internalRun() {
                 status = NodeContainerExecutionStatus.FAILURE;
                 logError(throwable);
             }
+            // record the profile while the outputs are still set; executed loop ends restart the loop, which
+            // resets the nodes in the loop body
+            if (m_recorder != null) {
+                m_nc.getExecutionProfiler().stop(m_recorder, status != null && status.isSuccess());
+                m_recorder = null;
+            }
             try {
                 // sets state EXECUTED
                 m_nc.notifyParentExecuteFinished(status);
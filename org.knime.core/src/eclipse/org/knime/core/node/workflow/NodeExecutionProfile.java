@@ -0,0 +1,203 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Resource usage of a single execution of a node as recorded by the {@link NodeExecutionProfiler}. Times and
+ * allocations are measured on the thread executing the node (including the pre- and post-execute phases), work
+ * delegated to other threads is not included. Bytes read and written are attributed to the node in whose
+ * {@link NodeContext} the (table) files were opened, which includes the asynchronous writers of the node's tables.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ */
+public final class NodeExecutionProfile {
+
+    private final NodeID m_nodeID;
+
+    private final String m_nodeName;
+
+    private final List<String> m_path;
+
+    private final String m_threadName;
+
+    private final long m_startTime;
+
+    private final long m_wallTimeNanos;
+
+    private final long m_cpuTimeNanos;
+
+    private final long m_allocatedBytes;
+
+    private final long m_gcTimeMillis;
+
+    private final long[] m_rowsIn;
+
+    private final long[] m_rowsOut;
+
+    private final long m_bytesRead;
+
+    private final long m_bytesWritten;
+
+    private final long m_lockWaitNanos;
+
+    private final boolean m_isSuccess;
+
+    NodeExecutionProfile(final NodeID nodeID, final String nodeName, final List<String> path, // NOSONAR
+        final String threadName, final long startTime, final long wallTimeNanos, final long cpuTimeNanos,
+        final long allocatedBytes, final long gcTimeMillis, final long[] rowsIn, final long[] rowsOut,
+        final long bytesRead, final long bytesWritten, final long lockWaitNanos, final boolean isSuccess) {
+        m_nodeID = nodeID;
+        m_nodeName = nodeName;
+        m_path = Collections.unmodifiableList(path);
+        m_threadName = threadName;
+        m_startTime = startTime;
+        m_wallTimeNanos = wallTimeNanos;
+        m_cpuTimeNanos = cpuTimeNanos;
+        m_allocatedBytes = allocatedBytes;
+        m_gcTimeMillis = gcTimeMillis;
+        m_rowsIn = rowsIn;
+        m_rowsOut = rowsOut;
+        m_bytesRead = bytesRead;
+        m_bytesWritten = bytesWritten;
+        m_lockWaitNanos = lockWaitNanos;
+        m_isSuccess = isSuccess;
+    }
+
+    /** @return the ID of the node */
+    public NodeID getNodeID() {
+        return m_nodeID;
+    }
+
+    /** @return the name of the node including its ID, see {@link NodeContainer#getNameWithID()} */
+    public String getNodeName() {
+        return m_nodeName;
+    }
+
+    /** @return the names (with IDs) of the metanodes and components containing the node, outermost first, starting
+     *         with the workflow project */
+    public List<String> getPath() {
+        return m_path;
+    }
+
+    /** @return the name of the thread that executed the node */
+    public String getThreadName() {
+        return m_threadName;
+    }
+
+    /** @return the time the execution started, as returned by {@link System#currentTimeMillis()} */
+    public long getStartTime() {
+        return m_startTime;
+    }
+
+    /** @return the elapsed time of the execution in nanoseconds */
+    public long getWallTimeNanos() {
+        return m_wallTimeNanos;
+    }
+
+    /** @return the CPU time of the executing thread in nanoseconds or -1 if not supported by the JVM */
+    public long getCPUTimeNanos() {
+        return m_cpuTimeNanos;
+    }
+
+    /** @return the number of bytes allocated by the executing thread or -1 if not supported by the JVM */
+    public long getAllocatedBytes() {
+        return m_allocatedBytes;
+    }
+
+    /** @return the time spent in garbage collection while the node was executing in milliseconds; this is measured
+     *         JVM-wide, i.e. includes collections caused by other nodes running concurrently */
+    public long getGCTimeMillis() {
+        return m_gcTimeMillis;
+    }
+
+    /** @return the number of rows per input port, indexed like the ports of the node (index 0 being the flow variable
+     *         port), -1 for ports that don't carry a table or aren't connected */
+    public long[] getRowsIn() {
+        return m_rowsIn.clone();
+    }
+
+    /** @return the number of rows per output port, indexed like the ports of the node (index 0 being the flow
+     *         variable port), -1 for ports that don't carry a table */
+    public long[] getRowsOut() {
+        return m_rowsOut.clone();
+    }
+
+    /** @return the number of bytes read from table files */
+    public long getBytesRead() {
+        return m_bytesRead;
+    }
+
+    /** @return the number of bytes written to table files */
+    public long getBytesWritten() {
+        return m_bytesWritten;
+    }
+
+    /** @return the time spent waiting for a {@link WorkflowLock} held by another thread in nanoseconds */
+    public long getLockWaitNanos() {
+        return m_lockWaitNanos;
+    }
+
+    /** @return whether the node was executed successfully */
+    public boolean isSuccess() {
+        return m_isSuccess;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return m_nodeName + " [wall " + m_wallTimeNanos / 1000000 + "ms, cpu " + m_cpuTimeNanos / 1000000
+            + "ms, allocated " + m_allocatedBytes + "B, gc " + m_gcTimeMillis + "ms, rows in "
+            + Arrays.toString(m_rowsIn) + ", rows out " + Arrays.toString(m_rowsOut) + ", read " + m_bytesRead
+            + "B, written " + m_bytesWritten + "B, lock wait " + m_lockWaitNanos / 1000000 + "ms"
+            + (m_isSuccess ? "" : ", failed") + "]";
+    }
+
+}
@@ -0,0 +1,511 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+
+import org.apache.commons.io.input.ProxyInputStream;
+import org.apache.commons.io.output.ProxyOutputStream;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.Node;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.PortObject;
+
+/**
+ * Records the resource usage of the executions of a node, see {@link NodeExecutionProfile}. Each node container has
+ * its own profiler ({@link NodeContainer#getExecutionProfiler()}), which keeps the profiles of the last
+ * {@value #MAX_PROFILES} executions. Profiling is disabled by default, it's enabled with the system property
+ * {@value KNIMEConstants#PROPERTY_NODE_PROFILING} or {@link #setEnabled(boolean)}. Only native nodes are profiled (the
+ * nodes in metanodes and components are profiled individually).
+ *
+ * <p>
+ * The static methods {@link #collectProfiles(WorkflowManager)}, {@link #writeTraceJSON(Collection, Writer)} and
+ * {@link #writeFoldedStacks(Collection, ToLongFunction, Writer)} export the profiles of a workflow for further
+ * analysis.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ */
+public final class NodeExecutionProfiler {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(NodeExecutionProfiler.class);
+
+    /** Number of profiles kept per node. */
+    public static final int MAX_PROFILES = 64;
+
+    private static volatile boolean enabled = Boolean.getBoolean(KNIMEConstants.PROPERTY_NODE_PROFILING);
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    /** {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes(long)} if available, accessed reflectively as
+     * the package is not exported to bundles. */
+    private static final MethodHandle ALLOCATED_BYTES = createAllocatedBytesHandle();
+
+    private final NodeContainer m_nc;
+
+    private final Deque<NodeExecutionProfile> m_profiles = new ArrayDeque<>();
+
+    /** The recorder of the currently running execution, null if not executing or not profiled. */
+    private volatile Recorder m_activeRecorder;
+
+    NodeExecutionProfiler(final NodeContainer nc) {
+        m_nc = nc;
+    }
+
+    private static MethodHandle createAllocatedBytesHandle() {
+        try {
+            final Class<?> beanClass =
+                Class.forName("com.sun.management.ThreadMXBean", false, ClassLoader.getSystemClassLoader());
+            if (!beanClass.isInstance(THREAD_BEAN)) {
+                return null;
+            }
+            final MethodHandle handle = MethodHandles.publicLookup().findVirtual(beanClass, "getThreadAllocatedBytes",
+                MethodType.methodType(long.class, long.class));
+            final long test = (long)handle.invoke(THREAD_BEAN, Thread.currentThread().getId());
+            return test >= 0 ? handle : null; // -1 if disabled
+        } catch (Throwable t) { // NOSONAR any problem means not supported
+            LOGGER.debug("Thread allocation measurement not supported: " + t.getMessage(), t);
+            return null;
+        }
+    }
+
+    /** @return whether node executions are profiled */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables profiling of node executions (applies to executions started afterwards).
+     *
+     * @param isEnabled whether to profile
+     */
+    public static void setEnabled(final boolean isEnabled) {
+        enabled = isEnabled;
+    }
+
+    /** @return the profiles of the most recent executions of the node, oldest first */
+    public synchronized List<NodeExecutionProfile> getProfiles() {
+        return new ArrayList<>(m_profiles);
+    }
+
+    /** @return the profile of the most recent (finished) execution, if any */
+    public synchronized Optional<NodeExecutionProfile> getLastProfile() {
+        return Optional.ofNullable(m_profiles.peekLast());
+    }
+
+    /** Discards all profiles of the node. */
+    public synchronized void clear() {
+        m_profiles.clear();
+    }
+
+    /**
+     * Starts recording an execution, called on the thread executing the node.
+     *
+     * @param inObjects the input objects of the node
+     * @return the recorder to be passed to {@link #stop(Recorder)} or null if not profiled
+     */
+    Recorder start(final PortObject[] inObjects) {
+        if (!enabled || !(m_nc instanceof NativeNodeContainer)) {
+            return null;
+        }
+        final Recorder recorder = new Recorder(rowCounts(inObjects));
+        m_activeRecorder = recorder;
+        return recorder;
+    }
+
+    /**
+     * Finishes recording an execution, to be called on the thread that called {@link #start(PortObject[])} after the
+     * node has been executed but before its state changes to executed (as that may reset the node, e.g. when a loop
+     * is restarted).
+     *
+     * @param recorder the recorder returned by {@link #start(PortObject[])}
+     * @param success whether the execution was successful
+     */
+    void stop(final Recorder recorder, final boolean success) {
+        m_activeRecorder = null;
+        final long wallTime = System.nanoTime() - recorder.m_startNanos;
+        final long cpuTime = recorder.m_startCPUTime >= 0 ? currentThreadCPUTime() - recorder.m_startCPUTime : -1;
+        final long allocated =
+            recorder.m_startAllocatedBytes >= 0 ? currentThreadAllocatedBytes() - recorder.m_startAllocatedBytes : -1;
+        final long gcTime = totalGCTime() - recorder.m_startGCTime;
+        final Node node = ((NativeNodeContainer)m_nc).getNode();
+        final PortObject[] outObjects = new PortObject[node.getNrOutPorts()];
+        for (int i = 0; i < outObjects.length; i++) {
+            outObjects[i] = node.getOutputObject(i);
+        }
+        final NodeExecutionProfile profile = new NodeExecutionProfile(m_nc.getID(), m_nc.getNameWithID(),
+            getPath(m_nc), Thread.currentThread().getName(), recorder.m_startTime, wallTime, cpuTime, allocated,
+            gcTime, recorder.m_rowsIn, rowCounts(outObjects), recorder.m_bytesRead.sum(),
+            recorder.m_bytesWritten.sum(), recorder.m_lockWaitNanos.sum(), success);
+        synchronized (this) {
+            if (m_profiles.size() >= MAX_PROFILES) {
+                m_profiles.removeFirst();
+            }
+            m_profiles.addLast(profile);
+        }
+    }
+
+    /**
+     * Stops recording an execution without keeping a profile, e.g. if the execution was canceled before it started.
+     *
+     * @param recorder the recorder returned by {@link #start(PortObject[])}
+     */
+    void discard(final Recorder recorder) {
+        if (m_activeRecorder == recorder) {
+            m_activeRecorder = null;
+        }
+    }
+
+    private static long[] rowCounts(final PortObject[] objects) {
+        final long[] result = new long[objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            result[i] = objects[i] instanceof BufferedDataTable ? ((BufferedDataTable)objects[i]).size() : -1;
+        }
+        return result;
+    }
+
+    private static List<String> getPath(final NodeContainer nc) {
+        final LinkedList<String> path = new LinkedList<>();
+        NodeContainerParent parent = nc.getDirectNCParent();
+        while (parent instanceof NodeContainer && parent != WorkflowManager.ROOT) {
+            final NodeContainer parentNC = (NodeContainer)parent;
+            // the workflow of a component is represented by the component itself
+            if (!(parentNC instanceof WorkflowManager && parentNC.getDirectNCParent() instanceof SubNodeContainer)) {
+                path.addFirst(parentNC.getNameWithID());
+            }
+            parent = parentNC.getDirectNCParent();
+        }
+        return path;
+    }
+
+    private static long currentThreadCPUTime() {
+        try {
+            return THREAD_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_BEAN.getCurrentThreadCpuTime() : -1;
+        } catch (UnsupportedOperationException e) { // NOSONAR disabled
+            return -1;
+        }
+    }
+
+    private static long currentThreadAllocatedBytes() {
+        if (ALLOCATED_BYTES == null) {
+            return -1;
+        }
+        try {
+            return (long)ALLOCATED_BYTES.invoke(THREAD_BEAN, Thread.currentThread().getId());
+        } catch (Throwable t) { // NOSONAR not supported
+            return -1;
+        }
+    }
+
+    private static long totalGCTime() {
+        long result = 0;
+        for (GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+            result += Math.max(0, gcBean.getCollectionTime());
+        }
+        return result;
+    }
+
+    /** @return the recorder of the node in whose context the current thread runs or null */
+    private static Recorder currentRecorder() {
+        if (!enabled) {
+            return null;
+        }
+        final NodeContext context = NodeContext.getContext();
+        final NodeContainer nc = context != null ? context.getNodeContainer() : null;
+        return nc != null ? nc.getExecutionProfiler().m_activeRecorder : null;
+    }
+
+    /**
+     * Records the time the current thread waited for a {@link WorkflowLock}.
+     *
+     * @param nanos the waiting time
+     */
+    static void recordLockWait(final long nanos) {
+        final Recorder recorder = currentRecorder();
+        if (recorder != null) {
+            recorder.m_lockWaitNanos.add(nanos);
+        }
+    }
+
+    /**
+     * Wraps a stream reading from a table file such that the bytes read are attributed to the node executing in the
+     * current thread (if profiled).
+     *
+     * @param in the stream
+     * @return the argument or a wrapper counting the bytes read
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public static InputStream countBytesRead(final InputStream in) {
+        final Recorder recorder = currentRecorder();
+        if (recorder == null) {
+            return in;
+        }
+        return new ProxyInputStream(in) {
+            @Override
+            protected void afterRead(final int n) {
+                if (n > 0) {
+                    recorder.m_bytesRead.add(n);
+                }
+            }
+        };
+    }
+
+    /**
+     * Wraps a stream writing to a table file such that the bytes written are attributed to the node executing in the
+     * current thread (if profiled).
+     *
+     * @param out the stream
+     * @return the argument or a wrapper counting the bytes written
+     * @noreference This method is not intended to be referenced by clients.
+     */
+    public static OutputStream countBytesWritten(final OutputStream out) {
+        final Recorder recorder = currentRecorder();
+        if (recorder == null) {
+            return out;
+        }
+        return new ProxyOutputStream(out) {
+            @Override
+            protected void beforeWrite(final int n) {
+                recorder.m_bytesWritten.add(n);
+            }
+        };
+    }
+
+    /**
+     * Collects the profiles of all nodes in a workflow, including the nodes in metanodes and components.
+     *
+     * @param wfm the workflow
+     * @return the profiles ordered by start time
+     */
+    public static List<NodeExecutionProfile> collectProfiles(final WorkflowManager wfm) {
+        final List<NodeExecutionProfile> result = new ArrayList<>();
+        collectProfiles(wfm, result);
+        result.sort(Comparator.comparingLong(NodeExecutionProfile::getStartTime));
+        return result;
+    }
+
+    private static void collectProfiles(final WorkflowManager wfm, final List<NodeExecutionProfile> result) {
+        for (NodeContainer nc : wfm.getNodeContainers()) {
+            if (nc instanceof WorkflowManager) {
+                collectProfiles((WorkflowManager)nc, result);
+            } else if (nc instanceof SubNodeContainer) {
+                collectProfiles(((SubNodeContainer)nc).getWorkflowManager(), result);
+            } else {
+                result.addAll(nc.getExecutionProfiler().getProfiles());
+            }
+        }
+    }
+
+    /**
+     * Writes profiles in the trace event format (JSON) understood by, e.g., Chrome's <tt>about:tracing</tt>,
+     * Perfetto or speedscope. Each execution is a complete event on the timeline of its thread (threads are numbered
+     * in the order of their first appearance and named by metadata events), all measurements are contained in the
+     * event's <tt>args</tt>.
+     *
+     * @param profiles the profiles to write
+     * @param writer the writer to write to, not closed
+     * @throws IOException if writing fails
+     */
+    public static void writeTraceJSON(final Collection<NodeExecutionProfile> profiles, final Writer writer)
+        throws IOException {
+        final JsonGenerator gen = Json.createGenerator(new NonClosingWriter(writer));
+        gen.writeStartObject().writeStartArray("traceEvents");
+        final Map<String, Integer> threadIDs = new LinkedHashMap<>();
+        for (NodeExecutionProfile p : profiles) {
+            final int threadID = threadIDs.computeIfAbsent(p.getThreadName(), n -> threadIDs.size() + 1);
+            gen.writeStartObject() //
+                .write("name", p.getNodeName()) //
+                .write("cat", String.join("/", p.getPath())) //
+                .write("ph", "X") //
+                .write("ts", p.getStartTime() * 1000) //
+                .write("dur", p.getWallTimeNanos() / 1000) //
+                .write("pid", 1) //
+                .write("tid", threadID);
+            gen.writeStartObject("args") //
+                .write("nodeID", p.getNodeID().toString()) //
+                .write("success", p.isSuccess()) //
+                .write("cpuTimeMicros", p.getCPUTimeNanos() < 0 ? -1 : p.getCPUTimeNanos() / 1000) //
+                .write("allocatedBytes", p.getAllocatedBytes()) //
+                .write("gcTimeMillis", p.getGCTimeMillis()) //
+                .write("bytesRead", p.getBytesRead()) //
+                .write("bytesWritten", p.getBytesWritten()) //
+                .write("lockWaitMicros", p.getLockWaitNanos() / 1000);
+            writeLongArray(gen, "rowsIn", p.getRowsIn());
+            writeLongArray(gen, "rowsOut", p.getRowsOut());
+            gen.writeEnd().writeEnd();
+        }
+        for (Map.Entry<String, Integer> thread : threadIDs.entrySet()) {
+            gen.writeStartObject() //
+                .write("name", "thread_name") //
+                .write("ph", "M") //
+                .write("pid", 1) //
+                .write("tid", thread.getValue()) //
+                .writeStartObject("args").write("name", thread.getKey()).writeEnd() //
+                .writeEnd();
+        }
+        gen.writeEnd().writeEnd();
+        gen.close();
+    }
+
+    private static void writeLongArray(final JsonGenerator gen, final String name, final long[] values) {
+        gen.writeStartArray(name);
+        for (long v : values) {
+            gen.write(v);
+        }
+        gen.writeEnd();
+    }
+
+    /**
+     * Writes profiles in the "folded stacks" format used by flame graph tools (e.g. <tt>flamegraph.pl</tt> or
+     * speedscope): one line per execution consisting of the semicolon separated path of the node (workflow, metanodes,
+     * components, node) followed by the value of the given measure.
+     *
+     * @param profiles the profiles to write
+     * @param measure the measure, e.g. {@link NodeExecutionProfile#getCPUTimeNanos()}; executions with a negative
+     *            value (i.e. not supported) are skipped
+     * @param writer the writer to write to, not closed
+     * @throws IOException if writing fails
+     */
+    public static void writeFoldedStacks(final Collection<NodeExecutionProfile> profiles,
+        final ToLongFunction<NodeExecutionProfile> measure, final Writer writer) throws IOException {
+        for (NodeExecutionProfile p : profiles) {
+            final long value = measure.applyAsLong(p);
+            if (value < 0) {
+                continue;
+            }
+            for (String frame : p.getPath()) {
+                writer.write(toFrame(frame));
+                writer.write(';');
+            }
+            writer.write(toFrame(p.getNodeName()));
+            writer.write(' ');
+            writer.write(Long.toString(value));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static String toFrame(final String name) {
+        return name.replace(';', ',').replace('\n', ' ');
+    }
+
+    /** Data of an execution in progress. */
+    static final class Recorder {
+
+        private final long m_startTime = System.currentTimeMillis();
+
+        private final long m_startNanos = System.nanoTime();
+
+        private final long m_startCPUTime = currentThreadCPUTime();
+
+        private final long m_startAllocatedBytes = currentThreadAllocatedBytes();
+
+        private final long m_startGCTime = totalGCTime();
+
+        private final long[] m_rowsIn;
+
+        private final LongAdder m_bytesRead = new LongAdder();
+
+        private final LongAdder m_bytesWritten = new LongAdder();
+
+        private final LongAdder m_lockWaitNanos = new LongAdder();
+
+        private Recorder(final long[] rowsIn) {
+            m_rowsIn = rowsIn;
+        }
+    }
+
+    /** Writer that isn't closed when the JSON generator is closed. */
+    private static final class NonClosingWriter extends Writer {
+
+        private final Writer m_delegate;
+
+        NonClosingWriter(final Writer delegate) {
+            m_delegate = delegate;
+        }
+
+        @Override
+        public void write(final char[] cbuf, final int off, final int len) throws IOException {
+            m_delegate.write(cbuf, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            m_delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            m_delegate.flush();
+        }
+    }
+
+}
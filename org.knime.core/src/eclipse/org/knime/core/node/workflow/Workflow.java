@@ -1637,9 +1637,21 @@ public NodeGraphAnnotation getSingleNodeGraphAnnotation(final NodeID id)
     /** hold graph based annotations for all nodes. */
     private ArrayList<NodeGraphAnnotation> m_nodeAnnotationCache = null;
 
+    /** incremented whenever the structure of this workflow (or of a contained metanode) is altered. */
+    private long m_structureVersion = 0;
+
+    /**
+     * @return a counter that changes whenever the structure (connections/nodes) of this workflow or of one of its
+     *         metanodes is altered; allows callers to cache results derived from the graph
+     */
+    long getStructureVersion() {
+        return m_structureVersion;
+    }
+
     /** clean cache - called internally whenever the structure (connections/nodes) are altered. */
     private void clearGraphAnnotationCache() {
         m_nodeAnnotationCache = null;
+        m_structureVersion++;
         // also clear cache in parent - changes here may affect the connectivity outside as well.
         if (m_wfm != null && m_wfm.getParent() != null && m_wfm.getParent().getWorkflow() != null) {
             m_wfm.getParent().getWorkflow().clearGraphAnnotationCache();
@@ -0,0 +1,127 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Result of a {@link WorkflowCostEstimator} run: the estimates of all nodes of a workflow (in topological order) and
+ * their totals. Totals only cover nodes that aren't executed yet and only the known values; use
+ * {@link #getNrUnknownNodes()} to judge how reliable they are.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ */
+public final class WorkflowCostEstimate {
+
+    private final Map<NodeID, NodeCostEstimate> m_nodeEstimates;
+
+    private final long m_memoryBudgetBytes;
+
+    WorkflowCostEstimate(final Collection<NodeCostEstimate> nodeEstimates, final long memoryBudgetBytes) {
+        m_nodeEstimates = new LinkedHashMap<>();
+        for (NodeCostEstimate e : nodeEstimates) {
+            m_nodeEstimates.put(e.getNodeID(), e);
+        }
+        m_memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /** @return the estimates of all nodes in topological order, not null */
+    public Collection<NodeCostEstimate> getNodeEstimates() {
+        return Collections.unmodifiableCollection(m_nodeEstimates.values());
+    }
+
+    /**
+     * @param id the ID of a node in the estimated workflow
+     * @return the estimate of that node, empty if the node is not part of the workflow
+     */
+    public Optional<NodeCostEstimate> getNodeEstimate(final NodeID id) {
+        return Optional.ofNullable(m_nodeEstimates.get(id));
+    }
+
+    /** @return the memory budget the estimation was run with in bytes */
+    public long getMemoryBudgetBytes() {
+        return m_memoryBudgetBytes;
+    }
+
+    /** @return the sum of the known memory estimates of all nodes in bytes (output tables are kept until the node
+     *          is reset, hence the sum rather than the maximum) */
+    public long getTotalMemoryBytes() {
+        return m_nodeEstimates.values().stream().mapToLong(NodeCostEstimate::getMemoryBytes).filter(l -> l > 0)
+            .sum();
+    }
+
+    /** @return the sum of the known disk spill estimates of all nodes in bytes */
+    public long getTotalDiskSpillBytes() {
+        return m_nodeEstimates.values().stream().mapToLong(NodeCostEstimate::getDiskSpillBytes).filter(l -> l > 0)
+            .sum();
+    }
+
+    /** @return the sum of the known runtime estimates of all nodes in nanoseconds, assuming sequential execution */
+    public long getTotalRuntimeNanos() {
+        return m_nodeEstimates.values().stream().mapToLong(NodeCostEstimate::getRuntimeNanos).filter(l -> l > 0)
+            .sum();
+    }
+
+    /** @return the number of nodes still to be executed whose memory, disk spill or runtime is unknown */
+    public int getNrUnknownNodes() {
+        return (int)m_nodeEstimates.values().stream().filter(e -> !e.isExecuted() && (e.getMemoryBytes() < 0
+            || e.getDiskSpillBytes() < 0 || e.getRuntimeNanos() < 0)).count();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public String toString() {
+        return "Workflow cost estimate [" + m_nodeEstimates.size() + " nodes, memory " + getTotalMemoryBytes()
+            + "B, disk " + getTotalDiskSpillBytes() + "B, runtime " + getTotalRuntimeNanos() / 1000000 + "ms, "
+            + getNrUnknownNodes() + " unknown]";
+    }
+
+}
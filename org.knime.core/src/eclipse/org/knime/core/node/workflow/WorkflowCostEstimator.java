@@ -0,0 +1,424 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.node.workflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.knime.core.data.DataCell;
+import org.knime.core.data.DataColumnSpec;
+import org.knime.core.data.DataTableSpec;
+import org.knime.core.data.DataType;
+import org.knime.core.data.StringValue;
+import org.knime.core.data.def.BooleanCell;
+import org.knime.core.data.def.DoubleCell;
+import org.knime.core.data.def.IntCell;
+import org.knime.core.data.def.LongCell;
+import org.knime.core.data.def.StringCell;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CostHint;
+import org.knime.core.node.CostHintProvider;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.NodeModel;
+import org.knime.core.node.port.PortObject;
+import org.knime.core.node.port.PortObjectSpec;
+import org.knime.core.node.port.PortType;
+import org.knime.core.node.workflow.ConnectionContainer.ConnectionType;
+
+/**
+ * Planning pass that estimates the cost of executing a workflow without executing (or configuring) anything. It walks
+ * the nodes in topological order and propagates row counts along the connections, starting with the exact sizes of
+ * executed tables; the specs are those of the last configure. Each node that isn't executed yet gets an estimate of
+ * its output sizes, its memory footprint, the bytes it spills to disk and its runtime:
+ * <ul>
+ * <li>output rows are taken from the node's {@link CostHint} if its model is a {@link CostHintProvider}, otherwise
+ * they equal the rows of the first table input (or are unknown for source nodes);</li>
+ * <li>table sizes are derived from the output spec (column types and, for strings, the domain);</li>
+ * <li>tables larger than the memory budget count as disk spill, smaller ones as memory;</li>
+ * <li>the runtime is extrapolated from the last {@linkplain NodeExecutionProfiler profiled} execution, then taken
+ * from the cost hint, then from the last recorded execution duration.</li>
+ * </ul>
+ * Metanodes and components are treated as opaque: unless executed, their output sizes and cost are unknown.
+ *
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ */
+public final class WorkflowCostEstimator {
+
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(WorkflowCostEstimator.class);
+
+    /** Average number of characters assumed for a string cell if the domain doesn't tell. */
+    static final int DEFAULT_STRING_LENGTH = 16;
+
+    /** Heap overhead of a row: the row object, its cell array and the row key. */
+    static final long ROW_OVERHEAD_BYTES = 96;
+
+    /** Serialized size of a row besides the cells: the row key and the block structure. */
+    static final long SERIALIZED_ROW_OVERHEAD_BYTES = 16;
+
+    private final long m_memoryBudgetBytes;
+
+    /** Estimator using half of the maximum heap size as memory budget. */
+    public WorkflowCostEstimator() {
+        this(Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    /**
+     * @param memoryBudgetBytes the size in bytes above which an output table is assumed to be written to disk
+     * @throws IllegalArgumentException if the budget is negative
+     */
+    public WorkflowCostEstimator(final long memoryBudgetBytes) {
+        if (memoryBudgetBytes < 0) {
+            throw new IllegalArgumentException("Memory budget must not be negative: " + memoryBudgetBytes);
+        }
+        m_memoryBudgetBytes = memoryBudgetBytes;
+    }
+
+    /**
+     * Estimates the cost of all nodes of the given workflow (not descending into metanodes or components). The state of
+     * the nodes is collected while holding the workflow lock, the cost hints of the nodes are asked afterwards.
+     *
+     * @param wfm the workflow to estimate
+     * @return the estimate, not null
+     */
+    public WorkflowCostEstimate estimate(final WorkflowManager wfm) {
+        List<NodeSnapshot> nodes = new ArrayList<>();
+        try (WorkflowLock lock = wfm.lock()) {
+            Workflow workflow = wfm.getWorkflow();
+            for (NodeID id : workflow.createBreadthFirstSortedList(workflow.getNodeIDs(), true).keySet()) {
+                nodes.add(new NodeSnapshot(wfm, wfm.getNodeContainer(id)));
+            }
+        }
+        Map<NodeID, NodeCostEstimate> estimates = new HashMap<>();
+        List<NodeCostEstimate> ordered = new ArrayList<>();
+        for (NodeSnapshot node : nodes) {
+            NodeCostEstimate e = estimate(node, estimates);
+            estimates.put(node.m_id, e);
+            ordered.add(e);
+        }
+        return new WorkflowCostEstimate(ordered, m_memoryBudgetBytes);
+    }
+
+    private NodeCostEstimate estimate(final NodeSnapshot node, final Map<NodeID, NodeCostEstimate> estimates) {
+        if (node.m_isExecuted) {
+            return new NodeCostEstimate(node.m_id, node.m_name, true, false, node.m_outRows, node.m_outBytes, 0, 0, 0);
+        }
+        final int nrOut = node.m_outSpecs.length;
+        long[] outRows = new long[nrOut];
+        long[] outBytes = new long[nrOut];
+        Arrays.fill(outRows, -1);
+        Arrays.fill(outBytes, -1);
+        if (!node.m_isNative) {
+            return new NodeCostEstimate(node.m_id, node.m_name, false, false, outRows, outBytes, -1, -1, -1);
+        }
+
+        // inputs, indexed like the ports of the node container
+        final int nrIn = node.m_inSpecs.length;
+        long[] inRows = new long[nrIn];
+        Arrays.fill(inRows, -1);
+        for (int i = 0; i < nrIn; i++) {
+            NodeCostEstimate source = node.m_inSources[i] == null ? null : estimates.get(node.m_inSources[i]);
+            if (source != null) {
+                inRows[i] = source.getOutputRowCounts()[node.m_inSourcePorts[i]];
+            }
+        }
+        long defaultRows = -1;
+        for (int i = 1; i < nrIn; i++) {
+            if (node.m_isTableIn[i]) {
+                defaultRows = inRows[i];
+                break;
+            }
+        }
+
+        CostHint hint = null;
+        if (node.m_hintProvider != null) {
+            try {
+                hint = node.m_hintProvider.getCostHint(Arrays.copyOfRange(node.m_inSpecs, 1, nrIn),
+                    Arrays.copyOfRange(inRows, 1, nrIn));
+            } catch (Throwable t) { // NOSONAR a faulty node must not break the estimation
+                LOGGER.coding("Cost hint of node " + node.m_name + " failed: " + t.getMessage(), t);
+            }
+        }
+
+        long memory = 0;
+        long disk = 0;
+        for (int i = 1; i < nrOut; i++) {
+            if (!node.m_isTableOut[i]) {
+                continue;
+            }
+            outRows[i] = hint != null ? hint.getOutputRowCount(i - 1).orElse(defaultRows) : defaultRows;
+            PortObjectSpec spec = node.m_outSpecs[i];
+            if (outRows[i] < 0 || !(spec instanceof DataTableSpec)) {
+                memory = -1;
+                disk = -1;
+                continue;
+            }
+            DataTableSpec tableSpec = (DataTableSpec)spec;
+            outBytes[i] = multiply(outRows[i], estimateInMemoryRowBytes(tableSpec));
+            if (memory < 0) {
+                continue;
+            }
+            if (outBytes[i] > m_memoryBudgetBytes) {
+                disk = add(disk, multiply(outRows[i], estimateSerializedRowBytes(tableSpec)));
+            } else {
+                memory = add(memory, outBytes[i]);
+            }
+        }
+        if (hint != null && memory >= 0) {
+            memory = add(memory, hint.getMemoryBytes().orElse(0));
+            disk = add(disk, hint.getTemporaryDiskBytes().orElse(0));
+        }
+
+        long runtime = estimateRuntimeFromProfile(node.m_profile, inRows);
+        if (runtime < 0 && hint != null) {
+            runtime = hint.getRuntimeNanos().orElse(-1);
+        }
+        if (runtime < 0) {
+            runtime = node.m_lastExecutionNanos;
+        }
+        return new NodeCostEstimate(node.m_id, node.m_name, false, hint != null, outRows, outBytes, memory, disk,
+            runtime);
+    }
+
+    /** Runtime of the last successful profiled execution, scaled linearly with the number of input rows. */
+    private static long estimateRuntimeFromProfile(final Optional<NodeExecutionProfile> lastProfile,
+        final long[] inRows) {
+        Optional<NodeExecutionProfile> profile = lastProfile.filter(NodeExecutionProfile::isSuccess);
+        if (!profile.isPresent()) {
+            return -1;
+        }
+        long wall = profile.get().getWallTimeNanos();
+        long profiledRows = sumKnown(profile.get().getRowsIn());
+        long rows = sumKnown(inRows);
+        if (profiledRows <= 0 || rows < 0) {
+            return wall; // source node or unknown input, assume the same cost
+        }
+        return (long)(wall * ((double)rows / profiledRows));
+    }
+
+    private static long sumKnown(final long[] rows) {
+        long sum = -1;
+        for (long r : rows) {
+            if (r >= 0) {
+                sum = add(Math.max(sum, 0), r);
+            }
+        }
+        return sum;
+    }
+
+    private static boolean isTable(final PortType type) {
+        return BufferedDataTable.class.isAssignableFrom(type.getPortObjectClass());
+    }
+
+    /**
+     * @param spec a table spec
+     * @return the estimated heap size of a row of a table with that spec in bytes
+     */
+    static long estimateInMemoryRowBytes(final DataTableSpec spec) {
+        long bytes = ROW_OVERHEAD_BYTES;
+        for (DataColumnSpec col : spec) {
+            bytes += 8; // reference in the cell array
+            DataType type = col.getType();
+            if (type.equals(DoubleCell.TYPE) || type.equals(LongCell.TYPE)) {
+                bytes += 24;
+            } else if (type.equals(IntCell.TYPE)) {
+                bytes += 16;
+            } else if (type.equals(BooleanCell.TYPE)) {
+                continue; // shared instances
+            } else if (type.equals(StringCell.TYPE)) {
+                bytes += 40 + 2L * estimateStringLength(col);
+            } else {
+                bytes += 64;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @param spec a table spec
+     * @return the estimated size of a row of a table with that spec when written to disk in bytes
+     */
+    static long estimateSerializedRowBytes(final DataTableSpec spec) {
+        long bytes = SERIALIZED_ROW_OVERHEAD_BYTES;
+        for (DataColumnSpec col : spec) {
+            DataType type = col.getType();
+            if (type.equals(DoubleCell.TYPE) || type.equals(LongCell.TYPE)) {
+                bytes += 8;
+            } else if (type.equals(IntCell.TYPE)) {
+                bytes += 4;
+            } else if (type.equals(BooleanCell.TYPE)) {
+                bytes += 1;
+            } else if (type.equals(StringCell.TYPE)) {
+                bytes += 2 + estimateStringLength(col);
+            } else {
+                bytes += 32;
+            }
+        }
+        return bytes;
+    }
+
+    /** Average length of the possible values of a string column, {@link #DEFAULT_STRING_LENGTH} if unknown. */
+    static int estimateStringLength(final DataColumnSpec col) {
+        if (!col.getDomain().hasValues() || col.getDomain().getValues().isEmpty()) {
+            return DEFAULT_STRING_LENGTH;
+        }
+        long length = 0;
+        for (DataCell c : col.getDomain().getValues()) {
+            length += c instanceof StringValue ? ((StringValue)c).getStringValue().length() : c.toString().length();
+        }
+        return (int)(length / col.getDomain().getValues().size());
+    }
+
+    private static long multiply(final long a, final long b) {
+        try {
+            return Math.multiplyExact(a, b);
+        } catch (ArithmeticException e) { // NOSONAR
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static long add(final long a, final long b) {
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) { // NOSONAR
+            return Long.MAX_VALUE;
+        }
+    }
+
+    /** What the estimation needs to know about a node, collected while holding the workflow lock. */
+    private static final class NodeSnapshot {
+
+        private final NodeID m_id;
+
+        private final String m_name;
+
+        private final boolean m_isExecuted;
+
+        private final boolean m_isNative;
+
+        /** The node model if it provides cost hints, otherwise null. */
+        private final CostHintProvider m_hintProvider;
+
+        /** The sizes of the output tables if executed, -1 for other ports. */
+        private final long[] m_outRows;
+
+        private final long[] m_outBytes;
+
+        private final boolean[] m_isTableOut;
+
+        private final PortObjectSpec[] m_outSpecs;
+
+        private final boolean[] m_isTableIn;
+
+        private final PortObjectSpec[] m_inSpecs;
+
+        /** The sources of the inputs, null if not connected to a node of the workflow. */
+        private final NodeID[] m_inSources;
+
+        private final int[] m_inSourcePorts;
+
+        private final Optional<NodeExecutionProfile> m_profile;
+
+        /** Duration of the last execution, -1 if never executed. */
+        private final long m_lastExecutionNanos;
+
+        NodeSnapshot(final WorkflowManager wfm, final NodeContainer nc) {
+            m_id = nc.getID();
+            m_name = nc.getNameWithID();
+            m_isExecuted = nc.getNodeContainerState().isExecuted();
+            m_isNative = nc instanceof NativeNodeContainer;
+            final NodeModel model = m_isNative ? ((NativeNodeContainer)nc).getNodeModel() : null;
+            m_hintProvider = model instanceof CostHintProvider ? (CostHintProvider)model : null;
+
+            final int nrOut = nc.getNrOutPorts();
+            m_outRows = new long[nrOut];
+            m_outBytes = new long[nrOut];
+            Arrays.fill(m_outRows, -1);
+            Arrays.fill(m_outBytes, -1);
+            m_isTableOut = new boolean[nrOut];
+            m_outSpecs = new PortObjectSpec[nrOut];
+            for (int i = 0; i < nrOut; i++) {
+                NodeOutPort outPort = nc.getOutPort(i);
+                m_isTableOut[i] = isTable(outPort.getPortType());
+                m_outSpecs[i] = outPort.getPortObjectSpec();
+                PortObject po = m_isExecuted ? outPort.getPortObject() : null;
+                if (po instanceof BufferedDataTable) {
+                    BufferedDataTable table = (BufferedDataTable)po;
+                    m_outRows[i] = table.size();
+                    m_outBytes[i] = multiply(table.size(), estimateInMemoryRowBytes(table.getDataTableSpec()));
+                }
+            }
+
+            final int nrIn = nc.getNrInPorts();
+            m_isTableIn = new boolean[nrIn];
+            m_inSpecs = new PortObjectSpec[nrIn];
+            m_inSources = new NodeID[nrIn];
+            m_inSourcePorts = new int[nrIn];
+            for (int i = 0; i < nrIn; i++) {
+                m_isTableIn[i] = isTable(nc.getInPort(i).getPortType());
+            }
+            for (ConnectionContainer cc : wfm.getIncomingConnectionsFor(nc.getID())) {
+                if (cc.getType() != ConnectionType.STD) {
+                    continue; // input of the workflow itself, size unknown
+                }
+                m_inSources[cc.getDestPort()] = cc.getSource();
+                m_inSourcePorts[cc.getDestPort()] = cc.getSourcePort();
+                m_inSpecs[cc.getDestPort()] =
+                    wfm.getNodeContainer(cc.getSource()).getOutPort(cc.getSourcePort()).getPortObjectSpec();
+            }
+
+            m_profile = nc.getExecutionProfiler().getLastProfile();
+            final NodeTimer timer = nc.getNodeTimer();
+            m_lastExecutionNanos = timer.getNrExecsSinceStart() > 0 && timer.getLastExecutionDuration() >= 0
+                ? multiply(timer.getLastExecutionDuration(), 1000000L) : -1;
+        }
+    }
+
+}
@@ -119,7 +119,11 @@ boolean isHeldByCurrentThread() {
      * @return this.
      */
     public WorkflowLock lock() {
-        m_reentrantLock.lock();
+        if (!m_reentrantLock.tryLock()) {
+            final long start = System.nanoTime();
+            m_reentrantLock.lock();
+            NodeExecutionProfiler.recordLockWait(System.nanoTime() - start);
+        }
         if (KNIMEConstants.ASSERTIONS_ENABLED) {
             hasNoChildLocked();
         }
@@ -359,6 +359,9 @@ public Thread newThread(final Runnable r) {
     /** Non-null object to check if successor execution is allowed - usually it is except for wizard execution. */
     private ExecutionController m_executionController;
 
+    /** Loop iteration plans, by loop start node. See {@link #getLoopIterationPlan(NodeID, NodeID)}. */
+    private final Map<NodeID, LoopIterationPlan> m_loopIterationPlans = new HashMap<>();
+
     /**
      * The root of everything, a workflow with no in- or outputs. This workflow holds the top level projects.
      */
@@ -3443,6 +3446,61 @@ void doAfterExecution(final NodeContainer nc, final NodeContainerExecutionStatus
         }
     }
 
+    /**
+     * The graph information needed to restart a loop: the nodes of the loop body (in reset/configure order) and the
+     * successors of the loop start that are configured after the body was reset. Computing them requires traversing
+     * the graph; as they only change with the structure of the workflow they are cached across iterations.
+     */
+    private static final class LoopIterationPlan {
+
+        private final NodeID m_tailNode;
+
+        private final long m_structureVersion;
+
+        /** The loop body, see {@link Workflow#findAllNodesConnectedToLoopBody(NodeID, NodeID)}. */
+        private final List<NodeAndInports> m_loopBodyNodes;
+
+        /** The start node and its successors, see {@link Workflow#getBreadthFirstListOfNodeAndSuccessors}. */
+        private final LinkedHashMap<NodeID, Set<Integer>> m_headSuccessors;
+
+        LoopIterationPlan(final NodeID tailNode, final long structureVersion,
+            final List<NodeAndInports> loopBodyNodes, final LinkedHashMap<NodeID, Set<Integer>> headSuccessors) {
+            m_tailNode = tailNode;
+            m_structureVersion = structureVersion;
+            m_loopBodyNodes = Collections.unmodifiableList(loopBodyNodes);
+            m_headSuccessors = headSuccessors;
+        }
+    }
+
+    /**
+     * Returns the (possibly cached) iteration plan of the loop with the given start and end node. Plans are discarded
+     * as soon as the structure of the workflow changes.
+     *
+     * @param headNode the loop start
+     * @param tailNode the loop end
+     * @return the plan, not null
+     * @throws IllegalLoopException if the loop is ill-posed, see
+     *             {@link Workflow#findAllNodesConnectedToLoopBody(NodeID, NodeID)}
+     */
+    private LoopIterationPlan getLoopIterationPlan(final NodeID headNode, final NodeID tailNode)
+        throws IllegalLoopException {
+        assert m_workflowLock.isHeldByCurrentThread();
+        final long structureVersion = m_workflow.getStructureVersion();
+        LoopIterationPlan plan = m_loopIterationPlans.get(headNode);
+        if (plan != null && plan.m_structureVersion == structureVersion && plan.m_tailNode.equals(tailNode)) {
+            return plan;
+        }
+        if (plan != null && plan.m_structureVersion != structureVersion) {
+            // all plans are outdated
+            m_loopIterationPlans.clear();
+        }
+        plan = new LoopIterationPlan(tailNode, structureVersion,
+            m_workflow.findAllNodesConnectedToLoopBody(headNode, tailNode),
+            m_workflow.getBreadthFirstListOfNodeAndSuccessors(headNode, false));
+        m_loopIterationPlans.put(headNode, plan);
+        return plan;
+    }
+
     /**
      * Restart execution of a loop if possible. Can delay restart if we are still waiting for some node in the loop body
      * (or any dangling loop branches) to finish execution
@@ -3459,9 +3517,9 @@ private void restartLoop(final FlowLoopContext slc) throws IllegalLoopException
         if (!(tailNode instanceof NativeNodeContainer) || !(headNode instanceof NativeNodeContainer)) {
             throw new IllegalLoopException("Loop Nodes must both be NativeNodeContainers!");
         }
-        // (1) find all intermediate node, the loop's "body"
-        ArrayList<NodeAndInports> loopBodyNodes =
-            m_workflow.findAllNodesConnectedToLoopBody(headNode.getID(), tailNode.getID());
+        // (1) find all intermediate node, the loop's "body" (cached as long as the workflow isn't changed)
+        LoopIterationPlan plan = getLoopIterationPlan(headNode.getID(), tailNode.getID());
+        List<NodeAndInports> loopBodyNodes = plan.m_loopBodyNodes;
         // (2) check if any of those nodes are currently executing (note that since 3.0 we are already
         //     marking/queuing those nodes already in doAfterExecute to fix bug 2292!)
         for (NodeAndInports nai : loopBodyNodes) {
@@ -3521,7 +3579,7 @@ private void restartLoop(final FlowLoopContext slc) throws IllegalLoopException
             //     do NOT configure start of loop because otherwise
             //     we will re-create the FlowObjectStack and
             //     remove the loop-object as well!
-            configureNodeAndPortSuccessors(headNode.getID(), null, false, true, false);
+            configureSortedNodes(headNode.getID(), new LinkedHashMap<>(plan.m_headSuccessors), false, true, false);
             // the tail node may have thrown an exception inside
             // configure, so we have to check here if the node
             // is really configured before. (Failing configures in
@@ -3658,8 +3716,7 @@ private void parallelizeLoop(final NodeID startID) throws IllegalLoopException {
                     }
                 }
             }
-            ParallelizedChunkContentMaster pccm =
-                new ParallelizedChunkContentMaster(subwfm, endNode, startNode.getNrRemoteChunks());
+            final int nrMicroChunks = startNode.getNrMicroChunks();
             final NativeNodeContainer startNC;
             if (subwfm != null && startNode instanceof AbstractPortObjectRepositoryNodeModel) {
                 startNC = (NativeNodeContainer)getNodeContainer(startID);
@@ -3668,6 +3725,16 @@ private void parallelizeLoop(final NodeID startID) throws IllegalLoopException {
             }
 
             ExecutionContext exec = startNC != null ? startNC.createExecutionContext() : null;
+            final ParallelizedChunkContentMaster pccm;
+            if (subwfm != null && nrMicroChunks > startNode.getNrRemoteChunks() && endNode.supportsMicroChunks()) {
+                // chunks process one micro chunk after the other, results are held by the start node
+                ExecutionContext startExec =
+                    exec != null ? exec : ((NativeNodeContainer)getNodeContainer(startID)).createExecutionContext();
+                pccm = new ParallelizedChunkContentMaster(subwfm, endNode, startNode.getNrRemoteChunks(), startNode,
+                    nrMicroChunks, startExec);
+            } else {
+                pccm = new ParallelizedChunkContentMaster(subwfm, endNode, startNode.getNrRemoteChunks());
+            }
             for (int i = 0; i < startNode.getNrRemoteChunks(); i++) {
                 ParallelizedChunkContent copiedNodes =
                     duplicateLoopBodyInSubWFMandAttach(subwfm, extInConnections, startID, endID, loopNodes, i);
@@ -6532,6 +6599,19 @@ private void configureNodeAndPortSuccessors(final NodeID nodeId, final Set<Integ
                 // take all nodes
                 nodes = m_workflow.getBreadthFirstListOfNodeAndSuccessors(nodeId, false);
             }
+            configureSortedNodes(nodeId, nodes, configureMyself, configureParent, updateWFMState);
+        }
+    }
+
+    /**
+     * Configures the given nodes, see {@link #configureNodeAndPortSuccessors(NodeID, Set, boolean, boolean, boolean)}.
+     *
+     * @param nodeId the node whose successors are configured
+     * @param nodes the breadth first sorted successors of the node (including itself), modified by this method
+     */
+    private void configureSortedNodes(final NodeID nodeId, final LinkedHashMap<NodeID, Set<Integer>> nodes,
+        final boolean configureMyself, final boolean configureParent, final boolean updateWFMState) {
+        try (WorkflowLock lock = assertLock()) {
             // remember which ones we did configure to avoid useless configurations
             // (this list does not contain nodes where configure() didn't change
             // the specs/handlers/stacks.
@@ -50,6 +50,7 @@
 
 import org.knime.core.node.port.PortObject;
 import org.knime.core.node.workflow.NodeID;
+import org.knime.core.node.workflow.WorkflowLock;
 import org.knime.core.node.workflow.WorkflowManager;
 
 /**
@@ -95,6 +96,23 @@ public void executeChunk() {
 	    }
 	}
 
+    /**
+     * Resets the chunk, sets the given input into the virtual input node and triggers execution again. Used to reuse
+     * the copied loop body for further (micro) chunks.
+     *
+     * @param input the new input of the chunk
+     * @since 4.5
+     */
+    public void executeChunk(final VirtualParallelizedChunkNodeInput input) {
+        try (WorkflowLock lock = m_manager.lock()) {
+            m_manager.resetAndConfigureNode(m_virtualInputID);
+            // reset clears the input, hence set it afterwards
+            m_manager.castNodeModel(m_virtualInputID, VirtualParallelizedChunkPortObjectInNodeModel.class)
+                .setVirtualNodeInput(input);
+        }
+        executeChunk();
+    }
+
     /**
 	 * @return the virtualOutputID
 	 */
@@ -48,19 +48,44 @@
  */
 package org.knime.core.node.workflow.virtual.parchunk;
 
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.knime.core.data.container.CloseableRowIterator;
+import org.knime.core.node.BufferedDataContainer;
+import org.knime.core.node.BufferedDataTable;
+import org.knime.core.node.CanceledExecutionException;
+import org.knime.core.node.ExecutionContext;
+import org.knime.core.node.KNIMEConstants;
+import org.knime.core.node.NodeLogger;
+import org.knime.core.node.port.PortObject;
 import org.knime.core.node.workflow.LoopEndParallelizeNode;
+import org.knime.core.node.workflow.LoopStartParallelizeNode;
 import org.knime.core.node.workflow.NodeContainer;
+import org.knime.core.node.workflow.NodeID;
 import org.knime.core.node.workflow.NodeStateChangeListener;
 import org.knime.core.node.workflow.NodeStateEvent;
 import org.knime.core.node.workflow.WorkflowManager;
+import org.knime.core.util.ThreadUtils;
 
 /**
  * Represents all parallel chunks ({@link ParallelizedChunkContent}) together and also encapsulating metanode.
  *
+ * <p>
+ * If created for micro chunks (see {@link LoopStartParallelizeNode#getNrMicroChunks()}), each chunk (copy of the loop
+ * body) processes one micro chunk after another: whenever a chunk finished, its result is copied, the chunk is reset
+ * and fed with the next unprocessed micro chunk, until all micro chunks are processed. The results are available in
+ * the original order via {@link #getMicroChunkOutportContent(int)}. In this mode a chunk only counts as executed once
+ * there are no more micro chunks to process.
+ *
  * @author M. Berthold, University of Konstanz
  */
 public class ParallelizedChunkContentMaster implements NodeStateChangeListener {
 
+    private static final NodeLogger LOGGER = NodeLogger.getLogger(ParallelizedChunkContentMaster.class);
+
     /** Individual chunks. */
     private ParallelizedChunkContent[] m_chunks;
 
@@ -70,6 +95,40 @@ public class ParallelizedChunkContentMaster implements NodeStateChangeListener {
     /** end node waiting for chunks. */
     private LoopEndParallelizeNode m_endNode;
 
+    /** start node providing the input of the micro chunks, null if not processing micro chunks. */
+    private final LoopStartParallelizeNode m_startNode;
+
+    /** context of the start node, used to copy the results of micro chunks (cleared when the start is reset). */
+    private final ExecutionContext m_exec;
+
+    /** overall number of micro chunks (equals number of chunks if not processing micro chunks). */
+    private final int m_nrMicroChunks;
+
+    /** next micro chunk to be processed. */
+    private final AtomicInteger m_nextMicroChunk;
+
+    /** copied results of the micro chunks, by micro chunk index (null if still held by the chunk or missing).
+     * Guarded by m_chunks. */
+    private PortObject[][] m_microChunkResults;
+
+    /** the last micro chunk processed by each chunk, its result is not copied but read from the chunk, -1 if none.
+     * Guarded by m_chunks. */
+    private final int[] m_lastMicroChunk;
+
+    /** the micro chunk currently processed by each chunk, -1 if the chunk is done. Guarded by m_chunks. */
+    private final int[] m_currentMicroChunk;
+
+    /** whether the result of a chunk is currently being collected. Guarded by m_chunks. */
+    private final boolean[] m_isCollecting;
+
+    /** whether collecting the result of a chunk failed. Guarded by m_chunks. */
+    private final boolean[] m_hasFailed;
+
+    /** chunk index by virtual output node. */
+    private final Map<NodeID, Integer> m_chunkIndexByOutputID = new ConcurrentHashMap<>();
+
+    private volatile boolean m_isCanceled;
+
     /** Create new chunk object master - also knows Workflowmanager
      * the chunks are located in.
      *
@@ -79,12 +138,90 @@ public class ParallelizedChunkContentMaster implements NodeStateChangeListener {
      */
     public ParallelizedChunkContentMaster(final WorkflowManager wfm,
             final LoopEndParallelizeNode endNode, final int chunkCount) {
+        this(wfm, endNode, chunkCount, null, chunkCount, null);
+    }
+
+    /**
+     * Create new chunk object master processing micro chunks, see {@link LoopStartParallelizeNode#getNrMicroChunks()}.
+     * The first <code>chunkCount</code> micro chunks are expected to be set into the chunks added via
+     * {@link #addParallelChunk(int, ParallelizedChunkContent)} (chunk <i>i</i> processes micro chunk <i>i</i>).
+     *
+     * @param wfm the workflowmanager holding the chunks
+     * @param endNode corresponding end node of the loop
+     * @param chunkCount the number of chunks, i.e. copies of the loop body
+     * @param startNode the start node providing the input of the micro chunks
+     * @param microChunkCount the number of micro chunks
+     * @param exec execution context of the start node, used to copy the tables resulting from micro chunks
+     * @since 4.5
+     */
+    public ParallelizedChunkContentMaster(final WorkflowManager wfm, final LoopEndParallelizeNode endNode,
+        final int chunkCount, final LoopStartParallelizeNode startNode, final int microChunkCount,
+        final ExecutionContext exec) {
+        if (microChunkCount < chunkCount) {
+            throw new IllegalArgumentException(
+                "Number of micro chunks (" + microChunkCount + ") less than number of chunks (" + chunkCount + ")");
+        }
         m_manager = wfm;
         m_endNode = endNode;
         m_chunks = new ParallelizedChunkContent[chunkCount];
+        m_startNode = startNode;
+        m_exec = exec;
+        m_nrMicroChunks = microChunkCount;
+        m_nextMicroChunk = new AtomicInteger(chunkCount);
+        m_microChunkResults = new PortObject[microChunkCount][];
+        m_currentMicroChunk = new int[chunkCount];
+        Arrays.fill(m_currentMicroChunk, -1);
+        m_lastMicroChunk = new int[chunkCount];
+        Arrays.fill(m_lastMicroChunk, -1);
+        m_isCollecting = new boolean[chunkCount];
+        m_hasFailed = new boolean[chunkCount];
         m_endNode.setParallelChunkMaster(this);
     }
 
+    /**
+     * @return whether the chunks process more than one (micro) chunk each, see
+     *         {@link LoopStartParallelizeNode#getNrMicroChunks()}
+     * @since 4.5
+     */
+    public boolean isMicroChunked() {
+        return m_startNode != null && m_nrMicroChunks > m_chunks.length;
+    }
+
+    /**
+     * @return number of micro chunks; equal to {@link #nrChunks()} if not {@link #isMicroChunked() micro chunked}
+     * @since 4.5
+     */
+    public int nrMicroChunks() {
+        return m_nrMicroChunks;
+    }
+
+    /**
+     * Returns the result of a micro chunk, to be called once all chunks are executed (and none failed).
+     *
+     * @param microChunkIndex index of the micro chunk
+     * @return array with PortObjects at the end node for the given micro chunk
+     * @throws IllegalStateException if the micro chunk was not (successfully) processed, e.g. as the execution was
+     *             canceled
+     * @since 4.5
+     */
+    public PortObject[] getMicroChunkOutportContent(final int microChunkIndex) {
+        if (!isMicroChunked()) {
+            return getChunk(microChunkIndex).getOutportContent();
+        }
+        synchronized (m_chunks) {
+            PortObject[] result = m_microChunkResults[microChunkIndex];
+            if (result != null) {
+                return result;
+            }
+            for (int i = 0; i < m_chunks.length; i++) {
+                if (m_lastMicroChunk[i] == microChunkIndex && m_chunks[i] != null) {
+                    return m_chunks[i].getOutportContent();
+                }
+            }
+        }
+        throw new IllegalStateException("No result for micro chunk " + microChunkIndex);
+    }
+
     /** Add a new chunk to the list.
      *
      * @param index of chunk
@@ -95,7 +232,17 @@ public void addParallelChunk(final int index, final ParallelizedChunkContent pcc
             throw new IllegalArgumentException("Duplicate chunk index: " + index);
         }
         m_chunks[index] = pcc;
+        if (isMicroChunked()) {
+            synchronized (m_chunks) {
+                m_currentMicroChunk[index] = index;
+            }
+            m_chunkIndexByOutputID.put(pcc.getVirtualOutputID(), index);
+        }
         pcc.registerLoopEndStateChangeListener(this);
+        if (isMicroChunked()) {
+            // the chunk may have finished before the listener was registered
+            collectIfExecuted(index);
+        }
     }
 
     /**
@@ -134,7 +281,7 @@ public int nrExecutedChunks() {
         int count = 0;
         for (int i = 0; i < m_chunks.length; i++) {
             ParallelizedChunkContent pcc = m_chunks[i];
-            if (pcc.isExecuted()) {
+            if (pcc.isExecuted() && !hasPendingMicroChunk(i) && !hasFailedMicroChunk(i)) {
                 count++;
             }
         }
@@ -148,7 +295,7 @@ public int nrExecutingChunks() {
         int count = 0;
         for (int i = 0; i < m_chunks.length; i++) {
             ParallelizedChunkContent pcc = m_chunks[i];
-            if (pcc.executionInProgress()) {
+            if (pcc.executionInProgress() || (pcc.isExecuted() && hasPendingMicroChunk(i))) {
                 count++;
             }
         }
@@ -162,7 +309,7 @@ public int nrFailedChunks() {
         int count = 0;
         for (int i = 0; i < m_chunks.length; i++) {
             ParallelizedChunkContent pcc = m_chunks[i];
-            if ((!pcc.executionInProgress()) && (!pcc.isExecuted())) {
+            if (hasFailedMicroChunk(i) || ((!pcc.executionInProgress()) && (!pcc.isExecuted()) && !isCollecting(i))) {
                 count++;
             }
         }
@@ -173,6 +320,7 @@ public int nrFailedChunks() {
      * Trigger cancelation of chunk execution
      */
     public void cancelChunkExecution() {
+        m_isCanceled = true;
         synchronized (m_chunks) {
             for (int i = 0; i < m_chunks.length; i++) {
                 ParallelizedChunkContent pbc = m_chunks[i];
@@ -195,6 +343,9 @@ public void cleanupChunks() {
                     m_chunks[i] = null;
                 }
             }
+            m_chunkIndexByOutputID.clear();
+            m_microChunkResults = new PortObject[m_nrMicroChunks][];
+            Arrays.fill(m_lastMicroChunk, -1);
             if ((m_manager != null) && m_manager.getParent().containsNodeContainer(m_manager.getID())) {
                 WorkflowManager parent = m_manager.getParent();
                 NodeContainer nc = parent.getNodeContainer(m_manager.getID());
@@ -214,8 +365,134 @@ public void cleanupChunks() {
      */
     @Override
     public void stateChanged(final NodeStateEvent state) {
+        if (isMicroChunked()) {
+            Integer chunkIndex = m_chunkIndexByOutputID.get(state.getSource());
+            if (chunkIndex != null && collectIfExecuted(chunkIndex)) {
+                // end node is notified once the chunk has no more micro chunks to process
+                return;
+            }
+        }
         // notify end node about new status
         m_endNode.updateStatus();
     }
 
+    private boolean hasPendingMicroChunk(final int chunkIndex) {
+        synchronized (m_chunks) {
+            return isMicroChunked() && m_currentMicroChunk[chunkIndex] >= 0;
+        }
+    }
+
+    private boolean isCollecting(final int chunkIndex) {
+        synchronized (m_chunks) {
+            return m_isCollecting[chunkIndex];
+        }
+    }
+
+    private boolean hasFailedMicroChunk(final int chunkIndex) {
+        synchronized (m_chunks) {
+            return m_hasFailed[chunkIndex];
+        }
+    }
+
+    /**
+     * Checks whether the given chunk finished its current micro chunk and, if so, triggers collecting its result
+     * and the processing of the next micro chunk in the background.
+     *
+     * @return whether collecting was triggered
+     */
+    private boolean collectIfExecuted(final int chunkIndex) {
+        synchronized (m_chunks) {
+            ParallelizedChunkContent pcc = m_chunks[chunkIndex];
+            if (pcc == null || m_currentMicroChunk[chunkIndex] < 0 || m_isCollecting[chunkIndex]
+                || !pcc.isExecuted()) {
+                return false;
+            }
+            m_isCollecting[chunkIndex] = true;
+        }
+        // not in the notification thread, which may hold the workflow lock
+        KNIMEConstants.GLOBAL_THREAD_POOL
+            .enqueue(ThreadUtils.runnableWithContext(() -> collectAndContinue(chunkIndex), false));
+        return true;
+    }
+
+    private void collectAndContinue(final int chunkIndex) {
+        ParallelizedChunkContent pcc;
+        int microChunk;
+        synchronized (m_chunks) {
+            pcc = m_chunks[chunkIndex];
+            microChunk = m_currentMicroChunk[chunkIndex];
+            if (pcc == null) {
+                // cleaned up in the meantime
+                return;
+            }
+        }
+        boolean failed = false;
+        int next = m_nextMicroChunk.getAndIncrement();
+        try {
+            if (next < m_nrMicroChunks && !m_isCanceled) {
+                // the chunk is reset for the next micro chunk, hence the result needs to be copied
+                final PortObject[] copies = copyResults(pcc.getOutportContent());
+                synchronized (m_chunks) {
+                    if (m_chunks[chunkIndex] != pcc) {
+                        // cleaned up while copying
+                        return;
+                    }
+                    m_microChunkResults[microChunk] = copies;
+                    m_currentMicroChunk[chunkIndex] = next;
+                }
+                pcc.executeChunk(m_startNode.getVirtualNodeInput(next));
+                synchronized (m_chunks) {
+                    m_isCollecting[chunkIndex] = false;
+                }
+                // the chunk may have finished already (without being collected as it was still flagged)
+                collectIfExecuted(chunkIndex);
+                return;
+            }
+            if (next < m_nrMicroChunks) {
+                LOGGER.debug("Micro chunks " + next + " to " + (m_nrMicroChunks - 1) + " not processed (canceled)");
+                failed = true;
+            }
+        } catch (CanceledExecutionException | RuntimeException e) {
+            LOGGER.error("Collecting micro chunk " + microChunk + " failed: " + e.getMessage(), e);
+            failed = true;
+        }
+        synchronized (m_chunks) {
+            if (!failed) {
+                // the last micro chunk of this chunk -- not reset anymore, the result is read from the chunk
+                m_lastMicroChunk[chunkIndex] = microChunk;
+            }
+            m_currentMicroChunk[chunkIndex] = -1;
+            m_isCollecting[chunkIndex] = false;
+            m_hasFailed[chunkIndex] = failed;
+        }
+        m_endNode.updateStatus();
+    }
+
+    /**
+     * Copies the tables of a micro chunk's result as they are cleared when the chunk is reset for the next micro
+     * chunk. The copies are owned by the start node.
+     */
+    private PortObject[] copyResults(final PortObject[] results) throws CanceledExecutionException {
+        PortObject[] copies = new PortObject[results.length];
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] instanceof BufferedDataTable) {
+                // not createBufferedDataTable(BufferedDataTable, ...), which returns the (to be cleared) argument
+                BufferedDataTable table = (BufferedDataTable)results[i];
+                BufferedDataContainer cont = m_exec.createDataContainer(table.getDataTableSpec());
+                try (CloseableRowIterator it = table.iterator()) {
+                    while (it.hasNext()) {
+                        m_exec.checkCanceled();
+                        cont.addRowToTable(it.next());
+                    }
+                } finally {
+                    cont.close();
+                }
+                copies[i] = cont.getTable();
+            } else {
+                copies[i] = results[i];
+            }
+        }
+        return copies;
+    }
+
 }
@@ -0,0 +1,221 @@
+/*
+ * ------------------------------------------------------------------------
+ *
+ *  Copyright by KNIME AG, Zurich, Switzerland
+ *  Website: http://www.knime.com; Email: contact@knime.com
+ *
+ *  This program is free software; you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License, Version 3, as
+ *  published by the Free Software Foundation.
+ *
+ *  This program is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses>.
+ *
+ *  Additional permission under GNU GPL version 3 section 7:
+ *
+ *  KNIME interoperates with ECLIPSE solely via ECLIPSE's plug-in APIs.
+ *  Hence, KNIME and ECLIPSE are both independent programs and are not
+ *  derived from each other. Should, however, the interpretation of the
+ *  GNU GPL Version 3 ("License") under any applicable laws result in
+ *  KNIME and ECLIPSE being a combined program, KNIME AG herewith grants
+ *  you the additional permission to use and propagate KNIME together with
+ *  ECLIPSE with only the license terms in place for ECLIPSE applying to
+ *  ECLIPSE and the GNU GPL Version 3 applying for KNIME, provided the
+ *  license terms of ECLIPSE themselves allow for the respective use and
+ *  propagation of ECLIPSE together with KNIME.
+ *
+ *  Additional permission relating to nodes for KNIME that extend the Node
+ *  Extension (and in particular that are based on subclasses of NodeModel,
+ *  NodeDialog, and NodeView) and that only interoperate with KNIME through
+ *  standard APIs ("Nodes"):
+ *  Nodes are deemed to be separate and independent programs and to not be
+ *  covered works.  Notwithstanding anything to the contrary in the
+ *  License, the License does not apply to Nodes, you are not required to
+ *  license Nodes under the License, and you are granted a license to
+ *  prepare and propagate Nodes, in each case even if such Nodes are
+ *  propagated with or for interoperation with KNIME.  The owner of a Node
+ *  may freely choose the license terms applicable to such Node, including
+ *  when such Node is propagated with or for interoperation with KNIME.
+ * ---------------------------------------------------------------------
+ */
+package org.knime.core.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * A {@link MultiThreadWorker} that processes contiguous blocks of input elements rather than single elements. Each
+ * worker computes the outputs for all elements of a {@link Batch} and the results are passed to
+ * {@link #processFinished(MultiThreadWorker.ComputationTask) processFinished} as a list, in input order. This
+ * amortizes the overhead of task submission and output ordering for cheap computations.
+ *
+ * <p>
+ * The batch size adapts to the measured computation time per element: it starts with {@value #INITIAL_BATCH_SIZE}
+ * elements and is chosen so that a batch takes about one millisecond, between one element (expensive computations
+ * behave as in the unbatched worker) and {@value #MAX_BATCH_SIZE} elements. The queue size and number of active
+ * instances passed to the constructor count batches, not elements.
+ *
+ * <p>
+ * Ordering and cancellation semantics are those of {@link MultiThreadWorker}. An exception thrown by
+ * {@link #computeElement(Object, long)} fails the entire batch, i.e. it is rethrown by the task's
+ * {@link MultiThreadWorker.ComputationTask#get() get} method.
+ *
+ * @param <In> The type of input to be processed.
+ * @param <Out> The output type generated by the {@link #computeElement(Object, long)} method.
+ * @author KNIME AG, Zurich, Switzerland
+ * @since 4.5
+ */
+public abstract class BatchedMultiThreadWorker<In, Out>
+    extends MultiThreadWorker<BatchedMultiThreadWorker.Batch<In>, List<Out>> {
+
+    /** Number of elements in the first batches, before the computation time is known. */
+    static final int INITIAL_BATCH_SIZE = 16;
+
+    /** Maximum number of elements in a batch. */
+    static final int MAX_BATCH_SIZE = 256;
+
+    /** Computation time aimed at per batch. */
+    private static final long TARGET_BATCH_NANOS = 1_000_000L;
+
+    /** Moving average of the computation time per element, negative if not known yet. Updated by the workers without
+     * synchronization, lost updates are irrelevant. */
+    private volatile double m_nanosPerElement = -1.0;
+
+    /**
+     * Creates new worker, see {@link MultiThreadWorker#MultiThreadWorker(int, int)}.
+     *
+     * @param maxQueueSize Maximum number of finished batches cached to ensure the output ordering.
+     * @param maxActiveInstanceSize The maximum number of simultaneously computed batches.
+     */
+    protected BatchedMultiThreadWorker(final int maxQueueSize, final int maxActiveInstanceSize) {
+        super(maxQueueSize, maxActiveInstanceSize);
+    }
+
+    /**
+     * Processes the input in batches. Use this method instead of {@link #run(Iterable)}.
+     *
+     * @param inputIterable The input elements.
+     * @throws InterruptedException If the main execution has been interrupted.
+     * @throws ExecutionException If an exception is thrown in a worker thread that is not otherwise handled.
+     * @throws CancellationException If {@link #cancel(boolean)} has been called.
+     * @see MultiThreadWorker#run(Iterable)
+     */
+    public void runBatched(final Iterable<In> inputIterable) throws InterruptedException, ExecutionException {
+        run(() -> new BatchIterator(inputIterable.iterator()));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    protected final List<Out> compute(final Batch<In> batch, final long batchIndex) throws Exception {
+        final long start = System.nanoTime();
+        final List<Out> result = new ArrayList<>(batch.size());
+        long index = batch.getFirstIndex();
+        for (In in : batch.getElements()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            result.add(computeElement(in, index));
+            index += 1L;
+        }
+        final double nanosPerElement = (System.nanoTime() - start) / (double)Math.max(batch.size(), 1);
+        final double previous = m_nanosPerElement;
+        m_nanosPerElement = previous < 0.0 ? nanosPerElement : (0.75 * previous + 0.25 * nanosPerElement);
+        return result;
+    }
+
+    /**
+     * Performs the computation for a given input element. This method is called concurrently for elements of
+     * different batches and sequentially for the elements of a batch.
+     *
+     * @param in The element.
+     * @param index The index of the element in the input.
+     * @return The computed output
+     * @throws Exception Any exception, fails the computation of the batch.
+     */
+    protected abstract Out computeElement(In in, long index) throws Exception;
+
+    /** @return the size of the next batch, based on the computation time per element measured so far */
+    int nextBatchSize() {
+        final double nanosPerElement = m_nanosPerElement;
+        if (nanosPerElement < 0.0) {
+            return INITIAL_BATCH_SIZE;
+        }
+        final double size = TARGET_BATCH_NANOS / Math.max(nanosPerElement, 1.0);
+        return (int)Math.max(1, Math.min(MAX_BATCH_SIZE, size));
+    }
+
+    /**
+     * A contiguous block of input elements.
+     *
+     * @param <In> The type of the elements.
+     */
+    public static final class Batch<In> {
+
+        private final long m_firstIndex;
+
+        private final List<In> m_elements;
+
+        private Batch(final long firstIndex, final List<In> elements) {
+            m_firstIndex = firstIndex;
+            m_elements = Collections.unmodifiableList(elements);
+        }
+
+        /** @return the index of the first element of the batch in the input */
+        public long getFirstIndex() {
+            return m_firstIndex;
+        }
+
+        /** @return the elements, in input order */
+        public List<In> getElements() {
+            return m_elements;
+        }
+
+        /** @return the number of elements */
+        public int size() {
+            return m_elements.size();
+        }
+    }
+
+    /** Cuts the input into batches, called by the thread running the worker. */
+    private final class BatchIterator implements Iterator<Batch<In>> {
+
+        private final Iterator<In> m_input;
+
+        private long m_nextIndex;
+
+        private BatchIterator(final Iterator<In> input) {
+            m_input = input;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return m_input.hasNext();
+        }
+
+        @Override
+        public Batch<In> next() {
+            if (!m_input.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final int batchSize = nextBatchSize();
+            final List<In> elements = new ArrayList<>(batchSize);
+            while (elements.size() < batchSize && m_input.hasNext()) {
+                elements.add(m_input.next());
+            }
+            final Batch<In> batch = new Batch<>(m_nextIndex, elements);
+            m_nextIndex += elements.size();
+            return batch;
+        }
+    }
+
+}